@@ -1,6 +1,10 @@
+import java.io.IOException;
+
+import controller.BackgroundRefresher;
 import controller.Features;
 import controller.GUIController;
 import controller.PortfolioControllerImpl;
+import controller.WarmUp;
 import view.ManagementGUIViewImpl;
 import model.ManagementModel;
 import model.ManagementModelImpl;
@@ -20,6 +24,12 @@ public class PortfolioManagementApplication {
    * @param args Unused command line arguments.
    */
   public static void main(String[] args) {
+    WarmUp.start();
+    try {
+      BackgroundRefresher.start();
+    } catch (IOException e) {
+      // without a configuration the data is refreshed when it is used.
+    }
     try {
       ManagementModel model = new ManagementModelImpl();
       if (args.length >= 1 && args[0].trim().equalsIgnoreCase("text")) {
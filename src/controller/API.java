@@ -2,8 +2,8 @@ package controller;
 
 import java.io.IOException;
 import java.text.ParseException;
-import java.util.List;
-import java.util.Map;
+
+import model.PriceSeries;
 
 /**
  * An API interface class that will be used to support different type of APIs as per the data
@@ -15,9 +15,20 @@ public interface API {
    * symbol passed to it.
    *
    * @param ticker ticker symbol of the company whose stocks are listed.
-   * @return API data in the form of List of map.
+   * @return API data in the form of price series of the ticker.
+   * @throws IOException file I/O exception.
+   * @throws ParseException file incorrectly parse exception.
+   */
+  PriceSeries getStockDetails(String ticker) throws IOException, ParseException;
+
+  /**
+   * Fetches only the latest trading days of the stock data of the company, which is much smaller
+   * than the whole history and is used to bring the stored data up to date.
+   *
+   * @param ticker ticker symbol of the company whose stocks are listed.
+   * @return API data of the latest trading days in the form of price series of the ticker.
    * @throws IOException file I/O exception.
    * @throws ParseException file incorrectly parse exception.
    */
-  List<Map<String, String>> getStockDetails(String ticker) throws IOException, ParseException;
+  PriceSeries getRecentStockDetails(String ticker) throws IOException, ParseException;
 }
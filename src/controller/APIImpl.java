@@ -1,16 +1,14 @@
 package controller;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 
-import javax.xml.parsers.ParserConfigurationException;
+import model.PriceSeries;
 
 /**
  * An implementation of the API interface class that uses it methods to implement the methods and
@@ -18,33 +16,135 @@ import javax.xml.parsers.ParserConfigurationException;
  */
 public class APIImpl implements API {
 
+  private static RateLimiter defaultLimiter;
+
+  private final String baseUrl;
+  private final String apiKey;
+  private final RateLimiter limiter;
+  private final int retries;
+  private final long retryDelayMillis;
+
+  /**
+   * Constructs the API over the endpoint given by {@code API_BASE_URL} in the configuration,
+   * Alpha Vantage by default, with the key and the quotas read from the configuration.
+   */
+  public APIImpl() {
+    this(null, null, null);
+  }
+
+  /**
+   * Constructs the API over the given endpoint, for example a local stub server.
+   *
+   * @param baseUrl url of the query endpoint, null to read it from the configuration.
+   * @param apiKey  key of the API, null to read it from the configuration.
+   * @param limiter limiter of the API calls, null to use the quotas of the configuration.
+   */
+  public APIImpl(String baseUrl, String apiKey, RateLimiter limiter) {
+    this(baseUrl, apiKey, limiter, 2, 1000);
+  }
+
+  /**
+   * Constructs the API over the given endpoint that retries a request answered with the
+   * throttling message of the API after a delay that doubles with every retry.
+   *
+   * @param baseUrl          url of the query endpoint, null to read it from the configuration.
+   * @param apiKey           key of the API, null to read it from the configuration.
+   * @param limiter          limiter of the API calls, null to use the quotas of the
+   *                         configuration.
+   * @param retries          number of retries of a throttled request.
+   * @param retryDelayMillis delay before the first retry in milliseconds.
+   */
+  public APIImpl(String baseUrl, String apiKey, RateLimiter limiter, int retries,
+                 long retryDelayMillis) {
+    this.baseUrl = baseUrl;
+    this.apiKey = apiKey;
+    this.limiter = limiter;
+    this.retries = retries;
+    this.retryDelayMillis = retryDelayMillis;
+  }
+
+  @Override
+  public PriceSeries getStockDetails(String ticker) throws IOException,
+          ParseException {
+    FileOperation file = new FileOperation();
+    InputStream response = fetch(ticker, "full");
+    try (response) {
+      return file.generateFile(response, ticker);
+    } catch (IOException e) {
+      throw new IOException("An error occurred while reading the file.");
+    }
+  }
+
   @Override
-  public List<Map<String, String>> getStockDetails(String ticker) throws IOException,
+  public PriceSeries getRecentStockDetails(String ticker) throws IOException,
           ParseException {
     FileOperation file = new FileOperation();
+    InputStream response = fetch(ticker, "compact");
+    try (response) {
+      return file.generateSeries(response, ticker);
+    } catch (IOException e) {
+      throw new IOException("An error occurred while reading the file.");
+    }
+  }
+
+  private InputStream fetch(String ticker, String outputSize) throws IOException {
     URL url;
     try {
-      url = new URL("https://www.alphavantage"
-              + ".co/query?function=TIME_SERIES_DAILY"
-              + "&outputsize=full"
+      url = new URL((baseUrl == null
+              ? Configuration.current().getApiBaseUrl() : baseUrl)
+              + "?function=TIME_SERIES_DAILY"
+              + "&outputsize=" + outputSize
               + "&symbol"
-              + "=" + ticker + "&apikey=" + file.configReader().get("API_KEY") + "&datatype=csv");
-      List<String[]> apiData = new ArrayList<>();
-      BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()));
-      String b;
-      while ((b = reader.readLine()) != null) {
-        String[] rowData = b.split(",");
-        apiData.add(rowData);
-      }
-      file.generateFile(apiData, ticker);
-      return file.generateTickerMap(apiData, ticker);
+              + "=" + ticker + "&apikey="
+              + (apiKey == null ? Configuration.current().getApiKey() : apiKey)
+              + "&datatype=csv");
     } catch (MalformedURLException e) {
       throw new RuntimeException("the alpha vantage API has either changed or "
               + "no longer works");
-    } catch (IOException e) {
-      throw new IOException("An error occurred while reading the file.");
-    } catch (ParserConfigurationException e) {
-      throw new ParseException("Error parsing the file.", 1);
+    }
+    try {
+      for (int attempt = 0; ; attempt++) {
+        if (!limiter().acquire()) {
+          throw new IOException("The daily limit of the stock API has been reached.");
+        }
+        InputStream response = new BufferedInputStream(url.openStream());
+        if (!isThrottled(response)) {
+          return response;
+        }
+        response.close();
+        if (attempt >= retries) {
+          throw new IOException("The stock API is busy, please try again later.");
+        }
+        Thread.sleep(retryDelayMillis << attempt);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("The request for " + ticker + " was interrupted.");
+    }
+  }
+
+  private static boolean isThrottled(InputStream response) throws IOException {
+    response.mark(1024);
+    byte[] start = new byte[512];
+    int length = response.read(start, 0, start.length);
+    response.reset();
+    if (length <= 0) {
+      return false;
+    }
+    String text = new String(start, 0, length, StandardCharsets.UTF_8);
+    return text.trim().startsWith("{")
+            && (text.contains("\"Note\"") || text.contains("\"Information\""));
+  }
+
+  private RateLimiter limiter() throws IOException {
+    if (limiter != null) {
+      return limiter;
+    }
+    synchronized (APIImpl.class) {
+      if (defaultLimiter == null) {
+        defaultLimiter = RateLimiter.fromConfig(Configuration.current());
+      }
+      return defaultLimiter;
     }
   }
 }
@@ -0,0 +1,332 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class refreshes the stock data of every ticker held by the saved portfolios and strategies
+ * in the background, so that the data is already current when a portfolio is opened and its
+ * valuation doesn't wait on the API. A refresh runs when the application starts and every
+ * weekday at a configured time after the market closed. The tickers are loaded by the
+ * {@link Prefetcher}, so the calls to the API are limited by its {@link RateLimiter} and shared
+ * with the requests made at the same time. The progress of the current refresh and the outcome
+ * of the last one are kept as metrics.
+ */
+public final class BackgroundRefresher implements Closeable {
+
+  private static BackgroundRefresher started;
+
+  private final Source source;
+  private final Loader loader;
+  private final Prefetcher prefetcher;
+  private final Clock clock;
+  private final ScheduledExecutorService executor;
+  private LocalTime dailyAt;
+  private boolean running;
+  private long runs;
+  private long refreshed;
+  private long failed;
+  private int completed;
+  private int total;
+  private long lastMillis;
+  private String lastError;
+  private Map<String, String> lastFailures = Collections.emptyMap();
+
+  /**
+   * A source collects the tickers to be refreshed.
+   */
+  public interface Source {
+    /**
+     * The method returns the tickers to be refreshed.
+     *
+     * @return ticker symbols.
+     * @throws IOException if the tickers can't be collected.
+     */
+    Collection<String> tickers() throws IOException;
+  }
+
+  /**
+   * A loader makes the data of a single ticker current.
+   */
+  public interface Loader {
+    /**
+     * Refreshes the data of the ticker.
+     *
+     * @param ticker ticker symbol of the share.
+     * @param closed whether the market of today has closed, so the day can be fetched.
+     * @throws Exception if the data couldn't be refreshed.
+     */
+    void load(String ticker, boolean closed) throws Exception;
+  }
+
+  /**
+   * Constructs the refresher of the tickers of the given source.
+   *
+   * @param source      source of the tickers to be refreshed.
+   * @param loader      loader that refreshes a single ticker.
+   * @param parallelism maximum number of tickers refreshed at the same time.
+   * @throws IllegalArgumentException if the parallelism is not positive.
+   */
+  public BackgroundRefresher(Source source, Loader loader, int parallelism)
+          throws IllegalArgumentException {
+    this(source, loader, parallelism, Clock.systemDefaultZone());
+  }
+
+  BackgroundRefresher(Source source, Loader loader, int parallelism, Clock clock)
+          throws IllegalArgumentException {
+    this.prefetcher = new Prefetcher(parallelism);
+    this.source = source;
+    this.loader = loader;
+    this.clock = clock;
+    this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "background-refresh");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * The method starts the refresher of the application as configured by
+   * {@code REFRESH_ON_START} and {@code REFRESH_AT}. It refreshes the tickers of the saved
+   * portfolios through the shared API. Calling it again returns the started refresher.
+   *
+   * @return the refresher, null if no refresh is configured.
+   * @throws IOException if the configuration can't be read.
+   */
+  public static synchronized BackgroundRefresher start() throws IOException {
+    if (started == null) {
+      Configuration configuration = Configuration.current();
+      if (!configuration.isRefreshOnStart() && configuration.getRefreshAt() == null) {
+        return null;
+      }
+      FileOperation file = new FileOperation();
+      started = new BackgroundRefresher(file::heldTickers, file::refreshTicker,
+              configuration.getPrefetchThreads());
+      started.schedule(configuration.isRefreshOnStart(), configuration.getRefreshAt());
+    }
+    return started;
+  }
+
+  /**
+   * The method returns the refresher started by {@link #start}.
+   *
+   * @return the refresher, null if it wasn't started.
+   */
+  public static synchronized BackgroundRefresher current() {
+    return started;
+  }
+
+  /**
+   * Schedules the refreshes. A refresh at a time of the day runs on weekdays only, since the
+   * market doesn't trade on weekends.
+   *
+   * @param now     whether a refresh runs right away.
+   * @param dailyAt local time after the market closed at which a refresh runs, null for none.
+   */
+  public synchronized void schedule(boolean now, LocalTime dailyAt) {
+    this.dailyAt = dailyAt;
+    if (now) {
+      executor.execute(() -> run(isClosed(ZonedDateTime.now(clock))));
+    }
+    scheduleNext();
+  }
+
+  /**
+   * The method refreshes every ticker of the source and waits for them. A refresh that is
+   * already running isn't started again.
+   *
+   * @param closed whether the market of today has closed.
+   * @return result of every ticker, empty if a refresh was already running.
+   * @throws IOException          if the tickers can't be collected.
+   * @throws InterruptedException if the thread is interrupted while waiting for the tickers.
+   */
+  public Map<String, Prefetcher.Result> refresh(boolean closed)
+          throws IOException, InterruptedException {
+    synchronized (this) {
+      if (running) {
+        return Collections.emptyMap();
+      }
+      running = true;
+      completed = 0;
+      total = 0;
+    }
+    long start = System.nanoTime();
+    Map<String, Prefetcher.Result> results = Collections.emptyMap();
+    String error = null;
+    try {
+      Collection<String> tickers = source.tickers();
+      results = prefetcher.prefetch(tickers, ticker -> loader.load(ticker, closed),
+              (result, done, count) -> progress(done, count));
+      return results;
+    } catch (IOException e) {
+      error = e.getMessage();
+      throw e;
+    } finally {
+      finish(results, error, System.nanoTime() - start);
+    }
+  }
+
+  private synchronized void progress(int done, int count) {
+    completed = done;
+    total = count;
+  }
+
+  private synchronized void finish(Map<String, Prefetcher.Result> results, String error,
+                                   long nanos) {
+    Map<String, String> failures = new LinkedHashMap<>();
+    for (Prefetcher.Result result : results.values()) {
+      if (result.isSuccess()) {
+        refreshed++;
+      } else {
+        failures.put(result.getTicker(), result.getError());
+      }
+    }
+    failed += failures.size();
+    lastFailures = Collections.unmodifiableMap(failures);
+    lastError = error;
+    lastMillis = TimeUnit.NANOSECONDS.toMillis(nanos);
+    runs++;
+    running = false;
+  }
+
+  private void run(boolean closed) {
+    try {
+      refresh(closed);
+    } catch (IOException e) {
+      // the error is kept as the outcome of the refresh.
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private synchronized void scheduleNext() {
+    if (dailyAt == null || executor.isShutdown()) {
+      return;
+    }
+    ZonedDateTime now = ZonedDateTime.now(clock);
+    ZonedDateTime next = now.with(dailyAt);
+    while (!next.isAfter(now) || isWeekend(next)) {
+      next = next.plusDays(1).with(dailyAt);
+    }
+    executor.schedule(() -> {
+      run(true);
+      scheduleNext();
+    }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized boolean isClosed(ZonedDateTime now) {
+    return dailyAt != null && !isWeekend(now) && !now.toLocalTime().isBefore(dailyAt);
+  }
+
+  private static boolean isWeekend(ZonedDateTime date) {
+    return date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+  }
+
+  /**
+   * The method checks if a refresh is running.
+   *
+   * @return true if a refresh is running, else false.
+   */
+  public synchronized boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * The method returns the number of refreshes that finished.
+   *
+   * @return number of refreshes.
+   */
+  public synchronized long getRuns() {
+    return runs;
+  }
+
+  /**
+   * The method returns the number of tickers refreshed by every refresh.
+   *
+   * @return number of refreshed tickers.
+   */
+  public synchronized long getRefreshed() {
+    return refreshed;
+  }
+
+  /**
+   * The method returns the number of tickers that failed to refresh in every refresh.
+   *
+   * @return number of failed tickers.
+   */
+  public synchronized long getFailed() {
+    return failed;
+  }
+
+  /**
+   * The method returns the number of tickers finished by the running or the last refresh.
+   *
+   * @return number of finished tickers.
+   */
+  public synchronized int getCompleted() {
+    return completed;
+  }
+
+  /**
+   * The method returns the number of tickers of the running or the last refresh.
+   *
+   * @return number of tickers.
+   */
+  public synchronized int getTotal() {
+    return total;
+  }
+
+  /**
+   * The method returns the time the last refresh took.
+   *
+   * @return time in milliseconds.
+   */
+  public synchronized long getLastMillis() {
+    return lastMillis;
+  }
+
+  /**
+   * The method returns the reason why the tickers of the last refresh couldn't be collected.
+   *
+   * @return error message, null if they were collected.
+   */
+  public synchronized String getLastError() {
+    return lastError;
+  }
+
+  /**
+   * The method returns the tickers that failed in the last refresh.
+   *
+   * @return unmodifiable key-value map of ticker and error message.
+   */
+  public synchronized Map<String, String> getLastFailures() {
+    return lastFailures;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("runs=%d running=%b progress=%d/%d refreshed=%d failed=%d "
+                    + "lastMillis=%d lastFailures=%s", runs, running, completed, total,
+            refreshed, failed, lastMillis, lastFailures.keySet());
+  }
+
+  /**
+   * Stops the scheduled refreshes and the running one.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
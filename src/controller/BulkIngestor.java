@@ -0,0 +1,552 @@
+package controller;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import model.PriceSeries;
+
+/**
+ * The class loads a dump of daily price histories into the price store without calling the API,
+ * so that a whole universe of tickers can be backfilled at once. The dump is a directory of csv
+ * files, searched recursively, or a zip archive of them, in the Alpha Vantage layout of
+ * timestamp, open, high, low, close and volume. The ticker of a file is its name without the
+ * extension and without a {@code daily_} prefix, up to the first underscore, so the downloads of
+ * Alpha Vantage and the legacy {@code TICKER_yyyy-MM-dd.csv} files of the application are both
+ * read.
+ *
+ * <p>The tickers are ingested in chunks. The files of the tickers of a chunk are parsed on a
+ * pool of threads, with the same reader as the responses of the API. A row whose prices aren't
+ * positive, whose high and low don't bound its open and close, or whose volume is negative is
+ * rejected. The files of a ticker are merged with each other and with the stored history, a
+ * later file replacing the days of an earlier one and the dump replacing the stored days, and a
+ * day that was already stored with the same prices is a duplicate. The files of a ticker are
+ * merged in the order of their modification time, and then of their path, so the newest file
+ * wins whatever order the directory or the archive lists them in. A ticker without new or
+ * changed days isn't written again. The price files of a chunk are written by the same threads,
+ * and the chunk is then recorded in the manifest and dropped from the series cache like a fetch
+ * from the API, persisting the manifest once per chunk instead of once per ticker.
+ *
+ * <p>The tool can be run on its own with
+ * {@code java controller.BulkIngestor dump.zip --threads=4 --chunk=256}, which loads the dump
+ * into the configured stock data directory and prints the report.
+ */
+public final class BulkIngestor {
+
+  /**
+   * Default number of tickers in a chunk.
+   */
+  public static final int DEFAULT_CHUNK_TICKERS = 256;
+
+  private final PriceStore store;
+  private final int parallelism;
+  private final int chunkTickers;
+
+  /**
+   * A csv file of the dump.
+   */
+  private interface Input {
+    String name();
+
+    long lastModified();
+
+    InputStream open() throws IOException;
+  }
+
+  /**
+   * Constructs the ingestor into the given stock data directory.
+   *
+   * @param directory    stock data directory.
+   * @param compressed   true if the histories are written in the compressed layout.
+   * @param parallelism  number of tickers ingested at the same time.
+   * @param chunkTickers number of tickers recorded in the manifest at once.
+   * @throws IllegalArgumentException if the parallelism or the chunk isn't positive.
+   */
+  public BulkIngestor(File directory, boolean compressed, int parallelism, int chunkTickers)
+          throws IllegalArgumentException {
+    if (parallelism < 1 || chunkTickers < 1) {
+      throw new IllegalArgumentException("Parallelism and chunk size should be positive.");
+    }
+    this.store = new PriceStore(directory, compressed);
+    this.parallelism = parallelism;
+    this.chunkTickers = chunkTickers;
+  }
+
+  /**
+   * The method returns the ingestor into the stock data directory of the configuration, with a
+   * thread per processor.
+   *
+   * @return the ingestor.
+   * @throws IOException if the configuration can't be read.
+   */
+  public static BulkIngestor configured() throws IOException {
+    Configuration configuration = Configuration.current();
+    return new BulkIngestor(new File(System.getProperty("user.dir"),
+            configuration.getStockDataPath()), configuration.isStockDataCompressed(),
+            Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_TICKERS);
+  }
+
+  /**
+   * Loads the dump into the configured stock data directory. The arguments are the directory or
+   * archive of the dump followed by the options {@code --threads} and {@code --chunk}.
+   *
+   * @param args path of the dump and options in the form {@code --name=value}.
+   * @throws IOException if the configuration or the dump can't be read.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      throw new IllegalArgumentException("Path of the dump is missing.");
+    }
+    Configuration configuration = Configuration.current();
+    int threads = Runtime.getRuntime().availableProcessors();
+    int chunk = DEFAULT_CHUNK_TICKERS;
+    for (int i = 1; i < args.length; i++) {
+      String[] option = args[i].split("=", 2);
+      String value = option.length > 1 ? option[1] : "";
+      switch (option[0]) {
+        case "--threads":
+          threads = Integer.parseInt(value);
+          break;
+        case "--chunk":
+          chunk = Integer.parseInt(value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + option[0]);
+      }
+    }
+    Report report = new BulkIngestor(new File(System.getProperty("user.dir"),
+            configuration.getStockDataPath()), configuration.isStockDataCompressed(), threads,
+            chunk).ingest(new File(args[0]));
+    System.out.println(report);
+    for (Map.Entry<String, String> failure : report.getFailures().entrySet()) {
+      System.out.println(failure.getKey() + ": " + failure.getValue());
+    }
+  }
+
+  /**
+   * Ingests every csv file of the given directory or zip archive into the store.
+   *
+   * @param source directory or zip archive of the dump.
+   * @return report of the ingestion.
+   * @throws IOException if the dump can't be listed or the manifest can't be written.
+   */
+  public Report ingest(File source) throws IOException {
+    long start = System.nanoTime();
+    Report report = new Report();
+    Map<String, List<Input>> inputs = new TreeMap<>();
+    ZipFile zip = null;
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+      Thread thread = new Thread(runnable, "bulk-ingest");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      if (source.isDirectory()) {
+        list(source, inputs);
+      } else if (source.isFile()) {
+        zip = new ZipFile(source);
+        list(zip, inputs);
+      } else {
+        throw new IOException("File not found.");
+      }
+      List<String> tickers = new ArrayList<>(inputs.keySet());
+      for (int from = 0; from < tickers.size(); from += chunkTickers) {
+        List<Callable<Outcome>> tasks = new ArrayList<>();
+        for (String ticker : tickers.subList(from, Math.min(tickers.size(),
+                from + chunkTickers))) {
+          tasks.add(() -> ingest(ticker, inputs.get(ticker)));
+        }
+        List<TickerManifest.Entry> written = new ArrayList<>();
+        for (Future<Outcome> future : executor.invokeAll(tasks)) {
+          Outcome outcome = future.get();
+          report.add(outcome);
+          if (outcome.entry != null) {
+            written.add(outcome.entry);
+          }
+        }
+        store.record(written);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Ingestion was interrupted.");
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause().getMessage());
+    } finally {
+      executor.shutdownNow();
+      if (zip != null) {
+        zip.close();
+      }
+    }
+    report.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    return report;
+  }
+
+  private static void list(File directory, Map<String, List<Input>> inputs) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.isDirectory()) {
+        list(file, inputs);
+      } else if (file.getName().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+        add(inputs, file.getName(), new Input() {
+          @Override
+          public String name() {
+            return file.getPath();
+          }
+
+          @Override
+          public long lastModified() {
+            return file.lastModified();
+          }
+
+          @Override
+          public InputStream open() throws IOException {
+            return new FileInputStream(file);
+          }
+        });
+      }
+    }
+  }
+
+  private static void list(ZipFile zip, Map<String, List<Input>> inputs) {
+    Enumeration<? extends ZipEntry> entries = zip.entries();
+    while (entries.hasMoreElements()) {
+      ZipEntry entry = entries.nextElement();
+      String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+      if (!entry.isDirectory() && name.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+        add(inputs, name, new Input() {
+          @Override
+          public String name() {
+            return entry.getName();
+          }
+
+          @Override
+          public long lastModified() {
+            return entry.getTime();
+          }
+
+          @Override
+          public InputStream open() throws IOException {
+            return zip.getInputStream(entry);
+          }
+        });
+      }
+    }
+  }
+
+  private static void add(Map<String, List<Input>> inputs, String fileName, Input input) {
+    String ticker = fileName.substring(0, fileName.length() - ".csv".length());
+    if (ticker.toLowerCase(Locale.ROOT).startsWith("daily_")) {
+      ticker = ticker.substring("daily_".length());
+    }
+    if (ticker.indexOf('_') != -1) {
+      ticker = ticker.substring(0, ticker.indexOf('_'));
+    }
+    if (!ticker.isEmpty()) {
+      inputs.computeIfAbsent(ticker.toUpperCase(Locale.ROOT), key -> new ArrayList<>())
+              .add(input);
+    }
+  }
+
+  private Outcome ingest(String ticker, List<Input> inputs) {
+    Outcome outcome = new Outcome(ticker, inputs.size());
+    inputs.sort(Comparator.comparingLong(Input::lastModified).thenComparing(Input::name));
+    try {
+      PriceSeries dump = null;
+      long modified = -1;
+      for (Input input : inputs) {
+        PriceSeries parsed;
+        try (InputStream stream = input.open()) {
+          parsed = PriceStore.readCsv(stream, ticker);
+        }
+        outcome.rows += parsed.size();
+        PriceSeries valid = validRows(parsed);
+        outcome.rejected += parsed.size() - valid.size();
+        if (dump == null) {
+          dump = valid;
+        } else {
+          Merge merge = new Merge(dump, valid);
+          outcome.duplicates += merge.identical;
+          dump = merge.series;
+        }
+        modified = Math.max(modified, input.lastModified());
+      }
+      if (dump == null || dump.isEmpty()) {
+        throw new IOException("Stock data for " + ticker + " is not valid.");
+      }
+      LocalDate fetched = modified > 0 ? LocalDate.ofInstant(Instant.ofEpochMilli(modified),
+              ZoneId.systemDefault()) : LocalDate.now();
+      TickerManifest.Entry stored = store.manifest().get(ticker);
+      PriceSeries series = dump;
+      if (stored != null) {
+        Merge merge = new Merge(store.read(ticker), dump);
+        outcome.duplicates += merge.identical;
+        if (merge.added == 0 && merge.changed == 0) {
+          return outcome;
+        }
+        series = merge.series;
+        if (stored.getFetchedDate().isAfter(fetched)) {
+          fetched = stored.getFetchedDate();
+        }
+      }
+      outcome.entry = store.writeFile(series, fetched);
+      outcome.written = series.size();
+    } catch (IOException | RuntimeException e) {
+      outcome.error = e.getMessage() == null ? e.toString() : e.getMessage();
+    }
+    return outcome;
+  }
+
+  private static PriceSeries validRows(PriceSeries series) {
+    PriceSeries.Builder builder = null;
+    for (int i = 0; i < series.size(); i++) {
+      boolean valid = isValid(series.getOpen(i), series.getHigh(i), series.getLow(i),
+              series.getClose(i), series.getVolume(i));
+      if (!valid && builder == null) {
+        builder = PriceSeries.builder(series.getTicker());
+        for (int j = 0; j < i; j++) {
+          add(builder, series, j);
+        }
+      } else if (valid && builder != null) {
+        add(builder, series, i);
+      }
+    }
+    return builder == null ? series : builder.build();
+  }
+
+  private static boolean isValid(float open, float high, float low, float close, long volume) {
+    return low > 0 && Float.isFinite(high) && volume >= 0 && low <= Math.min(open, close)
+            && high >= Math.max(open, close);
+  }
+
+  private static void add(PriceSeries.Builder builder, PriceSeries series, int index) {
+    builder.add(series.getEpochDay(index), series.getOpen(index), series.getHigh(index),
+            series.getLow(index), series.getClose(index), series.getVolume(index));
+  }
+
+  /**
+   * The merge of two series of a ticker in which the days of the second replace those of the
+   * first.
+   */
+  private static final class Merge {
+    private final PriceSeries series;
+    private int identical;
+    private int changed;
+    private int added;
+
+    private Merge(PriceSeries base, PriceSeries overlay) {
+      PriceSeries.Builder builder = PriceSeries.builder(base.getTicker());
+      int i = 0;
+      int j = 0;
+      while (i < base.size() || j < overlay.size()) {
+        if (j == overlay.size()
+                || i < base.size() && base.getEpochDay(i) < overlay.getEpochDay(j)) {
+          add(builder, base, i++);
+        } else {
+          if (i < base.size() && base.getEpochDay(i) == overlay.getEpochDay(j)) {
+            if (isSame(base, i, overlay, j)) {
+              identical++;
+            } else {
+              changed++;
+            }
+            i++;
+          } else {
+            added++;
+          }
+          add(builder, overlay, j++);
+        }
+      }
+      this.series = builder.build();
+    }
+
+    private static boolean isSame(PriceSeries a, int i, PriceSeries b, int j) {
+      return a.getOpen(i) == b.getOpen(j) && a.getHigh(i) == b.getHigh(j)
+              && a.getLow(i) == b.getLow(j) && a.getClose(i) == b.getClose(j)
+              && a.getVolume(i) == b.getVolume(j);
+    }
+  }
+
+  /**
+   * The outcome of the ingestion of a single ticker.
+   */
+  private static final class Outcome {
+    private final String ticker;
+    private final int files;
+    private long rows;
+    private long rejected;
+    private long duplicates;
+    private long written;
+    private TickerManifest.Entry entry;
+    private String error;
+
+    private Outcome(String ticker, int files) {
+      this.ticker = ticker;
+      this.files = files;
+    }
+  }
+
+  /**
+   * The report of an ingestion.
+   */
+  public static final class Report {
+    private int tickers;
+    private int written;
+    private int files;
+    private long rows;
+    private long rejectedRows;
+    private long duplicateRows;
+    private long writtenRows;
+    private long millis;
+    private final Map<String, String> failures = new LinkedHashMap<>();
+
+    private Report() {
+    }
+
+    private void add(Outcome outcome) {
+      tickers++;
+      files += outcome.files;
+      rows += outcome.rows;
+      rejectedRows += outcome.rejected;
+      duplicateRows += outcome.duplicates;
+      if (outcome.error != null) {
+        failures.put(outcome.ticker, outcome.error);
+      } else if (outcome.entry != null) {
+        written++;
+        writtenRows += outcome.written;
+      }
+    }
+
+    /**
+     * The method returns the number of tickers found in the dump.
+     *
+     * @return number of tickers.
+     */
+    public int getTickers() {
+      return tickers;
+    }
+
+    /**
+     * The method returns the number of tickers whose price file was written.
+     *
+     * @return number of written tickers.
+     */
+    public int getWritten() {
+      return written;
+    }
+
+    /**
+     * The method returns the number of tickers that were already stored with every day of the
+     * dump.
+     *
+     * @return number of unchanged tickers.
+     */
+    public int getUnchanged() {
+      return tickers - written - failures.size();
+    }
+
+    /**
+     * The method returns the number of csv files read.
+     *
+     * @return number of files.
+     */
+    public int getFiles() {
+      return files;
+    }
+
+    /**
+     * The method returns the number of rows read from the dump.
+     *
+     * @return number of rows.
+     */
+    public long getRows() {
+      return rows;
+    }
+
+    /**
+     * The method returns the number of rows that were rejected as not valid.
+     *
+     * @return number of rejected rows.
+     */
+    public long getRejectedRows() {
+      return rejectedRows;
+    }
+
+    /**
+     * The method returns the number of rows whose day was already stored or read from another
+     * file of the ticker with the same prices.
+     *
+     * @return number of duplicate rows.
+     */
+    public long getDuplicateRows() {
+      return duplicateRows;
+    }
+
+    /**
+     * The method returns the number of rows in the written price files.
+     *
+     * @return number of written rows.
+     */
+    public long getWrittenRows() {
+      return writtenRows;
+    }
+
+    /**
+     * The method returns the time the ingestion took.
+     *
+     * @return time in milliseconds.
+     */
+    public long getMillis() {
+      return millis;
+    }
+
+    /**
+     * The method returns the number of rows read from the dump per second.
+     *
+     * @return rows per second.
+     */
+    public double getRowsPerSecond() {
+      return rows * 1000.0 / Math.max(1, millis);
+    }
+
+    /**
+     * The method returns the tickers that couldn't be ingested.
+     *
+     * @return unmodifiable key-value map of ticker and error message.
+     */
+    public Map<String, String> getFailures() {
+      return Collections.unmodifiableMap(failures);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("tickers=%d written=%d unchanged=%d failed=%d files=%d rows=%d "
+                      + "rejectedRows=%d duplicateRows=%d writtenRows=%d millis=%d "
+                      + "rowsPerSecond=%.0f", tickers, written, getUnchanged(), failures.size(),
+              files, rows, rejectedRows, duplicateRows, writtenRows, millis,
+              getRowsPerSecond());
+    }
+  }
+}
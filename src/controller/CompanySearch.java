@@ -0,0 +1,314 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The class searches the listed companies by name or ticker and ranks the matches, so that a
+ * partial or misspelled input finds the intended company instead of the first row whose name
+ * starts with it. The company names and the tickers are split into trigrams, groups of three
+ * consecutive characters, and an inverted index maps every trigram to the companies that contain
+ * it. A search counts the trigrams each company shares with the input and scores the companies by
+ * how much of the input they cover and how close they are in length, then boosts an exact or
+ * prefix match of the ticker and a match at the start of the name or of one of its words.
+ */
+public final class CompanySearch {
+
+  private static final float MIN_RESOLVE_SCORE = 1f;
+  private static final int RESOLVED_NAMES = 256;
+
+  private static CompanySearch listingSearch;
+  private static StockListing indexedListing;
+
+  private final String[] tickers;
+  private final String[] names;
+  private final String[] normalizedNames;
+  private final String[] lowerTickers;
+  private final String[] compactTickers;
+  private final int[] nameGramCount;
+  private final int[] tickerGramCount;
+  private final Map<Long, int[]> namePostings;
+  private final Map<Long, int[]> tickerPostings;
+  private final Map<String, Match> resolved = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * Constructs the search over the given companies.
+   *
+   * @param tickers tickers of the companies.
+   * @param names   names of the companies in the same order as the tickers.
+   * @throws IllegalArgumentException if the number of tickers and names differ.
+   */
+  public CompanySearch(List<String> tickers, List<String> names)
+          throws IllegalArgumentException {
+    if (tickers.size() != names.size()) {
+      throw new IllegalArgumentException("Every ticker should have a company name.");
+    }
+    int size = tickers.size();
+    this.tickers = tickers.toArray(new String[0]);
+    this.names = names.toArray(new String[0]);
+    this.normalizedNames = new String[size];
+    this.lowerTickers = new String[size];
+    this.compactTickers = new String[size];
+    this.nameGramCount = new int[size];
+    this.tickerGramCount = new int[size];
+    long[][] nameGrams = new long[size][];
+    long[][] tickerGrams = new long[size][];
+    for (int i = 0; i < size; i++) {
+      normalizedNames[i] = normalize(this.names[i]);
+      lowerTickers[i] = normalize(this.tickers[i]);
+      compactTickers[i] = lowerTickers[i].replace(" ", "");
+      nameGrams[i] = grams(normalizedNames[i]);
+      tickerGrams[i] = grams(lowerTickers[i]);
+      nameGramCount[i] = nameGrams[i].length;
+      tickerGramCount[i] = tickerGrams[i].length;
+    }
+    this.namePostings = postings(nameGrams);
+    this.tickerPostings = postings(tickerGrams);
+  }
+
+  /**
+   * The method returns the search over the given listing, building it once per listing.
+   *
+   * @param listing listing of the companies.
+   * @return search over the listing.
+   */
+  static synchronized CompanySearch of(StockListing listing) {
+    if (listingSearch == null || indexedListing != listing) {
+      List<String> tickers = new ArrayList<>(listing.size());
+      List<String> names = new ArrayList<>(listing.size());
+      for (int i = 0; i < listing.size(); i++) {
+        tickers.add(listing.getTicker(i));
+        names.add(listing.getName(i));
+      }
+      listingSearch = new CompanySearch(tickers, names);
+      indexedListing = listing;
+    }
+    return listingSearch;
+  }
+
+  /**
+   * The method returns the companies that best match the input, the best match first.
+   *
+   * @param query name or ticker of the company, can be partial or misspelled.
+   * @param limit maximum number of matches to be returned.
+   * @return ranked matches, empty if nothing matches.
+   * @throws IllegalArgumentException if the limit isn't positive.
+   */
+  public List<Match> search(String query, int limit) throws IllegalArgumentException {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit should be a positive number.");
+    }
+    String normalized = normalize(query);
+    if (normalized.isEmpty()) {
+      return Collections.emptyList();
+    }
+    long[] queryGrams = grams(normalized);
+    int[] nameShared = new int[tickers.length];
+    int[] tickerShared = new int[tickers.length];
+    List<Integer> candidates = new ArrayList<>();
+    count(namePostings, queryGrams, nameShared, tickerShared, candidates);
+    count(tickerPostings, queryGrams, tickerShared, nameShared, candidates);
+    PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, Collections.reverseOrder());
+    String compact = normalized.replace(" ", "");
+    for (int row : candidates) {
+      float score = Math.max(similarity(nameShared[row], queryGrams.length, nameGramCount[row]),
+              similarity(tickerShared[row], queryGrams.length, tickerGramCount[row]));
+      String ticker = compactTickers[row];
+      if (ticker.equals(compact)) {
+        score += 1f;
+      } else if (ticker.startsWith(compact)) {
+        score += 0.25f;
+      }
+      if (normalizedNames[row].startsWith(normalized)) {
+        score += 0.5f;
+      } else if (normalizedNames[row].contains(" " + normalized)) {
+        score += 0.2f;
+      }
+      if (best.size() < limit || score >= best.peek().getScore()) {
+        best.add(new Match(tickers[row], names[row], score, row));
+        if (best.size() > limit) {
+          best.poll();
+        }
+      }
+    }
+    List<Match> result = new ArrayList<>(best);
+    result.sort(null);
+    return result;
+  }
+
+  /**
+   * The method returns the company the input names, which is the best match of the search if it
+   * scores at least 1. That takes the input being the ticker or the start of the name of the
+   * company, so a partial name resolves to the best ranked of the companies it starts, while a
+   * misspelled name, or one that only appears inside the names of funds, resolves to none.
+   * The last resolved inputs are kept, since the same names are resolved for every share of a
+   * portfolio and every date of a strategy.
+   *
+   * @param query name or ticker of the company, can be partial or misspelled.
+   * @return the best match, null if no company matches well enough.
+   */
+  public Match resolve(String query) {
+    String key = normalize(query);
+    synchronized (resolved) {
+      if (resolved.containsKey(key)) {
+        return resolved.get(key);
+      }
+    }
+    List<Match> matches = search(query, 1);
+    Match match = matches.isEmpty() || matches.get(0).getScore() < MIN_RESOLVE_SCORE ? null
+            : matches.get(0);
+    synchronized (resolved) {
+      resolved.put(key, match);
+      if (resolved.size() > RESOLVED_NAMES) {
+        resolved.remove(resolved.keySet().iterator().next());
+      }
+    }
+    return match;
+  }
+
+  private static float similarity(int shared, int queryGrams, int grams) {
+    return ((float) shared / queryGrams + 2f * shared / (queryGrams + grams)) / 2;
+  }
+
+  private static void count(Map<Long, int[]> postings, long[] queryGrams, int[] shared,
+                            int[] other, List<Integer> candidates) {
+    for (long gram : queryGrams) {
+      int[] rows = postings.get(gram);
+      if (rows == null) {
+        continue;
+      }
+      for (int row : rows) {
+        if (shared[row] == 0 && other[row] == 0) {
+          candidates.add(row);
+        }
+        shared[row]++;
+      }
+    }
+  }
+
+  private static String normalize(String text) {
+    StringBuilder builder = new StringBuilder(text.length());
+    boolean space = true;
+    for (char c : text.toLowerCase(Locale.ROOT).toCharArray()) {
+      if (Character.isLetterOrDigit(c)) {
+        builder.append(c);
+        space = false;
+      } else if (!space) {
+        builder.append(' ');
+        space = true;
+      }
+    }
+    int length = builder.length();
+    return length > 0 && builder.charAt(length - 1) == ' '
+            ? builder.substring(0, length - 1) : builder.toString();
+  }
+
+  private static long[] grams(String text) {
+    if (text.isEmpty()) {
+      return new long[0];
+    }
+    String padded = "  " + text + " ";
+    long[] grams = new long[padded.length() - 2];
+    for (int i = 0; i < grams.length; i++) {
+      grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16)
+              | padded.charAt(i + 2);
+    }
+    Arrays.sort(grams);
+    int unique = 0;
+    for (int i = 0; i < grams.length; i++) {
+      if (i == 0 || grams[i] != grams[i - 1]) {
+        grams[unique++] = grams[i];
+      }
+    }
+    return Arrays.copyOf(grams, unique);
+  }
+
+  private static Map<Long, int[]> postings(long[][] grams) {
+    Map<Long, int[]> counts = new HashMap<>();
+    for (long[] row : grams) {
+      for (long gram : row) {
+        counts.computeIfAbsent(gram, key -> new int[1])[0]++;
+      }
+    }
+    Map<Long, int[]> postings = new HashMap<>(counts.size() * 2);
+    for (Map.Entry<Long, int[]> entry : counts.entrySet()) {
+      postings.put(entry.getKey(), new int[entry.getValue()[0]]);
+      entry.getValue()[0] = 0;
+    }
+    for (int row = 0; row < grams.length; row++) {
+      for (long gram : grams[row]) {
+        int[] next = counts.get(gram);
+        postings.get(gram)[next[0]++] = row;
+      }
+    }
+    return postings;
+  }
+
+  /**
+   * A company that matched a search along with its score. The matches are ordered by the score,
+   * the highest first, then by the shorter name and then by the order of the listing.
+   */
+  public static final class Match implements Comparable<Match> {
+    private final String ticker;
+    private final String name;
+    private final float score;
+    private final int row;
+
+    private Match(String ticker, String name, float score, int row) {
+      this.ticker = ticker;
+      this.name = name;
+      this.score = score;
+      this.row = row;
+    }
+
+    /**
+     * The method returns the ticker of the company.
+     *
+     * @return ticker symbol.
+     */
+    public String getTicker() {
+      return ticker;
+    }
+
+    /**
+     * The method returns the name of the company.
+     *
+     * @return company name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * The method returns the score of the match, higher is better.
+     *
+     * @return score of the match.
+     */
+    public float getScore() {
+      return score;
+    }
+
+    @Override
+    public int compareTo(Match other) {
+      if (score != other.score) {
+        return Float.compare(other.score, score);
+      }
+      if (name.length() != other.name.length()) {
+        return Integer.compare(name.length(), other.name.length());
+      }
+      return Integer.compare(row, other.row);
+    }
+
+    @Override
+    public String toString() {
+      return ticker + " " + name + " " + score;
+    }
+  }
+}
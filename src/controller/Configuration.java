@@ -0,0 +1,370 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * The class is an immutable snapshot of {@code config.properties}. The file is read once and
+ * every later read of the configuration is a read of a field, so no operation opens the file
+ * again. The snapshot of the application is loaded from the working directory on first use and
+ * the file is watched from then on by the directory watcher of the application, when it changes
+ * it is read again and the new snapshot replaces the old one in a single write, so a reader sees
+ * either the old or the new configuration and never a mix of the two.
+ */
+public final class Configuration {
+
+  static final String FILE_NAME = "config.properties";
+
+  private static volatile Configuration current;
+
+  private final Map<String, String> values;
+  private final String portfoliosPath;
+  private final String flexiblePortfoliosPath;
+  private final String inflexiblePortfoliosPath;
+  private final String strategiesPath;
+  private final String stockDataPath;
+  private final String apiBaseUrl;
+  private final String apiKey;
+  private final int apiCallsPerMinute;
+  private final int apiCallsPerDay;
+  private final int prefetchThreads;
+  private final int seriesCacheMegabytes;
+  private final boolean stockDataCompressed;
+  private final boolean refreshOnStart;
+  private final LocalTime refreshAt;
+  private final boolean warmUp;
+  private final int warmUpPortfolios;
+
+  /**
+   * Constructs the snapshot from the given properties.
+   *
+   * @param values key-value map of the properties.
+   */
+  public Configuration(Map<String, String> values) {
+    this.values = Collections.unmodifiableMap(new HashMap<>(values));
+    this.portfoliosPath = values.get("PORTFOLIOS_PATH");
+    this.flexiblePortfoliosPath = values.get("FLEXIBLE_PORTFOLIOS_PATH");
+    this.inflexiblePortfoliosPath = values.get("INFLEXIBLE_PORTFOLIOS_PATH");
+    this.strategiesPath = values.get("STRATEGIES_PATH");
+    this.stockDataPath = values.get("STOCK_DATA_PATH");
+    this.apiBaseUrl = values.getOrDefault("API_BASE_URL",
+            "https://www.alphavantage.co/query").trim();
+    this.apiKey = values.get("API_KEY");
+    this.apiCallsPerMinute = intOf(values, "API_CALLS_PER_MINUTE", 5);
+    this.apiCallsPerDay = intOf(values, "API_CALLS_PER_DAY", 25);
+    this.prefetchThreads = intOf(values, "PREFETCH_THREADS", 4);
+    this.seriesCacheMegabytes = intOf(values, "SERIES_CACHE_MB", 64);
+    this.stockDataCompressed = Boolean.parseBoolean(
+            values.getOrDefault("STOCK_DATA_COMPRESSED", "false").trim());
+    this.refreshOnStart = Boolean.parseBoolean(
+            values.getOrDefault("REFRESH_ON_START", "false").trim());
+    this.refreshAt = timeOf(values, "REFRESH_AT");
+    this.warmUp = Boolean.parseBoolean(values.getOrDefault("WARM_UP", "false").trim());
+    this.warmUpPortfolios = intOf(values, "WARM_UP_PORTFOLIOS", 5);
+  }
+
+  /**
+   * The method reads the snapshot from the given properties file.
+   *
+   * @param file the properties file.
+   * @return snapshot of the file.
+   * @throws IOException if the file can't be read.
+   */
+  public static Configuration load(Path file) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream input = Files.newInputStream(file)) {
+      properties.load(input);
+    }
+    Map<String, String> values = new HashMap<>();
+    for (String key : properties.stringPropertyNames()) {
+      values.put(key, properties.getProperty(key));
+    }
+    return new Configuration(values);
+  }
+
+  /**
+   * The method returns the current snapshot of the configuration of the application, loading it
+   * from the working directory and starting to watch the file on the first call.
+   *
+   * @return current snapshot.
+   * @throws IOException if the configuration can't be read.
+   */
+  public static Configuration current() throws IOException {
+    Configuration configuration = current;
+    if (configuration != null) {
+      return configuration;
+    }
+    synchronized (Configuration.class) {
+      if (current == null) {
+        Path file = new File(System.getProperty("user.dir"), FILE_NAME).toPath();
+        current = load(file);
+        try {
+          watch(file, reloaded -> current = reloaded);
+        } catch (IOException e) {
+          // the configuration is then read once and kept for the whole run.
+        }
+      }
+      return current;
+    }
+  }
+
+  /**
+   * The method watches the given properties file and passes a new snapshot to the listener
+   * every time the file changes. A change that leaves the file unreadable keeps the previous
+   * snapshot.
+   *
+   * @param file     the properties file.
+   * @param listener listener of the new snapshots.
+   * @return the watcher, which stops watching when closed.
+   * @throws IOException if the directory of the file can't be watched.
+   */
+  public static Watcher watch(Path file, Consumer<Configuration> listener) throws IOException {
+    DirectoryWatcher directories = DirectoryWatcher.shared();
+    if (directories == null) {
+      throw new IOException("The directory of " + file + " can't be watched.");
+    }
+    Watcher watcher = new Watcher(directories, file.toAbsolutePath().normalize(), listener);
+    if (!directories.register(watcher.file.getParent(), watcher.changes)) {
+      watcher.close();
+      throw new IOException("The directory of " + file + " can't be watched.");
+    }
+    return watcher;
+  }
+
+  /**
+   * The method returns the value of the given property.
+   *
+   * @param key name of the property.
+   * @return value of the property, null if it isn't set.
+   */
+  public String get(String key) {
+    return values.get(key);
+  }
+
+  /**
+   * The method returns every property of the snapshot.
+   *
+   * @return unmodifiable key-value map of the properties.
+   */
+  public Map<String, String> asMap() {
+    return values;
+  }
+
+  /**
+   * The method returns the directory of the portfolios relative to the working directory.
+   *
+   * @return {@code PORTFOLIOS_PATH} property.
+   */
+  public String getPortfoliosPath() {
+    return portfoliosPath;
+  }
+
+  /**
+   * The method returns the directory of the flexible portfolios inside the portfolio directory.
+   *
+   * @return {@code FLEXIBLE_PORTFOLIOS_PATH} property.
+   */
+  public String getFlexiblePortfoliosPath() {
+    return flexiblePortfoliosPath;
+  }
+
+  /**
+   * The method returns the directory of the inflexible portfolios inside the portfolio
+   * directory.
+   *
+   * @return {@code INFLEXIBLE_PORTFOLIOS_PATH} property.
+   */
+  public String getInflexiblePortfoliosPath() {
+    return inflexiblePortfoliosPath;
+  }
+
+  /**
+   * The method returns the directory of the strategies inside the portfolio directory.
+   *
+   * @return {@code STRATEGIES_PATH} property.
+   */
+  public String getStrategiesPath() {
+    return strategiesPath;
+  }
+
+  /**
+   * The method returns the directory of the stock data relative to the working directory.
+   *
+   * @return {@code STOCK_DATA_PATH} property.
+   */
+  public String getStockDataPath() {
+    return stockDataPath;
+  }
+
+  /**
+   * The method returns the url of the query endpoint of the stock API.
+   *
+   * @return {@code API_BASE_URL} property, Alpha Vantage by default.
+   */
+  public String getApiBaseUrl() {
+    return apiBaseUrl;
+  }
+
+  /**
+   * The method returns the key of the stock API.
+   *
+   * @return {@code API_KEY} property.
+   */
+  public String getApiKey() {
+    return apiKey;
+  }
+
+  /**
+   * The method returns the number of calls to the stock API allowed per minute.
+   *
+   * @return {@code API_CALLS_PER_MINUTE} property, 5 by default.
+   */
+  public int getApiCallsPerMinute() {
+    return apiCallsPerMinute;
+  }
+
+  /**
+   * The method returns the number of calls to the stock API allowed per day.
+   *
+   * @return {@code API_CALLS_PER_DAY} property, 25 by default.
+   */
+  public int getApiCallsPerDay() {
+    return apiCallsPerDay;
+  }
+
+  /**
+   * The method returns the number of threads that load the stock data in parallel.
+   *
+   * @return {@code PREFETCH_THREADS} property, 4 by default.
+   */
+  public int getPrefetchThreads() {
+    return prefetchThreads;
+  }
+
+  /**
+   * The method returns the memory budget of the cache of the price series in megabytes.
+   *
+   * @return {@code SERIES_CACHE_MB} property, 64 by default.
+   */
+  public int getSeriesCacheMegabytes() {
+    return seriesCacheMegabytes;
+  }
+
+  /**
+   * The method checks whether the price histories are written in the compressed layout.
+   *
+   * @return {@code STOCK_DATA_COMPRESSED} property, false by default.
+   */
+  public boolean isStockDataCompressed() {
+    return stockDataCompressed;
+  }
+
+  /**
+   * The method checks whether the held tickers are refreshed in the background when the
+   * application starts.
+   *
+   * @return {@code REFRESH_ON_START} property, false by default.
+   */
+  public boolean isRefreshOnStart() {
+    return refreshOnStart;
+  }
+
+  /**
+   * The method returns the local time of every weekday, after the market closed, at which the
+   * held tickers are refreshed in the background.
+   *
+   * @return {@code REFRESH_AT} property in {@code HH:mm} format, null if it isn't set.
+   */
+  public LocalTime getRefreshAt() {
+    return refreshAt;
+  }
+
+  /**
+   * The method checks whether the working set is warmed up in the background when the
+   * application starts.
+   *
+   * @return {@code WARM_UP} property, false by default.
+   */
+  public boolean isWarmUp() {
+    return warmUp;
+  }
+
+  /**
+   * The method returns the number of the most recently saved portfolios loaded by the warm-up.
+   *
+   * @return {@code WARM_UP_PORTFOLIOS} property, 5 by default.
+   */
+  public int getWarmUpPortfolios() {
+    return warmUpPortfolios;
+  }
+
+  private static LocalTime timeOf(Map<String, String> values, String key) {
+    String value = values.get(key);
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    try {
+      return LocalTime.parse(value.trim());
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  private static int intOf(Map<String, String> values, String key, int fallback) {
+    String value = values.get(key);
+    if (value == null || value.isBlank()) {
+      return fallback;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      return fallback;
+    }
+  }
+
+  /**
+   * Watches a properties file through the directory watcher of the application and reloads it
+   * when it changes.
+   */
+  public static final class Watcher implements Closeable {
+    private final DirectoryWatcher directories;
+    private final Path file;
+    private final Consumer<Configuration> listener;
+    private final DirectoryWatcher.Listener changes;
+
+    private Watcher(DirectoryWatcher directories, Path file, Consumer<Configuration> listener) {
+      this.directories = directories;
+      this.file = file;
+      this.listener = listener;
+      this.changes = (directory, files) -> {
+        if (files == null || files.contains(file.getFileName())) {
+          reload();
+        }
+      };
+    }
+
+    private void reload() {
+      try {
+        listener.accept(load(file));
+      } catch (IOException e) {
+        // the file is being replaced, the previous snapshot is kept until the next change.
+      }
+    }
+
+    @Override
+    public void close() {
+      directories.unregister(changes);
+    }
+  }
+}
@@ -0,0 +1,277 @@
+package controller;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+
+import model.DateCodec;
+
+/**
+ * The class reads csv data field by field straight from the bytes of a buffer, for example a
+ * memory-mapped file, and parses the dates and numbers in place into primitives. Unlike
+ * splitting a line, no string or array is created for a row, so reading a price history
+ * allocates nothing but the columns it is read into. The fields are read in order with the
+ * {@code next} methods after {@link #nextRow()} has moved to a row. Rows end with a line feed,
+ * optionally preceded by a carriage return, and empty rows are skipped. The tokenizer can be
+ * reset to another buffer, so one tokenizer reads a stream chunk by chunk.
+ */
+public final class CsvTokenizer {
+
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+  private ByteBuffer buffer;
+  private int position;
+  private int limit;
+  private int rowEnd;
+  private int columns;
+
+  /**
+   * Constructs the tokenizer over the bytes of the buffer from its position to its limit.
+   *
+   * @param buffer the csv data.
+   */
+  public CsvTokenizer(ByteBuffer buffer) {
+    reset(buffer);
+  }
+
+  /**
+   * The method makes the tokenizer read the bytes of the given buffer from its position to its
+   * limit.
+   *
+   * @param buffer the csv data.
+   */
+  public void reset(ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.position = buffer.position();
+    this.limit = buffer.limit();
+    this.rowEnd = position;
+    this.columns = 0;
+  }
+
+  /**
+   * The method moves to the next row that isn't empty, skipping the fields of the current row
+   * that weren't read.
+   *
+   * @return true if there is a row, false at the end of the data.
+   */
+  public boolean nextRow() {
+    position = rowEnd;
+    while (position < limit && isLineEnd(buffer.get(position))) {
+      position++;
+    }
+    if (position == limit) {
+      rowEnd = limit;
+      columns = 0;
+      return false;
+    }
+    columns = 1;
+    int i = position;
+    while (i < limit) {
+      byte b = buffer.get(i);
+      if (b == '\n') {
+        break;
+      } else if (b == ',') {
+        columns++;
+      }
+      i++;
+    }
+    rowEnd = i;
+    return true;
+  }
+
+  /**
+   * The method returns the number of fields of the current row.
+   *
+   * @return number of fields.
+   */
+  public int columns() {
+    return columns;
+  }
+
+  /**
+   * The method checks whether the next field of the row starts with a digit, which tells a row
+   * of data from a header or a message.
+   *
+   * @return true if the field starts with a digit, else false.
+   */
+  public boolean nextIsDigit() {
+    return position < rowEnd && isDigit(buffer.get(position));
+  }
+
+  /**
+   * The method skips the next field of the row.
+   */
+  public void skip() {
+    position = fieldEnd() + 1;
+  }
+
+  /**
+   * The method reads the next field of the row as text.
+   *
+   * @return the field.
+   */
+  public String nextString() {
+    int end = fieldEnd();
+    byte[] bytes = new byte[trimmedEnd(end) - position];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(position + i);
+    }
+    position = end + 1;
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * The method reads the next field of the row as an ISO date, yyyy-MM-dd, and returns it as
+   * the number of days since 1970-01-01.
+   *
+   * @return epoch day of the date.
+   * @throws DateTimeException if the field isn't a valid date.
+   */
+  public int nextEpochDay() throws DateTimeException {
+    int fieldEnd = fieldEnd();
+    int end = trimmedEnd(fieldEnd);
+    if (end - position != 10 || buffer.get(position + 4) != '-'
+            || buffer.get(position + 7) != '-') {
+      throw new DateTimeException("Date should be in yyyy-MM-dd format.");
+    }
+    int epochDay = DateCodec.toEpochDay(digits(position, 4), digits(position + 5, 2),
+            digits(position + 8, 2));
+    position = fieldEnd + 1;
+    return epochDay;
+  }
+
+  /**
+   * The method reads the next field of the row as a decimal number. The result is the float
+   * nearest to the decimal, the same as {@link Float#parseFloat(String)} returns.
+   *
+   * @return the number.
+   * @throws NumberFormatException if the field isn't a number.
+   */
+  public float nextFloat() throws NumberFormatException {
+    int fieldEnd = fieldEnd();
+    int end = trimmedEnd(fieldEnd);
+    int i = position;
+    boolean negative = i < end && buffer.get(i) == '-';
+    if (negative || i < end && buffer.get(i) == '+') {
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int scale = 0;
+    boolean point = false;
+    boolean simple = i < end;
+    for (; i < end && simple; i++) {
+      byte b = buffer.get(i);
+      if (isDigit(b)) {
+        mantissa = mantissa * 10 + (b - '0');
+        digits++;
+        if (point) {
+          scale++;
+        }
+      } else if (b == '.' && !point) {
+        point = true;
+      } else {
+        simple = false;
+      }
+    }
+    float result = 0;
+    if (simple && digits > 0 && digits <= 15) {
+      double exact = mantissa / POWERS_OF_TEN[scale];
+      result = (float) exact;
+      if (nearMidpoint(exact, result)) {
+        simple = false;
+      }
+    } else {
+      simple = false;
+    }
+    if (!simple) {
+      result = Float.parseFloat(text(position, end));
+      negative = false;
+    }
+    position = fieldEnd + 1;
+    return negative ? -result : result;
+  }
+
+  /**
+   * The method reads the next field of the row as a whole number.
+   *
+   * @return the number.
+   * @throws NumberFormatException if the field isn't a whole number.
+   */
+  public long nextLong() throws NumberFormatException {
+    int fieldEnd = fieldEnd();
+    int end = trimmedEnd(fieldEnd);
+    int i = position;
+    boolean negative = i < end && buffer.get(i) == '-';
+    if (negative || i < end && buffer.get(i) == '+') {
+      i++;
+    }
+    long result = 0;
+    boolean simple = i < end && end - i <= 18;
+    for (; i < end && simple; i++) {
+      byte b = buffer.get(i);
+      simple = isDigit(b);
+      result = result * 10 + (b - '0');
+    }
+    if (!simple) {
+      result = Long.parseLong(text(position, end).trim());
+      negative = false;
+    }
+    position = fieldEnd + 1;
+    return negative ? -result : result;
+  }
+
+  private int fieldEnd() {
+    int i = position;
+    while (i < rowEnd && buffer.get(i) != ',') {
+      i++;
+    }
+    return i;
+  }
+
+  private int trimmedEnd(int end) {
+    while (end > position && isBlank(buffer.get(end - 1))) {
+      end--;
+    }
+    return end;
+  }
+
+  private int digits(int from, int count) {
+    int value = 0;
+    for (int i = from; i < from + count; i++) {
+      byte b = buffer.get(i);
+      if (!isDigit(b)) {
+        return -1;
+      }
+      value = value * 10 + (b - '0');
+    }
+    return value;
+  }
+
+  private String text(int from, int to) {
+    byte[] bytes = new byte[to - from];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(from + i);
+    }
+    return new String(bytes, StandardCharsets.US_ASCII);
+  }
+
+  private static boolean nearMidpoint(double exact, float rounded) {
+    double error = Math.ulp(exact);
+    return Math.abs(exact - ((double) rounded + Math.nextUp(rounded)) / 2) <= error
+            || Math.abs(exact - ((double) rounded + Math.nextDown(rounded)) / 2) <= error;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private static boolean isLineEnd(byte b) {
+    return b == '\n' || b == '\r';
+  }
+
+  private static boolean isBlank(byte b) {
+    return b == ' ' || b == '\t' || b == '\r';
+  }
+}
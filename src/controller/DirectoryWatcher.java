@@ -0,0 +1,257 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class watches directories on a single daemon thread and reports the files that changed in
+ * them to the listeners of each directory. The events are debounced: the files of a directory
+ * are reported once no event arrived for the debounce time, so a burst of writes, like a file
+ * that is written and then moved into place, is reported once. A burst that keeps going is
+ * reported at least every ten debounce times. When the events of a directory were lost, its
+ * listeners are told to check the whole directory. The caches of the application listen to it,
+ * so a file changed by another instance or by hand evicts or reloads only the entries of that
+ * file, and so does the configuration, which is loaded again when its file changes.
+ */
+public final class DirectoryWatcher implements Closeable {
+
+  private static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+  private static final int MAX_DELAYS = 10;
+
+  private static DirectoryWatcher shared;
+  private static boolean unsupported;
+
+  private final WatchService service;
+  private final long debounceNanos;
+  private final Map<Path, List<Listener>> listeners;
+  private final Map<WatchKey, Path> keys;
+  private final Map<Path, Pending> pending;
+
+  /**
+   * Listens to the files that changed in a watched directory.
+   */
+  public interface Listener {
+
+    /**
+     * The method is called with the names of the files that were created, changed or removed
+     * in the directory.
+     *
+     * @param directory the watched directory.
+     * @param files     names of the files relative to the directory, null if events were lost
+     *                  and the whole directory has to be checked.
+     */
+    void changed(Path directory, Set<Path> files);
+  }
+
+  private static final class Pending {
+    private final Set<Path> files = new LinkedHashSet<>();
+    private final long first;
+    private long last;
+    private boolean overflow;
+
+    private Pending(long now) {
+      this.first = now;
+      this.last = now;
+    }
+  }
+
+  /**
+   * Constructs the watcher and starts its thread.
+   *
+   * @param debounceMillis time in milliseconds without events after which the changes of a
+   *                       directory are reported.
+   * @throws IOException if the file system can't be watched.
+   */
+  public DirectoryWatcher(long debounceMillis) throws IOException {
+    this.service = FileSystems.getDefault().newWatchService();
+    this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+    this.listeners = new HashMap<>();
+    this.keys = new HashMap<>();
+    this.pending = new HashMap<>();
+    Thread thread = new Thread(this::run, "directory-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * The method returns the watcher shared by the application.
+   *
+   * @return the shared watcher, null if the file system can't be watched.
+   */
+  static synchronized DirectoryWatcher shared() {
+    if (shared == null && !unsupported) {
+      try {
+        shared = new DirectoryWatcher(DEFAULT_DEBOUNCE_MILLIS);
+      } catch (IOException | UnsupportedOperationException e) {
+        unsupported = true;
+      }
+    }
+    return shared;
+  }
+
+  /**
+   * The method adds a listener of the given directory. A directory that doesn't exist yet, or
+   * that was removed, is watched once it is registered again after it was created.
+   *
+   * @param directory the directory.
+   * @param listener  listener of its changes.
+   * @return true if the directory is watched, else false.
+   */
+  public synchronized boolean register(Path directory, Listener listener) {
+    Path absolute = directory.toAbsolutePath().normalize();
+    List<Listener> registered = listeners.computeIfAbsent(absolute, path -> new ArrayList<>());
+    if (!registered.contains(listener)) {
+      registered.add(listener);
+    }
+    if (keys.containsValue(absolute)) {
+      return true;
+    }
+    if (!Files.isDirectory(absolute)) {
+      return false;
+    }
+    try {
+      keys.put(absolute.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+              StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE),
+              absolute);
+      return true;
+    } catch (IOException | ClosedWatchServiceException e) {
+      return false;
+    }
+  }
+
+  /**
+   * The method removes the given listener from every directory. A directory without listeners
+   * is no longer watched.
+   *
+   * @param listener the listener.
+   */
+  public synchronized void unregister(Listener listener) {
+    for (Map.Entry<Path, List<Listener>> entry : new ArrayList<>(listeners.entrySet())) {
+      entry.getValue().remove(listener);
+      if (entry.getValue().isEmpty()) {
+        listeners.remove(entry.getKey());
+        for (Map.Entry<WatchKey, Path> key : new ArrayList<>(keys.entrySet())) {
+          if (key.getValue().equals(entry.getKey())) {
+            key.getKey().cancel();
+            keys.remove(key.getKey());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The method checks if the given directory is watched.
+   *
+   * @param directory the directory.
+   * @return true if the directory is watched, else false.
+   */
+  public synchronized boolean isWatched(Path directory) {
+    return keys.containsValue(directory.toAbsolutePath().normalize());
+  }
+
+  /**
+   * Stops watching every directory.
+   *
+   * @throws IOException if the watch service can't be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    service.close();
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        WatchKey key = service.poll(timeout(), TimeUnit.NANOSECONDS);
+        if (key != null) {
+          queue(key);
+        }
+        dispatch();
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // the watcher was closed.
+    }
+  }
+
+  private synchronized long timeout() {
+    long timeout = Long.MAX_VALUE;
+    long now = System.nanoTime();
+    for (Pending changes : pending.values()) {
+      timeout = Math.min(timeout, due(changes) - now);
+    }
+    return Math.max(0, Math.min(timeout, TimeUnit.SECONDS.toNanos(60)));
+  }
+
+  private long due(Pending changes) {
+    return Math.min(changes.last + debounceNanos, changes.first + MAX_DELAYS * debounceNanos);
+  }
+
+  private void queue(WatchKey key) {
+    List<WatchEvent<?>> events = key.pollEvents();
+    boolean valid = key.reset();
+    synchronized (this) {
+      Path directory = keys.get(key);
+      if (directory == null) {
+        return;
+      }
+      long now = System.nanoTime();
+      Pending changes = pending.computeIfAbsent(directory, path -> new Pending(now));
+      changes.last = now;
+      for (WatchEvent<?> event : events) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+          changes.overflow = true;
+        } else if (event.context() instanceof Path) {
+          changes.files.add((Path) event.context());
+        }
+      }
+      if (!valid) {
+        keys.remove(key);
+        changes.overflow = true;
+        changes.last = now - debounceNanos;
+      }
+    }
+  }
+
+  private void dispatch() {
+    Map<Path, Pending> due = new HashMap<>();
+    Map<Path, List<Listener>> targets = new HashMap<>();
+    synchronized (this) {
+      long now = System.nanoTime();
+      for (Map.Entry<Path, Pending> entry : new ArrayList<>(pending.entrySet())) {
+        if (due(entry.getValue()) <= now) {
+          pending.remove(entry.getKey());
+          due.put(entry.getKey(), entry.getValue());
+          List<Listener> registered = listeners.get(entry.getKey());
+          targets.put(entry.getKey(), registered == null ? new ArrayList<>()
+                  : new ArrayList<>(registered));
+        }
+      }
+    }
+    for (Map.Entry<Path, Pending> entry : due.entrySet()) {
+      Set<Path> files = entry.getValue().overflow ? null : entry.getValue().files;
+      for (Listener listener : targets.get(entry.getKey())) {
+        try {
+          listener.changed(entry.getKey(), files);
+        } catch (RuntimeException e) {
+          // a failing listener doesn't stop the others, it is told again on the next change.
+        }
+      }
+    }
+  }
+}
@@ -9,6 +9,7 @@ import java.util.Map;
 import javax.swing.JLabel;
 import javax.swing.table.DefaultTableModel;
 
+import model.PriceSeries;
 import view.ManagementGUIView;
 
 /**
@@ -297,12 +298,12 @@ public interface Features {
    *
    * @param currentDate current date to view the strategy on.
    * @param companyName name of the company to create the strategy.
-   * @param shareData   stocks data added while creating the strategy.
+   * @param shareData   price history of the stock added while creating the strategy.
    * @param label       label of the strategy.
    * @return map of strategy data.
    */
   Map<String, String> getDataForStrategy(LocalDate currentDate, String companyName,
-                                         List<Map<String, String>> shareData,
+                                         PriceSeries shareData,
                                          JLabel label);
 
   /**
@@ -310,9 +311,9 @@ public interface Features {
    *
    * @param companyName name of the company to fetch the data.
    * @param label       label of the stock.
-   * @return list of stocks data.
+   * @return price history of the stock.
    */
-  List<Map<String, String>> getShareData(String companyName, JLabel label);
+  PriceSeries getShareData(String companyName, JLabel label);
 
   /**
    * Adds the shares to the shares percentage list specified by the investor.
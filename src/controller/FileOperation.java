@@ -3,29 +3,32 @@ package controller;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.parsers.ParserConfigurationException;
+import model.DateCodec;
+import model.PortfolioSnapshot;
+import model.PriceSeries;
 
 import static controller.ManagementOptions.dataOfShareForDate;
 
@@ -35,29 +38,45 @@ import static controller.ManagementOptions.dataOfShareForDate;
  */
 class FileOperation {
 
+  private static final int COMPACT_DAYS = 140;
+  private static final int SEARCH_RESULTS = 20;
+
+  private static final API SHARED_API = new SingleFlightAPI(new APIImpl());
+
   API api;
+  private Prefetcher.Listener prefetchListener;
 
   /**
    * Constructs the file operations inorder to perform the file read and write operations and
-   * creating an object of the API inorder for it to use its methods.
+   * using the API shared by every file operation, so that concurrent requests for a ticker share
+   * a single fetch.
    */
   public FileOperation() {
-    api = new APIImpl();
+    api = SHARED_API;
   }
 
-  protected Map<String, String> configReader() throws IOException {
-    Properties configProperties = new Properties();
-    FileInputStream fileInputStream = new FileInputStream(
-            System.getProperty("user.dir")
-                    + File.separator + "config.properties");
-    configProperties.load(fileInputStream);
-    Map<String, String> configMap = new HashMap<>();
+  /**
+   * The method sets the listener that is notified after every ticker loaded before the shares
+   * of a portfolio or a strategy are valued.
+   *
+   * @param listener listener of the progress, null for none.
+   */
+  protected void setPrefetchListener(Prefetcher.Listener listener) {
+    this.prefetchListener = listener;
+  }
 
-    for (String key : configProperties.stringPropertyNames()) {
-      String value = configProperties.getProperty(key);
-      configMap.put(key, value);
-    }
-    return configMap;
+  private static File portfolioDirectory(String pathKey) throws IOException {
+    Configuration config = Configuration.current();
+    return new File(System.getProperty("user.dir") + File.separator
+            + config.getPortfoliosPath() + File.separator + config.get(pathKey));
+  }
+
+  private static PortfolioCatalog catalog() throws IOException {
+    return PortfolioCatalog.of(new File(System.getProperty("user.dir"),
+                    Configuration.current().getPortfoliosPath()),
+            portfolioDirectory("FLEXIBLE_PORTFOLIOS_PATH"),
+            portfolioDirectory("INFLEXIBLE_PORTFOLIOS_PATH"),
+            portfolioDirectory("STRATEGIES_PATH"));
   }
 
   /**
@@ -88,10 +107,16 @@ class FileOperation {
     List<String> shares = new ArrayList<>();
     String line;
     while ((line = reader.readLine()) != null) {
-      String[] row = line.split(",");
-      fileFormatChecker(row);
       shares.add(line);
     }
+    return checkShares(shares);
+  }
+
+  private List<String> checkShares(List<String> shares) throws IllegalStateException,
+          IOException {
+    for (String share : shares) {
+      fileFormatChecker(share.split(","));
+    }
     if (shares.isEmpty()) {
       throw new IllegalStateException("Your Portfolio is empty. Please enter some stocks");
     }
@@ -125,15 +150,46 @@ class FileOperation {
   }
 
   /**
-   * Exports the flexible portfolio and saves it onto the file with the required data points.
+   * Saves the transactions of the flexible portfolio. The transactions made since the last save
+   * are appended to the journal of the portfolio, and the portfolio file is rewritten only when
+   * the journal has grown larger than it. The snapshot of the portfolio is written only when
+   * the portfolio file was rewritten, as encoding it takes time in the size of the history; after
+   * an append it is written by the next load instead.
    *
-   * @param shares        list of shares.
+   * @param shares        list of transactions.
    * @param portfolioName name of the portfolio.
    * @throws IOException if the file is not saved properly.
    */
   protected void exportFlexiblePortfolio(List<String> shares,
                                          String portfolioName) throws IOException {
-    exportPortfolio(shares, "FLEXIBLE_PORTFOLIOS_PATH", portfolioName);
+    if (shares.isEmpty()) {
+      throw new IllegalStateException("Your portfolio is empty.");
+    }
+    TransactionJournal journal = journalOf(portfolioName);
+    long compactions = journal.getCompactions();
+    journal.save(shares);
+    if (journal.getCompactions() != compactions) {
+      writeSnapshot(journal, shares);
+    }
+    catalog().update(PortfolioCatalog.Kind.FLEXIBLE, new File(
+            portfolioDirectory("FLEXIBLE_PORTFOLIOS_PATH"), portfolioName + ".csv"), shares.size());
+  }
+
+  /**
+   * Exports every transaction of the saved flexible portfolio, including those that are still
+   * in its journal, to a csv file in the layout of the portfolio files.
+   *
+   * @param portfolioName name of the portfolio.
+   * @param csv           csv file to be written.
+   * @throws IOException if the portfolio can't be read or the file is not saved properly.
+   */
+  protected void exportFlexiblePortfolioCsv(String portfolioName, File csv) throws IOException {
+    TransactionJournal.export(checkShares(journalOf(portfolioName).load()), csv);
+  }
+
+  private TransactionJournal journalOf(String portfolioName) throws IOException {
+    return TransactionJournal.of(new File(portfolioDirectory("FLEXIBLE_PORTFOLIOS_PATH"),
+            portfolioName + ".csv"));
   }
 
   protected void exportStrategy(List<String> strategy, String portfolioName)
@@ -146,19 +202,18 @@ class FileOperation {
     if (shares.isEmpty() && !portfolioPath.equals("STRATEGIES_PATH")) {
       throw new IllegalStateException("Your portfolio is empty.");
     }
-    File directory = new File(
-            System.getProperty("user.dir") + File.separator +
-                    configReader().get("PORTFOLIOS_PATH") +
-                    File.separator + configReader().get(portfolioPath));
+    File directory = portfolioDirectory(portfolioPath);
     directory.mkdir();
-    try (FileWriter fileWriter =
-                 new FileWriter(new File(directory, portfolioName + ".csv"))) {
+    File file = new File(directory, portfolioName + ".csv");
+    try (FileWriter fileWriter = new FileWriter(file)) {
       for (String share : shares) {
         fileWriter.write(share + "\n");
       }
     } catch (IOException e) {
       throw new IOException("An error occurred while saving the file.");
     }
+    catalog().update(portfolioPath.equals("STRATEGIES_PATH") ? PortfolioCatalog.Kind.STRATEGY
+            : PortfolioCatalog.Kind.INFLEXIBLE, file, shares.size());
   }
 
   /**
@@ -171,72 +226,62 @@ class FileOperation {
    */
   protected List<String> importPortfolio(String portfolioName,
                                          PortfolioTypeEnum portfolioType) throws IOException {
-    File directory;
-    if (portfolioType == PortfolioTypeEnum.NORMAL) {
-      directory = new File(System.getProperty("user.dir") + File.separator +
-              configReader().get("PORTFOLIOS_PATH") +
-              File.separator + configReader().get("INFLEXIBLE_PORTFOLIOS_PATH"));
-    } else {
-      directory = new File(System.getProperty("user.dir") + File.separator
-              + configReader().get("PORTFOLIOS_PATH") +
-              File.separator + configReader().get("FLEXIBLE_PORTFOLIOS_PATH"));
-    }
-    File[] files = directory.listFiles();
-    if (files != null && files.length != 0) {
-      for (File file : files) {
-        if (file.isFile()) {
-          int lastIdx = file.toString().split("\\\\").length - 1;
-          String fileName = file.toString().split("\\\\")[lastIdx];
-          if (fileName.equalsIgnoreCase(portfolioName + ".csv")) {
-            BufferedReader reader = new BufferedReader(new FileReader(new File(System
-                    .getProperty("user.dir") + File.separator +
-                    configReader().get("PORTFOLIOS_PATH") +
-                    File.separator + configReader()
-                    .get(portfolioType == PortfolioTypeEnum.NORMAL ?
-                            "INFLEXIBLE_PORTFOLIOS_PATH" : "FLEXIBLE_PORTFOLIOS_PATH"),
-                    portfolioName + ".csv")));
-            return readerFile(reader);
-          }
-        }
-      }
-      throw new FileNotFoundException("Portfolio " + portfolioName + " doesn't exists.");
-    } else {
+    PortfolioCatalog.Entry entry = catalog().get(portfolioType == PortfolioTypeEnum.NORMAL
+            ? PortfolioCatalog.Kind.INFLEXIBLE : PortfolioCatalog.Kind.FLEXIBLE, portfolioName);
+    if (entry == null) {
       throw new FileNotFoundException("Portfolio " + portfolioName + " doesn't exists.");
     }
+    if (portfolioType == PortfolioTypeEnum.FLEXIBLE) {
+      return importFlexiblePortfolio(entry.getName());
+    }
+    BufferedReader reader = new BufferedReader(new FileReader(entry.getFile()));
+    return readerFile(reader);
   }
 
+  private List<String> importFlexiblePortfolio(String portfolioName) throws IOException {
+    TransactionJournal journal = journalOf(portfolioName);
+    ByteBuffer snapshot = journal.readSnapshot();
+    if (snapshot != null) {
+      try {
+        return PortfolioSnapshot.decode(snapshot);
+      } catch (IllegalArgumentException e) {
+        // the snapshot is damaged, the portfolio is read from its files.
+      }
+    }
+    List<String> shares = checkShares(journal.load());
+    PortfolioSnapshot replayed = writeSnapshot(journal, shares);
+    return replayed == null ? shares : replayed;
+  }
 
-  protected List<String> importStrategy(String portfolioName) throws IOException {
-    if (!isStrategy(portfolioName).isEmpty()) {
-      BufferedReader reader =
-              new BufferedReader(new FileReader(new File(System
-                      .getProperty("user.dir") + File.separator +
-                      configReader().get("PORTFOLIOS_PATH") +
-                      File.separator + configReader()
-                      .get("STRATEGIES_PATH"), isStrategy(portfolioName))));
-      return readStrategyFile(reader);
+  private static PortfolioSnapshot writeSnapshot(TransactionJournal journal,
+                                                 List<String> shares) {
+    PortfolioSnapshot snapshot = snapshotOf(shares);
+    if (snapshot != null) {
+      journal.writeSnapshot(snapshot.encode(), shares.size());
     }
-    return null;
+    return snapshot;
   }
 
+  private static PortfolioSnapshot snapshotOf(List<String> shares) {
+    if (shares instanceof PortfolioSnapshot) {
+      return (PortfolioSnapshot) shares;
+    }
+    try {
+      return PortfolioSnapshot.replay(shares);
+    } catch (ParseException | RuntimeException e) {
+      // the transactions can't be replayed, the portfolio is kept without a snapshot.
+      return null;
+    }
+  }
 
-  private String isStrategy(String portfolioName) throws IOException {
-    File directory = new File(System.getProperty("user.dir") + File.separator
-            + configReader().get("PORTFOLIOS_PATH") +
-            File.separator + configReader().get("STRATEGIES_PATH"));
-    File[] files = directory.listFiles();
-    if (files != null && files.length != 0) {
-      for (File file : files) {
-        if (file.isFile()) {
-          int lastIdx = file.toString().split("\\\\").length - 1;
-          String fileName = file.toString().split("\\\\")[lastIdx].split("_")[0];
-          if (fileName.equalsIgnoreCase(portfolioName)) {
-            return file.toString().split("\\\\")[lastIdx];
-          }
-        }
-      }
+
+  protected List<String> importStrategy(String portfolioName) throws IOException {
+    File strategy = catalog().strategyOf(portfolioName);
+    if (strategy != null) {
+      BufferedReader reader = new BufferedReader(new FileReader(strategy));
+      return readStrategyFile(reader);
     }
-    return "";
+    return null;
   }
 
   private void fileFormatChecker(String[] row) throws IOException {
@@ -281,134 +326,131 @@ class FileOperation {
    * @throws ParseException if the date provided is not valid.
    */
   protected LocalDate parseDate(String date) throws ParseException {
-    LocalDate formattedDate;
-    try {
-      SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-      dateFormat.setLenient(false);
-      formattedDate = dateFormat.parse(date).toInstant()
-              .atZone(ZoneId.systemDefault()).toLocalDate();
-    } catch (ParseException e) {
-      throw new ParseException("Provide a valid date", 1);
-    }
-    return formattedDate;
+    return LocalDate.ofEpochDay(parseEpochDay(date));
   }
 
-  private BufferedReader readFile(String fileName, String parentName)
-          throws FileNotFoundException {
+  private static int parseEpochDay(String date) throws ParseException {
     try {
-      return new BufferedReader(
-              new FileReader(new File(parentName, fileName)));
-    } catch (FileNotFoundException e) {
-      throw new FileNotFoundException("File not found");
+      return DateCodec.toEpochDay(date);
+    } catch (DateTimeException e) {
+      throw new ParseException("Provide a valid date", 1);
     }
   }
 
-  protected void generateFile(List<String[]> output, String ticker)
-          throws ParserConfigurationException, IOException {
-    if (output.isEmpty()) {
-      throw new IllegalStateException("File is Empty");
-    }
-    File directory = new File(configReader().get("STOCK_DATA_PATH"));
-    directory.mkdir();
-    try (FileWriter fileWriter = new FileWriter(new File(directory,
-            ticker + "_" + output.get(1)[0] + ".csv"))) {
-      for (int i = 1; i < output.size(); i++) {
-        StringBuilder rowBuilder = new StringBuilder();
-        for (String s : output.get(i)) {
-          rowBuilder.append(s);
-          rowBuilder.append(",");
-        }
-        rowBuilder.deleteCharAt(rowBuilder.length() - 1);
-        rowBuilder.append("\n");
-        fileWriter.write(rowBuilder.toString());
-      }
-    } catch (IOException e) {
-      throw new IOException("An error occurred while writing the contents onto the file.");
-    }
+  /**
+   * The method reads the response of the API into the price series of the ticker as it arrives
+   * and writes the series to the price store.
+   *
+   * @param response stream of the csv response of the API including the header.
+   * @param ticker   ticker symbol of the share.
+   * @return price series of the share.
+   * @throws IOException if the response isn't valid or the price store could not be written.
+   */
+  protected PriceSeries generateFile(InputStream response, String ticker)
+          throws IOException {
+    PriceSeries series = generateSeries(response, ticker);
+    store().write(series, LocalDate.now());
+    return series;
   }
 
   /**
-   * The method returns the key-value map of ticker and company name reading
-   * the data from the file.
+   * The method returns the listed companies that best match the given name or ticker, ranked by
+   * the trigram search over the listing.
    *
-   * @param startsWith The prefix or letter of the ticker needed to get the data.
-   * @return key-value map of ticker and the company name.
-   * @throws IOException If an I/O error occurs.
+   * @param query name or ticker of the company, can be partial or misspelled.
+   * @return key-value map of ticker and company name, the best match first.
+   * @throws IOException If the listing can't be read.
    */
-  protected Map<String, String> getAllStocks(String startsWith) throws IOException {
-    Map<String, String> tickerMap = new HashMap<>();
+  protected Map<String, String> searchCompanies(String query) throws IOException {
+    Map<String, String> result = new LinkedHashMap<>();
     try {
-      BufferedReader reader = readFile("stockData.csv",
-              System.getProperty("user.dir"));
-      String line;
-      while ((line = reader.readLine()) != null) {
-        String[] row = line.split(",");
-        if (row[0].toLowerCase().startsWith(startsWith.toLowerCase())) {
-          tickerMap.put(row[0], row[row.length - 1]);
-        }
+      for (CompanySearch.Match match : CompanySearch.of(listing()).search(query,
+              SEARCH_RESULTS)) {
+        result.put(match.getTicker(), match.getName());
       }
     } catch (IOException e) {
       throw new IOException("File not found.");
     }
-    return tickerMap;
+    return result;
   }
 
-  protected List<Map<String, String>> generateTickerMap(List<String[]> data, String ticker) {
-    List<Map<String, String>> result = new ArrayList<>();
-    for (String[] row : data) {
-      Map<String, String> map = new HashMap<>();
-      map.put("ticker", ticker);
-      map.put("timestamp", row[0]);
-      map.put("open", row[1]);
-      map.put("close", row[4]);
-      map.put("volume", row[5]);
-      result.add(map);
-    }
-    return result;
+  private StockListing listing() throws IOException {
+    return StockListing.of(new File(System.getProperty("user.dir"), "stockData.csv"));
   }
 
+  /**
+   * The method reads the share data row by row into the columnar price series of the ticker.
+   * A header row, if present, is skipped.
+   *
+   * @param data   stream of the share data in timestamp, open, high, low, close, volume format.
+   * @param ticker ticker symbol of the share.
+   * @return price series of the share.
+   * @throws IOException if the share data isn't valid.
+   */
+  protected PriceSeries generateSeries(InputStream data, String ticker) throws IOException {
+    return PriceStore.readCsv(data, ticker);
+  }
 
-  private List<Map<String, String>> getDataFromFile(String companyTicker, File file)
-          throws FileNotFoundException {
-    List<String[]> fileContent = new ArrayList<>();
-    try {
-      BufferedReader reader = new BufferedReader(
-              new FileReader(file));
-      String line;
-      while ((line = reader.readLine()) != null) {
-        String[] output = line.split(",");
-        fileContent.add(output);
+  private PriceStore store() throws IOException {
+    Configuration configuration = Configuration.current();
+    return new PriceStore(new File(System.getProperty("user.dir") + File.separator
+            + configuration.getStockDataPath()), configuration.isStockDataCompressed());
+  }
+
+  private PriceStore.Mapping mapTicker(String ticker, LocalDate date)
+          throws IOException, ParseException {
+    PriceStore store = store();
+    TickerManifest.Entry entry = store.manifest().get(ticker);
+    if (entry == null) {
+      entry = importLegacyFile(store, ticker);
+    }
+    PriceStore.Mapping mapping = null;
+    if (entry != null && !entry.isStale(date)) {
+      mapping = store.map(ticker);
+    }
+    if (mapping == null) {
+      refresh(store, entry, ticker);
+      mapping = store.map(ticker);
+      if (mapping == null) {
+        throw new IOException("Stock data for " + ticker + " is unavailable");
       }
-    } catch (IOException e) {
-      throw new FileNotFoundException("File not found");
     }
-    return generateTickerMap(fileContent, companyTicker);
+    return mapping;
+  }
+
+  private void refresh(PriceStore store, TickerManifest.Entry entry, String ticker)
+          throws IOException, ParseException {
+    if (entry != null
+            && ChronoUnit.DAYS.between(entry.getLastDate(), LocalDate.now()) <= COMPACT_DAYS
+            && store.append(api.getRecentStockDetails(ticker), LocalDate.now())) {
+      return;
+    }
+    api.getStockDetails(ticker);
   }
 
-  private List<Map<String, String>> getTickerData(String companyTicker)
+  private TickerManifest.Entry importLegacyFile(PriceStore store, String ticker)
+          throws IOException, ParseException {
+    File file = store.manifest().getLegacyFile(ticker);
+    if (file == null || !file.isFile()) {
+      return null;
+    }
+    String fileName = file.getName();
+    LocalDate fileDate = parseDate(fileName.substring(fileName.lastIndexOf('_') + 1,
+            fileName.length() - ".csv".length()));
+    store.importCsv(file, ticker, fileDate);
+    return store.manifest().get(ticker);
+  }
+
+  private PriceSeries getTickerData(String companyTicker)
           throws ParseException, IOException {
-    File directory = new File(configReader().get("STOCK_DATA_PATH"));
-    File[] files = directory.listFiles();
     try {
-      if (files == null || files.length == 0) {
-        return api.getStockDetails(companyTicker);
-      } else {
-        for (File file : files) {
-          if (file.isFile()) {
-            String fileTicker = file.toString().split("_")[0];
-            String fileDate = file.toString().split("_")[1].split("\\\\")[0];
-            if (fileTicker.contains(companyTicker)) {
-              // Added minusDays 1
-              if (parseDate(fileDate).isBefore(LocalDate.now().minusDays(1))) {
-                file.delete();
-                return api.getStockDetails(companyTicker);
-              }
-              return getDataFromFile(companyTicker, file);
-            }
-          }
-        }
+      LocalDate date = LocalDate.now().minusDays(1);
+      TickerManifest.Entry entry = store().manifest().get(companyTicker);
+      if (entry == null || entry.isStale(date)) {
+        mapTicker(companyTicker, date);
       }
-      return api.getStockDetails(companyTicker);
+      return SeriesCache.shared().get(companyTicker,
+              ticker -> mapTicker(ticker, date).toSeries());
     } catch (IOException e) {
       throw new IOException("An error occurred while reading the file.");
     } catch (ParseException e) {
@@ -417,27 +459,18 @@ class FileOperation {
   }
 
   /**
-   * The method returns the share data for a given company name by reading the data from the file.
+   * The method returns the price history for a given company name by reading the data from the
+   * file.
    *
    * @param companyName the name of the company.
-   * @return The share data for a given company.
+   * @return The price series of the given company.
    * @throws ParseException If the file isn't parsed properly.
    * @throws IOException    If share data is unavailable for the company.
    */
-  protected List<Map<String, String>> getShareByCompanyName(String companyName)
+  protected PriceSeries getSeriesByCompanyName(String companyName)
           throws ParseException, IOException {
     try {
-      BufferedReader reader = readFile("stockData.csv", System.getProperty("user.dir"));
-      String line = "";
-      while ((line = reader.readLine()) != null) {
-        String[] row = line.split(",");
-        if (row[row.length - 1].toLowerCase().replaceAll("\\s+", "")
-                .startsWith(companyName.toLowerCase().replaceAll("\\s+", "")) ||
-                row[row.length - 1].equalsIgnoreCase(companyName)) {
-          return getTickerData(row[0]);
-        }
-      }
-      throw new IOException("Stock data for " + companyName + " is unavailable");
+      return getTickerData(getTickerByCompanyName(companyName));
     } catch (IOException e) {
       throw new IOException("No stock data found for " + companyName);
     } catch (ParseException e) {
@@ -445,6 +478,205 @@ class FileOperation {
     }
   }
 
+  /**
+   * The method returns the ticker of the company the given name resolves to, the best match of
+   * the trigram search over the listing.
+   *
+   * @param companyName the name or the ticker of the company.
+   * @return ticker symbol of the company.
+   * @throws IOException if no listed company matches the name well enough.
+   */
+  protected String getTickerByCompanyName(String companyName) throws IOException {
+    CompanySearch.Match match = CompanySearch.of(listing()).resolve(companyName);
+    if (match == null) {
+      throw new IOException("No stock data found for " + companyName);
+    }
+    return match.getTicker();
+  }
+
+  /**
+   * The method loads the stock data of the given tickers in parallel so that the data of every
+   * share is available before it is read one share at a time. Only the tickers that are missing
+   * or older than the given date are loaded.
+   *
+   * @param tickers  tickers to be loaded.
+   * @param date     date for which the data is needed.
+   * @param listener listener notified after every ticker, may be null.
+   * @return result of every ticker that had to be loaded.
+   * @throws IOException if the data directory can't be read or the loading is interrupted.
+   */
+  protected Map<String, Prefetcher.Result> prefetch(Collection<String> tickers, LocalDate date,
+                                                    Prefetcher.Listener listener)
+          throws IOException {
+    PriceStore store = store();
+    Set<String> missing = new LinkedHashSet<>();
+    for (String ticker : tickers) {
+      TickerManifest.Entry entry = store.manifest().get(ticker);
+      if (entry == null || entry.isStale(date)) {
+        missing.add(ticker.toUpperCase());
+      }
+    }
+    try {
+      return new Prefetcher(Configuration.current().getPrefetchThreads()).prefetch(missing,
+              ticker -> mapTicker(ticker, date), listener);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Loading the stock data was interrupted.");
+    }
+  }
+
+  /**
+   * The method loads the stock data of every company of the given strategies in parallel.
+   *
+   * @param strategy list of strategies in the format saved in the strategy file.
+   * @throws IOException if the data directory can't be read or the loading is interrupted.
+   */
+  protected void prefetchStrategy(List<String> strategy) throws IOException {
+    Set<String> tickers = new LinkedHashSet<>();
+    addStrategyTickers(strategy, tickers);
+    prefetch(tickers, LocalDate.now().minusDays(1), prefetchListener);
+  }
+
+  private void addStrategyTickers(List<String> strategy, Set<String> tickers) {
+    for (String strategyRow : strategy) {
+      String[] row = strategyRow.split(",");
+      for (String share : row[5].replace("[", "").replace("]", "").split(";")) {
+        try {
+          tickers.add(getTickerByCompanyName(share.split(":")[0]));
+        } catch (IOException e) {
+          // the missing company is reported when its data is read.
+        }
+      }
+    }
+  }
+
+  /**
+   * The method returns every ticker held by the saved portfolios or bought by the saved
+   * strategies. A portfolio that can't be read is skipped.
+   *
+   * @return set of ticker symbols.
+   * @throws IOException if the portfolio directories can't be read.
+   */
+  Set<String> heldTickers() throws IOException {
+    Set<String> tickers = new LinkedHashSet<>();
+    PortfolioCatalog catalog = catalog();
+    for (PortfolioCatalog.Kind kind : PortfolioCatalog.Kind.values()) {
+      for (PortfolioCatalog.Entry entry : catalog.entries(kind)) {
+        try {
+          tickers.addAll(tickersOf(entry));
+        } catch (IOException | RuntimeException e) {
+          // the portfolio is refreshed when it is opened.
+        }
+      }
+    }
+    return tickers;
+  }
+
+  /**
+   * The method returns the tickers held by the given portfolio or bought by the given strategy,
+   * reading it the way it is read when it is opened.
+   *
+   * @param entry catalog entry of the portfolio or strategy.
+   * @return set of ticker symbols.
+   * @throws IOException if the portfolio can't be read.
+   */
+  Set<String> tickersOf(PortfolioCatalog.Entry entry) throws IOException {
+    Set<String> tickers = new LinkedHashSet<>();
+    List<String> rows = entry.getKind() == PortfolioCatalog.Kind.FLEXIBLE
+            ? importFlexiblePortfolio(entry.getName())
+            : Files.readAllLines(entry.getFile().toPath());
+    if (entry.getKind() == PortfolioCatalog.Kind.STRATEGY) {
+      addStrategyTickers(rows, tickers);
+    } else {
+      for (String row : rows) {
+        if (!row.isEmpty()) {
+          tickers.add(row.split(",")[0].toUpperCase());
+        }
+      }
+    }
+    return tickers;
+  }
+
+  /**
+   * The method returns the portfolios that were saved last, flexible and inflexible.
+   *
+   * @param count maximum number of portfolios.
+   * @return catalog entries of the portfolios, the most recently saved first.
+   * @throws IOException if the portfolio directories can't be read.
+   */
+  List<PortfolioCatalog.Entry> recentPortfolios(int count) throws IOException {
+    List<PortfolioCatalog.Entry> entries = new ArrayList<>(
+            catalog().entries(PortfolioCatalog.Kind.FLEXIBLE));
+    entries.addAll(catalog().entries(PortfolioCatalog.Kind.INFLEXIBLE));
+    entries.sort(Comparator.comparingLong(PortfolioCatalog.Entry::getLastModified).reversed());
+    return entries.subList(0, Math.min(count, entries.size()));
+  }
+
+  /**
+   * The method reads the stock listing and builds the search over it.
+   *
+   * @throws IOException if the listing can't be read.
+   */
+  void warmListing() throws IOException {
+    CompanySearch.of(listing());
+  }
+
+  /**
+   * The method parses the stored price series of the ticker into the series cache. Nothing is
+   * fetched from the API.
+   *
+   * @param ticker ticker symbol of the share.
+   * @return true if the series was stored, else false.
+   * @throws IOException if the stored series can't be read.
+   */
+  boolean warmSeries(String ticker) throws IOException {
+    PriceStore store = store();
+    if (store.manifest().get(ticker) == null) {
+      return false;
+    }
+    try {
+      SeriesCache.shared().get(ticker, key -> {
+        PriceSeries series = store.read(key);
+        if (series == null) {
+          throw new IOException("Stock data for " + key + " is unavailable");
+        }
+        return series;
+      });
+    } catch (ParseException e) {
+      throw new IOException("Error parsing the file.");
+    }
+    return true;
+  }
+
+  /**
+   * The method makes the stock data of the ticker current. After the market closed, a ticker
+   * whose last stored day is before today is fetched again even if it was fetched earlier today,
+   * else only a missing or stale ticker is fetched.
+   *
+   * @param ticker ticker symbol of the share.
+   * @param closed whether the market of today has closed.
+   * @throws IOException    if the data can't be fetched or stored.
+   * @throws ParseException if the fetched data can't be parsed.
+   */
+  void refreshTicker(String ticker, boolean closed) throws IOException, ParseException {
+    LocalDate today = LocalDate.now();
+    PriceStore store = store();
+    TickerManifest.Entry entry = store.manifest().get(ticker);
+    if (closed && entry != null && entry.getLastDate().isBefore(today)) {
+      refresh(store, entry, ticker);
+    } else {
+      mapTicker(ticker, today);
+    }
+  }
+
+  private void prefetchShares(List<String> sharesLine, LocalDate date) throws IOException {
+    Set<String> tickers = new LinkedHashSet<>();
+    for (String share : sharesLine) {
+      tickers.add(share.split(",")[0]);
+    }
+    prefetch(tickers, date, prefetchListener);
+  }
+
   /**
    * The method returns list of map of the stock data for a given date.
    *
@@ -457,79 +689,29 @@ class FileOperation {
                                                List<String> sharesLine) throws IOException {
     List<Map<String, String>> res = new ArrayList<>();
     try {
-      File[] files = getFiles(sharesLine);
+      prefetchShares(sharesLine, date);
       for (String share : sharesLine) {
-        String[] row = share.split(",");
-        boolean flag = false;
-        for (File file : files) {
-          if (file.isFile()) {
-            String fileName = file.toString().split("\\\\")[file.toString().
-                    split("\\\\").length - 1];
-            String fileTicker = fileName.split("_")[0];
-            String fileDate = fileName.split("_")[1].split("\\.")[0];
-            if (isTickerAndInDateRange(fileTicker, row, fileDate)) {
-              if (date.isAfter(parseDate(fileDate))) {
-                file.delete();
-                api.getStockDetails(row[0]);
-                return getValue(date, sharesLine);
-              }
-              flag = true;
-              addDataToResult(date, fileName, row, fileDate, res);
-            }
-          }
-        }
-        if (!flag) {
-          api.getStockDetails(row[0]);
-          return getValue(date, sharesLine);
-        }
+        addDataToResult(date, share.split(","), res);
       }
     } catch (ParseException | IOException e) {
       throw new IOException("Unable to fetch the total value from the file.");
     }
+    WarmUp.valued();
     return res;
   }
 
-  private boolean isTickerAndInDateRange(String fileTicker, String[] row, String fileDate)
-          throws ParseException {
-    return fileTicker.contains(row[0])
-            && (parseDate(row[1]).isBefore(
-            parseDate(fileDate))
-            || (parseDate(row[1])).isEqual(
-            parseDate(fileDate)));
-  }
-
-  private File[] getFiles(List<String> sharesLine) throws IOException, ParseException {
-    File directory = new File(System.getProperty("user.dir") + File.separator +
-            configReader().get("STOCK_DATA_PATH"));
-    File[] files = directory.listFiles();
-    if (files == null ||
-            Arrays.stream(files).
-                    filter(File::isFile).toArray().length == 0) {
-      for (String share : sharesLine) {
-        api.getStockDetails(share.split(",")[0]);
-      }
-    }
-    return files;
-  }
-
-  private void addDataToResult(LocalDate date, String fileName, String[] row,
-                               String fileDate, List<Map<String, String>> res)
-          throws IOException {
-    BufferedReader reader = readFile(fileName,
-            configReader().get("STOCK_DATA_PATH"));
-    String line = "";
-    while ((line = reader.readLine()) != null) {
-      String[] lineData = line.split(",");
-      if (lineData[0].equalsIgnoreCase(date.toString())) {
-        Map<String, String> map = new HashMap<>();
-        map.put("quantity", row[5]);
-        map.put("open", lineData[1]);
-        map.put("close", lineData[4]);
-        map.put("timestamp", row[1]);
-        map.put("fileTimeStamp", fileDate);
-        res.add(map);
-        break;
-      }
+  private void addDataToResult(LocalDate date, String[] row, List<Map<String, String>> res)
+          throws IOException, ParseException {
+    PriceStore.Mapping mapping = mapTicker(row[0], date);
+    int index = mapping.indexOf(date);
+    if (index != -1) {
+      Map<String, String> map = new HashMap<>();
+      map.put("quantity", row[5]);
+      map.put("open", String.valueOf(mapping.getOpen(index)));
+      map.put("close", String.valueOf(mapping.getClose(index)));
+      map.put("timestamp", row[1]);
+      map.put("fileTimeStamp", DateCodec.format(mapping.getEpochDay(mapping.size() - 1)));
+      res.add(map);
     }
   }
 
@@ -540,13 +722,7 @@ class FileOperation {
    * @throws IOException If an I/O error occurs.
    */
   protected List<String> getFlexiblePortfolios() throws IOException {
-    // Changed path
-    List<String> portfolios = new ArrayList<>();
-    File directory =
-            new File(System.getProperty("user.dir")
-                    + File.separator + configReader().get("PORTFOLIOS_PATH") +
-                    File.separator + configReader().get("FLEXIBLE_PORTFOLIOS_PATH"));
-    return getPortfolios(directory, portfolios);
+    return catalog().names(PortfolioCatalog.Kind.FLEXIBLE);
   }
 
   /**
@@ -556,12 +732,7 @@ class FileOperation {
    * @throws IOException If an I/O error occurs.
    */
   protected List<String> getStrategies() throws IOException {
-    List<String> portfolios = new ArrayList<>();
-    File directory =
-            new File(System.getProperty("user.dir")
-                    + File.separator + configReader().get("PORTFOLIOS_PATH") +
-                    File.separator + configReader().get("STRATEGIES_PATH"));
-    return getPortfolios(directory, portfolios);
+    return catalog().names(PortfolioCatalog.Kind.STRATEGY);
   }
 
 
@@ -572,24 +743,7 @@ class FileOperation {
    * @throws IOException If an I/O error occurs.
    */
   protected List<String> getInflexiblePortfolios() throws IOException {
-    List<String> portfolios = new ArrayList<>();
-    File directory = new File(System.getProperty("user.dir")
-            + File.separator + configReader().get("PORTFOLIOS_PATH") +
-            File.separator + configReader().get("INFLEXIBLE_PORTFOLIOS_PATH"));
-    return getPortfolios(directory, portfolios);
-  }
-
-  private List<String> getPortfolios(File directory, List<String> portfolios) {
-    File[] files = directory.listFiles();
-    if (files != null) {
-      for (File file : files) {
-        if (file.isFile()) {
-          portfolios.add(file.toString().split("\\\\")[
-                  file.toString().split("\\\\").length - 1]);
-        }
-      }
-    }
-    return portfolios;
+    return catalog().names(PortfolioCatalog.Kind.INFLEXIBLE);
   }
 
   /**
@@ -600,11 +754,7 @@ class FileOperation {
    * @throws IOException If an I/O error occurs.
    */
   protected boolean doesInFlexiblePortfolioExist(String portfolioName) throws IOException {
-    File directory =
-            new File(System.getProperty("user.dir") + File.separator +
-                    configReader().get("PORTFOLIOS_PATH") +
-                    File.separator + configReader().get("INFLEXIBLE_PORTFOLIOS_PATH"));
-    return doesPortfolioExists(directory, portfolioName);
+    return catalog().get(PortfolioCatalog.Kind.INFLEXIBLE, portfolioName) != null;
   }
 
 
@@ -616,37 +766,10 @@ class FileOperation {
    * @throws IOException If an I/O error occurs.
    */
   protected boolean doesFlexiblePortfolioExist(String portfolioName) throws IOException {
-    File directory = new File(System.getProperty("user.dir") +
-            File.separator + configReader().get("PORTFOLIOS_PATH") +
-            File.separator + configReader().get("FLEXIBLE_PORTFOLIOS_PATH"));
-    return doesPortfolioExists(directory, portfolioName);
+    return catalog().get(PortfolioCatalog.Kind.FLEXIBLE, portfolioName) != null;
   }
 
 
-  /**
-   * Checks if the portfolio is already there in the directory or not.
-   *
-   * @param directory     the directory name where the file exists.
-   * @param portfolioName the portfolio name.
-   * @return boolean based on if the portfolio exists or not
-   */
-  protected boolean doesPortfolioExists(File directory, String portfolioName) {
-    File[] files = directory.listFiles();
-    if (files == null) {
-      return false;
-    } else {
-      for (File file : files) {
-        if (file.isFile()) {
-          String fileName = getFileName(file.toString());
-          if (fileName.equalsIgnoreCase(portfolioName)) {
-            return true;
-          }
-        }
-      }
-    }
-    return false;
-  }
-
 
   /**
    * On a given day if a particular stock gained its value or lost its value comparing with the
@@ -654,73 +777,18 @@ class FileOperation {
    *
    * @param companyName name of the company to see analysis for.
    * @param date        date on which analysis is to be displayed.
-   * @return map of stock file data.
-   * @throws IOException    if an I/O exception occurs.
+   * @return price series of the stock that contains the given date.
+   * @throws IOException    if the stock data is unavailable on the date.
    * @throws ParseException if file fails to load or save.
    */
-  protected Map<String, String> stockAnalysisDay(String companyName, String date)
+  protected PriceSeries stockAnalysisDay(String companyName, String date)
           throws IOException, ParseException {
-    Map<String, String> res = new HashMap<>();
-    String companyTicker = getShareByCompanyName(companyName).get(1).get("ticker");
-    try {
-      File[] files = getFiles(Collections.singletonList(companyTicker));
-      boolean flag = false;
-      for (File file : files) {
-        if (file.isFile()) {
-          String fileName = file.toString().split("\\\\")[file.toString().
-                  split("\\\\").length - 1];
-          String fileTicker = fileName.split("_")[0];
-          String fileDate = fileName.split("_")[1].split("\\.")[0];
-          if (isTickerCorrect(fileTicker, date, companyTicker, fileDate)) {
-            if (parseDate(date).isAfter(parseDate(fileDate))) {
-              file.delete();
-              api.getStockDetails(companyTicker);
-              return stockAnalysisDay(companyTicker, date);
-            }
-            flag = true;
-            generateData(parseDate(date), fileName, res);
-          }
-        }
-      }
-      if (!flag) {
-        api.getStockDetails(companyTicker);
-        return stockAnalysisDay(companyName, date);
-      }
-    } catch (IOException e) {
-      throw new IOException("Stock data for " + companyName + " is unavailable");
-    } catch (ParseException e) {
-      throw new ParseException("Stock data for " + companyName + " is unavailable", 1);
-    }
-    if (res.isEmpty()) {
+    PriceSeries series = getSeriesByCompanyName(companyName);
+    if (series.indexOf(parseDate(date)) == -1) {
       throw new IOException("Stock data for " + companyName +
               " is unavailable on the specified date");
     }
-    return res;
-  }
-
-  private void generateData(LocalDate date, String fileName, Map<String, String> res)
-          throws IOException {
-    BufferedReader reader = readFile(fileName,
-            configReader().get("STOCK_DATA_PATH"));
-    String line;
-    while ((line = reader.readLine()) != null) {
-      String[] lineData = line.split(",");
-      if (lineData[0].equalsIgnoreCase(date.toString())) {
-        res.put("open", lineData[1]);
-        res.put("close", lineData[4]);
-        break;
-      }
-    }
-  }
-
-  private boolean isTickerCorrect(String fileTicker, String date,
-                                  String companyName, String fileDate)
-          throws ParseException {
-    return fileTicker.contains(companyName)
-            && (parseDate(date).isBefore(
-            parseDate(fileDate))
-            || (parseDate(date).isEqual(
-            parseDate(fileDate))));
+    return series;
   }
 
 
@@ -731,104 +799,19 @@ class FileOperation {
    * @param companyName name of the company to see analysis for.
    * @param startDate   start date of the period to view analysis of.
    * @param endDate     end date of the period to view analysis of.
-   * @return map of stock file data.
+   * @return price series of the stock that contains both the dates.
    * @throws IOException    if an I/O exception occurs.
    * @throws ParseException if file fails to load or save.
    */
-  protected Map<String, String> stockAnalysisPeriod(String companyName,
-                                                    String startDate, String endDate)
+  protected PriceSeries stockAnalysisPeriod(String companyName,
+                                            String startDate, String endDate)
           throws IOException, ParseException {
-    Map<String, String> stockData = new HashMap<>();
-    String closePriceStartDate = stockAnalysisDay(companyName, startDate).get("close");
-    String closePriceEndDate = stockAnalysisDay(companyName, endDate).get("close");
-    if (closePriceStartDate.isEmpty() || closePriceEndDate.isEmpty()) {
+    PriceSeries series = getSeriesByCompanyName(companyName);
+    if (series.indexOf(parseDate(startDate)) == -1
+            || series.indexOf(parseDate(endDate)) == -1) {
       throw new IllegalStateException("Data unavailable for the specified date");
     }
-    stockData.put("closePriceStartDate", closePriceStartDate);
-    stockData.put("closePriceEndDate", closePriceEndDate);
-    return stockData;
-  }
-
-
-  /**
-   * On a given number of days calculates the X day moving average of the particular stock.
-   *
-   * @param companyName name of the company to see analysis for.
-   * @param day         number of days for which the moving average is to be calculated.
-   * @param date        date from which the stock trend is to be viewed.
-   * @return List of map of the stock data.
-   * @throws ParseException if file fails to load or save.
-   * @throws IOException    if an I/O exception occurs.
-   */
-  protected List<Map<String, String>> xDayMovingAverage(String companyName,
-                                                        int day, String date)
-          throws ParseException, IOException {
-    Map<String, String> dateMap = new HashMap<>();
-    dateMap.put("date", date);
-    dateMap.put("day", String.valueOf(day));
-    List<Map<String, String>> companyMap = getShareByCompanyName(companyName);
-    companyMap.add(dateMap);
-    return companyMap;
-  }
-
-
-  /**
-   * Calculates the crossover of the stock trend from the start date and the end date specified.
-   *
-   * @param companyName name of the company to see analysis for.
-   * @param startDate   start date of the period to view analysis of.
-   * @param endDate     end date of the period to view analysis of.
-   * @return List of map of the stock data.
-   * @throws ParseException if file fails to load or save.
-   * @throws IOException    if an I/O exception occurs.
-   */
-  protected List<Map<String, String>> crossovers(String companyName,
-                                                 String startDate, String endDate)
-          throws ParseException, IOException {
-    Map<String, String> dateMap = new HashMap<>();
-    dateMap.put("startDate", startDate);
-    dateMap.put("endDate", endDate);
-    List<Map<String, String>> companyMap = getShareByCompanyName(companyName);
-    companyMap.add(dateMap);
-    return companyMap;
-  }
-
-
-  /**
-   * Calculates the moving crossover of the stock trend from the start date and the end date
-   * with the X day and Y day moving average specified.
-   *
-   * @param companyName name of the company to see analysis for.
-   * @param xday        number of days for which the moving average is to be calculated.
-   * @param yday        number of days for which the moving average is to be calculated.
-   * @param startDate   start date of the period to view analysis of.
-   * @param endDate     end date of the period to view analysis of.
-   * @return List of map of the stock data.
-   * @throws ParseException if file fails to load or save.
-   * @throws IOException    if an I/O exception occurs.
-   */
-  protected List<Map<String, String>> movingCrossovers(String companyName, int xday, int yday,
-                                                       String startDate, String endDate)
-          throws ParseException, IOException {
-    Map<String, String> dateMap = new HashMap<>();
-    dateMap.put("startDate", startDate);
-    dateMap.put("endDate", endDate);
-    dateMap.put("xday", String.valueOf(xday));
-    dateMap.put("yday", String.valueOf(yday));
-    List<Map<String, String>> companyMap = getShareByCompanyName(companyName);
-    companyMap.add(dateMap);
-    return companyMap;
-  }
-
-  private String getFileName(String fileName) {
-    Path filePath = Paths.get(fileName);
-    String nameOfFile = filePath.getFileName().toString();
-    int dotIndex = nameOfFile.lastIndexOf('.');
-    if (dotIndex == -1) {
-      return nameOfFile;
-    } else {
-      return nameOfFile.substring(0, dotIndex);
-    }
+    return series;
   }
 
 
@@ -846,43 +829,25 @@ class FileOperation {
           throws IOException {
     List<Map<String, String>> res = new ArrayList<>();
     try {
-      File[] files = getFiles(sharesLine);
+      prefetchShares(sharesLine, date);
+      long day = date.toEpochDay();
       for (String share : sharesLine) {
         String[] row = share.split(",");
-        if (parseDate(row[1]).isEqual(date) || parseDate(row[1]).isBefore(date)) {
-          boolean flag = false;
-          for (File file : files) {
-            if (file.isFile()) {
-              String fileName = file.toString().split("\\\\")[file.toString().
-                      split("\\\\").length - 1];
-              String fileTicker = fileName.split("_")[0];
-              String fileDate = fileName.split("_")[1].split("\\.")[0];
-              if (isTickerAndInDateRange(fileTicker, row, fileDate)) {
-                if (date.isAfter(parseDate(fileDate))) {
-                  file.delete();
-                  api.getStockDetails(row[0]);
-                  return getValue(date, sharesLine);
-                }
-                flag = true;
-                addDataToResult(date, fileName, row, fileDate, res);
-              }
-            }
-          }
-          if (!flag) {
-            api.getStockDetails(row[0]);
-            return getValue(date, sharesLine);
-          }
+        if (parseEpochDay(row[1]) <= day) {
+          addDataToResult(date, row, res);
         }
       }
     } catch (ParseException | IOException e) {
       throw new IOException("Unable to fetch the total value from the file.");
     }
+    WarmUp.valued();
     return res;
   }
 
   protected float fetchStrategyData(List<String> strategy, float amount,
                                     List<Map<String, String>> finalData, List<String> strategyList)
           throws ParseException, IOException {
+    prefetchStrategy(strategy);
     for (String strategyRow : strategy) {
       String[] row = strategyRow.split(",");
       LocalDate lastUpdated = parseDate(row[2]);
@@ -920,13 +885,13 @@ class FileOperation {
                                         LocalDate currentDate, String[] row)
           throws IOException, ParseException {
     try {
-      Map<String, String> map = dataOfShareForDate(getShareByCompanyName(share.getKey()),
+      Map<String, String> map = dataOfShareForDate(getSeriesByCompanyName(share.getKey()),
               currentDate.toString());
       map.put("percentage", share.getValue());
       row[2] = currentDate.toString();
       finalData.add(map);
     } catch (Exception e) {
-      Map<String, String> map = dataOfShareForDate(getShareByCompanyName(share.getKey()),
+      Map<String, String> map = dataOfShareForDate(getSeriesByCompanyName(share.getKey()),
               currentDate.plusDays(1).toString());
       map.put("percentage", share.getValue());
       row[2] = currentDate.toString();
@@ -12,6 +12,7 @@ import javax.swing.JLabel;
 import javax.swing.table.DefaultTableModel;
 
 import model.ManagementModel;
+import model.PriceSeries;
 import view.ManagementGUIView;
 
 import static controller.ManagementOptions.dataOfShareForDate;
@@ -84,7 +85,7 @@ public class GUIController implements Features {
   @Override
   public Map<String, String> viewAllStocks(String stockName, JLabel label) {
     try {
-      return file.getAllStocks(stockName);
+      return file.searchCompanies(stockName);
     } catch (Exception e) {
       this.view.setErrorMessage(e.getMessage(), label);
     }
@@ -94,7 +95,7 @@ public class GUIController implements Features {
   @Override
   public boolean checkStock(String stockName) {
     try {
-      file.getShareByCompanyName(stockName);
+      file.getSeriesByCompanyName(stockName);
       return true;
     } catch (Exception e) {
       return false;
@@ -124,7 +125,7 @@ public class GUIController implements Features {
       DateTimeFormatter formatter2 = DateTimeFormatter.ofPattern("yyyy-MM-dd",
               Locale.ENGLISH);
       String formattedDate = formatDates(year, month, day).format(formatter2);
-      dataOfShareForDate(file.getShareByCompanyName(stockName),
+      dataOfShareForDate(file.getSeriesByCompanyName(stockName),
               formattedDate);
       return true;
     } catch (Exception e) {
@@ -150,8 +151,8 @@ public class GUIController implements Features {
       DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd",
               Locale.ENGLISH);
       String formattedDate = date.format(dateTimeFormatter);
-      Map<String, String> stockData = file.stockAnalysisDay(stockName, formattedDate);
-      return model.stockAnalysisDay(stockData);
+      PriceSeries stockData = file.stockAnalysisDay(stockName, formattedDate);
+      return model.stockAnalysisDay(stockData, date);
     } catch (Exception e) {
       this.view.setErrorMessage(e.getMessage(), label);
       return 0;
@@ -166,9 +167,9 @@ public class GUIController implements Features {
               Locale.ENGLISH);
       String formattedStartDate = startDate.format(formatter2);
       String formattedEndDate = endDate.format(formatter2);
-      Map<String, String> stockData = file.stockAnalysisPeriod(stockName, formattedStartDate,
+      PriceSeries stockData = file.stockAnalysisPeriod(stockName, formattedStartDate,
               formattedEndDate);
-      return model.stockAnalysisPeriod(stockData);
+      return model.stockAnalysisPeriod(stockData, startDate, endDate);
     } catch (Exception e) {
       this.view.setErrorMessage(e.getMessage(), label);
     }
@@ -178,11 +179,8 @@ public class GUIController implements Features {
   @Override
   public float xDayMovingAverage(String stockName, Integer xDay, LocalDate date) {
     try {
-      DateTimeFormatter formatter2 = DateTimeFormatter.ofPattern("yyyy-MM-dd",
-              Locale.ENGLISH);
-      String givenDate = date.format(formatter2);
-      List<Map<String, String>> stockData = file.xDayMovingAverage(stockName, xDay, givenDate);
-      return model.xDayMovingAverage(stockData);
+      PriceSeries stockData = file.getSeriesByCompanyName(stockName);
+      return model.xDayMovingAverage(stockData, date, xDay);
     } catch (Exception e) {
       return 0;
     }
@@ -192,13 +190,8 @@ public class GUIController implements Features {
   public Map<String, List<String>> crossovers(String stockName, LocalDate startDate,
                                               LocalDate endDate) {
     try {
-      DateTimeFormatter formatter2 = DateTimeFormatter.ofPattern("yyyy-MM-dd",
-              Locale.ENGLISH);
-      String formattedStartDate = startDate.format(formatter2);
-      String formattedEndDate = endDate.format(formatter2);
-      List<Map<String, String>> stockData = file.crossovers(stockName, formattedStartDate,
-              formattedEndDate);
-      return model.crossOvers(stockData);
+      PriceSeries stockData = file.getSeriesByCompanyName(stockName);
+      return model.crossOvers(stockData, startDate, endDate);
     } catch (Exception e) {
       return null;
     }
@@ -208,13 +201,8 @@ public class GUIController implements Features {
   public Map<String, List<String>> movingCrossovers(String stockName, int xDay, int yDay,
                                                     LocalDate startDate, LocalDate endDate) {
     try {
-      DateTimeFormatter formatter2 = DateTimeFormatter.ofPattern("yyyy-MM-dd",
-              Locale.ENGLISH);
-      String formattedStartDate = startDate.format(formatter2);
-      String formattedEndDate = endDate.format(formatter2);
-      List<Map<String, String>> stockData = file.movingCrossovers(stockName,
-              xDay, yDay, formattedStartDate, formattedEndDate);
-      return model.movingCrossovers(stockData);
+      PriceSeries stockData = file.getSeriesByCompanyName(stockName);
+      return model.movingCrossovers(stockData, startDate, endDate, xDay, yDay);
     } catch (Exception e) {
       return null;
     }
@@ -281,7 +269,7 @@ public class GUIController implements Features {
   public void buyStock(String companyName, String quantity, LocalDate buyDate, JLabel label) {
     try {
       Map<String, String> data =
-              dataOfShareForDate(file.getShareByCompanyName(companyName), String.valueOf(buyDate));
+              dataOfShareForDate(file.getSeriesByCompanyName(companyName), String.valueOf(buyDate));
       this.model.buy(Integer.parseInt(quantity), data);
     } catch (Exception e) {
       this.view.setErrorMessage(e.getMessage(), label);
@@ -296,8 +284,8 @@ public class GUIController implements Features {
   @Override
   public void sellStock(String companyName, String quantity, LocalDate date, JLabel label) {
     try {
-      Map<String, String> data = file.getShareByCompanyName(companyName).get(1);
-      model.sell(Integer.parseInt(quantity), data.get("ticker"), date);
+      String ticker = file.getSeriesByCompanyName(companyName).getTicker();
+      model.sell(Integer.parseInt(quantity), ticker, date);
     } catch (Exception e) {
       this.view.setErrorMessage(e.getMessage(), label);
     }
@@ -364,7 +352,7 @@ public class GUIController implements Features {
         this.view.setErrorMessage("Percentage can't be more than 100", errorLabel);
         return null;
       } else {
-        data = dataOfShareForDate(file.getShareByCompanyName(company), timestamp);
+        data = dataOfShareForDate(file.getSeriesByCompanyName(company), timestamp);
         data.put("percentage", percentage);
         String[] row = new String[]{company, timestamp, data.get("close"), percentage};
         percentageLabel.setText(String.valueOf(
@@ -396,8 +384,7 @@ public class GUIController implements Features {
   @Override
   public Map<String, String> getDataForStrategy(LocalDate currentDate,
                                                 String companyName,
-                                                List<Map<String,
-                                                        String>> shareData, JLabel label) {
+                                                PriceSeries shareData, JLabel label) {
     try {
       return dataOfShareForDate(shareData, currentDate.toString());
     } catch (Exception e) {
@@ -407,9 +394,9 @@ public class GUIController implements Features {
   }
 
   @Override
-  public List<Map<String, String>> getShareData(String companyName, JLabel label) {
+  public PriceSeries getShareData(String companyName, JLabel label) {
     try {
-      return file.getShareByCompanyName(companyName);
+      return file.getSeriesByCompanyName(companyName);
     } catch (Exception e) {
       this.view.setErrorMessage(e.getMessage(), label);
     }
@@ -0,0 +1,474 @@
+package controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local stand-in for the {@code TIME_SERIES_DAILY} query of the Alpha Vantage API, so that the
+ * tests and the benchmarks can run without the network or an API key. The daily prices of a
+ * ticker are served from a csv fixture when there is one in the fixture directory, recorded from
+ * the real API when recording is enabled, or otherwise generated as a random walk seeded by the
+ * seed of the server and the ticker, so the same ticker always gets the same prices. The walk
+ * of a ticker ends on the end date of the server, which is fixed when the server is built, and
+ * is generated once and kept for the following requests. Every response can be delayed, and a
+ * share of the responses can be turned into the error and the throttling messages the real API
+ * sends.
+ *
+ * <p>The server can also be started on its own with
+ * {@code java controller.LocalAlphaVantageServer --port=8089 --fixtures=data --latency=50}, and
+ * the application pointed to it with {@code API_BASE_URL=http://127.0.0.1:8089/query} in the
+ * configuration.
+ */
+public final class LocalAlphaVantageServer {
+
+  private static final String HEADER = "timestamp,open,high,low,close,volume";
+  private static final int COMPACT_ROWS = 100;
+  private static final LocalDate SYNTHETIC_START = LocalDate.of(2000, 1, 3);
+
+  private final File fixtures;
+  private final long seed;
+  private final LocalDate end;
+  private final Map<String, List<String>> synthetics;
+  private final long latencyMillis;
+  private final double errorRate;
+  private final double throttleRate;
+  private final String recordUrl;
+  private final String recordKey;
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Random rolls;
+  private final AtomicLong requests;
+  private final AtomicLong errors;
+  private final AtomicLong throttled;
+
+  private LocalAlphaVantageServer(Builder builder) throws IOException {
+    this.fixtures = builder.fixtures;
+    this.seed = builder.seed;
+    this.end = builder.end == null ? LocalDate.now() : builder.end;
+    this.synthetics = new ConcurrentHashMap<>();
+    this.latencyMillis = builder.latencyMillis;
+    this.errorRate = builder.errorRate;
+    this.throttleRate = builder.throttleRate;
+    this.recordUrl = builder.recordUrl;
+    this.recordKey = builder.recordKey;
+    this.rolls = new Random(builder.seed);
+    this.requests = new AtomicLong();
+    this.errors = new AtomicLong();
+    this.throttled = new AtomicLong();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", builder.port), 0);
+    this.server.createContext("/query", this::handle);
+    this.executor = Executors.newCachedThreadPool();
+    this.server.setExecutor(executor);
+  }
+
+  /**
+   * Creates a new builder of the server.
+   *
+   * @return builder of the server.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Starts the server on its own. The options are {@code --port}, {@code --fixtures},
+   * {@code --seed}, {@code --end} as yyyy-MM-dd, {@code --latency} in milliseconds,
+   * {@code --error-rate}, {@code --throttle-rate} and {@code --record} followed by the api key of
+   * the real API.
+   *
+   * @param args options of the server in the form {@code --name=value}.
+   * @throws IOException if the server can't be started.
+   */
+  public static void main(String[] args) throws IOException {
+    Builder builder = builder().port(8089);
+    for (String arg : args) {
+      String[] option = arg.split("=", 2);
+      String value = option.length > 1 ? option[1] : "";
+      switch (option[0]) {
+        case "--port":
+          builder.port(Integer.parseInt(value));
+          break;
+        case "--fixtures":
+          builder.fixtures(new File(value));
+          break;
+        case "--seed":
+          builder.seed(Long.parseLong(value));
+          break;
+        case "--end":
+          builder.endDate(LocalDate.parse(value));
+          break;
+        case "--latency":
+          builder.latency(Long.parseLong(value));
+          break;
+        case "--error-rate":
+          builder.errorRate(Double.parseDouble(value));
+          break;
+        case "--throttle-rate":
+          builder.throttleRate(Double.parseDouble(value));
+          break;
+        case "--record":
+          builder.record("https://www.alphavantage.co/query", value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + option[0]);
+      }
+    }
+    LocalAlphaVantageServer server = builder.build();
+    server.start();
+    System.out.println("Serving TIME_SERIES_DAILY on " + server.getBaseUrl());
+  }
+
+  /**
+   * Starts serving the requests.
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Stops the server.
+   */
+  public void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * The method returns the url of the query endpoint of the server.
+   *
+   * @return url of the endpoint.
+   */
+  public String getBaseUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/query";
+  }
+
+  /**
+   * The method returns the number of requests received.
+   *
+   * @return number of requests.
+   */
+  public long getRequests() {
+    return requests.get();
+  }
+
+  /**
+   * The method returns the number of requests answered with an error message.
+   *
+   * @return number of errors.
+   */
+  public long getErrors() {
+    return errors.get();
+  }
+
+  /**
+   * The method returns the number of requests answered with a throttling message.
+   *
+   * @return number of throttled requests.
+   */
+  public long getThrottled() {
+    return throttled.get();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    String body;
+    try {
+      if (latencyMillis > 0) {
+        TimeUnit.MILLISECONDS.sleep(latencyMillis);
+      }
+      String ticker = query.getOrDefault("symbol", "").toUpperCase(Locale.ROOT);
+      double roll = nextRoll();
+      if (roll < throttleRate) {
+        throttled.incrementAndGet();
+        body = "{\n    \"Information\": \"Thank you for using Alpha Vantage! Please consider "
+                + "spreading out your free API requests more sparingly (1 request per "
+                + "second).\"\n}";
+      } else if (roll < throttleRate + errorRate
+              || !"TIME_SERIES_DAILY".equals(query.get("function")) || ticker.isEmpty()) {
+        errors.incrementAndGet();
+        body = "{\n    \"Error Message\": \"Invalid API call. Please retry or visit the "
+                + "documentation (https://www.alphavantage.co/documentation/) for "
+                + "TIME_SERIES_DAILY.\"\n}";
+      } else {
+        body = csvOf(rowsOf(ticker), "compact".equals(query.get("outputsize")));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      body = "";
+    }
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type",
+            body.startsWith("{") ? "application/json" : "application/x-download");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream outputStream = exchange.getResponseBody()) {
+      outputStream.write(bytes);
+    }
+  }
+
+  private synchronized double nextRoll() {
+    return rolls.nextDouble();
+  }
+
+  private List<String> rowsOf(String ticker) throws IOException {
+    File fixture = fixtureOf(ticker);
+    if (fixture == null && recordUrl != null) {
+      fixture = record(ticker);
+    }
+    if (fixture == null) {
+      return synthetics.computeIfAbsent(ticker, this::synthetic);
+    }
+    List<String> rows = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(fixture))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isBlank() && !line.startsWith("timestamp")) {
+          rows.add(line);
+        }
+      }
+    }
+    return rows;
+  }
+
+  private File fixtureOf(String ticker) {
+    if (fixtures == null) {
+      return null;
+    }
+    File file = new File(fixtures, ticker + ".csv");
+    if (file.isFile()) {
+      return file;
+    }
+    File[] files = fixtures.listFiles((dir, name) -> name.startsWith(ticker + "_")
+            && name.endsWith(".csv"));
+    return files == null || files.length == 0 ? null : files[0];
+  }
+
+  private synchronized File record(String ticker) throws IOException {
+    File file = new File(fixtures, ticker + ".csv");
+    if (file.isFile()) {
+      return file;
+    }
+    URL url = new URL(recordUrl + "?function=TIME_SERIES_DAILY&outputsize=full&symbol="
+            + ticker + "&apikey=" + recordKey + "&datatype=csv");
+    List<String> rows = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        rows.add(line);
+      }
+    }
+    if (rows.isEmpty() || !rows.get(0).startsWith("timestamp")) {
+      return null;
+    }
+    if (!fixtures.isDirectory() && !fixtures.mkdirs()) {
+      throw new IOException("An error occurred while writing the contents onto the file.");
+    }
+    try (FileWriter fileWriter = new FileWriter(file)) {
+      for (String row : rows) {
+        fileWriter.write(row + "\n");
+      }
+    }
+    return file;
+  }
+
+  private List<String> synthetic(String ticker) {
+    Random random = new Random(seed * 31 + ticker.hashCode());
+    List<String> rows = new ArrayList<>();
+    double close = 20 + random.nextDouble() * 180;
+    for (LocalDate date = SYNTHETIC_START; !date.isAfter(end); date = date.plusDays(1)) {
+      if (date.getDayOfWeek() == DayOfWeek.SATURDAY
+              || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+        continue;
+      }
+      double open = close * (1 + random.nextGaussian() * 0.005);
+      close = Math.max(1, open * (1 + random.nextGaussian() * 0.015));
+      double high = Math.max(open, close) * (1 + random.nextDouble() * 0.01);
+      double low = Math.min(open, close) * (1 - random.nextDouble() * 0.01);
+      long volume = 1_000_000 + (long) (random.nextDouble() * 20_000_000);
+      rows.add(String.format(Locale.ROOT, "%s,%.4f,%.4f,%.4f,%.4f,%d", date, open, high, low,
+              close, volume));
+    }
+    List<String> latestFirst = new ArrayList<>(rows.size());
+    for (int i = rows.size() - 1; i >= 0; i--) {
+      latestFirst.add(rows.get(i));
+    }
+    return Collections.unmodifiableList(latestFirst);
+  }
+
+  private static String csvOf(List<String> rows, boolean compact) {
+    int count = compact ? Math.min(COMPACT_ROWS, rows.size()) : rows.size();
+    StringBuilder builder = new StringBuilder(HEADER).append("\r\n");
+    for (int i = 0; i < count; i++) {
+      builder.append(rows.get(i)).append("\r\n");
+    }
+    return builder.toString();
+  }
+
+  private static Map<String, String> parseQuery(String query) {
+    Map<String, String> map = new HashMap<>();
+    if (query == null) {
+      return map;
+    }
+    for (String pair : query.split("&")) {
+      String[] keyValue = pair.split("=", 2);
+      map.put(URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8),
+              keyValue.length > 1 ? URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8) : "");
+    }
+    return map;
+  }
+
+  /**
+   * The builder sets up the data source and the behaviour of the server.
+   */
+  public static final class Builder {
+    private int port;
+    private File fixtures;
+    private long seed;
+    private LocalDate end;
+    private long latencyMillis;
+    private double errorRate;
+    private double throttleRate;
+    private String recordUrl;
+    private String recordKey;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the port of the server, 0 picks a free port.
+     *
+     * @param port port of the server.
+     * @return the builder.
+     */
+    public Builder port(int port) {
+      this.port = port;
+      return this;
+    }
+
+    /**
+     * Sets the directory of the csv fixtures, named {@code TICKER.csv} or
+     * {@code TICKER_yyyy-MM-dd.csv}, in the layout of the API with the latest date first.
+     *
+     * @param fixtures directory of the fixtures.
+     * @return the builder.
+     */
+    public Builder fixtures(File fixtures) {
+      this.fixtures = fixtures;
+      return this;
+    }
+
+    /**
+     * Sets the seed of the generated prices of the tickers that have no fixture.
+     *
+     * @param seed seed of the generator.
+     * @return the builder.
+     */
+    public Builder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /**
+     * Sets the last date of the generated prices. The date the server is built on is used when
+     * it is not set.
+     *
+     * @param end last date of the generated prices.
+     * @return the builder.
+     */
+    public Builder endDate(LocalDate end) {
+      this.end = end;
+      return this;
+    }
+
+    /**
+     * Sets the delay added to every response.
+     *
+     * @param latencyMillis delay in milliseconds.
+     * @return the builder.
+     */
+    public Builder latency(long latencyMillis) {
+      this.latencyMillis = latencyMillis;
+      return this;
+    }
+
+    /**
+     * Sets the share of the requests answered with the error message of the API.
+     *
+     * @param errorRate share between 0 and 1.
+     * @return the builder.
+     */
+    public Builder errorRate(double errorRate) {
+      this.errorRate = errorRate;
+      return this;
+    }
+
+    /**
+     * Sets the share of the requests answered with the throttling message of the API.
+     *
+     * @param throttleRate share between 0 and 1.
+     * @return the builder.
+     */
+    public Builder throttleRate(double throttleRate) {
+      this.throttleRate = throttleRate;
+      return this;
+    }
+
+    /**
+     * Records the tickers that have no fixture from the given API into the fixture directory the
+     * first time they are requested.
+     *
+     * @param url    url of the query endpoint of the real API.
+     * @param apiKey key of the real API.
+     * @return the builder.
+     */
+    public Builder record(String url, String apiKey) {
+      this.recordUrl = url;
+      this.recordKey = apiKey;
+      return this;
+    }
+
+    /**
+     * Builds the server without starting it.
+     *
+     * @return the server.
+     * @throws IOException              if the port can't be bound.
+     * @throws IllegalArgumentException if a rate isn't between 0 and 1 or recording has no
+     *                                  fixture directory.
+     */
+    public LocalAlphaVantageServer build() throws IOException, IllegalArgumentException {
+      if (errorRate < 0 || throttleRate < 0 || errorRate + throttleRate > 1) {
+        throw new IllegalArgumentException("Error and throttle rates should be between 0 and 1.");
+      }
+      if (recordUrl != null && fixtures == null) {
+        throw new IllegalArgumentException("Recording needs a fixture directory.");
+      }
+      return new LocalAlphaVantageServer(this);
+    }
+  }
+}
@@ -4,6 +4,7 @@ package controller;
 import java.io.IOException;
 import java.text.ParseException;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -14,6 +15,7 @@ import java.util.Map;
 
 import enums.CommandLineEnum;
 import model.ManagementModel;
+import model.PriceSeries;
 import view.ManagementView;
 
 /**
@@ -58,14 +60,15 @@ class ManagementOptions {
    */
   protected static void viewStocks(ManagementView view, FileOperation file) throws IOException {
     try {
-      view.setInputMessage("Search ticker name from A-Z :  ");
+      view.setInputMessage("Search company name or ticker :  ");
       String companyTickerName = view.setInputString();
       view.setInputMessage("-----------------------------------------");
       view.setInputMessage("STOCKS\tCOMPANY NAME");
-      for (Map.Entry<String, String> entry : file.getAllStocks(companyTickerName).entrySet()) {
-        if (entry.getValue().isEmpty()) {
-          view.setErrorMessage("No stock data found for: " + companyTickerName);
-        }
+      Map<String, String> stocks = file.searchCompanies(companyTickerName);
+      if (stocks.isEmpty()) {
+        view.setErrorMessage("No stock data found for: " + companyTickerName);
+      }
+      for (Map.Entry<String, String> entry : stocks.entrySet()) {
         view.setInputMessage(entry.getKey() + "\t" + entry.getValue());
       }
       view.setInputMessage("-----------------------------------------");
@@ -154,12 +157,9 @@ class ManagementOptions {
         throw new IllegalArgumentException("Please enter a valid day.");
       }
       dateValidation(file, startDate, endDate);
-      dataOfShareForDate(file.getShareByCompanyName(stockName), startDate);
-      dataOfShareForDate(file.getShareByCompanyName(stockName), endDate);
-
-      List<Map<String, String>> stockData = file.movingCrossovers(stockName,
-              xDay, yDay, startDate, endDate);
-      Map<String, List<String>> stockValue = model.movingCrossovers(stockData);
+      PriceSeries stockData = file.stockAnalysisPeriod(stockName, startDate, endDate);
+      Map<String, List<String>> stockValue = model.movingCrossovers(stockData,
+              file.parseDate(startDate), file.parseDate(endDate), xDay, yDay);
       getMovingCrossoverData(view, stockValue);
 
     } catch (Exception e) {
@@ -213,10 +213,9 @@ class ManagementOptions {
       view.setInputMessage("Enter the ending date (YYYY-MM-DD):");
       String endDate = view.setInputString();
       dateValidation(file, startDate, endDate);
-      dataOfShareForDate(file.getShareByCompanyName(stockName), startDate);
-      dataOfShareForDate(file.getShareByCompanyName(stockName), endDate);
-      List<Map<String, String>> stockData = file.crossovers(stockName, startDate, endDate);
-      Map<String, List<String>> stockValue = model.crossOvers(stockData);
+      PriceSeries stockData = file.stockAnalysisPeriod(stockName, startDate, endDate);
+      Map<String, List<String>> stockValue = model.crossOvers(stockData,
+              file.parseDate(startDate), file.parseDate(endDate));
       getCrossoverData(view, stockValue);
 
     } catch (Exception e) {
@@ -277,9 +276,8 @@ class ManagementOptions {
       if (xDay <= 0) {
         throw new IllegalArgumentException("Please enter a valid day.");
       }
-      dataOfShareForDate(file.getShareByCompanyName(stockName), givenDate);
-      List<Map<String, String>> stockData = file.xDayMovingAverage(stockName, xDay, givenDate);
-      float stockValue = model.xDayMovingAverage(stockData);
+      PriceSeries stockData = file.stockAnalysisDay(stockName, givenDate);
+      float stockValue = model.xDayMovingAverage(stockData, file.parseDate(givenDate), xDay);
       view.setInputMessage(CommandLineEnum.SUCCESS.getStyle() + "" + xDay +
               "-Day moving average for " + stockName + " is $" + stockValue +
               CommandLineEnum.RESET.getStyle());
@@ -307,10 +305,9 @@ class ManagementOptions {
       view.setInputMessage("Enter the ending date (YYYY-MM-DD):");
       String endDate = view.setInputString();
       dateValidation(file, startDate, endDate);
-      dataOfShareForDate(file.getShareByCompanyName(stockName), startDate);
-      dataOfShareForDate(file.getShareByCompanyName(stockName), endDate);
-      Map<String, String> stockData = file.stockAnalysisPeriod(stockName, startDate, endDate);
-      float stockValue = model.stockAnalysisPeriod(stockData);
+      PriceSeries stockData = file.stockAnalysisPeriod(stockName, startDate, endDate);
+      float stockValue = model.stockAnalysisPeriod(stockData, file.parseDate(startDate),
+              file.parseDate(endDate));
       if (stockValue > 0) {
         view.setInputMessage(CommandLineEnum.SUCCESS.getStyle() + "You may buy " + stockName +
                 " as it has gained: +$" + stockValue + "\n" + CommandLineEnum.RESET.getStyle());
@@ -339,9 +336,8 @@ class ManagementOptions {
     try {
       view.setInputMessage("Enter the date (YYYY-MM-DD):");
       String givenDate = view.setInputString();
-      dataOfShareForDate(file.getShareByCompanyName(stockName), givenDate);
-      Map<String, String> stockData = file.stockAnalysisDay(stockName, givenDate);
-      float stockValue = model.stockAnalysisDay(stockData);
+      PriceSeries stockData = file.stockAnalysisDay(stockName, givenDate);
+      float stockValue = model.stockAnalysisDay(stockData, file.parseDate(givenDate));
       if (stockValue > 0) {
         view.setInputMessage(CommandLineEnum.SUCCESS.getStyle() + "You may buy " + stockName +
                 " as it has gained: +$" + stockValue + "\n" + CommandLineEnum.RESET.getStyle());
@@ -464,7 +460,8 @@ class ManagementOptions {
       if (stockQuantity <= 0) {
         throw new IllegalArgumentException("Please provide valid quantity.");
       }
-      Map<String, String> data = file.getShareByCompanyName(stockName).get(1);
+      PriceSeries series = file.getSeriesByCompanyName(stockName);
+      Map<String, String> data = series.toMap(series.size() - 1);
       data.put("quantity", String.valueOf(stockQuantity));
       sharesMap.add(data);
       view.setInputMessage(CommandLineEnum.SUCCESS.getStyle() + stockQuantity + " " +
@@ -511,7 +508,7 @@ class ManagementOptions {
       if (parsedEndDate.isBefore(parsedStartDate)) {
         throw new IllegalArgumentException("Provide valid period.");
       }
-      List<Map<String, String>> shareData = file.getShareByCompanyName(companyName);
+      PriceSeries shareData = file.getSeriesByCompanyName(companyName);
       AbstractMap.SimpleEntry<Map<LocalDate, String>, Integer> performanceOfStock =
               model.getPerformanceOfStock(parsedStartDate, parsedEndDate, shareData);
       Map<LocalDate, String> values = performanceOfStock.getKey();
@@ -712,7 +709,7 @@ class ManagementOptions {
         throw new IllegalArgumentException("Please provide valid quantity.");
       }
       Map<String, String> data =
-              dataOfShareForDate(file.getShareByCompanyName(stockName), date);
+              dataOfShareForDate(file.getSeriesByCompanyName(stockName), date);
       model.buy(stockQuantity, data);
       view.setInputMessage(CommandLineEnum.SUCCESS.getStyle() + stockQuantity + " " +
               stockName + " stock/s " + " bought successfully." +
@@ -786,8 +783,8 @@ class ManagementOptions {
       if (formattedDate.isAfter(LocalDate.now())) {
         throw new IllegalArgumentException("Provide today's or before date");
       }
-      Map<String, String> data = file.getShareByCompanyName(stockName).get(1);
-      model.sell(stockQuantity, data.get("ticker"), formattedDate);
+      String ticker = file.getSeriesByCompanyName(stockName).getTicker();
+      model.sell(stockQuantity, ticker, formattedDate);
       view.setInputMessage(CommandLineEnum.SUCCESS.getStyle() + stockQuantity + " " +
               stockName + " stock/s " + " sold successfully." +
               CommandLineEnum.RESET.getStyle());
@@ -858,6 +855,7 @@ class ManagementOptions {
     List<String> strategyList = new ArrayList<>();
     float amount = -1;
     if (strategy != null) {
+      file.prefetchStrategy(strategy);
       for (String strategyRow : strategy) {
         String[] row = strategyRow.split(",");
         LocalDate lastUpdated = file.parseDate(row[2]);
@@ -881,14 +879,14 @@ class ManagementOptions {
               for (Map.Entry<String, String> share : sharesPercentageData.entrySet()) {
                 try {
                   Map<String, String> map =
-                          dataOfShareForDate(file.getShareByCompanyName(share.getKey()),
+                          dataOfShareForDate(file.getSeriesByCompanyName(share.getKey()),
                                   currentDate.toString());
                   map.put("percentage", share.getValue());
                   sharesRow[2] = currentDate.toString();
                   finalData.add(map);
                 } catch (Exception e) {
                   Map<String, String> map =
-                          dataOfShareForDate(file.getShareByCompanyName(share.getKey()),
+                          dataOfShareForDate(file.getSeriesByCompanyName(share.getKey()),
                                   currentDate.plusDays(1).toString());
                   map.put("percentage", share.getValue());
                   sharesRow[2] = currentDate.toString();
@@ -916,18 +914,20 @@ class ManagementOptions {
   /**
    * Fetches the data of the stock based on the date specified.
    *
-   * @param dataList fetch the data of the stock
-   * @param date     date to be match if data is present on that day from the file.
+   * @param series price history of the stock.
+   * @param date   date to be match if data is present on that day from the file.
    * @return data of the share available on the date specified.
    * @throws IOException I/O if an error occurs.
    */
-  protected static Map<String, String> dataOfShareForDate(List<Map<String, String>>
-                                                                  dataList, String date)
+  protected static Map<String, String> dataOfShareForDate(PriceSeries series, String date)
           throws IOException {
-    for (Map<String, String> data : dataList) {
-      if (data.get("timestamp").equals(date)) {
-        return data;
+    try {
+      int index = series.indexOf(LocalDate.parse(date));
+      if (index != -1) {
+        return series.toMap(index);
       }
+    } catch (DateTimeParseException e) {
+      throw new IOException("Share not found on this " + date);
     }
     throw new IOException("Share not found on this " + date);
   }
@@ -957,7 +957,7 @@ class ManagementOptions {
       view.setInputMessage("Enter date : ");
       String date = view.setInputString();
       Map<String, String> data =
-              dataOfShareForDate(file.getShareByCompanyName(share), date);
+              dataOfShareForDate(file.getSeriesByCompanyName(share), date);
       data.put("percentage", String.valueOf(p));
       sharesList.add(data);
       percentage += p;
@@ -1006,7 +1006,7 @@ class ManagementOptions {
         view.setErrorMessage("Enter valid percentage");
         continue;
       }
-      List<Map<String, String>> shareData = file.getShareByCompanyName(share);
+      PriceSeries shareData = file.getSeriesByCompanyName(share);
       currentDate = startDate;
       while (currentDate.isBefore(LocalDate.now())) {
         try {
@@ -0,0 +1,553 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class keeps an index of the saved portfolios and strategies, keyed by the name of the
+ * portfolio ignoring its case. Each entry records the file, its size and last-modified time and
+ * its number of rows, which are the holdings of an inflexible portfolio, the transactions of a
+ * flexible portfolio (including those in its journal) or the strategies of a portfolio. Listing
+ * the portfolios and checking if one exists are answered from memory. The index is persisted in
+ * {@value #FILE_NAME} in the portfolios directory. It is updated in memory when a portfolio is
+ * saved and persisted half a second later, so that a burst of saves writes the file once. On the
+ * first use, only the files whose size or last-modified time changed since it was persisted are
+ * read again. The directories and the journals are watched through the {@link DirectoryWatcher},
+ * so portfolios that are copied, changed or removed by hand or by another instance are picked up
+ * too, reading only the files that were reported.
+ */
+public final class PortfolioCatalog implements Closeable {
+
+  public static final String FILE_NAME = "catalog.csv";
+
+  private static final String EXTENSION = ".csv";
+  private static final long PERSIST_DELAY_MILLIS = 500;
+  private static final Map<String, PortfolioCatalog> CATALOGS = new ConcurrentHashMap<>();
+  private static final ScheduledExecutorService WRITER =
+          Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-writer");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * The kinds of files kept in the catalog, each in its own directory.
+   */
+  public enum Kind {
+    FLEXIBLE, INFLEXIBLE, STRATEGY
+  }
+
+  private final String key;
+  private final File root;
+  private final Map<Kind, File> directories;
+  private final Map<Kind, Map<String, Entry>> entries;
+  private final Map<Path, Kind> watched;
+  private final Object persisting = new Object();
+  private final DirectoryWatcher.Listener listener = this::changed;
+  private DirectoryWatcher watcher;
+  private boolean dirty;
+  private boolean scheduled;
+
+  private PortfolioCatalog(String key, File root, Map<Kind, File> directories) {
+    this.key = key;
+    this.root = root;
+    this.directories = directories;
+    this.entries = new EnumMap<>(Kind.class);
+    for (Kind kind : Kind.values()) {
+      entries.put(kind, new TreeMap<>());
+    }
+    this.watched = new HashMap<>();
+  }
+
+  /**
+   * The method returns the catalog of the given directories, loading it and starting to watch
+   * the directories the first time they are used.
+   *
+   * @param root       portfolios directory in which the catalog is persisted.
+   * @param flexible   directory of the flexible portfolios.
+   * @param inflexible directory of the inflexible portfolios.
+   * @param strategies directory of the strategies.
+   * @return catalog of the directories.
+   */
+  public static PortfolioCatalog of(File root, File flexible, File inflexible, File strategies) {
+    String key = root.getAbsolutePath() + File.pathSeparator + flexible.getAbsolutePath()
+            + File.pathSeparator + inflexible.getAbsolutePath() + File.pathSeparator
+            + strategies.getAbsolutePath();
+    return CATALOGS.computeIfAbsent(key, path -> {
+      Map<Kind, File> directories = new EnumMap<>(Kind.class);
+      directories.put(Kind.FLEXIBLE, flexible.getAbsoluteFile());
+      directories.put(Kind.INFLEXIBLE, inflexible.getAbsoluteFile());
+      directories.put(Kind.STRATEGY, strategies.getAbsoluteFile());
+      PortfolioCatalog catalog = new PortfolioCatalog(path, root.getAbsoluteFile(),
+              directories);
+      catalog.load();
+      catalog.watch();
+      return catalog;
+    });
+  }
+
+  /**
+   * The method returns the entries of every portfolio or strategy of the given kind.
+   *
+   * @param kind kind of the files.
+   * @return list of entries, sorted by the name of the portfolio.
+   */
+  public synchronized List<Entry> entries(Kind kind) {
+    return new ArrayList<>(entries.get(kind).values());
+  }
+
+  /**
+   * The method returns the file names of every portfolio or strategy of the given kind.
+   *
+   * @param kind kind of the files.
+   * @return list of file names, sorted by the name of the portfolio.
+   */
+  public synchronized List<String> names(Kind kind) {
+    List<String> names = new ArrayList<>();
+    for (Entry entry : entries.get(kind).values()) {
+      names.add(entry.getFile().getName());
+    }
+    return names;
+  }
+
+  /**
+   * The method returns the entry of the portfolio of the given name, ignoring its case. A name
+   * that isn't in the catalog is looked up on the disk once, in case the watcher hasn't reported
+   * the file yet.
+   *
+   * @param kind kind of the portfolio.
+   * @param name name of the portfolio without its extension.
+   * @return entry of the portfolio, null if there is none.
+   */
+  public synchronized Entry get(Kind kind, String name) {
+    Entry entry = entries.get(kind).get(name.toLowerCase());
+    if (entry == null) {
+      File file = new File(directories.get(kind), name + EXTENSION);
+      if (file.isFile() && refresh(kind, file)) {
+        persistLater();
+        entry = entries.get(kind).get(name.toLowerCase());
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * The method returns the strategy file of the portfolio of the given name, which is the file
+   * named after the portfolio followed by an underscore.
+   *
+   * @param portfolioName name of the portfolio.
+   * @return strategy file, null if the portfolio has none.
+   */
+  public synchronized File strategyOf(String portfolioName) {
+    Entry entry = entries.get(Kind.STRATEGY).get(portfolioName.toLowerCase());
+    return entry == null ? null : entry.getFile();
+  }
+
+  /**
+   * Records a file that was saved and persists the catalog.
+   *
+   * @param kind kind of the file.
+   * @param file the saved file.
+   * @param rows number of rows that were saved.
+   */
+  public synchronized void update(Kind kind, File file, int rows) {
+    File absolute = file.getAbsoluteFile();
+    long size = absolute.length();
+    long lastModified = absolute.lastModified();
+    if (kind == Kind.FLEXIBLE && journalOf(absolute).isFile()) {
+      size += journalOf(absolute).length();
+      lastModified = Math.max(lastModified, journalOf(absolute).lastModified());
+    }
+    put(kind, new Entry(kind, nameOf(kind, absolute), absolute, size, lastModified, rows));
+    register(kind, directories.get(kind));
+    if (kind == Kind.FLEXIBLE) {
+      register(kind, journalOf(absolute).getParentFile());
+    }
+    persistLater();
+  }
+
+  /**
+   * The method returns the number of files of the given kind.
+   *
+   * @param kind kind of the files.
+   * @return number of files.
+   */
+  public synchronized int size(Kind kind) {
+    return entries.get(kind).size();
+  }
+
+  /**
+   * Stops watching the directories and persists the pending changes. The next call of
+   * {@link #of} for the directories loads the catalog again.
+   *
+   * @throws IOException if the catalog can't be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    CATALOGS.remove(key, this);
+    flush();
+    DirectoryWatcher current;
+    synchronized (this) {
+      current = watcher;
+      watcher = null;
+    }
+    if (current != null) {
+      current.unregister(listener);
+    }
+  }
+
+  private void load() {
+    File file = new File(root, FILE_NAME);
+    if (file.isFile()) {
+      try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          String[] row = line.split(",");
+          if (row.length != 5) {
+            throw new IOException("Catalog is not valid.");
+          }
+          Kind kind = Kind.valueOf(row[0]);
+          File entryFile = new File(directories.get(kind), row[1]);
+          put(kind, new Entry(kind, nameOf(kind, entryFile), entryFile, Long.parseLong(row[2]),
+                  Long.parseLong(row[3]), Integer.parseInt(row[4])));
+        }
+      } catch (IOException | IllegalArgumentException e) {
+        for (Map<String, Entry> map : entries.values()) {
+          map.clear();
+        }
+      }
+    }
+    boolean changed = false;
+    for (Kind kind : Kind.values()) {
+      changed |= scan(kind);
+    }
+    if (changed) {
+      persistLater();
+    }
+  }
+
+  private boolean scan(Kind kind) {
+    Map<String, BasicFileAttributes> files;
+    Map<String, BasicFileAttributes> journals = new HashMap<>();
+    try {
+      files = list(directories.get(kind).toPath(), EXTENSION);
+      if (kind == Kind.FLEXIBLE) {
+        journals = list(new File(directories.get(kind), TransactionJournal.DIRECTORY).toPath(),
+                TransactionJournal.EXTENSION);
+      }
+    } catch (IOException e) {
+      return false;
+    }
+    boolean changed = false;
+    for (Entry entry : new ArrayList<>(entries.get(kind).values())) {
+      if (!files.containsKey(entry.getFile().getName())) {
+        entries.get(kind).remove(entry.getName().toLowerCase());
+        changed = true;
+      }
+    }
+    for (Map.Entry<String, BasicFileAttributes> file : files.entrySet()) {
+      File path = new File(directories.get(kind), file.getKey());
+      changed |= refresh(kind, path, file.getValue(),
+              journals.get(journalOf(path).getName()));
+    }
+    return changed;
+  }
+
+  private static Map<String, BasicFileAttributes> list(Path directory, String extension)
+          throws IOException {
+    Map<String, BasicFileAttributes> files = new HashMap<>();
+    if (Files.isDirectory(directory)) {
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+              "*" + extension)) {
+        for (Path path : stream) {
+          BasicFileAttributes attributes = attributesOf(path);
+          if (attributes != null && attributes.isRegularFile()) {
+            files.put(path.getFileName().toString(), attributes);
+          }
+        }
+      }
+    }
+    return files;
+  }
+
+  private boolean refresh(Kind kind, File file) {
+    File journal = journalOf(file);
+    return refresh(kind, file, attributesOf(file.toPath()),
+            kind == Kind.FLEXIBLE && journal.isFile() ? attributesOf(journal.toPath()) : null);
+  }
+
+  private boolean refresh(Kind kind, File file, BasicFileAttributes attributes,
+                          BasicFileAttributes journal) {
+    String name = nameOf(kind, file);
+    Entry entry = entries.get(kind).get(name.toLowerCase());
+    if (attributes == null || !attributes.isRegularFile()) {
+      if (entry != null && entry.getFile().getName().equals(file.getName())) {
+        entries.get(kind).remove(name.toLowerCase());
+        return true;
+      }
+      return false;
+    }
+    long size = attributes.size();
+    long lastModified = attributes.lastModifiedTime().toMillis();
+    if (journal != null) {
+      size += journal.size();
+      lastModified = Math.max(lastModified, journal.lastModifiedTime().toMillis());
+    }
+    if (entry != null && entry.getFile().getName().equals(file.getName())
+            && entry.getSize() == size && entry.getLastModified() == lastModified) {
+      return false;
+    }
+    put(kind, new Entry(kind, name, file.getAbsoluteFile(), size, lastModified,
+            countRows(kind, file)));
+    return true;
+  }
+
+  private void put(Kind kind, Entry entry) {
+    Map<String, Entry> map = entries.get(kind);
+    String key = entry.getName().toLowerCase();
+    Entry existing = map.get(key);
+    if (kind == Kind.STRATEGY && existing != null
+            && existing.getFile().getName().compareTo(entry.getFile().getName()) < 0) {
+      return;
+    }
+    map.put(key, entry);
+  }
+
+  private static String nameOf(Kind kind, File file) {
+    String name = file.getName();
+    if (name.endsWith(EXTENSION)) {
+      name = name.substring(0, name.length() - EXTENSION.length());
+    }
+    if (kind == Kind.STRATEGY && name.indexOf('_') != -1) {
+      name = name.substring(0, name.indexOf('_'));
+    }
+    return name;
+  }
+
+  private static BasicFileAttributes attributesOf(Path path) {
+    try {
+      return Files.readAttributes(path, BasicFileAttributes.class);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static File journalOf(File file) {
+    return new File(new File(file.getParentFile(), TransactionJournal.DIRECTORY),
+            nameOf(Kind.FLEXIBLE, file) + TransactionJournal.EXTENSION);
+  }
+
+  private static int countRows(Kind kind, File file) {
+    int rows = countLines(file);
+    if (kind == Kind.FLEXIBLE) {
+      File journal = journalOf(file);
+      if (journal.isFile()) {
+        rows += Math.max(0, countLines(journal) - 1);
+      }
+    }
+    return rows;
+  }
+
+  private static int countLines(File file) {
+    int lines = 0;
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isEmpty()) {
+          lines++;
+        }
+      }
+    } catch (IOException e) {
+      // the file is being replaced, it is counted again when the watcher reports it.
+    }
+    return lines;
+  }
+
+  private void persistLater() {
+    dirty = true;
+    if (!scheduled) {
+      scheduled = true;
+      WRITER.schedule(this::flush, PERSIST_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void flush() {
+    synchronized (persisting) {
+      StringBuilder text = new StringBuilder();
+      synchronized (this) {
+        scheduled = false;
+        if (!dirty) {
+          return;
+        }
+        dirty = false;
+        for (Map<String, Entry> map : entries.values()) {
+          for (Entry entry : map.values()) {
+            text.append(entry.getKind()).append(',').append(entry.getFile().getName())
+                    .append(',').append(entry.getSize()).append(',')
+                    .append(entry.getLastModified()).append(',').append(entry.getRows())
+                    .append('\n');
+          }
+        }
+      }
+      try {
+        persist(text.toString());
+      } catch (IOException e) {
+        // the files that changed are read again on the next start.
+      }
+    }
+  }
+
+  private void persist(String text) throws IOException {
+    if (!root.isDirectory() && !root.mkdirs()) {
+      throw new IOException("An error occurred while writing the contents onto the file.");
+    }
+    Path temp = Files.createTempFile(root.toPath(), "catalog", ".tmp");
+    try (FileWriter fileWriter = new FileWriter(temp.toFile())) {
+      fileWriter.write(text);
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw new IOException("An error occurred while writing the contents onto the file.");
+    }
+    Files.move(temp, new File(root, FILE_NAME).toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private synchronized void watch() {
+    watcher = DirectoryWatcher.shared();
+    for (Kind kind : Kind.values()) {
+      register(kind, directories.get(kind));
+    }
+    register(Kind.FLEXIBLE, new File(directories.get(Kind.FLEXIBLE),
+            TransactionJournal.DIRECTORY));
+  }
+
+  private void register(Kind kind, File directory) {
+    // without a watcher the catalog is only updated on save and by the lookups of missing names.
+    if (watcher != null && watcher.register(directory.toPath(), listener)) {
+      watched.put(directory.toPath().toAbsolutePath().normalize(), kind);
+    }
+  }
+
+  private synchronized void changed(Path directory, Set<Path> files) {
+    Kind kind = watched.get(directory);
+    if (watcher == null || kind == null) {
+      return;
+    }
+    boolean journals = !directory.equals(directories.get(kind).toPath().toAbsolutePath()
+            .normalize());
+    boolean changed = false;
+    if (files == null) {
+      changed = scan(kind);
+    } else {
+      for (Path file : files) {
+        String name = file.toString();
+        if (journals && name.endsWith(TransactionJournal.EXTENSION)) {
+          changed |= refresh(kind, new File(directories.get(kind), name.substring(0,
+                  name.length() - TransactionJournal.EXTENSION.length()) + EXTENSION));
+        } else if (!journals && name.endsWith(EXTENSION)) {
+          File path = new File(directories.get(kind), name);
+          // another strategy file of the same portfolio may take the place of a removed one.
+          changed |= kind == Kind.STRATEGY && !path.isFile() ? scan(kind) : refresh(kind, path);
+        }
+      }
+    }
+    if (changed) {
+      persistLater();
+    }
+  }
+
+  /**
+   * An entry of the catalog describing a saved portfolio or strategy file.
+   */
+  public static final class Entry {
+    private final Kind kind;
+    private final String name;
+    private final File file;
+    private final long size;
+    private final long lastModified;
+    private final int rows;
+
+    Entry(Kind kind, String name, File file, long size, long lastModified, int rows) {
+      this.kind = kind;
+      this.name = name;
+      this.file = file;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.rows = rows;
+    }
+
+    /**
+     * The method returns the kind of the file.
+     *
+     * @return kind of the file.
+     */
+    public Kind getKind() {
+      return kind;
+    }
+
+    /**
+     * The method returns the name of the portfolio the file belongs to.
+     *
+     * @return name of the portfolio.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * The method returns the file.
+     *
+     * @return the file.
+     */
+    public File getFile() {
+      return file;
+    }
+
+    /**
+     * The method returns the size of the file when it was last read.
+     *
+     * @return size in bytes.
+     */
+    public long getSize() {
+      return size;
+    }
+
+    /**
+     * The method returns the last-modified time of the file when it was last read.
+     *
+     * @return last-modified time in milliseconds.
+     */
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    /**
+     * The method returns the number of holdings, transactions or strategies in the file.
+     *
+     * @return number of rows.
+     */
+    public int getRows() {
+      return rows;
+    }
+  }
+}
@@ -60,9 +60,23 @@ public class PortfolioControllerImpl implements PortfolioController {
     this.isChoice = true;
     this.sharesMap = new ArrayList<>();
     file = new FileOperation();
+    file.setPrefetchListener(this::showProgress);
     this.investStrategies = new ArrayList<>();
   }
 
+  private void showProgress(Prefetcher.Result result, int completed, int total) {
+    try {
+      if (result.isSuccess()) {
+        view.setInputMessage("Loaded stock data for " + result.getTicker() + " (" + completed
+                + "/" + total + ")");
+      } else {
+        view.setErrorMessage(result.getError() + " (" + completed + "/" + total + ")");
+      }
+    } catch (IOException e) {
+      // the progress is only informative, the valuation goes on without it.
+    }
+  }
+
   private void executePortfolioMenuOperations() throws IOException {
     String choice;
     PortfolioManagementEnum[] operations = PortfolioManagementEnum.values();
@@ -161,7 +175,7 @@ public class PortfolioControllerImpl implements PortfolioController {
     this.view.setInputMessage("Enter the name of the company: ");
     String stockName = this.view.setInputString();
     try {
-      file.getShareByCompanyName(stockName);
+      file.getSeriesByCompanyName(stockName);
       executeStockTrendOptions(stockName);
     } catch (Exception e) {
       this.view.setErrorMessage(e.getMessage());
@@ -0,0 +1,167 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The class loads the stock data of many tickers at once on a bounded number of threads. Every
+ * ticker is loaded only once per call even if it is requested more than once, the progress is
+ * reported after each ticker and the outcome of every ticker is returned instead of stopping at
+ * the first failure. The calls made to the API are limited by the {@link RateLimiter} of the API.
+ */
+public final class Prefetcher {
+
+  private final int parallelism;
+
+  /**
+   * Constructs the prefetcher with the given number of threads.
+   *
+   * @param parallelism maximum number of tickers loaded at the same time.
+   * @throws IllegalArgumentException if the parallelism is not positive.
+   */
+  public Prefetcher(int parallelism) throws IllegalArgumentException {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Parallelism should be a positive number.");
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Loads the data of every ticker with the given loader.
+   *
+   * @param tickers  tickers to be loaded.
+   * @param loader   loader that makes the data of a single ticker available.
+   * @param listener listener notified after every ticker, may be null.
+   * @return result of every ticker in the order in which they were requested.
+   * @throws InterruptedException if the thread is interrupted while waiting for the tickers.
+   */
+  public Map<String, Result> prefetch(Collection<String> tickers, Loader loader,
+                                      Listener listener) throws InterruptedException {
+    Set<String> unique = new LinkedHashSet<>();
+    for (String ticker : tickers) {
+      unique.add(ticker.toUpperCase());
+    }
+    Map<String, Result> results = new LinkedHashMap<>();
+    if (unique.isEmpty()) {
+      return results;
+    }
+    for (String ticker : unique) {
+      results.put(ticker, null);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, unique.size()),
+            Prefetcher::newThread);
+    try {
+      ExecutorCompletionService<Result> completion = new ExecutorCompletionService<>(executor);
+      List<Future<Result>> futures = new ArrayList<>();
+      for (String ticker : unique) {
+        futures.add(completion.submit(() -> load(ticker, loader)));
+      }
+      for (int completed = 1; completed <= futures.size(); completed++) {
+        Result result = completion.take().get();
+        results.put(result.getTicker(), result);
+        if (listener != null) {
+          listener.onProgress(result, completed, futures.size());
+        }
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Unable to load the stock data.", e);
+    } finally {
+      executor.shutdownNow();
+    }
+    return Collections.unmodifiableMap(results);
+  }
+
+  private static Thread newThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "prefetch");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private static Result load(String ticker, Loader loader) {
+    try {
+      loader.load(ticker);
+      return new Result(ticker, null);
+    } catch (Exception e) {
+      return new Result(ticker, e.getMessage() == null ? e.toString() : e.getMessage());
+    }
+  }
+
+  /**
+   * A loader makes the data of a single ticker available, for example by fetching it from the
+   * API and storing it.
+   */
+  public interface Loader {
+    /**
+     * Loads the data of the ticker.
+     *
+     * @param ticker ticker symbol of the share.
+     * @throws Exception if the data couldn't be loaded.
+     */
+    void load(String ticker) throws Exception;
+  }
+
+  /**
+   * A listener is notified every time a ticker has been loaded or has failed.
+   */
+  public interface Listener {
+    /**
+     * Reports the progress of the prefetch.
+     *
+     * @param result    result of the ticker that was just finished.
+     * @param completed number of tickers finished so far.
+     * @param total     number of tickers to be loaded.
+     */
+    void onProgress(Result result, int completed, int total);
+  }
+
+  /**
+   * The outcome of loading a single ticker.
+   */
+  public static final class Result {
+    private final String ticker;
+    private final String error;
+
+    private Result(String ticker, String error) {
+      this.ticker = ticker;
+      this.error = error;
+    }
+
+    /**
+     * The method returns the ticker of the result.
+     *
+     * @return ticker symbol of the share.
+     */
+    public String getTicker() {
+      return ticker;
+    }
+
+    /**
+     * The method checks if the ticker was loaded.
+     *
+     * @return true if the ticker was loaded, else false.
+     */
+    public boolean isSuccess() {
+      return error == null;
+    }
+
+    /**
+     * The method returns the reason why the ticker couldn't be loaded.
+     *
+     * @return error message, null if the ticker was loaded.
+     */
+    public String getError() {
+      return error;
+    }
+  }
+}
@@ -0,0 +1,392 @@
+package controller;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import model.PriceSeries;
+
+/**
+ * The class encodes a price series into the compressed block layout of the {@value #EXTENSION}
+ * price files and decodes it again. The rows are split into blocks of {@value #BLOCK_ROWS}
+ * trading days and every block is encoded on its own, so a range of dates is read by decoding
+ * only the blocks that overlap it. Within a block the columns are stored one after the other in
+ * a single bit stream:
+ * <ul>
+ *   <li>the dates as the delta of the delta between consecutive trading days, which is zero for
+ *   most days and fits in a few bits around weekends and holidays,</li>
+ *   <li>every price column with the XOR encoding of Gorilla, where a price is stored as the
+ *   bits that differ from the previous price of the column,</li>
+ *   <li>the volume as a variable length integer of seven bits per byte.</li>
+ * </ul>
+ * A file starts with a header of the magic number, the version, the number of rows, the fetch
+ * date and the number of blocks, followed by an index with the first and last date, the offset
+ * and the number of rows of every block, and then the blocks.
+ */
+public final class PriceBlocks {
+
+  /**
+   * The extension of the compressed price files.
+   */
+  public static final String EXTENSION = ".pricez";
+
+  static final int BLOCK_ROWS = 256;
+  static final int HEADER_SIZE = 20;
+
+  private static final int MAGIC = 0x5052435a;
+  private static final int VERSION = 1;
+  private static final int INDEX_SIZE = 16;
+
+  private PriceBlocks() {
+  }
+
+  /**
+   * The method encodes the series into the compressed layout.
+   *
+   * @param series  price series to be encoded.
+   * @param fetched date on which the series was fetched.
+   * @return buffer of the encoded file, ready to be read.
+   */
+  public static ByteBuffer encode(PriceSeries series, LocalDate fetched) {
+    int rows = series.size();
+    int blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+    BitWriter writer = new BitWriter(rows * 8 + 64);
+    int[] offsets = new int[blocks + 1];
+    for (int block = 0; block < blocks; block++) {
+      offsets[block] = writer.byteLength();
+      encodeBlock(series, block * BLOCK_ROWS, Math.min(rows, (block + 1) * BLOCK_ROWS), writer);
+      writer.align();
+    }
+    offsets[blocks] = writer.byteLength();
+    int dataStart = HEADER_SIZE + blocks * INDEX_SIZE;
+    ByteBuffer buffer = ByteBuffer.allocate(dataStart + writer.byteLength());
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt((int) fetched.toEpochDay())
+            .putInt(blocks);
+    for (int block = 0; block < blocks; block++) {
+      int first = block * BLOCK_ROWS;
+      int last = Math.min(rows, first + BLOCK_ROWS) - 1;
+      buffer.putInt(series.getEpochDay(first)).putInt(series.getEpochDay(last))
+              .putInt(dataStart + offsets[block]).putInt(last - first + 1);
+    }
+    buffer.put(writer.bytes(), 0, writer.byteLength());
+    return buffer.flip();
+  }
+
+  /**
+   * The method decodes every row of the encoded file.
+   *
+   * @param file   buffer of the encoded file.
+   * @param ticker ticker symbol of the share.
+   * @return price series of the ticker.
+   * @throws IllegalArgumentException if the buffer isn't a valid encoded file.
+   */
+  public static PriceSeries decode(ByteBuffer file, String ticker)
+          throws IllegalArgumentException {
+    return decode(file, ticker, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * The method decodes the rows of the encoded file between the given dates. Only the blocks
+   * that overlap the dates are decoded.
+   *
+   * @param file   buffer of the encoded file.
+   * @param ticker ticker symbol of the share.
+   * @param from   first date of the range as an epoch day.
+   * @param to     last date of the range as an epoch day.
+   * @return price series of the ticker between the dates.
+   * @throws IllegalArgumentException if the buffer isn't a valid encoded file.
+   */
+  public static PriceSeries decode(ByteBuffer file, String ticker, int from, int to)
+          throws IllegalArgumentException {
+    int blocks = validate(file);
+    PriceSeries.Builder builder = PriceSeries.builder(ticker.toUpperCase());
+    Block block = new Block();
+    for (int i = firstBlock(file, blocks, from); i < blocks; i++) {
+      int index = HEADER_SIZE + i * INDEX_SIZE;
+      if (file.getInt(index) > to) {
+        break;
+      }
+      block.decode(file, file.getInt(index), file.getInt(index + 8), file.getInt(index + 12));
+      for (int row = 0; row < block.rows; row++) {
+        if (block.days[row] >= from && block.days[row] <= to) {
+          builder.add(block.days[row], block.open[row], block.high[row], block.low[row],
+                  block.close[row], block.volume[row]);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * The method checks whether the buffer starts like an encoded file.
+   *
+   * @param file buffer of the file.
+   * @return true if the buffer has the magic number and version of the layout.
+   */
+  static boolean isEncoded(ByteBuffer file) {
+    return file.limit() >= HEADER_SIZE && file.getInt(0) == MAGIC && file.getInt(4) == VERSION;
+  }
+
+  static int rows(ByteBuffer file) {
+    return file.getInt(8);
+  }
+
+  static LocalDate fetched(ByteBuffer file) {
+    return LocalDate.ofEpochDay(file.getInt(12));
+  }
+
+  static LocalDate firstDate(ByteBuffer file) {
+    return LocalDate.ofEpochDay(file.getInt(HEADER_SIZE));
+  }
+
+  static LocalDate lastDate(ByteBuffer file) {
+    return LocalDate.ofEpochDay(file.getInt(HEADER_SIZE + (file.getInt(16) - 1) * INDEX_SIZE
+            + 4));
+  }
+
+  private static int validate(ByteBuffer file) {
+    if (!isEncoded(file)) {
+      throw new IllegalArgumentException("Not a compressed price file.");
+    }
+    int blocks = file.getInt(16);
+    if (blocks < 0 || file.limit() < HEADER_SIZE + (long) blocks * INDEX_SIZE) {
+      throw new IllegalArgumentException("Compressed price file is truncated.");
+    }
+    return blocks;
+  }
+
+  private static int firstBlock(ByteBuffer file, int blocks, int from) {
+    int low = 0;
+    int high = blocks;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (file.getInt(HEADER_SIZE + mid * INDEX_SIZE + 4) < from) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static void encodeBlock(PriceSeries series, int start, int end, BitWriter writer) {
+    int previousDelta = 0;
+    for (int i = start + 1; i < end; i++) {
+      int delta = series.getEpochDay(i) - series.getEpochDay(i - 1);
+      writeDeltaOfDelta(writer, delta - previousDelta);
+      previousDelta = delta;
+    }
+    for (int column = 0; column < 4; column++) {
+      int previous = Float.floatToRawIntBits(price(series, column, start));
+      writer.write(previous, 32);
+      int leading = -1;
+      int trailing = 0;
+      for (int i = start + 1; i < end; i++) {
+        int bits = Float.floatToRawIntBits(price(series, column, i));
+        int xor = bits ^ previous;
+        previous = bits;
+        if (xor == 0) {
+          writer.write(0, 1);
+          continue;
+        }
+        int newLeading = Integer.numberOfLeadingZeros(xor);
+        int newTrailing = Integer.numberOfTrailingZeros(xor);
+        if (leading != -1 && newLeading >= leading && newTrailing >= trailing) {
+          writer.write(0b10, 2);
+          writer.write(xor >>> trailing, 32 - leading - trailing);
+        } else {
+          leading = newLeading;
+          trailing = newTrailing;
+          int meaningful = 32 - leading - trailing;
+          writer.write(0b11, 2);
+          writer.write(leading, 5);
+          writer.write(meaningful - 1, 5);
+          writer.write(xor >>> trailing, meaningful);
+        }
+      }
+    }
+    for (int i = start; i < end; i++) {
+      long volume = series.getVolume(i);
+      long value = (volume << 1) ^ (volume >> 63);
+      while ((value & ~0x7fL) != 0) {
+        writer.write((int) (value & 0x7f) | 0x80, 8);
+        value >>>= 7;
+      }
+      writer.write((int) value, 8);
+    }
+  }
+
+  private static void writeDeltaOfDelta(BitWriter writer, int deltaOfDelta) {
+    int value = (deltaOfDelta << 1) ^ (deltaOfDelta >> 31);
+    if (value == 0) {
+      writer.write(0, 1);
+    } else if (value < 8) {
+      writer.write(0b10, 2);
+      writer.write(value, 3);
+    } else if (value < 512) {
+      writer.write(0b110, 3);
+      writer.write(value, 9);
+    } else {
+      writer.write(0b111, 3);
+      writer.write(value, 32);
+    }
+  }
+
+  private static float price(PriceSeries series, int column, int index) {
+    switch (column) {
+      case 0:
+        return series.getOpen(index);
+      case 1:
+        return series.getHigh(index);
+      case 2:
+        return series.getLow(index);
+      default:
+        return series.getClose(index);
+    }
+  }
+
+  /**
+   * The decoded columns of a block, reused from block to block.
+   */
+  private static final class Block {
+    private int rows;
+    private int[] days = new int[BLOCK_ROWS];
+    private float[] open = new float[BLOCK_ROWS];
+    private float[] high = new float[BLOCK_ROWS];
+    private float[] low = new float[BLOCK_ROWS];
+    private float[] close = new float[BLOCK_ROWS];
+    private long[] volume = new long[BLOCK_ROWS];
+
+    private void decode(ByteBuffer file, int firstDay, int offset, int rows) {
+      if (rows > days.length) {
+        days = Arrays.copyOf(days, rows);
+        open = Arrays.copyOf(open, rows);
+        high = Arrays.copyOf(high, rows);
+        low = Arrays.copyOf(low, rows);
+        close = Arrays.copyOf(close, rows);
+        volume = Arrays.copyOf(volume, rows);
+      }
+      this.rows = rows;
+      BitReader reader = new BitReader(file, offset);
+      days[0] = firstDay;
+      int delta = 0;
+      for (int i = 1; i < rows; i++) {
+        delta += readDeltaOfDelta(reader);
+        days[i] = days[i - 1] + delta;
+      }
+      readPrices(reader, open);
+      readPrices(reader, high);
+      readPrices(reader, low);
+      readPrices(reader, close);
+      for (int i = 0; i < rows; i++) {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+          b = reader.read(8);
+          value |= (long) (b & 0x7f) << shift;
+          shift += 7;
+        } while ((b & 0x80) != 0);
+        volume[i] = (value >>> 1) ^ -(value & 1);
+      }
+    }
+
+    private void readPrices(BitReader reader, float[] column) {
+      int previous = reader.read(32);
+      column[0] = Float.intBitsToFloat(previous);
+      int leading = 0;
+      int trailing = 0;
+      for (int i = 1; i < rows; i++) {
+        if (reader.read(1) == 1) {
+          if (reader.read(1) == 1) {
+            leading = reader.read(5);
+            trailing = 32 - leading - (reader.read(5) + 1);
+          }
+          previous ^= reader.read(32 - leading - trailing) << trailing;
+        }
+        column[i] = Float.intBitsToFloat(previous);
+      }
+    }
+
+    private static int readDeltaOfDelta(BitReader reader) {
+      int value;
+      if (reader.read(1) == 0) {
+        return 0;
+      } else if (reader.read(1) == 0) {
+        value = reader.read(3);
+      } else if (reader.read(1) == 0) {
+        value = reader.read(9);
+      } else {
+        value = reader.read(32);
+      }
+      return (value >>> 1) ^ -(value & 1);
+    }
+  }
+
+  /**
+   * Writes values of up to 32 bits into a growing byte array, the most significant bit first.
+   */
+  private static final class BitWriter {
+    private byte[] bytes;
+    private int length;
+    private long pending;
+    private int pendingBits;
+
+    private BitWriter(int capacity) {
+      this.bytes = new byte[Math.max(capacity, 16)];
+    }
+
+    private void write(int value, int count) {
+      pending = (pending << count) | (value & (0xffffffffL >>> (32 - count)));
+      pendingBits += count;
+      while (pendingBits >= 8) {
+        pendingBits -= 8;
+        if (length == bytes.length) {
+          bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        bytes[length++] = (byte) (pending >>> pendingBits);
+      }
+    }
+
+    private void align() {
+      if (pendingBits > 0) {
+        write(0, 8 - pendingBits);
+      }
+    }
+
+    private int byteLength() {
+      return length;
+    }
+
+    private byte[] bytes() {
+      return bytes;
+    }
+  }
+
+  /**
+   * Reads values of up to 32 bits from a buffer, the most significant bit first.
+   */
+  private static final class BitReader {
+    private final ByteBuffer buffer;
+    private int position;
+    private long pending;
+    private int pendingBits;
+
+    private BitReader(ByteBuffer buffer, int position) {
+      this.buffer = buffer;
+      this.position = position;
+    }
+
+    private int read(int count) {
+      if (count == 0) {
+        return 0;
+      }
+      while (pendingBits < count) {
+        pending = (pending << 8) | (buffer.get(position++) & 0xff);
+        pendingBits += 8;
+      }
+      pendingBits -= count;
+      return (int) ((pending >>> pendingBits) & (0xffffffffL >>> (32 - count)));
+    }
+  }
+}
@@ -0,0 +1,620 @@
+package controller;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.PriceArena;
+import model.PriceSeries;
+
+/**
+ * The class stores the price history of every ticker in a fixed width binary file inside the
+ * stock data directory. A file starts with a header followed by one record per trading day in
+ * ascending order of the date, so finding a price is a binary search over the mapped file and an
+ * offset calculation instead of parsing the text. The csv files are only used to import and
+ * export the data. A store can instead keep the histories in the compressed block layout of
+ * {@link PriceBlocks}, which takes a fraction of the space and is decoded when it is read.
+ */
+class PriceStore {
+
+  static final String EXTENSION = ".prices";
+
+  private static final int MAGIC = 0x50524345;
+  private static final int VERSION = 1;
+  static final int HEADER_SIZE = 16;
+  static final int RECORD_SIZE = 28;
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private final File directory;
+  private final TickerManifest manifest;
+  private final boolean compressed;
+
+  /**
+   * Constructs the store over the given stock data directory.
+   *
+   * @param directory directory where the price files are kept.
+   */
+  PriceStore(File directory) {
+    this(directory, false);
+  }
+
+  /**
+   * Constructs the store over the given stock data directory.
+   *
+   * @param directory  directory where the price files are kept.
+   * @param compressed true if the histories are written in the compressed layout.
+   */
+  PriceStore(File directory, boolean compressed) {
+    this.directory = directory;
+    this.manifest = TickerManifest.of(directory);
+    this.compressed = compressed;
+  }
+
+  /**
+   * The method returns the manifest of the tickers stored in the directory.
+   *
+   * @return manifest of the store.
+   */
+  TickerManifest manifest() {
+    return manifest;
+  }
+
+  /**
+   * The method returns the price file of the ticker.
+   *
+   * @param ticker ticker symbol of the share.
+   * @return price file of the ticker.
+   */
+  File fileOf(String ticker) {
+    return new File(directory, ticker.toUpperCase() + EXTENSION);
+  }
+
+  /**
+   * The method returns the compressed price file of the ticker.
+   *
+   * @param ticker ticker symbol of the share.
+   * @return compressed price file of the ticker.
+   */
+  File compressedFileOf(String ticker) {
+    return new File(directory, ticker.toUpperCase() + PriceBlocks.EXTENSION);
+  }
+
+  /**
+   * The method checks if the price history of the ticker is stored.
+   *
+   * @param ticker ticker symbol of the share.
+   * @return true if the ticker is stored, else false.
+   */
+  boolean contains(String ticker) {
+    return manifest.get(ticker) != null;
+  }
+
+  /**
+   * Writes the whole price series of the ticker to the store, replacing the previous file
+   * atomically, records it in the manifest and drops the cached series of the ticker. The file
+   * of the other layout is removed, so a ticker is stored in one layout only.
+   *
+   * @param series  price series to be stored.
+   * @param fetched date on which the series was fetched.
+   * @throws IOException if the series is empty or the file could not be written.
+   */
+  void write(PriceSeries series, LocalDate fetched) throws IOException {
+    record(Collections.singletonList(writeFile(series, fetched)));
+  }
+
+  /**
+   * Writes the whole price series of the ticker to its file like {@link #write}, but leaves the
+   * manifest and the cache to {@link #record}, so that many files can be written before the
+   * manifest is persisted once.
+   *
+   * @param series  price series to be stored.
+   * @param fetched date on which the series was fetched.
+   * @return entry of the written file.
+   * @throws IOException if the series is empty or the file could not be written.
+   */
+  TickerManifest.Entry writeFile(PriceSeries series, LocalDate fetched) throws IOException {
+    if (series.isEmpty()) {
+      throw new IOException("Stock data for " + series.getTicker() + " is unavailable");
+    }
+    if (!directory.mkdirs() && !directory.isDirectory()) {
+      throw new IOException("An error occurred while writing the contents onto the file.");
+    }
+    Path target = (compressed ? compressedFileOf(series.getTicker())
+            : fileOf(series.getTicker())).toPath();
+    Path temp = Files.createTempFile(directory.toPath(), series.getTicker(), ".tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+      if (compressed) {
+        channel.write(PriceBlocks.encode(series, fetched));
+      } else {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + RECORD_SIZE * 256);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(series.size())
+                .putInt((int) fetched.toEpochDay());
+        for (int i = 0; i < series.size(); i++) {
+          if (buffer.remaining() < RECORD_SIZE) {
+            buffer.flip();
+            channel.write(buffer);
+            buffer.clear();
+          }
+          putRecord(buffer, series, i);
+        }
+        buffer.flip();
+        channel.write(buffer);
+      }
+      channel.force(false);
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw new IOException("An error occurred while writing the contents onto the file.");
+    }
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    Files.deleteIfExists((compressed ? fileOf(series.getTicker())
+            : compressedFileOf(series.getTicker())).toPath());
+    return new TickerManifest.Entry(series.getTicker(), target.toFile(), fetched,
+            series.getDate(0), series.getDate(series.size() - 1), series.size());
+  }
+
+  /**
+   * Records the written files in the manifest, persisting it once, and drops the cached series
+   * of their tickers.
+   *
+   * @param entries entries of the written files.
+   * @throws IOException if the manifest could not be written.
+   */
+  void record(List<TickerManifest.Entry> entries) throws IOException {
+    manifest.putAll(entries);
+    for (TickerManifest.Entry entry : entries) {
+      SeriesCache.shared().invalidate(entry.getTicker());
+    }
+  }
+
+  /**
+   * Appends the trading days of the given series that are newer than the stored data to the
+   * price file of the ticker. The last stored day is rewritten if the series has it too, since
+   * the price of the current day changes until the market closes. The records are written first
+   * and the row count in the header last, so a reader sees either the old or the new rows. A
+   * compressed file is rewritten as a whole with the merged rows instead. A cached series of the
+   * ticker gets the same days appended, so its rolled up bars are only updated.
+   *
+   * @param recent  latest trading days of the ticker.
+   * @param fetched date on which the series was fetched.
+   * @return true if the stored data is now up to date, false if the series doesn't overlap the
+   *         stored data and the whole history has to be written instead.
+   * @throws IOException if the file could not be written.
+   */
+  boolean append(PriceSeries recent, LocalDate fetched) throws IOException {
+    Mapping mapping = map(recent.getTicker());
+    if (mapping == null || mapping.size() == 0 || recent.isEmpty()) {
+      return false;
+    }
+    LocalDate lastDate = mapping.getLastDate();
+    int start = recent.indexOnOrAfter(lastDate);
+    if (start == 0 && recent.getDate(0).isAfter(lastDate)) {
+      return false;
+    }
+    int rows = mapping.size();
+    if (start != -1 && recent.getDate(start).isEqual(lastDate)) {
+      rows--;
+    }
+    File file = fileOf(recent.getTicker());
+    if (!file.isFile()) {
+      PriceSeries.Builder builder = PriceSeries.builder(mapping.getTicker());
+      for (int i = 0; i < rows; i++) {
+        builder.add(mapping.getEpochDay(i), mapping.getOpen(i), mapping.getHigh(i),
+                mapping.getLow(i), mapping.getClose(i), mapping.getVolume(i));
+      }
+      for (int i = start == -1 ? recent.size() : start; i < recent.size(); i++) {
+        builder.add(recent.getEpochDay(i), recent.getOpen(i), recent.getHigh(i),
+                recent.getLow(i), recent.getClose(i), recent.getVolume(i));
+      }
+      write(builder.build(), fetched);
+      return true;
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+      if (start != -1) {
+        ByteBuffer buffer = ByteBuffer.allocate((recent.size() - start) * RECORD_SIZE);
+        for (int i = start; i < recent.size(); i++) {
+          putRecord(buffer, recent, i);
+          rows++;
+        }
+        buffer.flip();
+        channel.write(buffer, HEADER_SIZE + (long) (rows - buffer.limit() / RECORD_SIZE)
+                * RECORD_SIZE);
+        channel.force(false);
+      }
+      ByteBuffer header = ByteBuffer.allocate(8);
+      header.putInt(rows).putInt((int) fetched.toEpochDay()).flip();
+      channel.write(header, 8);
+      channel.force(false);
+    } catch (IOException e) {
+      throw new IOException("An error occurred while writing the contents onto the file.");
+    }
+    LocalDate last = start == -1 ? lastDate : recent.getDate(recent.size() - 1);
+    manifest.put(new TickerManifest.Entry(recent.getTicker(), file, fetched,
+            LocalDate.ofEpochDay(mapping.getEpochDay(0)), last, rows));
+    SeriesCache.shared().update(recent.getTicker(), cached -> cached.append(recent));
+    return true;
+  }
+
+  /**
+   * Maps the price file of the ticker into memory. A compressed file is decoded into records on
+   * the heap instead.
+   *
+   * @param ticker ticker symbol of the share.
+   * @return mapping of the price file, null if the ticker isn't stored.
+   * @throws IOException if the file isn't a valid price file.
+   */
+  Mapping map(String ticker) throws IOException {
+    File file = fileOf(ticker);
+    if (!file.isFile()) {
+      ByteBuffer blocks = readCompressed(ticker);
+      if (blocks == null) {
+        return null;
+      }
+      PriceSeries series = decode(blocks, ticker, Integer.MIN_VALUE, Integer.MAX_VALUE);
+      ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + series.size() * RECORD_SIZE);
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(series.size())
+              .putInt((int) PriceBlocks.fetched(blocks).toEpochDay());
+      for (int i = 0; i < series.size(); i++) {
+        putRecord(buffer, series, i);
+      }
+      return new Mapping(ticker.toUpperCase(), buffer);
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+              || buffer.getInt(4) != VERSION
+              || buffer.limit() < HEADER_SIZE + (long) buffer.getInt(8) * RECORD_SIZE) {
+        throw new IOException("Price file of " + ticker + " is corrupted.");
+      }
+      return new Mapping(ticker.toUpperCase(), buffer);
+    }
+  }
+
+  /**
+   * Copies the price series of every stored ticker into the given arena. A ticker whose file
+   * can't be read, or which doesn't fit in the arena, is skipped and returned with the reason.
+   *
+   * @param arena arena outside the heap.
+   * @return skipped tickers with the reason each was skipped, in the order of the manifest.
+   */
+  Map<String, String> copyTo(PriceArena arena) {
+    Map<String, String> skipped = new LinkedHashMap<>();
+    for (String ticker : manifest.tickers()) {
+      try {
+        PriceSeries series = read(ticker);
+        if (series == null || series.isEmpty()) {
+          skipped.put(ticker, "Stock data for " + ticker + " is unavailable");
+        } else {
+          arena.put(series);
+        }
+      } catch (IOException | IllegalArgumentException e) {
+        skipped.put(ticker, e.getMessage() == null ? e.toString() : e.getMessage());
+      }
+    }
+    return skipped;
+  }
+
+  /**
+   * Reads the whole price series of the ticker from the store.
+   *
+   * @param ticker ticker symbol of the share.
+   * @return price series of the ticker, null if the ticker isn't stored.
+   * @throws IOException if the file isn't a valid price file.
+   */
+  PriceSeries read(String ticker) throws IOException {
+    Mapping mapping = map(ticker);
+    return mapping == null ? null : mapping.toSeries();
+  }
+
+  /**
+   * Reads the trading days of the ticker between the given dates from the store. Only the
+   * blocks of a compressed file that overlap the dates are decoded.
+   *
+   * @param ticker ticker symbol of the share.
+   * @param from   first date of the range.
+   * @param to     last date of the range.
+   * @return price series of the ticker between the dates, null if the ticker isn't stored.
+   * @throws IOException if the file isn't a valid price file.
+   */
+  PriceSeries read(String ticker, LocalDate from, LocalDate to) throws IOException {
+    if (!fileOf(ticker).isFile()) {
+      ByteBuffer blocks = readCompressed(ticker);
+      return blocks == null ? null : decode(blocks, ticker, (int) from.toEpochDay(),
+              (int) to.toEpochDay());
+    }
+    Mapping mapping = map(ticker);
+    PriceSeries.Builder builder = PriceSeries.builder(mapping.getTicker());
+    int start = mapping.indexOnOrAfter(from);
+    int end = mapping.indexOnOrBefore(to);
+    for (int i = start; start != -1 && i <= end; i++) {
+      builder.add(mapping.getEpochDay(i), mapping.getOpen(i), mapping.getHigh(i),
+              mapping.getLow(i), mapping.getClose(i), mapping.getVolume(i));
+    }
+    return builder.build();
+  }
+
+  private ByteBuffer readCompressed(String ticker) throws IOException {
+    File file = compressedFileOf(ticker);
+    if (!file.isFile()) {
+      return null;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    if (!PriceBlocks.isEncoded(buffer)) {
+      throw new IOException("Price file of " + ticker + " is corrupted.");
+    }
+    return buffer;
+  }
+
+  private static PriceSeries decode(ByteBuffer blocks, String ticker, int from, int to)
+          throws IOException {
+    try {
+      return PriceBlocks.decode(blocks, ticker, from, to);
+    } catch (IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException e) {
+      throw new IOException("Price file of " + ticker + " is corrupted.");
+    }
+  }
+
+  private static void putRecord(ByteBuffer buffer, PriceSeries series, int index) {
+    buffer.putInt(series.getEpochDay(index))
+            .putFloat(series.getOpen(index))
+            .putFloat(series.getHigh(index))
+            .putFloat(series.getLow(index))
+            .putFloat(series.getClose(index))
+            .putLong(series.getVolume(index));
+  }
+
+  /**
+   * Imports the price history of the ticker from a csv file in the Alpha Vantage layout of
+   * timestamp, open, high, low, close and volume.
+   *
+   * @param csv     csv file to be imported.
+   * @param ticker  ticker symbol of the share.
+   * @param fetched date on which the csv was fetched.
+   * @return imported price series.
+   * @throws IOException if the file can't be read or isn't valid.
+   */
+  PriceSeries importCsv(File csv, String ticker, LocalDate fetched) throws IOException {
+    PriceSeries series;
+    try (FileChannel channel = FileChannel.open(csv.toPath(), StandardOpenOption.READ)) {
+      PriceSeries.Builder builder = PriceSeries.builder(ticker.toUpperCase());
+      readRows(new CsvTokenizer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())),
+              builder, ticker);
+      series = build(builder, ticker);
+    }
+    write(series, fetched);
+    return series;
+  }
+
+  /**
+   * Reads the price history of the ticker from the csv layout of timestamp, open, high, low,
+   * close and volume, straight into the columns of the series. The stream is read in chunks of
+   * bytes and the complete rows of a chunk are parsed in place by the tokenizer, so the memory
+   * used apart from the series doesn't grow with the history and no string is created per row.
+   * A header row or any row with less than six columns, like an error message of the API, is
+   * skipped.
+   *
+   * @param input  stream of the csv data.
+   * @param ticker ticker symbol of the share.
+   * @return price series of the ticker.
+   * @throws IOException if the data can't be read or isn't valid.
+   */
+  static PriceSeries readCsv(InputStream input, String ticker) throws IOException {
+    PriceSeries.Builder builder = PriceSeries.builder(ticker.toUpperCase());
+    ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+    CsvTokenizer tokenizer = new CsvTokenizer(buffer);
+    boolean end = false;
+    while (!end) {
+      if (!buffer.hasRemaining()) {
+        buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+      }
+      int read = input.read(buffer.array(), buffer.position(), buffer.remaining());
+      if (read == -1) {
+        end = true;
+      } else {
+        buffer.position(buffer.position() + read);
+      }
+      int filled = buffer.position();
+      int complete = end ? filled : lastLineEnd(buffer, filled);
+      buffer.position(0).limit(complete);
+      tokenizer.reset(buffer);
+      readRows(tokenizer, builder, ticker);
+      buffer.limit(filled).position(complete);
+      buffer.compact();
+    }
+    return build(builder, ticker);
+  }
+
+  private static void readRows(CsvTokenizer tokenizer, PriceSeries.Builder builder,
+                               String ticker) throws IOException {
+    try {
+      while (tokenizer.nextRow()) {
+        if (tokenizer.columns() < 6 || !tokenizer.nextIsDigit()) {
+          continue;
+        }
+        builder.add(tokenizer.nextEpochDay(), tokenizer.nextFloat(), tokenizer.nextFloat(),
+                tokenizer.nextFloat(), tokenizer.nextFloat(), tokenizer.nextLong());
+      }
+    } catch (DateTimeException | NumberFormatException | IllegalStateException e) {
+      throw new IOException("Stock data for " + ticker + " is not valid.");
+    }
+  }
+
+  private static PriceSeries build(PriceSeries.Builder builder, String ticker)
+          throws IOException {
+    try {
+      return builder.build();
+    } catch (IllegalStateException e) {
+      throw new IOException("Stock data for " + ticker + " is not valid.");
+    }
+  }
+
+  private static int lastLineEnd(ByteBuffer buffer, int filled) {
+    for (int i = filled - 1; i >= 0; i--) {
+      if (buffer.get(i) == '\n') {
+        return i + 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Exports the price history of the ticker to a csv file in the Alpha Vantage layout with the
+   * latest date first.
+   *
+   * @param ticker ticker symbol of the share.
+   * @param csv    csv file to be written.
+   * @throws IOException if the ticker isn't stored or the file can't be written.
+   */
+  void exportCsv(String ticker, File csv) throws IOException {
+    Mapping mapping = map(ticker);
+    if (mapping == null) {
+      throw new IOException("Stock data for " + ticker + " is unavailable");
+    }
+    try (FileWriter fileWriter = new FileWriter(csv)) {
+      for (int i = mapping.size() - 1; i >= 0; i--) {
+        fileWriter.write(LocalDate.ofEpochDay(mapping.getEpochDay(i)) + ","
+                + mapping.getOpen(i) + "," + mapping.getHigh(i) + "," + mapping.getLow(i)
+                + "," + mapping.getClose(i) + "," + mapping.getVolume(i) + "\n");
+      }
+    } catch (IOException e) {
+      throw new IOException("An error occurred while writing the contents onto the file.");
+    }
+  }
+
+  /**
+   * A read only view of a mapped price file. Every read is an offset calculation on the mapped
+   * buffer.
+   */
+  static final class Mapping {
+    private final String ticker;
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private Mapping(String ticker, ByteBuffer buffer) {
+      this.ticker = ticker;
+      this.buffer = buffer;
+      this.size = buffer.getInt(8);
+    }
+
+    String getTicker() {
+      return ticker;
+    }
+
+    int size() {
+      return size;
+    }
+
+    LocalDate getFetchedDate() {
+      return LocalDate.ofEpochDay(buffer.getInt(12));
+    }
+
+    LocalDate getLastDate() {
+      return size == 0 ? LocalDate.MIN : LocalDate.ofEpochDay(getEpochDay(size - 1));
+    }
+
+    int getEpochDay(int index) {
+      return buffer.getInt(offset(index));
+    }
+
+    float getOpen(int index) {
+      return buffer.getFloat(offset(index) + 4);
+    }
+
+    float getHigh(int index) {
+      return buffer.getFloat(offset(index) + 8);
+    }
+
+    float getLow(int index) {
+      return buffer.getFloat(offset(index) + 12);
+    }
+
+    float getClose(int index) {
+      return buffer.getFloat(offset(index) + 16);
+    }
+
+    long getVolume(int index) {
+      return buffer.getLong(offset(index) + 20);
+    }
+
+    /**
+     * Finds the record of the given date with a binary search over the mapped records.
+     *
+     * @param date date to be searched.
+     * @return index of the record, -1 if the date isn't a trading day.
+     */
+    int indexOf(LocalDate date) {
+      int index = search(date);
+      return index < 0 ? -1 : index;
+    }
+
+    /**
+     * Finds the record of the last trading day on or before the given date.
+     *
+     * @param date date to be searched.
+     * @return index of the record, -1 if the file starts after the date.
+     */
+    int indexOnOrBefore(LocalDate date) {
+      int index = search(date);
+      return index < 0 ? -index - 2 : index;
+    }
+
+    /**
+     * Finds the record of the first trading day on or after the given date.
+     *
+     * @param date date to be searched.
+     * @return index of the record, -1 if the file ends before the date.
+     */
+    int indexOnOrAfter(LocalDate date) {
+      int index = search(date);
+      if (index >= 0) {
+        return index;
+      }
+      return -index - 1 < size ? -index - 1 : -1;
+    }
+
+    private int search(LocalDate date) {
+      int epochDay = (int) date.toEpochDay();
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int day = getEpochDay(mid);
+        if (day < epochDay) {
+          low = mid + 1;
+        } else if (day > epochDay) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -(low + 1);
+    }
+
+    PriceSeries toSeries() {
+      PriceSeries.Builder builder = PriceSeries.builder(ticker);
+      for (int i = 0; i < size; i++) {
+        builder.add(getEpochDay(i), getOpen(i), getHigh(i), getLow(i), getClose(i),
+                getVolume(i));
+      }
+      return builder.build();
+    }
+
+    private int offset(int index) {
+      return HEADER_SIZE + index * RECORD_SIZE;
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package controller;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class limits the number of calls made to the stock API with two token buckets, one that
+ * refills over a minute and one that refills over a day, so that the per-minute and per-day
+ * quotas of the API are respected even when many tickers are fetched in parallel. A limit of
+ * zero or less means that the calls are not limited for that period.
+ */
+public final class RateLimiter {
+
+  private final Bucket perMinute;
+  private final Bucket perDay;
+
+  /**
+   * Constructs the limiter with the given quotas.
+   *
+   * @param callsPerMinute number of calls allowed per minute.
+   * @param callsPerDay    number of calls allowed per day.
+   */
+  public RateLimiter(int callsPerMinute, int callsPerDay) {
+    this.perMinute = callsPerMinute > 0
+            ? new Bucket(callsPerMinute, TimeUnit.MINUTES.toNanos(1)) : null;
+    this.perDay = callsPerDay > 0 ? new Bucket(callsPerDay, TimeUnit.DAYS.toNanos(1)) : null;
+  }
+
+  /**
+   * Creates the limiter from the {@code API_CALLS_PER_MINUTE} and {@code API_CALLS_PER_DAY}
+   * properties of the configuration, defaulting to the free quota of Alpha Vantage.
+   *
+   * @param config snapshot of the configuration.
+   * @return the limiter.
+   */
+  static RateLimiter fromConfig(Configuration config) {
+    return new RateLimiter(config.getApiCallsPerMinute(), config.getApiCallsPerDay());
+  }
+
+  /**
+   * The method takes a call from the limiter, waiting until the per-minute bucket has a token.
+   * A thread that is interrupted while waiting gives its daily token back, as no call was made.
+   *
+   * @return true if the call can be made, false if the daily quota is used up.
+   * @throws InterruptedException if the thread is interrupted while waiting.
+   */
+  public boolean acquire() throws InterruptedException {
+    synchronized (this) {
+      if (perDay != null && !perDay.take()) {
+        return false;
+      }
+    }
+    while (true) {
+      long wait;
+      synchronized (this) {
+        if (perMinute == null || perMinute.take()) {
+          return true;
+        }
+        wait = perMinute.nanosUntilToken();
+      }
+      try {
+        TimeUnit.NANOSECONDS.sleep(Math.max(wait, TimeUnit.MILLISECONDS.toNanos(1)));
+      } catch (InterruptedException e) {
+        synchronized (this) {
+          if (perDay != null) {
+            perDay.refund();
+          }
+        }
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * The method returns the number of calls left for the day.
+   *
+   * @return whole number of daily tokens, -1 if the calls per day aren't limited.
+   */
+  public synchronized int remainingToday() {
+    return perDay == null ? -1 : (int) perDay.available();
+  }
+
+  /**
+   * The method takes a call from the limiter if one is available right now.
+   *
+   * @return true if the call can be made, else false.
+   */
+  public synchronized boolean tryAcquire() {
+    if (perMinute != null && perMinute.available() < 1
+            || perDay != null && perDay.available() < 1) {
+      return false;
+    }
+    if (perMinute != null) {
+      perMinute.take();
+    }
+    if (perDay != null) {
+      perDay.take();
+    }
+    return true;
+  }
+
+  private static final class Bucket {
+    private final int capacity;
+    private final double nanosPerToken;
+    private double tokens;
+    private long lastRefill;
+
+    private Bucket(int capacity, long period) {
+      this.capacity = capacity;
+      this.nanosPerToken = (double) period / capacity;
+      this.tokens = capacity;
+      this.lastRefill = System.nanoTime();
+    }
+
+    private double available() {
+      long now = System.nanoTime();
+      tokens = Math.min(capacity, tokens + (now - lastRefill) / nanosPerToken);
+      lastRefill = now;
+      return tokens;
+    }
+
+    private boolean take() {
+      if (available() < 1) {
+        return false;
+      }
+      tokens--;
+      return true;
+    }
+
+    private void refund() {
+      tokens = Math.min(capacity, tokens + 1);
+    }
+
+    private long nanosUntilToken() {
+      return (long) Math.ceil((1 - available()) * nanosPerToken);
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package controller;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import model.PriceSeries;
+
+/**
+ * The class keeps the price series that were read from the price files in memory, so that the
+ * analysis of a company, which reads its series once for every chart and every statistic, reads
+ * the file only the first time. The cache is bounded by the estimated heap size of the series and
+ * evicts the least recently used series when the budget is exceeded. The bars rolled up from a
+ * series count towards its size, and a series is measured again each time it is read from the
+ * cache, since its bars are rolled up after it was cached. A series is invalidated when new data
+ * of its ticker is written, and a series that was being loaded while the data of its ticker was
+ * written isn't cached, while the loads of the other tickers are. The number of hits, misses,
+ * evictions and the time spent loading the series are counted. A series whose file was appended
+ * to can be updated in place instead, so that what was computed from it, like its rolled up bars,
+ * is carried over.
+ */
+public final class SeriesCache {
+
+  private static final long DEFAULT_BUDGET_MB = 64;
+
+  private static SeriesCache shared;
+
+  private final long maxBytes;
+  private final LinkedHashMap<String, Entry> series;
+  private final Map<String, Long> versions;
+  private long bytes;
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long loadNanos;
+  private long clears;
+
+  /**
+   * Constructs an empty cache with the given budget.
+   *
+   * @param maxBytes maximum estimated heap size of the cached series in bytes.
+   * @throws IllegalArgumentException if the budget is negative.
+   */
+  public SeriesCache(long maxBytes) throws IllegalArgumentException {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("The cache size can't be negative.");
+    }
+    this.maxBytes = maxBytes;
+    this.series = new LinkedHashMap<>(16, 0.75f, true);
+    this.versions = new HashMap<>();
+  }
+
+  /**
+   * The method returns the cache shared by the application, with the budget given in megabytes
+   * by the {@code SERIES_CACHE_MB} property of the configuration.
+   *
+   * @return the shared cache.
+   */
+  static synchronized SeriesCache shared() {
+    if (shared == null) {
+      long budget = DEFAULT_BUDGET_MB;
+      try {
+        budget = Configuration.current().getSeriesCacheMegabytes();
+      } catch (IOException e) {
+        // the default budget is used without a configuration.
+      }
+      shared = new SeriesCache(budget << 20);
+    }
+    return shared;
+  }
+
+  /**
+   * The method returns the series of the ticker, loading it with the given loader if it isn't
+   * cached.
+   *
+   * @param ticker ticker symbol of the share.
+   * @param loader loader of the series.
+   * @return price series of the ticker.
+   * @throws IOException    if the series couldn't be loaded.
+   * @throws ParseException if the series couldn't be parsed.
+   */
+  public PriceSeries get(String ticker, Loader loader) throws IOException, ParseException {
+    String key = ticker.toUpperCase();
+    long version;
+    long cleared;
+    synchronized (this) {
+      Entry cached = series.get(key);
+      if (cached != null) {
+        hits++;
+        long size = cached.series.estimatedHeapBytes();
+        if (size != cached.bytes) {
+          bytes += size - cached.bytes;
+          cached.bytes = size;
+          evict();
+        }
+        return cached.series;
+      }
+      misses++;
+      version = versions.getOrDefault(key, 0L);
+      cleared = clears;
+    }
+    long start = System.nanoTime();
+    PriceSeries loaded = loader.load(ticker);
+    long elapsed = System.nanoTime() - start;
+    synchronized (this) {
+      loadNanos += elapsed;
+      long size = loaded.estimatedHeapBytes();
+      if (size <= maxBytes && cleared == clears && version == versions.getOrDefault(key, 0L)) {
+        Entry previous = series.put(key, new Entry(loaded, size));
+        bytes += size - (previous == null ? 0 : previous.bytes);
+        evict();
+      }
+    }
+    return loaded;
+  }
+
+  /**
+   * The method removes the series of the ticker from the cache.
+   *
+   * @param ticker ticker symbol of the share.
+   */
+  public synchronized void invalidate(String ticker) {
+    String key = ticker.toUpperCase();
+    versions.merge(key, 1L, Long::sum);
+    Entry removed = series.remove(key);
+    if (removed != null) {
+      bytes -= removed.bytes;
+    }
+  }
+
+  /**
+   * The method replaces the cached series of the ticker with the result of the given update. A
+   * ticker that isn't cached is left to be loaded on its next request.
+   *
+   * @param ticker ticker symbol of the share.
+   * @param update update of the cached series.
+   */
+  public synchronized void update(String ticker, UnaryOperator<PriceSeries> update) {
+    String key = ticker.toUpperCase();
+    versions.merge(key, 1L, Long::sum);
+    Entry cached = series.get(key);
+    if (cached != null) {
+      PriceSeries updated = update.apply(cached.series);
+      long size = updated.estimatedHeapBytes();
+      series.put(key, new Entry(updated, size));
+      bytes += size - cached.bytes;
+      evict();
+    }
+  }
+
+  /**
+   * The method removes every series from the cache.
+   */
+  public synchronized void clear() {
+    clears++;
+    versions.clear();
+    series.clear();
+    bytes = 0;
+  }
+
+  /**
+   * The method returns the number of cached series.
+   *
+   * @return number of series.
+   */
+  public synchronized int size() {
+    return series.size();
+  }
+
+  /**
+   * The method returns the estimated heap size of the cached series.
+   *
+   * @return size in bytes.
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * The method returns the number of requests answered from the cache.
+   *
+   * @return number of hits.
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * The method returns the number of requests that had to load the series.
+   *
+   * @return number of misses.
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * The method returns the share of the requests answered from the cache.
+   *
+   * @return hit rate between 0 and 1, 0 if nothing was requested.
+   */
+  public synchronized double getHitRate() {
+    long requests = hits + misses;
+    return requests == 0 ? 0 : (double) hits / requests;
+  }
+
+  /**
+   * The method returns the number of series evicted to stay within the budget.
+   *
+   * @return number of evictions.
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * The method returns the total time spent loading the series that weren't cached.
+   *
+   * @return load time in nanoseconds.
+   */
+  public synchronized long getLoadNanos() {
+    return loadNanos;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("series=%d bytes=%d hits=%d misses=%d hitRate=%.2f evictions=%d "
+                    + "loadMillis=%.1f", series.size(), bytes, hits, misses, getHitRate(),
+            evictions, loadNanos / 1e6);
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<String, Entry>> iterator = series.entrySet().iterator();
+    while (bytes > maxBytes && iterator.hasNext()) {
+      bytes -= iterator.next().getValue().bytes;
+      iterator.remove();
+      evictions++;
+    }
+  }
+
+  /**
+   * A cached series with the size it is counted for in the budget.
+   */
+  private static final class Entry {
+    private final PriceSeries series;
+    private long bytes;
+
+    private Entry(PriceSeries series, long bytes) {
+      this.series = series;
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * A loader reads the series of a ticker that isn't cached.
+   */
+  public interface Loader {
+    /**
+     * Loads the series of the ticker.
+     *
+     * @param ticker ticker symbol of the share.
+     * @return price series of the ticker.
+     * @throws IOException    if the series couldn't be loaded.
+     * @throws ParseException if the series couldn't be parsed.
+     */
+    PriceSeries load(String ticker) throws IOException, ParseException;
+  }
+}
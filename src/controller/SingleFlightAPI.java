@@ -0,0 +1,109 @@
+package controller;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.PriceSeries;
+
+/**
+ * An implementation of the API interface that sits in front of another API and makes sure that
+ * only one request for a ticker is in flight at a time. A request for a ticker that is already
+ * being fetched waits for that fetch and gets the same result, or the same error, instead of
+ * downloading the data again and writing the same file at the same time. The number of requests
+ * and of the requests that were coalesced into an in-flight fetch are counted.
+ */
+public class SingleFlightAPI implements API {
+
+  private final API api;
+  private final ConcurrentMap<String, CompletableFuture<PriceSeries>> inFlight;
+  private final AtomicLong requests;
+  private final AtomicLong coalesced;
+
+  /**
+   * Constructs the single flight layer in front of the given API.
+   *
+   * @param api API that fetches the data.
+   */
+  public SingleFlightAPI(API api) {
+    this.api = api;
+    this.inFlight = new ConcurrentHashMap<>();
+    this.requests = new AtomicLong();
+    this.coalesced = new AtomicLong();
+  }
+
+  @Override
+  public PriceSeries getStockDetails(String ticker) throws IOException, ParseException {
+    return fetch("full:" + ticker.toUpperCase(), () -> api.getStockDetails(ticker));
+  }
+
+  @Override
+  public PriceSeries getRecentStockDetails(String ticker) throws IOException, ParseException {
+    return fetch("compact:" + ticker.toUpperCase(), () -> api.getRecentStockDetails(ticker));
+  }
+
+  /**
+   * The method returns the number of requests made to this API.
+   *
+   * @return number of requests.
+   */
+  public long getRequests() {
+    return requests.get();
+  }
+
+  /**
+   * The method returns the number of requests that joined a fetch already in flight instead of
+   * calling the underlying API.
+   *
+   * @return number of coalesced requests.
+   */
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+
+  private PriceSeries fetch(String key, Fetch fetch) throws IOException, ParseException {
+    requests.incrementAndGet();
+    CompletableFuture<PriceSeries> future = new CompletableFuture<>();
+    CompletableFuture<PriceSeries> existing = inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      coalesced.incrementAndGet();
+      return await(existing);
+    }
+    try {
+      future.complete(fetch.get());
+    } catch (Exception | Error e) {
+      future.completeExceptionally(e);
+    } finally {
+      inFlight.remove(key, future);
+    }
+    return await(future);
+  }
+
+  private static PriceSeries await(CompletableFuture<PriceSeries> future)
+          throws IOException, ParseException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("The request was interrupted.");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof ParseException) {
+        throw (ParseException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw (RuntimeException) cause;
+    }
+  }
+
+  private interface Fetch {
+    PriceSeries get() throws IOException, ParseException;
+  }
+}
@@ -0,0 +1,182 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class is an index over the listing of tickers and company names in
+ * {@code stockData.csv}. The listing is parsed once into a binary index file next to it,
+ * {@value #INDEX_NAME}, which is memory-mapped on every later start. The index keeps the rows in
+ * the order of the listing and a pool of their strings, so the listing is read without parsing
+ * the csv again. The index is rebuilt when the size or the modification time of the listing
+ * changes. Companies are searched and resolved by name with CompanySearch, which is built over
+ * the rows of the index.
+ */
+class StockListing {
+
+  static final String INDEX_NAME = "stockData.idx";
+
+  private static final int MAGIC = 0x53544b49;
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 28;
+  private static final int ROW_SIZE = 16;
+  private static final int TICKER = 0;
+  private static final int NAME = 8;
+
+  private static final Map<String, StockListing> LISTINGS = new ConcurrentHashMap<>();
+
+  private final ByteBuffer index;
+  private final int size;
+  private final int pool;
+
+  private StockListing(ByteBuffer index) {
+    this.index = index;
+    this.size = index.getInt(24);
+    this.pool = HEADER_SIZE + size * ROW_SIZE;
+  }
+
+  /**
+   * The method returns the index of the given listing, building the index file if it is missing
+   * or older than the listing.
+   *
+   * @param csv listing of tickers and company names.
+   * @return index of the listing.
+   * @throws IOException if the listing can't be read or the index can't be written.
+   */
+  static StockListing of(File csv) throws IOException {
+    StockListing listing = LISTINGS.get(csv.getAbsolutePath());
+    if (listing != null && listing.matches(csv)) {
+      return listing;
+    }
+    synchronized (LISTINGS) {
+      listing = LISTINGS.get(csv.getAbsolutePath());
+      if (listing == null || !listing.matches(csv)) {
+        listing = load(csv);
+        LISTINGS.put(csv.getAbsolutePath(), listing);
+      }
+      return listing;
+    }
+  }
+
+  /**
+   * The method returns the number of rows in the listing.
+   *
+   * @return number of rows.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * The method returns the ticker of the given row of the listing.
+   *
+   * @param row row of the listing.
+   * @return ticker symbol.
+   */
+  String getTicker(int row) {
+    return string(row, TICKER);
+  }
+
+  /**
+   * The method returns the company name of the given row of the listing.
+   *
+   * @param row row of the listing.
+   * @return company name.
+   */
+  String getName(int row) {
+    return string(row, NAME);
+  }
+
+  private boolean matches(File csv) {
+    return index.getLong(8) == csv.length() && index.getLong(16) == csv.lastModified();
+  }
+
+  private String string(int row, int key) {
+    int offset = index.getInt(HEADER_SIZE + row * ROW_SIZE + key);
+    int length = index.getInt(HEADER_SIZE + row * ROW_SIZE + key + 4);
+    byte[] bytes = new byte[length];
+    index.get(pool + offset, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static StockListing load(File csv) throws IOException {
+    File file = new File(csv.getAbsoluteFile().getParentFile(), INDEX_NAME);
+    if (file.isFile()) {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.limit() >= HEADER_SIZE && buffer.getInt(0) == MAGIC
+                && buffer.getInt(4) == VERSION) {
+          StockListing listing = new StockListing(buffer);
+          if (listing.matches(csv) && listing.pool <= buffer.limit()) {
+            return listing;
+          }
+        }
+      }
+    }
+    ByteBuffer buffer = build(csv);
+    write(buffer, file);
+    return new StockListing(buffer);
+  }
+
+  private static ByteBuffer build(File csv) throws IOException {
+    List<String[]> rows = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(csv))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] row = line.split(",");
+        if (row.length > 0) {
+          rows.add(new String[]{row[0], row[row.length - 1]});
+        }
+      }
+    } catch (IOException e) {
+      throw new IOException("File not found.");
+    }
+    int size = rows.size();
+    byte[][] strings = new byte[size * 2][];
+    int poolSize = 0;
+    for (int i = 0; i < size; i++) {
+      strings[i * 2] = rows.get(i)[0].getBytes(StandardCharsets.UTF_8);
+      strings[i * 2 + 1] = rows.get(i)[1].getBytes(StandardCharsets.UTF_8);
+      poolSize += strings[i * 2].length + strings[i * 2 + 1].length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + size * ROW_SIZE + poolSize);
+    buffer.putInt(MAGIC).putInt(VERSION).putLong(csv.length()).putLong(csv.lastModified())
+            .putInt(size);
+    int offset = 0;
+    for (byte[] string : strings) {
+      buffer.putInt(offset).putInt(string.length);
+      offset += string.length;
+    }
+    for (byte[] string : strings) {
+      buffer.put(string);
+    }
+    return buffer.flip();
+  }
+
+  private static void write(ByteBuffer buffer, File file) {
+    try {
+      Path temp = Files.createTempFile(file.getParentFile().toPath(), "stockData", ".tmp");
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        channel.write(buffer.duplicate());
+      }
+      Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      // the index is built again from the listing on the next start.
+    }
+  }
+}
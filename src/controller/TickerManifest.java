@@ -0,0 +1,413 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.DateCodec;
+
+/**
+ * The class keeps an index of every ticker stored in the stock data directory, keyed by the exact
+ * ticker symbol. Each entry records the price file, the date on which it was fetched, the first
+ * and last trading day and the number of rows, so finding a ticker doesn't need a directory scan.
+ * The index is persisted next to the data in {@value #FILE_NAME} and is rewritten atomically
+ * every time a price file is written. If the index is missing or unreadable it is rebuilt from
+ * the headers of the price files once. The directory is watched, and a price file that was
+ * written by another instance or by hand has its header read again. Only when the header differs
+ * from the entry is the entry replaced and the cached series of that ticker dropped, so the
+ * writes of this instance, which are recorded before they are reported, keep their cached series.
+ */
+class TickerManifest {
+
+  static final String FILE_NAME = "manifest.csv";
+
+  private static final Map<String, TickerManifest> MANIFESTS = new ConcurrentHashMap<>();
+
+  private final File directory;
+  private final Map<String, Entry> entries;
+  private final Map<String, File> legacyFiles;
+  private final DirectoryWatcher.Listener listener = this::changed;
+
+  private TickerManifest(File directory) {
+    this.directory = directory;
+    this.entries = new HashMap<>();
+    this.legacyFiles = new HashMap<>();
+  }
+
+  /**
+   * The method returns the manifest of the given stock data directory, loading it the first time
+   * the directory is used.
+   *
+   * @param directory stock data directory.
+   * @return manifest of the directory.
+   */
+  static TickerManifest of(File directory) {
+    return MANIFESTS.computeIfAbsent(directory.getAbsolutePath(), path -> {
+      TickerManifest manifest = new TickerManifest(directory);
+      manifest.load();
+      manifest.watch();
+      return manifest;
+    });
+  }
+
+  /**
+   * The method returns the entry of the ticker.
+   *
+   * @param ticker ticker symbol of the share.
+   * @return entry of the ticker, null if the ticker isn't stored.
+   */
+  synchronized Entry get(String ticker) {
+    return entries.get(ticker.toUpperCase());
+  }
+
+  /**
+   * The method returns the legacy {@code TICKER_yyyy-MM-dd.csv} file of the ticker that hasn't
+   * been imported to the price store yet.
+   *
+   * @param ticker ticker symbol of the share.
+   * @return csv file of the ticker, null if there is none.
+   */
+  synchronized File getLegacyFile(String ticker) {
+    return legacyFiles.get(ticker.toUpperCase());
+  }
+
+  /**
+   * The method returns every ticker in the manifest.
+   *
+   * @return sorted list of ticker symbols.
+   */
+  synchronized List<String> tickers() {
+    List<String> tickers = new ArrayList<>(entries.keySet());
+    Collections.sort(tickers);
+    return tickers;
+  }
+
+  /**
+   * The method returns the number of tickers in the manifest.
+   *
+   * @return number of stored tickers.
+   */
+  synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Records a price file that was written and persists the manifest.
+   *
+   * @param entry entry of the written price file.
+   * @throws IOException if the manifest could not be written.
+   */
+  synchronized void put(Entry entry) throws IOException {
+    entries.put(entry.getTicker(), entry);
+    legacyFiles.remove(entry.getTicker());
+    persist();
+    watch();
+  }
+
+  /**
+   * Records the price files that were written and persists the manifest once.
+   *
+   * @param written entries of the written price files.
+   * @throws IOException if the manifest could not be written.
+   */
+  synchronized void putAll(Collection<Entry> written) throws IOException {
+    if (written.isEmpty()) {
+      return;
+    }
+    for (Entry entry : written) {
+      entries.put(entry.getTicker(), entry);
+      legacyFiles.remove(entry.getTicker());
+    }
+    persist();
+    watch();
+  }
+
+  /**
+   * Removes the ticker from the manifest and persists it.
+   *
+   * @param ticker ticker symbol of the share.
+   * @throws IOException if the manifest could not be written.
+   */
+  synchronized void remove(String ticker) throws IOException {
+    if (entries.remove(ticker.toUpperCase()) != null) {
+      persist();
+    }
+  }
+
+  private void load() {
+    File file = new File(directory, FILE_NAME);
+    if (file.isFile()) {
+      try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          String[] row = line.split(",");
+          if (row.length != 6) {
+            throw new IOException("Manifest is not valid.");
+          }
+          entries.put(row[0], new Entry(row[0], new File(directory, row[1]),
+                  DateCodec.parse(row[2]), DateCodec.parse(row[3]), DateCodec.parse(row[4]),
+                  Integer.parseInt(row[5])));
+        }
+      } catch (IOException | DateTimeException | NumberFormatException e) {
+        entries.clear();
+      }
+    }
+    scan(entries.isEmpty());
+  }
+
+  private void scan(boolean rebuild) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      String name = file.getName();
+      if (rebuild && (name.endsWith(PriceStore.EXTENSION)
+              || name.endsWith(PriceBlocks.EXTENSION))) {
+        Entry entry = name.endsWith(PriceStore.EXTENSION) ? readHeader(file)
+                : readBlockHeader(file);
+        if (entry != null) {
+          entries.put(entry.getTicker(), entry);
+        }
+      } else if (name.endsWith(".csv") && name.lastIndexOf('_') > 0) {
+        String ticker = name.substring(0, name.lastIndexOf('_')).toUpperCase();
+        legacyFiles.put(ticker, file);
+      }
+    }
+    legacyFiles.keySet().removeAll(entries.keySet());
+    if (rebuild && !entries.isEmpty()) {
+      try {
+        persist();
+      } catch (IOException e) {
+        // the manifest is rebuilt again on the next start.
+      }
+    }
+  }
+
+  private void watch() {
+    DirectoryWatcher watcher = DirectoryWatcher.shared();
+    if (watcher != null) {
+      watcher.register(directory.toPath(), listener);
+    }
+  }
+
+  private void changed(Path watched, Set<Path> files) {
+    List<String> tickers = new ArrayList<>();
+    synchronized (this) {
+      Set<String> names = new LinkedHashSet<>();
+      if (files == null) {
+        String[] listed = directory.list();
+        if (listed != null) {
+          names.addAll(List.of(listed));
+        }
+        for (Entry entry : entries.values()) {
+          names.add(entry.getFile().getName());
+        }
+        for (File file : legacyFiles.values()) {
+          names.add(file.getName());
+        }
+      } else {
+        for (Path file : files) {
+          names.add(file.toString());
+        }
+      }
+      for (String name : names) {
+        String ticker = refresh(name);
+        if (ticker != null) {
+          tickers.add(ticker);
+        }
+      }
+      if (!tickers.isEmpty()) {
+        try {
+          persist();
+        } catch (IOException e) {
+          // the manifest is written again on the next change.
+        }
+      }
+    }
+    for (String ticker : tickers) {
+      SeriesCache.shared().invalidate(ticker);
+    }
+  }
+
+  private String refresh(String name) {
+    File file = new File(directory, name);
+    boolean blocks = name.endsWith(PriceBlocks.EXTENSION);
+    if (blocks || name.endsWith(PriceStore.EXTENSION)) {
+      String ticker = name.substring(0, name.length() - (blocks ? PriceBlocks.EXTENSION
+              : PriceStore.EXTENSION).length()).toUpperCase();
+      Entry current = entries.get(ticker);
+      Entry read = !file.isFile() ? null : blocks ? readBlockHeader(file) : readHeader(file);
+      if (read == null) {
+        if (current == null || !current.getFile().getName().equals(name)) {
+          return null;
+        }
+        entries.remove(ticker);
+      } else if (current != null && current.isSameAs(read)) {
+        return null;
+      } else {
+        entries.put(ticker, read);
+        legacyFiles.remove(ticker);
+      }
+      return ticker;
+    }
+    if (name.endsWith(".csv") && name.lastIndexOf('_') > 0) {
+      String ticker = name.substring(0, name.lastIndexOf('_')).toUpperCase();
+      if (file.isFile() && !entries.containsKey(ticker)) {
+        legacyFiles.put(ticker, file);
+      } else if (!file.isFile() && file.equals(legacyFiles.get(ticker))) {
+        legacyFiles.remove(ticker);
+      } else {
+        return null;
+      }
+      return ticker;
+    }
+    return null;
+  }
+
+  private Entry readHeader(File file) {
+    String name = file.getName();
+    String ticker = name.substring(0, name.length() - PriceStore.EXTENSION.length());
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(PriceStore.HEADER_SIZE);
+      channel.read(header, 0);
+      int rows = header.getInt(8);
+      if (rows <= 0 || channel.size() < PriceStore.HEADER_SIZE
+              + (long) rows * PriceStore.RECORD_SIZE) {
+        return null;
+      }
+      ByteBuffer day = ByteBuffer.allocate(4);
+      channel.read(day, PriceStore.HEADER_SIZE);
+      LocalDate first = LocalDate.ofEpochDay(day.getInt(0));
+      day.clear();
+      channel.read(day, PriceStore.HEADER_SIZE + (long) (rows - 1) * PriceStore.RECORD_SIZE);
+      LocalDate last = LocalDate.ofEpochDay(day.getInt(0));
+      return new Entry(ticker, file, LocalDate.ofEpochDay(header.getInt(12)), first, last,
+              rows);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private Entry readBlockHeader(File file) {
+    String name = file.getName();
+    String ticker = name.substring(0, name.length() - PriceBlocks.EXTENSION.length());
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (!PriceBlocks.isEncoded(header) || PriceBlocks.rows(header) <= 0) {
+        return null;
+      }
+      return new Entry(ticker, file, PriceBlocks.fetched(header), PriceBlocks.firstDate(header),
+              PriceBlocks.lastDate(header), PriceBlocks.rows(header));
+    } catch (IOException | IndexOutOfBoundsException e) {
+      return null;
+    }
+  }
+
+  private void persist() throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("An error occurred while writing the contents onto the file.");
+    }
+    Path temp = Files.createTempFile(directory.toPath(), "manifest", ".tmp");
+    try (FileWriter fileWriter = new FileWriter(temp.toFile())) {
+      for (Entry entry : entries.values()) {
+        fileWriter.write(entry.getTicker() + "," + entry.getFile().getName() + ","
+                + entry.getFetchedDate() + "," + entry.getFirstDate() + ","
+                + entry.getLastDate() + "," + entry.getRows() + "\n");
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw new IOException("An error occurred while writing the contents onto the file.");
+    }
+    Files.move(temp, new File(directory, FILE_NAME).toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * An entry of the manifest describing the price file of a single ticker.
+   */
+  static final class Entry {
+    private final String ticker;
+    private final File file;
+    private final LocalDate fetchedDate;
+    private final LocalDate firstDate;
+    private final LocalDate lastDate;
+    private final int rows;
+
+    Entry(String ticker, File file, LocalDate fetchedDate, LocalDate firstDate,
+          LocalDate lastDate, int rows) {
+      this.ticker = ticker.toUpperCase();
+      this.file = file;
+      this.fetchedDate = fetchedDate;
+      this.firstDate = firstDate;
+      this.lastDate = lastDate;
+      this.rows = rows;
+    }
+
+    String getTicker() {
+      return ticker;
+    }
+
+    File getFile() {
+      return file;
+    }
+
+    LocalDate getFetchedDate() {
+      return fetchedDate;
+    }
+
+    LocalDate getFirstDate() {
+      return firstDate;
+    }
+
+    LocalDate getLastDate() {
+      return lastDate;
+    }
+
+    int getRows() {
+      return rows;
+    }
+
+    /**
+     * The method checks if the given entry describes the same price file and rows.
+     *
+     * @param other the other entry.
+     * @return true if the entries are the same, else false.
+     */
+    boolean isSameAs(Entry other) {
+      return ticker.equals(other.ticker) && file.getName().equals(other.file.getName())
+              && fetchedDate.equals(other.fetchedDate) && firstDate.equals(other.firstDate)
+              && lastDate.equals(other.lastDate) && rows == other.rows;
+    }
+
+    /**
+     * The method checks if the data has to be fetched again to get the price of the given date,
+     * which is when the date is after the last stored day and the ticker wasn't fetched today.
+     *
+     * @param date date for which the price is needed.
+     * @return true if the ticker has to be fetched again, else false.
+     */
+    boolean isStale(LocalDate date) {
+      return lastDate.isBefore(date) && fetchedDate.isBefore(LocalDate.now());
+    }
+  }
+}
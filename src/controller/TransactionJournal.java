@@ -0,0 +1,553 @@
+package controller;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * The class saves the transactions of a flexible portfolio as a csv checkpoint and an
+ * append-only journal of the transactions made after it. Saving the portfolio appends only the
+ * new transactions to the journal, one record per BUY or SELL, instead of rewriting the whole
+ * history. Loading reads the checkpoint and replays the journal. Every record carries a checksum,
+ * so a record that was torn by a crash is dropped on replay. When the journal grows larger than
+ * the checkpoint, the transactions are written to a new checkpoint and the journal starts again,
+ * so the csv file keeps the layout of the portfolio files. The new checkpoint is synced and
+ * moved into place before the journal starts again, so a synced journal never refers to a
+ * checkpoint that isn't on the disk. Records saved by several threads at
+ * once are written together with a single sync of the file. Next to the journal, a binary
+ * snapshot of the portfolio can be kept. It is stamped with the size and the modification time
+ * of the checkpoint and the journal, and it is only read back while both are unchanged. The
+ * journal files are watched, and a journal that another instance wrote to is loaded again on
+ * the next save, so its records are counted right and the save rewrites the portfolio as a
+ * whole, like saving the csv file did, instead of appending after records it doesn't know.
+ */
+public final class TransactionJournal {
+
+  static final String EXTENSION = ".journal";
+  static final String DIRECTORY = "journal";
+  static final String SNAPSHOT_EXTENSION = ".snapshot";
+
+  private static final int MIN_COMPACT_RECORDS = 256;
+  private static final String BASE_PREFIX = "#base=";
+  private static final int STAMP_SIZE = 32;
+  private static final Map<String, TransactionJournal> JOURNALS = new HashMap<>();
+  private static final Set<TransactionJournal> WATCHED =
+          Collections.newSetFromMap(new WeakHashMap<>());
+  private static final DirectoryWatcher.Listener LISTENER = TransactionJournal::changed;
+
+  private final File checkpoint;
+  private final File journal;
+  private final File snapshot;
+  private List<String> saved;
+  private int base;
+  private int checkpointRows;
+  private int journalRecords;
+  private boolean repair;
+  private long checkpointModified;
+  private long journalLength;
+  private boolean suspect;
+  private List<String> pending = new ArrayList<>();
+  private long queued;
+  private long durable;
+  private boolean writing;
+  private IOException failure;
+  private long commits;
+  private long compactions;
+
+  /**
+   * Constructs the journal of the given checkpoint.
+   *
+   * @param checkpoint csv file of the portfolio.
+   * @param journal    journal file of the transactions after the checkpoint.
+   */
+  public TransactionJournal(File checkpoint, File journal) {
+    this.checkpoint = checkpoint;
+    this.journal = journal;
+    String name = journal.getName();
+    int dot = name.lastIndexOf('.');
+    this.snapshot = new File(journal.getParentFile(),
+            (dot == -1 ? name : name.substring(0, dot)) + SNAPSHOT_EXTENSION);
+  }
+
+  /**
+   * The method returns the journal of the given portfolio file, the same instance for the same
+   * file. The journal is kept in the {@value #DIRECTORY} directory next to the portfolio file.
+   *
+   * @param checkpoint csv file of the portfolio.
+   * @return journal of the portfolio.
+   */
+  static TransactionJournal of(File checkpoint) {
+    File absolute = checkpoint.getAbsoluteFile();
+    synchronized (JOURNALS) {
+      return JOURNALS.computeIfAbsent(absolute.getPath(), path -> {
+        String name = absolute.getName();
+        int dot = name.lastIndexOf('.');
+        return new TransactionJournal(absolute, new File(new File(absolute.getParentFile(),
+                DIRECTORY), (dot == -1 ? name : name.substring(0, dot)) + EXTENSION));
+      });
+    }
+  }
+
+  private static void changed(Path directory, Set<Path> files) {
+    List<TransactionJournal> journals;
+    synchronized (WATCHED) {
+      journals = new ArrayList<>(WATCHED);
+    }
+    for (TransactionJournal journal : journals) {
+      Path path = journal.journal.toPath().toAbsolutePath().normalize();
+      if (path.getParent().equals(directory)
+              && (files == null || files.contains(path.getFileName()))) {
+        synchronized (journal) {
+          journal.suspect = true;
+        }
+      }
+    }
+  }
+
+  private void watch() {
+    DirectoryWatcher watcher = DirectoryWatcher.shared();
+    if (watcher != null) {
+      synchronized (WATCHED) {
+        WATCHED.add(this);
+      }
+      watcher.register(journal.getParentFile().toPath(), LISTENER);
+    }
+  }
+
+  /**
+   * The method reads the transactions of the checkpoint followed by those of the journal.
+   * Records that are already part of the checkpoint or that fail their checksum are skipped.
+   * Loading doesn't write any file. A journal that is missing, has no valid header, ends with a
+   * torn record or doesn't match the checkpoint is written again by the next save, before its
+   * records are appended.
+   *
+   * @return list of transactions, oldest first.
+   * @throws IOException if the checkpoint can't be read.
+   */
+  public synchronized List<String> load() throws IOException {
+    List<String> transactions = new ArrayList<>();
+    if (checkpoint.isFile()) {
+      checkpointModified = checkpoint.lastModified();
+      for (String line : Files.readAllLines(checkpoint.toPath(), StandardCharsets.UTF_8)) {
+        if (!line.isEmpty()) {
+          transactions.add(line);
+        }
+      }
+    }
+    checkpointRows = transactions.size();
+    base = checkpointRows;
+    journalRecords = 0;
+    boolean intact = journal.isFile() && replay(transactions);
+    repair = checkpoint.isFile() && (!intact || base + journalRecords != transactions.size());
+    journalLength = journal.length();
+    suspect = false;
+    saved = new ArrayList<>(transactions);
+    watch();
+    return transactions;
+  }
+
+  /**
+   * The method saves the given transactions. When the saved transactions are the beginning of
+   * the given ones, only the new transactions are appended to the journal, else the checkpoint
+   * is rewritten. Transactions that are the beginning of the saved ones were already saved, and
+   * the method only waits until they are on the disk. When the journal was reported changed and
+   * its length isn't the one this journal wrote, it is loaded again first, and a journal that
+   * was found damaged when it was loaded is written again with the records that were read.
+   *
+   * @param transactions every transaction of the portfolio, oldest first.
+   * @throws IOException if the transactions could not be written.
+   */
+  public void save(List<String> transactions) throws IOException {
+    long ticket;
+    synchronized (this) {
+      if (suspect) {
+        awaitWriter();
+        suspect = false;
+        if (journal.length() != journalLength) {
+          saved = null;
+        }
+      }
+      if (saved == null || !checkpoint.isFile()
+              || checkpoint.lastModified() != checkpointModified) {
+        awaitWriter();
+        load();
+      }
+      if (repair) {
+        awaitWriter();
+        try {
+          writeJournal(checkpointRows, new ArrayList<>(saved.subList(checkpointRows,
+                  saved.size())));
+        } catch (IOException e) {
+          saved = null;
+          throw new IOException("An error occurred while saving the file.");
+        }
+        repair = false;
+      }
+      if (isPrefix(transactions, saved)) {
+        ticket = queued;
+      } else if (!checkpoint.isFile() || !isPrefix(saved, transactions)
+              || journalRecords + transactions.size() - saved.size()
+              > Math.max(MIN_COMPACT_RECORDS, base)) {
+        awaitWriter();
+        compact(transactions);
+        return;
+      } else {
+        ticket = enqueue(transactions);
+      }
+    }
+    commit(ticket);
+  }
+
+  private long enqueue(List<String> transactions) {
+    int added = transactions.size() - saved.size();
+    for (int i = saved.size(); i < transactions.size(); i++) {
+      pending.add(transactions.get(i));
+      saved.add(transactions.get(i));
+    }
+    journalRecords += added;
+    queued += added;
+    return queued;
+  }
+
+  /**
+   * The method writes every transaction to a csv file in the layout of the portfolio files.
+   *
+   * @param transactions every transaction of the portfolio, oldest first.
+   * @param file         csv file to be written.
+   * @throws IOException if the file could not be written.
+   */
+  public static void export(List<String> transactions, File file) throws IOException {
+    try (FileWriter fileWriter = new FileWriter(file)) {
+      for (String transaction : transactions) {
+        fileWriter.write(transaction + "\n");
+      }
+    } catch (IOException e) {
+      throw new IOException("An error occurred while saving the file.");
+    }
+  }
+
+  /**
+   * The method writes the snapshot of the given number of saved transactions. The snapshot is
+   * not written when the saved transactions are a different number, or when some of them are
+   * still being written, as it would not match the files. It is only a copy of the checkpoint
+   * and the journal, so it isn't synced, and a snapshot that could not be written is skipped.
+   *
+   * @param body         encoded snapshot.
+   * @param transactions number of transactions in the snapshot.
+   */
+  public synchronized void writeSnapshot(ByteBuffer body, int transactions) {
+    if (saved == null || writing || !pending.isEmpty() || saved.size() != transactions) {
+      return;
+    }
+    Path temp = null;
+    try {
+      temp = Files.createTempFile(journal.getParentFile().toPath(), snapshot.getName(), ".tmp");
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        ByteBuffer stamp = stamp();
+        while (stamp.hasRemaining()) {
+          channel.write(stamp);
+        }
+        ByteBuffer buffer = body.duplicate();
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(temp, snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      try {
+        if (temp != null) {
+          Files.deleteIfExists(temp);
+        }
+        Files.deleteIfExists(snapshot.toPath());
+      } catch (IOException ignored) {
+        // a stale snapshot is never read, as its stamp doesn't match the files.
+      }
+    }
+  }
+
+  /**
+   * The method reads the snapshot, if it was written after the last change of the checkpoint
+   * and the journal.
+   *
+   * @return encoded snapshot, null if there is none or it is stale.
+   */
+  public synchronized ByteBuffer readSnapshot() {
+    if (!snapshot.isFile() || !checkpoint.isFile()) {
+      return null;
+    }
+    byte[] bytes;
+    try {
+      bytes = Files.readAllBytes(snapshot.toPath());
+    } catch (IOException e) {
+      return null;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    if (bytes.length < STAMP_SIZE || !stamp().equals(buffer.limit(STAMP_SIZE))) {
+      return null;
+    }
+    return buffer.limit(bytes.length).position(STAMP_SIZE).slice();
+  }
+
+  private ByteBuffer stamp() {
+    ByteBuffer stamp = ByteBuffer.allocate(STAMP_SIZE);
+    stamp.putLong(checkpoint.length()).putLong(checkpoint.lastModified())
+            .putLong(journal.length()).putLong(journal.lastModified());
+    return stamp.flip();
+  }
+
+  /**
+   * The method returns the number of records in the journal after the checkpoint.
+   *
+   * @return number of journal records.
+   */
+  public synchronized int getJournalRecords() {
+    return journalRecords;
+  }
+
+  /**
+   * The method returns the number of times the transactions were written to a new checkpoint.
+   *
+   * @return number of compactions.
+   */
+  public synchronized long getCompactions() {
+    return compactions;
+  }
+
+  /**
+   * The method returns the number of times records were written and synced to the journal.
+   *
+   * @return number of commits.
+   */
+  public synchronized long getCommits() {
+    return commits;
+  }
+
+  private void commit(long ticket) throws IOException {
+    List<String> batch;
+    long batchEnd;
+    synchronized (this) {
+      while (durable < ticket && writing) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("An error occurred while saving the file.");
+        }
+      }
+      if (durable >= ticket) {
+        if (failure != null) {
+          throw failure;
+        }
+        return;
+      }
+      writing = true;
+      batch = pending;
+      pending = new ArrayList<>();
+      batchEnd = queued;
+    }
+    IOException error = null;
+    long written = 0;
+    try {
+      written = write(batch);
+    } catch (IOException e) {
+      error = new IOException("An error occurred while saving the file.");
+    }
+    synchronized (this) {
+      writing = false;
+      journalLength += written;
+      durable = batchEnd;
+      failure = error;
+      if (error != null) {
+        saved = null;
+      }
+      commits++;
+      notifyAll();
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  private void awaitWriter() throws IOException {
+    while (writing) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("An error occurred while saving the file.");
+      }
+    }
+  }
+
+  private long write(List<String> records) throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (String record : records) {
+      text.append(checksum(record)).append(',').append(record).append('\n');
+    }
+    try (FileChannel channel = FileChannel.open(journal.toPath(), StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND)) {
+      ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+      return buffer.limit();
+    }
+  }
+
+  private void compact(List<String> transactions) throws IOException {
+    File directory = checkpoint.getParentFile();
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("An error occurred while saving the file.");
+    }
+    StringBuilder text = new StringBuilder();
+    for (String transaction : transactions) {
+      text.append(transaction).append('\n');
+    }
+    Path temp = Files.createTempFile(directory.toPath(), checkpoint.getName(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(true);
+      }
+      Files.move(temp, checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+      writeJournal(transactions.size(), new ArrayList<>());
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      saved = null;
+      throw new IOException("An error occurred while saving the file.");
+    }
+    checkpointModified = checkpoint.lastModified();
+    saved = new ArrayList<>(transactions);
+    checkpointRows = transactions.size();
+    base = transactions.size();
+    journalRecords = 0;
+    pending = new ArrayList<>();
+    durable = queued;
+    failure = null;
+    compactions++;
+    notifyAll();
+  }
+
+  private void writeJournal(int base, List<String> records) throws IOException {
+    File directory = journal.getParentFile();
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("An error occurred while saving the file.");
+    }
+    StringBuilder text = new StringBuilder(BASE_PREFIX).append(base).append('\n');
+    for (String record : records) {
+      text.append(checksum(record)).append(',').append(record).append('\n');
+    }
+    byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+    Path temp = Files.createTempFile(directory.toPath(), journal.getName(), ".tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    Files.move(temp, journal.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    journalLength = bytes.length;
+    watch();
+    this.base = base;
+    this.journalRecords = records.size();
+  }
+
+  private boolean replay(List<String> transactions) throws IOException {
+    byte[] bytes = Files.readAllBytes(journal.toPath());
+    int start = 0;
+    int valid = 0;
+    int index = -1;
+    while (start < bytes.length) {
+      int end = start;
+      while (end < bytes.length && bytes[end] != '\n') {
+        end++;
+      }
+      if (end == bytes.length) {
+        break;
+      }
+      String line = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+      if (index == -1) {
+        if (!line.startsWith(BASE_PREFIX)) {
+          break;
+        }
+        try {
+          base = Integer.parseInt(line.substring(BASE_PREFIX.length()));
+        } catch (NumberFormatException e) {
+          break;
+        }
+        if (base > checkpointRows) {
+          break;
+        }
+      } else {
+        int comma = line.indexOf(',');
+        if (comma == -1
+                || !line.substring(0, comma).equals(checksum(line.substring(comma + 1)))) {
+          break;
+        }
+        if (base + index >= checkpointRows) {
+          transactions.add(line.substring(comma + 1));
+        }
+        journalRecords++;
+      }
+      index++;
+      start = end + 1;
+      valid = start;
+    }
+    if (index == -1) {
+      base = checkpointRows;
+      return false;
+    }
+    return valid == bytes.length;
+  }
+
+  private static boolean isPrefix(List<String> prefix, List<String> list) {
+    if (prefix.size() > list.size()) {
+      return false;
+    }
+    for (int i = prefix.size() - 1; i >= 0; i--) {
+      if (!prefix.get(i).equals(list.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String checksum(String record) {
+    CRC32 crc = new CRC32();
+    crc.update(record.getBytes(StandardCharsets.UTF_8));
+    return String.format("%08x", crc.getValue());
+  }
+
+  @Override
+  public synchronized String toString() {
+    return checkpoint.getName() + " base=" + base + " journal=" + journalRecords + " commits="
+            + commits;
+  }
+
+}
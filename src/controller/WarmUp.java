@@ -0,0 +1,268 @@
+package controller;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class warms up the working set of the application in the background while the view is
+ * shown. It reads the stock listing and builds the search over it, loads the portfolios that
+ * were saved last and parses the stored price series of their tickers into the series cache, on
+ * a bounded number of threads. Nothing is fetched from the API, that is left to the
+ * {@link BackgroundRefresher}. The warm-up is opt in with {@code WARM_UP = true}, and
+ * {@code WARM_UP_PORTFOLIOS} is the number of portfolios it loads. The time from the start of the
+ * application to its first valuation is measured whether the warm-up runs or not.
+ */
+public final class WarmUp {
+
+  private static volatile WarmUp current;
+
+  private final long startNanos;
+  private final CountDownLatch finished = new CountDownLatch(1);
+  private ExecutorService executor;
+  private boolean running;
+  private long listingNanos = -1;
+  private int portfolios;
+  private int tickers;
+  private int failed;
+  private long finishedNanos = -1;
+  private long firstValuationNanos = -1;
+
+  /**
+   * A task of the warm-up.
+   */
+  interface Task {
+    /**
+     * Runs the task.
+     *
+     * @throws IOException if the data of the task can't be read.
+     */
+    void run() throws IOException;
+  }
+
+  private WarmUp(long startNanos) {
+    this.startNanos = startNanos;
+  }
+
+  /**
+   * The method marks the start of the application and starts the warm-up if it is configured.
+   * It returns at once, the warm-up runs on its own threads.
+   *
+   * @return the warm-up of the application.
+   */
+  public static synchronized WarmUp start() {
+    if (current == null) {
+      WarmUp warmUp = new WarmUp(System.nanoTime());
+      current = warmUp;
+      try {
+        Configuration configuration = Configuration.current();
+        if (configuration.isWarmUp()) {
+          warmUp.run(new FileOperation(), configuration.getWarmUpPortfolios(),
+                  configuration.getPrefetchThreads());
+        }
+      } catch (IOException e) {
+        // without a configuration there is nothing to warm up.
+      }
+      if (!warmUp.isRunning()) {
+        warmUp.finished.countDown();
+      }
+    }
+    return current;
+  }
+
+  /**
+   * The method returns the warm-up of the application.
+   *
+   * @return the warm-up, null if the application wasn't started.
+   */
+  public static WarmUp current() {
+    return current;
+  }
+
+  /**
+   * Records a valuation of a portfolio. Only the first one is kept, and it is read with
+   * {@link #getTimeToFirstValuationMillis()}.
+   */
+  static void valued() {
+    WarmUp warmUp = current;
+    if (warmUp == null) {
+      return;
+    }
+    synchronized (warmUp) {
+      if (warmUp.firstValuationNanos == -1) {
+        warmUp.firstValuationNanos = System.nanoTime() - warmUp.startNanos;
+      }
+    }
+  }
+
+  private synchronized void run(FileOperation file, int count, int parallelism) {
+    running = true;
+    executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+      Thread thread = new Thread(runnable, "warm-up");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+    Thread thread = new Thread(() -> warm(file, count), "warm-up");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    thread.start();
+  }
+
+  private void warm(FileOperation file, int count) {
+    try {
+      Future<Boolean> listing = executor.submit(() -> attempt(() -> {
+        file.warmListing();
+        synchronized (this) {
+          listingNanos = System.nanoTime() - startNanos;
+        }
+      }));
+      List<Callable<Set<String>>> loads = new ArrayList<>();
+      for (PortfolioCatalog.Entry entry : file.recentPortfolios(count)) {
+        loads.add(() -> file.tickersOf(entry));
+      }
+      Set<String> held = new LinkedHashSet<>();
+      for (Future<Set<String>> load : executor.invokeAll(loads)) {
+        try {
+          held.addAll(load.get());
+          add(1, 0, 0);
+        } catch (ExecutionException e) {
+          add(0, 0, 1);
+        }
+      }
+      List<Callable<Boolean>> parses = new ArrayList<>();
+      for (String ticker : held) {
+        parses.add(() -> attempt(() -> {
+          if (file.warmSeries(ticker)) {
+            add(0, 1, 0);
+          }
+        }));
+      }
+      executor.invokeAll(parses);
+      listing.get();
+    } catch (IOException | ExecutionException e) {
+      add(0, 0, 1);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdown();
+      synchronized (this) {
+        running = false;
+        finishedNanos = System.nanoTime() - startNanos;
+      }
+      finished.countDown();
+    }
+  }
+
+  private boolean attempt(Task task) {
+    try {
+      task.run();
+      return true;
+    } catch (IOException | RuntimeException e) {
+      add(0, 0, 1);
+      return false;
+    }
+  }
+
+  private synchronized void add(int portfolios, int tickers, int failed) {
+    this.portfolios += portfolios;
+    this.tickers += tickers;
+    this.failed += failed;
+  }
+
+  /**
+   * The method checks if the warm-up is running.
+   *
+   * @return true if the warm-up is running, else false.
+   */
+  public synchronized boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * The method returns the number of portfolios that were loaded.
+   *
+   * @return number of portfolios.
+   */
+  public synchronized int getPortfolios() {
+    return portfolios;
+  }
+
+  /**
+   * The method returns the number of price series that were parsed into the cache.
+   *
+   * @return number of price series.
+   */
+  public synchronized int getTickers() {
+    return tickers;
+  }
+
+  /**
+   * The method returns the number of steps of the warm-up that failed.
+   *
+   * @return number of failures.
+   */
+  public synchronized int getFailed() {
+    return failed;
+  }
+
+  /**
+   * The method returns the time from the start of the application until the listing was read.
+   *
+   * @return time in milliseconds, -1 if it wasn't read.
+   */
+  public synchronized long getListingMillis() {
+    return toMillis(listingNanos);
+  }
+
+  /**
+   * The method returns the time from the start of the application until the warm-up finished.
+   *
+   * @return time in milliseconds, -1 if it didn't run or is still running.
+   */
+  public synchronized long getWarmUpMillis() {
+    return toMillis(finishedNanos);
+  }
+
+  /**
+   * The method returns the time from the start of the application until the first valuation of
+   * a portfolio finished.
+   *
+   * @return time in milliseconds, -1 if no portfolio was valued yet.
+   */
+  public synchronized long getTimeToFirstValuationMillis() {
+    return toMillis(firstValuationNanos);
+  }
+
+  /**
+   * Waits until the warm-up finished.
+   *
+   * @param timeoutMillis maximum time to wait in milliseconds.
+   * @return true if the warm-up finished or didn't run, false if the time ran out.
+   * @throws InterruptedException if the thread is interrupted while waiting.
+   */
+  public boolean await(long timeoutMillis) throws InterruptedException {
+    return finished.await(timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private static long toMillis(long nanos) {
+    return nanos == -1 ? -1 : TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("running=%b portfolios=%d tickers=%d failed=%d listingMillis=%d "
+                    + "warmUpMillis=%d firstValuationMillis=%d", running, portfolios, tickers,
+            failed, toMillis(listingNanos), toMillis(finishedNanos),
+            toMillis(firstValuationNanos));
+  }
+}
@@ -0,0 +1,131 @@
+package model;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * The class converts the dates of the application, written as yyyy-MM-dd, straight to and from
+ * the number of days since 1970-01-01. The conversion is plain arithmetic, so unlike a date
+ * format it creates no parser, calendar or time zone, and a date kept as an epoch day is
+ * compared with an integer compare. The validation is strict: the year has four digits, the
+ * month and the day one or two, and the day has to exist in the month.
+ */
+public final class DateCodec {
+
+  private DateCodec() {
+  }
+
+  /**
+   * The method converts a yyyy-MM-dd date to the number of days since 1970-01-01.
+   *
+   * @param text the date.
+   * @return epoch day of the date.
+   * @throws DateTimeException if the text isn't a valid date.
+   */
+  public static int toEpochDay(CharSequence text) throws DateTimeException {
+    int length = text.length();
+    if (length < 8 || length > 10 || text.charAt(4) != '-') {
+      throw invalid(text);
+    }
+    int year = digits(text, 0, 4);
+    int dash = length - 3 >= 6 && text.charAt(length - 3) == '-' ? length - 3 : length - 2;
+    if (text.charAt(dash) != '-' || dash - 5 > 2) {
+      throw invalid(text);
+    }
+    int month = digits(text, 5, dash);
+    int day = digits(text, dash + 1, length);
+    if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+      throw invalid(text);
+    }
+    return epochDay(year, month, day);
+  }
+
+  /**
+   * The method converts the given year, month and day to the number of days since 1970-01-01.
+   *
+   * @param year  the year.
+   * @param month the month, from 1 to 12.
+   * @param day   the day of the month.
+   * @return epoch day of the date.
+   * @throws DateTimeException if the date doesn't exist.
+   */
+  public static int toEpochDay(int year, int month, int day) throws DateTimeException {
+    if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+      throw new DateTimeException("Invalid date " + year + "-" + month + "-" + day);
+    }
+    return epochDay(year, month, day);
+  }
+
+  /**
+   * The method converts a yyyy-MM-dd date to a LocalDate.
+   *
+   * @param text the date.
+   * @return the date.
+   * @throws DateTimeException if the text isn't a valid date.
+   */
+  public static LocalDate parse(CharSequence text) throws DateTimeException {
+    return LocalDate.ofEpochDay(toEpochDay(text));
+  }
+
+  /**
+   * The method writes the given epoch day as a yyyy-MM-dd date.
+   *
+   * @param epochDay number of days since 1970-01-01.
+   * @return the date as text.
+   */
+  public static String format(int epochDay) {
+    int z = epochDay + 719468;
+    int era = Math.floorDiv(z, 146097);
+    int dayOfEra = z - era * 146097;
+    int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    int shiftedMonth = (5 * dayOfYear + 2) / 153;
+    int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+    int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+    int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+    if (year < 0 || year > 9999) {
+      return LocalDate.ofEpochDay(epochDay).toString();
+    }
+    char[] text = {
+        (char) ('0' + year / 1000), (char) ('0' + year / 100 % 10),
+        (char) ('0' + year / 10 % 10), (char) ('0' + year % 10), '-',
+        (char) ('0' + month / 10), (char) ('0' + month % 10), '-',
+        (char) ('0' + day / 10), (char) ('0' + day % 10)};
+    return new String(text);
+  }
+
+  private static int digits(CharSequence text, int from, int to) {
+    if (to - from < 1) {
+      return -1;
+    }
+    int value = 0;
+    for (int i = from; i < to; i++) {
+      char c = text.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+    if (month == 2) {
+      return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+    }
+    return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  private static int epochDay(int year, int month, int day) {
+    int y = month <= 2 ? year - 1 : year;
+    int era = Math.floorDiv(y, 400);
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  private static DateTimeException invalid(CharSequence text) {
+    return new DateTimeException("Invalid date " + text);
+  }
+}
@@ -15,6 +15,7 @@ public class FlexiblePortfolioModelImpl extends
 
   private List<String> transaction;
   private List<String> strategyList;
+  private ShareReplay replay;
 
   /**
    * Constructs the flexible portfolio where shares, strategy and amount to be invested in the
@@ -59,6 +60,7 @@ public class FlexiblePortfolioModelImpl extends
     super();
     transaction = new ArrayList<>();
     strategyList = new ArrayList<>();
+    replay = new ShareReplay();
   }
 
   /**
@@ -96,6 +98,7 @@ public class FlexiblePortfolioModelImpl extends
           float existingShareQuantity = existingShare.getShareQuantity();
           existingShare.setShareQuantity(shareQuantity);
           transaction.add(existingShare.toString() + ",BUY");
+          replay.apply(existingShare.toString() + ",BUY");
           existingShare.setShareQuantity(existingShare.getShareQuantity() + existingShareQuantity);
           existingShare.setBuyValue(existingShare.getBuyValue() +
                   shareQuantity * Float.parseFloat(data.get("close")));
@@ -106,6 +109,7 @@ public class FlexiblePortfolioModelImpl extends
     share.setShareQuantity(shareQuantity);
     share.setBuyValue(shareQuantity * Float.parseFloat(data.get("close")));
     transaction.add(share.toString() + ",BUY");
+    replay.apply(share.toString() + ",BUY");
     this.shares.add(share);
   }
 
@@ -151,10 +155,12 @@ public class FlexiblePortfolioModelImpl extends
           if (existingShare.getShareQuantity() - shareQuantity == 0) {
             this.shares.remove(existingShare);
             transaction.add(existingShare.toString() + ",SELL");
+            replay.apply(existingShare.toString() + ",SELL");
           } else {
             float existingShareQuantity = existingShare.getShareQuantity();
             existingShare.setShareQuantity(shareQuantity);
             transaction.add(existingShare.toString() + ",SELL");
+            replay.apply(existingShare.toString() + ",SELL");
             existingShare.setShareQuantity(existingShareQuantity - shareQuantity);
           }
           return;
@@ -174,9 +180,10 @@ public class FlexiblePortfolioModelImpl extends
   @Override
   public float getTotalInvestment(LocalDate date) throws ParseException {
     float investmentValue = 0;
+    long day = date.toEpochDay();
     for (String s : transaction) {
       String[] row = s.split(",");
-      if (parseDate(row[1]).isEqual(date) || parseDate(row[1]).isBefore(date)) {
+      if (parseEpochDay(row[1]) <= day) {
         if (row[7].equals("BUY")) {
           investmentValue += Float.parseFloat(row[6]);
         }
@@ -185,9 +192,15 @@ public class FlexiblePortfolioModelImpl extends
     return investmentValue;
   }
 
+  /**
+   * The method returns the transactions of the portfolio as a snapshot that also holds the
+   * lots their replay produces, so the portfolio can be saved and loaded again without a replay.
+   *
+   * @return list of transaction history.
+   */
   @Override
   public List<String> getTransactionHistory() {
-    return transaction;
+    return new PortfolioSnapshot(transaction, replay.lots());
   }
 
   @Override
@@ -207,46 +220,16 @@ public class FlexiblePortfolioModelImpl extends
   }
 
   private void formatDataToShares(List<String> sharesList) throws ParseException {
-    transaction = sharesList;
-    for (String transact : sharesList) {
-      String[] row = transact.split(",");
-      boolean flag = false;
-      for (Share existingShare : shares) {
-        if (existingShare.getTicker().equals(row[0]) &&
-                existingShare.getTimestamp().isEqual(parseDate(row[1]))
-        ) {
-          if (row[7].equals("BUY")) {
-            existingShare.setShareQuantity(existingShare
-                    .getShareQuantity() + Float.parseFloat(row[5]));
-            existingShare.setBuyValue(existingShare
-                    .getBuyValue() + Float.parseFloat(row[6]));
-          } else {
-            existingShare.setShareQuantity(existingShare
-                    .getShareQuantity() - Float.parseFloat(row[5]));
-          }
-          flag = true;
-        } else if (existingShare.getTicker().equals(row[0]) &&
-                existingShare.getTimestamp().isBefore(parseDate(row[1])) &&
-                row[7].equals("SELL")
-        ) {
-          existingShare.setShareQuantity(existingShare
-                  .getShareQuantity() - Float.parseFloat(row[5]));
-          flag = true;
-        }
-      }
-      if (!flag) {
-        Share shareObj = new Share().
-                setTicker(row[0]).
-                setTimestamp(parseDate(row[1])).
-                setOpen(Float.parseFloat(row[2])).
-                setClose(Float.parseFloat(row[3])).
-                setVolume(Long.parseLong(row[4])).
-                setShareQuantity(Float.parseFloat(row[5])).
-                setBuyValue(Float.parseFloat(row[6]));
-        shares.add(shareObj);
+    if (sharesList instanceof PortfolioSnapshot) {
+      transaction = new ArrayList<>(sharesList);
+      replay = new ShareReplay(((PortfolioSnapshot) sharesList).copyShares());
+    } else {
+      transaction = sharesList;
+      replay = new ShareReplay();
+      for (String transact : sharesList) {
+        replay.apply(transact);
       }
     }
-    shares.removeIf(share -> share.getShareQuantity() == 0);
+    shares.addAll(replay.copyHeld());
   }
 }
-
@@ -56,50 +56,62 @@ public interface ManagementModel extends PortfolioManagementModel {
   float getTotalInvestment(LocalDate date) throws ParseException;
 
   /**
-   * Calculates the daily stock price change on the specified date and the name of the stock of
-   * which the change is to be viewed for.
+   * Calculates the daily stock price change on the specified date from the price history of the
+   * stock.
    *
-   * @param shareData shares data to view the analysis of.
+   * @param series price history of the stock.
+   * @param date   date on which the change is to be viewed.
    * @return price changed value.
    */
-  float stockAnalysisDay(Map<String, String> shareData);
+  float stockAnalysisDay(PriceSeries series, LocalDate date);
 
   /**
-   * Calculates the stock price changed over a period of time of the particular stock whether
-   * its has gained it value or lost the same.
+   * Calculates the stock price changed over a period of time from the price history of the
+   * stock.
    *
-   * @param shareData shares data to view the analysis of.
+   * @param series    price history of the stock.
+   * @param startDate start date of the period.
+   * @param endDate   end date of the period.
    * @return price changed value over the specified period.
    */
-  float stockAnalysisPeriod(Map<String, String> shareData);
+  float stockAnalysisPeriod(PriceSeries series, LocalDate startDate, LocalDate endDate);
 
   /**
    * Calculates the X day moving average of the particular stock on the particular date.
    *
-   * @param shareData shares data to view the analysis of.
+   * @param series price history of the stock.
+   * @param date   date on which the moving average is calculated.
+   * @param days   number of days in the moving average.
    * @return x day moving average on the given date.
    */
-  float xDayMovingAverage(List<Map<String, String>> shareData);
+  float xDayMovingAverage(PriceSeries series, LocalDate date, int days);
 
   /**
    * Calculates the crossover of a particular stock over a period of time to view if the
    * dates in the given period are of positive crossover or negative crossover.
    *
-   * @param shareData shares data to view the analysis of.
+   * @param series    price history of the stock.
+   * @param startDate start date of the period.
+   * @param endDate   end date of the period.
    * @return crossover dates whether positives or negatives.
    * @throws IllegalArgumentException if any error occurs.
    */
-  Map<String, List<String>> crossOvers(List<Map<String, String>> shareData)
-          throws IllegalArgumentException;
+  Map<String, List<String>> crossOvers(PriceSeries series, LocalDate startDate,
+                                       LocalDate endDate) throws IllegalArgumentException;
 
   /**
    * Calculates the moving crossover of a particular stock over a period of time to view if the
    * dates in the given period are of positive moving crossover or negative moving crossover.
    *
-   * @param shareData shares data to view the analysis of.
+   * @param series    price history of the stock.
+   * @param startDate start date of the period.
+   * @param endDate   end date of the period.
+   * @param xDay      number of days of the shorter moving average.
+   * @param yDay      number of days of the longer moving average.
    * @return moving crossover dates whether positives or negatives.
    */
-  Map<String, List<String>> movingCrossovers(List<Map<String, String>> shareData);
+  Map<String, List<String>> movingCrossovers(PriceSeries series, LocalDate startDate,
+                                             LocalDate endDate, int xDay, int yDay);
 
   /**
    * The method calculates the values of flexible portfolio for a given time range inorder to
@@ -144,20 +156,17 @@ public interface ManagementModel extends PortfolioManagementModel {
 
   /**
    * The method calculates the values of a particular stock for a given time range
-   * inorder to plot it. It also calculates the scale and
-   * type of period that needs to be plotted on the y-axis (day, year, month).
+   * inorder to plot it from the price history of the stock.
    *
    * @param startDate The start date from where the stock values need to be calculated.
    * @param endDate   The end date upto which the stock values need to be calculated.
-   * @param values    map of date and its respective values on that date for the stock.
+   * @param series    price history of the stock.
    * @return A pair of hashmap of date and its respective values to be displayed.
-   * @throws ParseException If the dates passed isn't parsed properly.
    */
   AbstractMap.SimpleEntry<Map<LocalDate, String>,
           Integer> getPerformanceOfStock(LocalDate startDate,
                                          LocalDate endDate,
-                                         List<Map<String, String>> values) throws ParseException;
-
+                                         PriceSeries series);
 
   /**
    * The method returns the total composition of the flexible portfolio.
@@ -123,23 +123,12 @@ public class ManagementModelImpl extends
     return portfolio.getPerformanceOfPortfolio(startDate, endDate, values);
   }
 
-  /**
-   * The method calculates the values of a particular stock for a given time range
-   * inorder to plot it. It also calculates the scale and
-   * type of period that needs to be plotted on the y-axis (day, year, month).
-   *
-   * @param startDate The start date from where the stock values need to be calculated.
-   * @param endDate   The end date upto which the stock values need to be calculated.
-   * @param values    map of date and its respective values on that date for the stock.
-   * @return A pair of hashmap of date and its respective values to be displayed.
-   * @throws ParseException If the dates passed isn't parsed properly.
-   */
+  @Override
   public AbstractMap.SimpleEntry<Map<LocalDate,
           String>, Integer> getPerformanceOfStock(LocalDate startDate,
                                                   LocalDate endDate,
-                                                  List<Map<String, String>> values)
-          throws ParseException {
-    return statistics.getPerformanceOfStock(startDate, endDate, values);
+                                                  PriceSeries series) {
+    return statistics.getPerformanceOfStock(startDate, endDate, series);
   }
 
   /**
@@ -202,29 +191,31 @@ public class ManagementModelImpl extends
 
 
   @Override
-  public float stockAnalysisDay(Map<String, String> shareData) {
-    return statistics.stockTrendForDay(shareData);
+  public float stockAnalysisDay(PriceSeries series, LocalDate date) {
+    return statistics.stockTrendForDay(series, date);
   }
 
   @Override
-  public float stockAnalysisPeriod(Map<String, String> shareData) {
-    return statistics.stockTrendForPeriod(shareData);
+  public float stockAnalysisPeriod(PriceSeries series, LocalDate startDate, LocalDate endDate) {
+    return statistics.stockTrendForPeriod(series, startDate, endDate);
   }
 
   @Override
-  public float xDayMovingAverage(List<Map<String, String>> shareData) {
-    return statistics.xDayMovingAverage(shareData);
+  public float xDayMovingAverage(PriceSeries series, LocalDate date, int days) {
+    return statistics.xDayMovingAverage(series, date, days);
   }
 
   @Override
-  public Map<String, List<String>> crossOvers(List<Map<String, String>> shareData)
+  public Map<String, List<String>> crossOvers(PriceSeries series, LocalDate startDate,
+                                              LocalDate endDate)
           throws IllegalArgumentException {
-    return statistics.crossOvers(shareData);
+    return statistics.crossOvers(series, startDate, endDate);
   }
 
   @Override
-  public Map<String, List<String>> movingCrossovers(List<Map<String, String>> shareData) {
-    return statistics.movingCrossovers(shareData);
+  public Map<String, List<String>> movingCrossovers(PriceSeries series, LocalDate startDate,
+                                                    LocalDate endDate, int xDay, int yDay) {
+    return statistics.movingCrossovers(series, startDate, endDate, xDay, yDay);
   }
 
   @Override
@@ -1,7 +1,7 @@
 package model;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
@@ -13,8 +13,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
 
-import static java.time.ZoneId.systemDefault;
-
 
 /**
  * The class implements PortfolioModel interface
@@ -77,15 +75,23 @@ public class PortfolioModelImpl implements PortfolioModel {
    */
   // Changed from private to protected and static
   protected static LocalDate parseDate(String date) throws ParseException {
-    LocalDate formattedDate;
+    return LocalDate.ofEpochDay(parseEpochDay(date));
+  }
+
+  /**
+   * The method converts the String date to the number of days since 1970-01-01, so that dates
+   * can be compared as integers.
+   *
+   * @param date The String date given in "yyyy-MM-dd" format.
+   * @return epoch day of the date.
+   * @throws ParseException if the date provided is not valid.
+   */
+  protected static int parseEpochDay(String date) throws ParseException {
     try {
-      SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-      dateFormat.setLenient(false);
-      formattedDate = dateFormat.parse(date).toInstant().atZone(systemDefault()).toLocalDate();
-    } catch (ParseException e) {
+      return DateCodec.toEpochDay(date);
+    } catch (DateTimeException e) {
       throw new ParseException("Provide a valid date", 1);
     }
-    return formattedDate;
   }
 
   /**
@@ -0,0 +1,182 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The class is the transaction history of a flexible portfolio together with the lots that the
+ * replay of those transactions produces, the way the portfolio is built from its csv file. It is
+ * read as the list of transactions, and it is encoded in a versioned binary layout, so a saved
+ * portfolio is loaded without validating its rows and without replaying every transaction into
+ * its shares, and it holds the same shares as when it is loaded from the csv file. The lots sold
+ * down to zero are kept, because the next transactions of their ticker are still applied to
+ * them. The layout is a header (magic, version, checksum of the rest), a table of the tickers,
+ * the lots with their ticker as an index into the table, and the transactions as they are saved
+ * in the csv file.
+ */
+public final class PortfolioSnapshot extends AbstractList<String> {
+
+  private static final int MAGIC = 0x50534e50;
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 12;
+  private static final int SHARE_SIZE = 32;
+
+  private final List<String> transactions;
+  private final List<Share> shares;
+
+  PortfolioSnapshot(List<String> transactions, List<Share> shares) {
+    this.transactions = transactions;
+    this.shares = shares;
+  }
+
+  /**
+   * The method replays the transactions into their lots and returns them as a snapshot.
+   *
+   * @param transactions transactions as they are saved in the csv file.
+   * @return the snapshot of the transactions.
+   * @throws ParseException if the date of a transaction is not valid.
+   */
+  public static PortfolioSnapshot replay(List<String> transactions) throws ParseException {
+    ShareReplay replay = new ShareReplay();
+    for (String transaction : transactions) {
+      replay.apply(transaction);
+    }
+    return new PortfolioSnapshot(new ArrayList<>(transactions), replay.lots());
+  }
+
+  @Override
+  public String get(int index) {
+    return transactions.get(index);
+  }
+
+  @Override
+  public int size() {
+    return transactions.size();
+  }
+
+  /**
+   * The method returns a copy of the lots of the replay, including the ones sold down to zero,
+   * which can be changed without changing the snapshot.
+   *
+   * @return lots of the portfolio.
+   */
+  List<Share> copyShares() {
+    List<Share> copy = new ArrayList<>(shares.size());
+    for (Share share : shares) {
+      copy.add(ShareReplay.copy(share));
+    }
+    return copy;
+  }
+
+  /**
+   * The method encodes the snapshot in the binary layout.
+   *
+   * @return buffer of the snapshot, positioned at 0.
+   */
+  public ByteBuffer encode() {
+    Map<String, Integer> tickers = new HashMap<>();
+    List<byte[]> tickerBytes = new ArrayList<>();
+    int size = HEADER_SIZE + 8 + shares.size() * SHARE_SIZE;
+    for (Share share : shares) {
+      if (!tickers.containsKey(share.getTicker())) {
+        byte[] bytes = share.getTicker().getBytes(StandardCharsets.UTF_8);
+        tickers.put(share.getTicker(), tickers.size());
+        tickerBytes.add(bytes);
+        size += 4 + bytes.length;
+      }
+    }
+    List<byte[]> transactionBytes = new ArrayList<>(transactions.size());
+    size += 4;
+    for (String transaction : transactions) {
+      byte[] bytes = transaction.getBytes(StandardCharsets.UTF_8);
+      transactionBytes.add(bytes);
+      size += 4 + bytes.length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(0);
+    buffer.putInt(tickerBytes.size());
+    for (byte[] bytes : tickerBytes) {
+      buffer.putInt(bytes.length).put(bytes);
+    }
+    buffer.putInt(shares.size());
+    for (Share share : shares) {
+      buffer.putInt(tickers.get(share.getTicker()))
+              .putInt((int) share.getTimestamp().toEpochDay())
+              .putFloat(share.getOpen())
+              .putFloat(share.getClose())
+              .putLong(share.getVolume())
+              .putFloat(share.getShareQuantity())
+              .putFloat(share.getBuyValue());
+    }
+    buffer.putInt(transactionBytes.size());
+    for (byte[] bytes : transactionBytes) {
+      buffer.putInt(bytes.length).put(bytes);
+    }
+    buffer.putInt(8, checksum(buffer, HEADER_SIZE, size));
+    buffer.position(0);
+    return buffer;
+  }
+
+  /**
+   * The method decodes a snapshot from the binary layout.
+   *
+   * @param buffer buffer of the snapshot from its current position to its limit.
+   * @return the snapshot.
+   * @throws IllegalArgumentException if the buffer is not a snapshot of this version or its
+   *                                  checksum doesn't match.
+   */
+  public static PortfolioSnapshot decode(ByteBuffer buffer) throws IllegalArgumentException {
+    ByteBuffer in = buffer.slice();
+    if (in.remaining() < HEADER_SIZE || in.getInt(0) != MAGIC || in.getInt(4) != VERSION
+            || in.getInt(8) != checksum(in, HEADER_SIZE, in.limit())) {
+      throw new IllegalArgumentException("The snapshot of the portfolio is not valid.");
+    }
+    try {
+      in.position(HEADER_SIZE);
+      String[] tickers = new String[in.getInt()];
+      for (int i = 0; i < tickers.length; i++) {
+        tickers[i] = string(in);
+      }
+      int count = in.getInt();
+      List<Share> shares = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        shares.add(new Share().
+                setTicker(tickers[in.getInt()]).
+                setTimestamp(LocalDate.ofEpochDay(in.getInt())).
+                setOpen(in.getFloat()).
+                setClose(in.getFloat()).
+                setVolume(in.getLong()).
+                setShareQuantity(in.getFloat()).
+                setBuyValue(in.getFloat()));
+      }
+      count = in.getInt();
+      List<String> transactions = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        transactions.add(string(in));
+      }
+      return new PortfolioSnapshot(transactions, shares);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("The snapshot of the portfolio is not valid.");
+    }
+  }
+
+  private static String string(ByteBuffer in) {
+    byte[] bytes = new byte[in.getInt()];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static int checksum(ByteBuffer buffer, int from, int to) {
+    CRC32 crc = new CRC32();
+    crc.update(buffer.duplicate().limit(to).position(from));
+    return (int) crc.getValue();
+  }
+}
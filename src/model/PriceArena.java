@@ -0,0 +1,352 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class stores the daily price histories of many tickers outside the heap, in direct byte
+ * buffers allocated in large chunks. Each ticker gets an id and a segment of a chunk in which its
+ * columns are laid out one after the other: the volumes, the epoch days and the open, high, low
+ * and close prices. A directory of primitive arrays maps the id to the chunk, offset and number
+ * of rows of its segment. The prices are read as primitives by id and row, so reading doesn't
+ * create objects, and the heap only holds the directory whatever the number of tickers, which
+ * keeps the garbage collector from scanning or copying the prices. A ticker that is put again
+ * gets a new segment, and the old one is counted as wasted until the arena is dropped. The
+ * arena can be read by many threads while one thread puts tickers into it.
+ */
+public final class PriceArena {
+
+  /**
+   * Default size of a chunk in bytes.
+   */
+  public static final int DEFAULT_CHUNK_BYTES = 64 << 20;
+
+  private static final int ROW_BYTES = 8 + 4 + 4 * 4;
+  private static final int ALIGNMENT = 8;
+
+  private final int chunkBytes;
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+  private volatile Directory directory = new Directory(16);
+  private ByteBuffer current;
+  private long allocatedBytes;
+  private long usedBytes;
+  private long wastedBytes;
+
+  private static final class Directory {
+    private final String[] tickers;
+    private final ByteBuffer[] buffers;
+    private final int[] offsets;
+    private final int[] rows;
+    private final int count;
+
+    private Directory(int capacity) {
+      this(new String[capacity], new ByteBuffer[capacity], new int[capacity], new int[capacity],
+              0);
+    }
+
+    private Directory(String[] tickers, ByteBuffer[] buffers, int[] offsets, int[] rows,
+                      int count) {
+      this.tickers = tickers;
+      this.buffers = buffers;
+      this.offsets = offsets;
+      this.rows = rows;
+      this.count = count;
+    }
+
+    private Directory copy(int capacity) {
+      return new Directory(Arrays.copyOf(tickers, capacity), Arrays.copyOf(buffers, capacity),
+              Arrays.copyOf(offsets, capacity), Arrays.copyOf(rows, capacity), count);
+    }
+  }
+
+  /**
+   * Constructs an empty arena with chunks of {@value #DEFAULT_CHUNK_BYTES} bytes.
+   */
+  public PriceArena() {
+    this(DEFAULT_CHUNK_BYTES);
+  }
+
+  /**
+   * Constructs an empty arena with chunks of the given size. A ticker larger than a chunk gets a
+   * chunk of its own.
+   *
+   * @param chunkBytes size of a chunk in bytes.
+   * @throws IllegalArgumentException if the size is smaller than a single row.
+   */
+  public PriceArena(int chunkBytes) throws IllegalArgumentException {
+    if (chunkBytes < ROW_BYTES) {
+      throw new IllegalArgumentException("Chunk size should be at least " + ROW_BYTES
+              + " bytes.");
+    }
+    this.chunkBytes = chunkBytes;
+  }
+
+  /**
+   * Copies the price series into the arena, replacing the previous series of its ticker.
+   *
+   * @param series price series of a ticker.
+   * @return id of the ticker.
+   * @throws IllegalArgumentException if the series is too large for a single buffer.
+   */
+  public synchronized int put(PriceSeries series) throws IllegalArgumentException {
+    int size = series.size();
+    long bytes = (long) size * ROW_BYTES;
+    if (bytes > Integer.MAX_VALUE - ALIGNMENT) {
+      throw new IllegalArgumentException("Price series of " + series.getTicker()
+              + " is too large.");
+    }
+    ByteBuffer buffer = reserve((int) bytes);
+    int offset = buffer.position();
+    int days = offset + size * 8;
+    for (int i = 0; i < size; i++) {
+      buffer.putLong(offset + i * 8, series.getVolume(i));
+      buffer.putInt(days + i * 4, series.getEpochDay(i));
+      buffer.putFloat(days + (size + i) * 4, series.getOpen(i));
+      buffer.putFloat(days + (2 * size + i) * 4, series.getHigh(i));
+      buffer.putFloat(days + (3 * size + i) * 4, series.getLow(i));
+      buffer.putFloat(days + (4 * size + i) * 4, series.getClose(i));
+    }
+    buffer.position(align(offset + (int) bytes, buffer.capacity()));
+    usedBytes += bytes;
+
+    String ticker = series.getTicker().toUpperCase();
+    Integer existing = ids.get(ticker);
+    Directory published = directory;
+    if (existing != null) {
+      wastedBytes += (long) published.rows[existing] * ROW_BYTES;
+      usedBytes -= (long) published.rows[existing] * ROW_BYTES;
+      Directory replaced = published.copy(published.tickers.length);
+      replaced.buffers[existing] = buffer;
+      replaced.offsets[existing] = offset;
+      replaced.rows[existing] = size;
+      directory = replaced;
+      return existing;
+    }
+    Directory grown = published.count < published.tickers.length ? published
+            : published.copy(published.tickers.length * 2);
+    int id = published.count;
+    grown.tickers[id] = ticker;
+    grown.buffers[id] = buffer;
+    grown.offsets[id] = offset;
+    grown.rows[id] = size;
+    directory = new Directory(grown.tickers, grown.buffers, grown.offsets, grown.rows, id + 1);
+    ids.put(ticker, id);
+    return id;
+  }
+
+  private ByteBuffer reserve(int bytes) {
+    if (current == null || current.capacity() - current.position() < bytes) {
+      int capacity = Math.max(chunkBytes, bytes);
+      current = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+      chunks.add(current);
+      allocatedBytes += capacity;
+    }
+    return current;
+  }
+
+  private static int align(int position, int capacity) {
+    return Math.min(capacity, (position + ALIGNMENT - 1) & -ALIGNMENT);
+  }
+
+  /**
+   * The method returns the id of the given ticker.
+   *
+   * @param ticker ticker symbol of the share.
+   * @return id of the ticker, -1 if it isn't in the arena.
+   */
+  public int id(String ticker) {
+    Integer id = ids.get(ticker.toUpperCase());
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * The method returns the ticker of the given id.
+   *
+   * @param id id of the ticker.
+   * @return ticker symbol of the share.
+   */
+  public String ticker(int id) {
+    Directory current = directory;
+    return current.tickers[Objects.checkIndex(id, current.count)];
+  }
+
+  /**
+   * The method returns the number of tickers in the arena. The ids are the numbers below it.
+   *
+   * @return number of tickers.
+   */
+  public int size() {
+    return directory.count;
+  }
+
+  /**
+   * The method returns the number of trading days of the ticker.
+   *
+   * @param id id of the ticker.
+   * @return number of rows.
+   */
+  public int rows(int id) {
+    Directory current = directory;
+    return current.rows[Objects.checkIndex(id, current.count)];
+  }
+
+  /**
+   * The method returns the trading day at the given row of the ticker as an epoch day.
+   *
+   * @param id  id of the ticker.
+   * @param row row of the ticker.
+   * @return epoch day of the row.
+   */
+  public int getEpochDay(int id, int row) {
+    Directory current = directory;
+    return current.buffers[id].getInt(column(current, id, row, 0));
+  }
+
+  /**
+   * The method returns the opening price at the given row of the ticker.
+   *
+   * @param id  id of the ticker.
+   * @param row row of the ticker.
+   * @return opening price.
+   */
+  public float getOpen(int id, int row) {
+    Directory current = directory;
+    return current.buffers[id].getFloat(column(current, id, row, 1));
+  }
+
+  /**
+   * The method returns the highest price at the given row of the ticker.
+   *
+   * @param id  id of the ticker.
+   * @param row row of the ticker.
+   * @return highest price.
+   */
+  public float getHigh(int id, int row) {
+    Directory current = directory;
+    return current.buffers[id].getFloat(column(current, id, row, 2));
+  }
+
+  /**
+   * The method returns the lowest price at the given row of the ticker.
+   *
+   * @param id  id of the ticker.
+   * @param row row of the ticker.
+   * @return lowest price.
+   */
+  public float getLow(int id, int row) {
+    Directory current = directory;
+    return current.buffers[id].getFloat(column(current, id, row, 3));
+  }
+
+  /**
+   * The method returns the closing price at the given row of the ticker.
+   *
+   * @param id  id of the ticker.
+   * @param row row of the ticker.
+   * @return closing price.
+   */
+  public float getClose(int id, int row) {
+    Directory current = directory;
+    return current.buffers[id].getFloat(column(current, id, row, 4));
+  }
+
+  /**
+   * The method returns the volume at the given row of the ticker.
+   *
+   * @param id  id of the ticker.
+   * @param row row of the ticker.
+   * @return volume of the row.
+   */
+  public long getVolume(int id, int row) {
+    Directory current = directory;
+    int rows = current.rows[Objects.checkIndex(id, current.count)];
+    return current.buffers[id].getLong(current.offsets[id] + Objects.checkIndex(row, rows) * 8);
+  }
+
+  /**
+   * Finds the row of the last trading day of the ticker on or before the given epoch day with a
+   * binary search over its days.
+   *
+   * @param id       id of the ticker.
+   * @param epochDay epoch day to be searched.
+   * @return row of the day, -1 if the ticker starts after the day.
+   */
+  public int indexOnOrBefore(int id, int epochDay) {
+    Directory current = directory;
+    int rows = current.rows[Objects.checkIndex(id, current.count)];
+    ByteBuffer buffer = current.buffers[id];
+    int days = current.offsets[id] + rows * 8;
+    int low = 0;
+    int high = rows - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int day = buffer.getInt(days + mid * 4);
+      if (day < epochDay) {
+        low = mid + 1;
+      } else if (day > epochDay) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return low - 1;
+  }
+
+  /**
+   * The method returns the closing price of the ticker on the last trading day on or before the
+   * given epoch day.
+   *
+   * @param id       id of the ticker.
+   * @param epochDay epoch day of the price.
+   * @return closing price, NaN if the ticker starts after the day.
+   */
+  public float getCloseOnOrBefore(int id, int epochDay) {
+    int row = indexOnOrBefore(id, epochDay);
+    return row == -1 ? Float.NaN : getClose(id, row);
+  }
+
+  private static int column(Directory current, int id, int row, int column) {
+    int rows = current.rows[Objects.checkIndex(id, current.count)];
+    return current.offsets[id] + rows * 8 + (column * rows + Objects.checkIndex(row, rows)) * 4;
+  }
+
+  /**
+   * The method returns the bytes allocated outside the heap.
+   *
+   * @return capacity of every chunk in bytes.
+   */
+  public synchronized long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * The method returns the bytes taken by the current series of the tickers.
+   *
+   * @return used bytes.
+   */
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /**
+   * The method returns the bytes taken by series that were replaced.
+   *
+   * @return wasted bytes.
+   */
+  public synchronized long getWastedBytes() {
+    return wastedBytes;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("tickers=%d chunks=%d allocatedBytes=%d usedBytes=%d wastedBytes=%d",
+            directory.count, chunks.size(), allocatedBytes, usedBytes, wastedBytes);
+  }
+}
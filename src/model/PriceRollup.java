@@ -0,0 +1,271 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+
+/**
+ * The class aggregates the daily prices of a series into one bar per week, month, quarter or
+ * year with the open of the first trading day, the highest high, the lowest low, the close of
+ * the last trading day and the total volume of the period. A chart over several years reads a
+ * few hundred bars instead of resampling the daily rows on every request. The rollup is
+ * immutable like the series, and when trading days are appended to the series only the bars
+ * from the period of the first new day onwards are aggregated again.
+ */
+public final class PriceRollup {
+
+  /**
+   * The periods a series can be rolled up by.
+   */
+  public enum Period {
+    WEEK, MONTH, QUARTER, YEAR;
+
+    /**
+     * The method returns the first day of the period that contains the given date.
+     *
+     * @param date the date.
+     * @return first day of the period.
+     */
+    public LocalDate startOf(LocalDate date) {
+      switch (this) {
+        case WEEK:
+          return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        case MONTH:
+          return date.withDayOfMonth(1);
+        case QUARTER:
+          return LocalDate.of(date.getYear(), (date.getMonthValue() - 1) / 3 * 3 + 1, 1);
+        default:
+          return date.withDayOfYear(1);
+      }
+    }
+
+    /**
+     * The method returns the first day of the period after the one starting on the given date.
+     *
+     * @param start first day of a period.
+     * @return first day of the next period.
+     */
+    public LocalDate next(LocalDate start) {
+      switch (this) {
+        case WEEK:
+          return start.plusWeeks(1);
+        case MONTH:
+          return start.plusMonths(1);
+        case QUARTER:
+          return start.plusMonths(3);
+        default:
+          return start.plusYears(1);
+      }
+    }
+  }
+
+  private final Period period;
+  private final int[] starts;
+  private final int[] lastDays;
+  private final float[] open;
+  private final float[] high;
+  private final float[] low;
+  private final float[] close;
+  private final long[] volume;
+
+  private PriceRollup(Period period, int[] starts, int[] lastDays, float[] open, float[] high,
+                      float[] low, float[] close, long[] volume) {
+    this.period = period;
+    this.starts = starts;
+    this.lastDays = lastDays;
+    this.open = open;
+    this.high = high;
+    this.low = low;
+    this.close = close;
+    this.volume = volume;
+  }
+
+  /**
+   * The method aggregates the whole series by the given period.
+   *
+   * @param series daily prices of the share.
+   * @param period period of a bar.
+   * @return rollup of the series.
+   */
+  public static PriceRollup of(PriceSeries series, Period period) {
+    return aggregate(period, series, 0, new PriceRollup(period, new int[0], new int[0],
+            new float[0], new float[0], new float[0], new float[0], new long[0]), 0);
+  }
+
+  /**
+   * The method aggregates the rows of the series from the given row onwards and keeps the bars
+   * of the earlier periods. The rows before the given row have to be the rows this rollup was
+   * aggregated from.
+   *
+   * @param series   daily prices of the share.
+   * @param firstNew first row of the series that is new or changed.
+   * @return rollup of the series.
+   */
+  PriceRollup update(PriceSeries series, int firstNew) {
+    if (firstNew >= series.size()) {
+      return this;
+    }
+    LocalDate start = period.startOf(series.getDate(firstNew));
+    int bars = Arrays.binarySearch(starts, (int) start.toEpochDay());
+    bars = bars < 0 ? -bars - 1 : bars;
+    return aggregate(period, series, series.indexOnOrAfter(start), this, bars);
+  }
+
+  private static PriceRollup aggregate(Period period, PriceSeries series, int fromRow,
+                                       PriceRollup prefix, int keptBars) {
+    int capacity = keptBars + 16;
+    int[] starts = Arrays.copyOf(prefix.starts, capacity);
+    int[] lastDays = Arrays.copyOf(prefix.lastDays, capacity);
+    float[] open = Arrays.copyOf(prefix.open, capacity);
+    float[] high = Arrays.copyOf(prefix.high, capacity);
+    float[] low = Arrays.copyOf(prefix.low, capacity);
+    float[] close = Arrays.copyOf(prefix.close, capacity);
+    long[] volume = Arrays.copyOf(prefix.volume, capacity);
+    int bars = keptBars;
+    int end = Integer.MIN_VALUE;
+    for (int i = fromRow; i < series.size(); i++) {
+      int day = series.getEpochDay(i);
+      if (day >= end) {
+        if (bars == starts.length) {
+          capacity = bars * 2;
+          starts = Arrays.copyOf(starts, capacity);
+          lastDays = Arrays.copyOf(lastDays, capacity);
+          open = Arrays.copyOf(open, capacity);
+          high = Arrays.copyOf(high, capacity);
+          low = Arrays.copyOf(low, capacity);
+          close = Arrays.copyOf(close, capacity);
+          volume = Arrays.copyOf(volume, capacity);
+        }
+        LocalDate start = period.startOf(series.getDate(i));
+        end = (int) period.next(start).toEpochDay();
+        starts[bars] = (int) start.toEpochDay();
+        open[bars] = series.getOpen(i);
+        high[bars] = series.getHigh(i);
+        low[bars] = series.getLow(i);
+        volume[bars] = 0;
+        bars++;
+      }
+      int bar = bars - 1;
+      lastDays[bar] = day;
+      high[bar] = Math.max(high[bar], series.getHigh(i));
+      low[bar] = Math.min(low[bar], series.getLow(i));
+      close[bar] = series.getClose(i);
+      volume[bar] += series.getVolume(i);
+    }
+    return new PriceRollup(period, Arrays.copyOf(starts, bars), Arrays.copyOf(lastDays, bars),
+            Arrays.copyOf(open, bars), Arrays.copyOf(high, bars), Arrays.copyOf(low, bars),
+            Arrays.copyOf(close, bars), Arrays.copyOf(volume, bars));
+  }
+
+  /**
+   * The method returns the period of a bar.
+   *
+   * @return period of the rollup.
+   */
+  public Period getPeriod() {
+    return period;
+  }
+
+  /**
+   * The method returns the number of bars, one for every period with a trading day.
+   *
+   * @return number of bars.
+   */
+  public int size() {
+    return starts.length;
+  }
+
+  /**
+   * The method estimates the number of bytes the bars hold on the heap, including the object
+   * headers of the arrays.
+   *
+   * @return estimated heap size in bytes.
+   */
+  public long estimatedHeapBytes() {
+    long bars = starts.length;
+    return 48 + 7 * 16 + bars * (4 + 4 + 4 * 4 + 8);
+  }
+
+  /**
+   * The method returns the first day of the period of the bar.
+   *
+   * @param index bar of the rollup.
+   * @return start of the period.
+   */
+  public LocalDate getStartDate(int index) {
+    return LocalDate.ofEpochDay(starts[index]);
+  }
+
+  /**
+   * The method returns the last trading day of the bar.
+   *
+   * @param index bar of the rollup.
+   * @return last trading day of the period.
+   */
+  public LocalDate getLastDate(int index) {
+    return LocalDate.ofEpochDay(lastDays[index]);
+  }
+
+  /**
+   * The method returns the opening price of the first trading day of the bar.
+   *
+   * @param index bar of the rollup.
+   * @return opening price.
+   */
+  public float getOpen(int index) {
+    return open[index];
+  }
+
+  /**
+   * The method returns the highest price of the bar.
+   *
+   * @param index bar of the rollup.
+   * @return highest price.
+   */
+  public float getHigh(int index) {
+    return high[index];
+  }
+
+  /**
+   * The method returns the lowest price of the bar.
+   *
+   * @param index bar of the rollup.
+   * @return lowest price.
+   */
+  public float getLow(int index) {
+    return low[index];
+  }
+
+  /**
+   * The method returns the closing price of the last trading day of the bar.
+   *
+   * @param index bar of the rollup.
+   * @return closing price.
+   */
+  public float getClose(int index) {
+    return close[index];
+  }
+
+  /**
+   * The method returns the volume traded in the period of the bar.
+   *
+   * @param index bar of the rollup.
+   * @return total volume.
+   */
+  public long getVolume(int index) {
+    return volume[index];
+  }
+
+  /**
+   * The method returns the bar of the last period that starts on or before the given date,
+   * whose close is the price of the share as of the end of the period of the date.
+   *
+   * @param date date to be searched.
+   * @return bar of the date, -1 if the rollup starts after the date.
+   */
+  public int indexOnOrBefore(LocalDate date) {
+    int index = Arrays.binarySearch(starts, (int) date.toEpochDay());
+    return index < 0 ? -index - 2 : index;
+  }
+}
@@ -0,0 +1,399 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class stores the daily price history of a single ticker in a columnar form. Each column
+ * is a primitive array indexed by the trading day, the days are kept in ascending order and are
+ * stored as epoch days. The series is immutable once it is built and is created only through its
+ * builder so that the loader parses the prices once and every other class reads the primitives
+ * directly instead of parsing the strings again.
+ */
+public final class PriceSeries {
+
+  private final String ticker;
+  private final int[] epochDays;
+  private final float[] open;
+  private final float[] high;
+  private final float[] low;
+  private final float[] close;
+  private final long[] volume;
+  private final PriceRollup[] rollups = new PriceRollup[PriceRollup.Period.values().length];
+
+  private PriceSeries(String ticker, int[] epochDays, float[] open, float[] high,
+                      float[] low, float[] close, long[] volume) {
+    this.ticker = ticker;
+    this.epochDays = epochDays;
+    this.open = open;
+    this.high = high;
+    this.low = low;
+    this.close = close;
+    this.volume = volume;
+  }
+
+  /**
+   * Creates a new builder for the series of the given ticker.
+   *
+   * @param ticker ticker symbol of the share.
+   * @return builder of the series.
+   */
+  public static Builder builder(String ticker) {
+    return new Builder(ticker);
+  }
+
+  /**
+   * The method returns the ticker of the series.
+   *
+   * @return ticker symbol of the share.
+   */
+  public String getTicker() {
+    return ticker;
+  }
+
+  /**
+   * The method returns the number of trading days stored in the series.
+   *
+   * @return number of rows.
+   */
+  public int size() {
+    return epochDays.length;
+  }
+
+  /**
+   * The method checks if the series has no trading days.
+   *
+   * @return true if the series is empty, else false.
+   */
+  public boolean isEmpty() {
+    return epochDays.length == 0;
+  }
+
+  /**
+   * The method returns the trading day at the given row as an epoch day.
+   *
+   * @param index row of the series.
+   * @return epoch day of the row.
+   */
+  public int getEpochDay(int index) {
+    return epochDays[index];
+  }
+
+  /**
+   * The method returns the trading day at the given row.
+   *
+   * @param index row of the series.
+   * @return date of the row.
+   */
+  public LocalDate getDate(int index) {
+    return LocalDate.ofEpochDay(epochDays[index]);
+  }
+
+  /**
+   * The method returns the opening price at the given row.
+   *
+   * @param index row of the series.
+   * @return opening price.
+   */
+  public float getOpen(int index) {
+    return open[index];
+  }
+
+  /**
+   * The method returns the highest price at the given row.
+   *
+   * @param index row of the series.
+   * @return highest price.
+   */
+  public float getHigh(int index) {
+    return high[index];
+  }
+
+  /**
+   * The method returns the lowest price at the given row.
+   *
+   * @param index row of the series.
+   * @return lowest price.
+   */
+  public float getLow(int index) {
+    return low[index];
+  }
+
+  /**
+   * The method returns the closing price at the given row.
+   *
+   * @param index row of the series.
+   * @return closing price.
+   */
+  public float getClose(int index) {
+    return close[index];
+  }
+
+  /**
+   * The method returns the volume traded at the given row.
+   *
+   * @param index row of the series.
+   * @return volume of the share.
+   */
+  public long getVolume(int index) {
+    return volume[index];
+  }
+
+  /**
+   * The method returns the row of the given trading day using a binary search over the sorted
+   * epoch days.
+   *
+   * @param date date to be searched.
+   * @return row of the date, -1 if the date is not a trading day in the series.
+   */
+  public int indexOf(LocalDate date) {
+    int index = Arrays.binarySearch(epochDays, (int) date.toEpochDay());
+    return index < 0 ? -1 : index;
+  }
+
+  /**
+   * The method returns the row of the last trading day on or before the given date, which is the
+   * price of the share as of that date.
+   *
+   * @param date date to be searched.
+   * @return row of the last trading day on or before the date, -1 if the series starts after the
+   *         date.
+   */
+  public int indexOnOrBefore(LocalDate date) {
+    int index = Arrays.binarySearch(epochDays, (int) date.toEpochDay());
+    return index < 0 ? -index - 2 : index;
+  }
+
+  /**
+   * The method returns the row of the first trading day on or after the given date.
+   *
+   * @param date date to be searched.
+   * @return row of the first trading day on or after the date, -1 if the series ends before the
+   *         date.
+   */
+  public int indexOnOrAfter(LocalDate date) {
+    int index = Arrays.binarySearch(epochDays, (int) date.toEpochDay());
+    if (index >= 0) {
+      return index;
+    }
+    return -index - 1 < epochDays.length ? -index - 1 : -1;
+  }
+
+  /**
+   * The method returns the bars of the series by the given period. The bars are aggregated on
+   * the first call and kept with the series from then on.
+   *
+   * @param period period of a bar.
+   * @return rollup of the series.
+   */
+  public PriceRollup rollup(PriceRollup.Period period) {
+    PriceRollup rollup = rollups[period.ordinal()];
+    if (rollup == null) {
+      rollup = PriceRollup.of(this, period);
+      rollups[period.ordinal()] = rollup;
+    }
+    return rollup;
+  }
+
+  /**
+   * The method returns the series with the trading days of the given series that are on or
+   * after the last day of this series appended. The last day is replaced if the given series has
+   * it too, since its price changes until the market closes. The bars that were already rolled
+   * up are carried over, and only the bars from the period of the first new day are aggregated
+   * again.
+   *
+   * @param recent latest trading days of the share.
+   * @return the appended series, or this series if there is nothing to append.
+   */
+  public PriceSeries append(PriceSeries recent) {
+    if (isEmpty()) {
+      return recent;
+    }
+    int last = epochDays[epochDays.length - 1];
+    int start = recent.indexOnOrAfter(LocalDate.ofEpochDay(last));
+    if (start == -1) {
+      return this;
+    }
+    int kept = recent.epochDays[start] == last ? epochDays.length - 1 : epochDays.length;
+    int size = kept + recent.size() - start;
+    PriceSeries appended = new PriceSeries(ticker, Arrays.copyOf(epochDays, size),
+            Arrays.copyOf(open, size), Arrays.copyOf(high, size), Arrays.copyOf(low, size),
+            Arrays.copyOf(close, size), Arrays.copyOf(volume, size));
+    System.arraycopy(recent.epochDays, start, appended.epochDays, kept, size - kept);
+    System.arraycopy(recent.open, start, appended.open, kept, size - kept);
+    System.arraycopy(recent.high, start, appended.high, kept, size - kept);
+    System.arraycopy(recent.low, start, appended.low, kept, size - kept);
+    System.arraycopy(recent.close, start, appended.close, kept, size - kept);
+    System.arraycopy(recent.volume, start, appended.volume, kept, size - kept);
+    for (int i = 0; i < rollups.length; i++) {
+      if (rollups[i] != null) {
+        appended.rollups[i] = rollups[i].update(appended, kept);
+      }
+    }
+    return appended;
+  }
+
+  /**
+   * The method converts a row of the series to the key-value map used by the portfolio models.
+   *
+   * @param index row of the series.
+   * @return map of ticker, timestamp, open, close and volume of the row.
+   */
+  public Map<String, String> toMap(int index) {
+    Map<String, String> map = new HashMap<>();
+    map.put("ticker", ticker);
+    map.put("timestamp", DateCodec.format(epochDays[index]));
+    map.put("open", String.valueOf(open[index]));
+    map.put("close", String.valueOf(close[index]));
+    map.put("volume", String.valueOf(volume[index]));
+    return map;
+  }
+
+  /**
+   * The method converts the whole series to a list of key-value maps with the latest trading day
+   * first, which is the order in which the data was previously read from the file.
+   *
+   * @return list of map of the share data.
+   */
+  public List<Map<String, String>> toMaps() {
+    List<Map<String, String>> result = new ArrayList<>(epochDays.length);
+    for (int i = epochDays.length - 1; i >= 0; i--) {
+      result.add(toMap(i));
+    }
+    return result;
+  }
+
+  /**
+   * The method estimates the number of bytes the series holds on the heap, including the object
+   * headers of the arrays and the bars that were rolled up from it so far.
+   *
+   * @return estimated heap size in bytes.
+   */
+  public long estimatedHeapBytes() {
+    long rows = epochDays.length;
+    long bytes = 40 + 5 * 16 + 6 * 16 + 16 + 8L * rollups.length + rows * (4 + 4 * 4 + 8);
+    for (PriceRollup rollup : rollups) {
+      if (rollup != null) {
+        bytes += rollup.estimatedHeapBytes();
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * The builder collects the rows of a series in either ascending or descending order of the
+   * date and produces the immutable series.
+   */
+  public static final class Builder {
+    private final String ticker;
+    private int[] epochDays;
+    private float[] open;
+    private float[] high;
+    private float[] low;
+    private float[] close;
+    private long[] volume;
+    private int size;
+
+    private Builder(String ticker) {
+      this.ticker = ticker;
+      this.epochDays = new int[256];
+      this.open = new float[256];
+      this.high = new float[256];
+      this.low = new float[256];
+      this.close = new float[256];
+      this.volume = new long[256];
+    }
+
+    /**
+     * Adds a trading day to the series.
+     *
+     * @param epochDay trading day as an epoch day.
+     * @param open     opening price.
+     * @param high     highest price.
+     * @param low      lowest price.
+     * @param close    closing price.
+     * @param volume   volume traded.
+     * @return the builder.
+     */
+    public Builder add(int epochDay, float open, float high, float low, float close,
+                       long volume) {
+      if (size == epochDays.length) {
+        int capacity = size * 2;
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        this.open = Arrays.copyOf(this.open, capacity);
+        this.high = Arrays.copyOf(this.high, capacity);
+        this.low = Arrays.copyOf(this.low, capacity);
+        this.close = Arrays.copyOf(this.close, capacity);
+        this.volume = Arrays.copyOf(this.volume, capacity);
+      }
+      epochDays[size] = epochDay;
+      this.open[size] = open;
+      this.high[size] = high;
+      this.low[size] = low;
+      this.close[size] = close;
+      this.volume[size] = volume;
+      size++;
+      return this;
+    }
+
+    /**
+     * Builds the series. Rows that were added with the latest date first are reversed and a day
+     * that was added more than once keeps only its last row.
+     *
+     * @return the immutable series.
+     * @throws IllegalStateException if the rows are not ordered by date.
+     */
+    public PriceSeries build() throws IllegalStateException {
+      if (size > 1 && epochDays[0] > epochDays[size - 1]) {
+        reverse();
+      }
+      int count = 0;
+      for (int i = 0; i < size; i++) {
+        if (count > 0 && epochDays[i] < epochDays[count - 1]) {
+          throw new IllegalStateException("Price data of " + ticker + " is not ordered by date");
+        }
+        if (count > 0 && epochDays[i] == epochDays[count - 1]) {
+          count--;
+        }
+        epochDays[count] = epochDays[i];
+        open[count] = open[i];
+        high[count] = high[i];
+        low[count] = low[i];
+        close[count] = close[i];
+        volume[count] = volume[i];
+        count++;
+      }
+      return new PriceSeries(ticker, Arrays.copyOf(epochDays, count),
+              Arrays.copyOf(open, count), Arrays.copyOf(high, count),
+              Arrays.copyOf(low, count), Arrays.copyOf(close, count),
+              Arrays.copyOf(volume, count));
+    }
+
+    private void reverse() {
+      for (int i = 0, j = size - 1; i < j; i++, j--) {
+        int day = epochDays[i];
+        epochDays[i] = epochDays[j];
+        epochDays[j] = day;
+        float value = open[i];
+        open[i] = open[j];
+        open[j] = value;
+        value = high[i];
+        high[i] = high[j];
+        high[j] = value;
+        value = low[i];
+        low[i] = low[j];
+        low[j] = value;
+        value = close[i];
+        close[i] = close[j];
+        close[j] = value;
+        long traded = volume[i];
+        volume[i] = volume[j];
+        volume[j] = traded;
+      }
+    }
+  }
+}
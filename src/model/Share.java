@@ -90,6 +90,15 @@ public class Share {
     return this;
   }
 
+  /**
+   * The method returns the share's opening value.
+   *
+   * @return open value of the share.
+   */
+  protected float getOpen() {
+    return this.open;
+  }
+
   /**
    * The method sets the share's closing value.
    *
@@ -101,6 +110,15 @@ public class Share {
     return this;
   }
 
+  /**
+   * The method returns the share's closing value.
+   *
+   * @return close value of the share.
+   */
+  protected float getClose() {
+    return this.close;
+  }
+
   /**
    * The method sets the share timestamp.
    *
@@ -0,0 +1,126 @@
+package model;
+
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class replays the transactions of a flexible portfolio into its shares, the way a
+ * portfolio loaded from its csv file is built. The lots are kept in the order they were bought
+ * and indexed by their ticker, and the lots that were sold down to zero are kept as well,
+ * because the next transactions of that ticker are still applied to them.
+ */
+final class ShareReplay {
+
+  private final List<Share> lots;
+  private final Map<String, List<Share>> byTicker = new HashMap<>();
+
+  /**
+   * The constructor creates a replay without any transaction.
+   */
+  ShareReplay() {
+    this(new ArrayList<>());
+  }
+
+  /**
+   * The constructor continues a replay from the lots it had produced.
+   *
+   * @param lots lots produced by the replay, including the ones sold down to zero.
+   */
+  ShareReplay(List<Share> lots) {
+    this.lots = lots;
+    for (Share lot : lots) {
+      byTicker.computeIfAbsent(lot.getTicker(), ticker -> new ArrayList<>()).add(lot);
+    }
+  }
+
+  /**
+   * The method applies a transaction, as it is saved in the csv file, to the lots. A BUY on the
+   * day of a lot adds to that lot, a SELL is taken from every lot of the ticker bought on or
+   * before its day, and any other transaction starts a new lot.
+   *
+   * @param transaction transaction as it is saved in the csv file.
+   * @throws ParseException if the date of the transaction is not valid.
+   */
+  void apply(String transaction) throws ParseException {
+    String[] row = transaction.split(",");
+    LocalDate timestamp = PortfolioModelImpl.parseDate(row[1]);
+    boolean flag = false;
+    List<Share> ticker = byTicker.computeIfAbsent(row[0], name -> new ArrayList<>());
+    for (Share existingShare : ticker) {
+      if (existingShare.getTimestamp().isEqual(timestamp)) {
+        if (row[7].equals("BUY")) {
+          existingShare.setShareQuantity(existingShare
+                  .getShareQuantity() + Float.parseFloat(row[5]));
+          existingShare.setBuyValue(existingShare
+                  .getBuyValue() + Float.parseFloat(row[6]));
+        } else {
+          existingShare.setShareQuantity(existingShare
+                  .getShareQuantity() - Float.parseFloat(row[5]));
+        }
+        flag = true;
+      } else if (existingShare.getTimestamp().isBefore(timestamp) && row[7].equals("SELL")) {
+        existingShare.setShareQuantity(existingShare
+                .getShareQuantity() - Float.parseFloat(row[5]));
+        flag = true;
+      }
+    }
+    if (!flag) {
+      Share shareObj = new Share().
+              setTicker(row[0]).
+              setTimestamp(timestamp).
+              setOpen(Float.parseFloat(row[2])).
+              setClose(Float.parseFloat(row[3])).
+              setVolume(Long.parseLong(row[4])).
+              setShareQuantity(Float.parseFloat(row[5])).
+              setBuyValue(Float.parseFloat(row[6]));
+      ticker.add(shareObj);
+      lots.add(shareObj);
+    }
+  }
+
+  /**
+   * The method returns the lots produced by the replay, including the ones sold down to zero.
+   *
+   * @return lots of the replay.
+   */
+  List<Share> lots() {
+    return lots;
+  }
+
+  /**
+   * The method returns a copy of the lots that are still held, which can be changed without
+   * changing the replay.
+   *
+   * @return shares held after the transactions.
+   */
+  List<Share> copyHeld() {
+    List<Share> held = new ArrayList<>(lots.size());
+    for (Share lot : lots) {
+      if (lot.getShareQuantity() != 0) {
+        held.add(copy(lot));
+      }
+    }
+    return held;
+  }
+
+  /**
+   * The method copies a share.
+   *
+   * @param share share to be copied.
+   * @return copy of the share.
+   */
+  static Share copy(Share share) {
+    return new Share().
+            setTicker(share.getTicker()).
+            setTimestamp(share.getTimestamp()).
+            setOpen(share.getOpen()).
+            setClose(share.getClose()).
+            setVolume(share.getVolume()).
+            setShareQuantity(share.getShareQuantity()).
+            setBuyValue(share.getBuyValue());
+  }
+}
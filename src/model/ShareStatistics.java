@@ -1,6 +1,5 @@
 package model;
 
-import java.text.ParseException;
 import java.time.LocalDate;
 import java.util.AbstractMap;
 import java.util.List;
@@ -15,61 +14,81 @@ public interface ShareStatistics {
   /**
    * For a particular day if that particular stock lost its value, or it has gained.
    *
-   * @param shareData data of the share for which the trend is to be viewed for.
+   * @param series price history of the share.
+   * @param date   date for which the trend is to be viewed for.
    * @return value if the stock has gained or lost.
+   * @throws IllegalArgumentException if the date is not a trading day of the share.
    */
-  float stockTrendForDay(Map<String, String> shareData);
+  float stockTrendForDay(PriceSeries series, LocalDate date) throws IllegalArgumentException;
 
   /**
    * Over a period of time if that particular stock lost its value, or it has gained.
    *
-   * @param shareData data of the share for which the trend is to be viewed for.
+   * @param series    price history of the share.
+   * @param startDate start date of the period.
+   * @param endDate   end date of the period.
    * @return value if the stock has gained or lost over a period of time.
+   * @throws IllegalArgumentException if either date is not a trading day of the share.
    */
-  float stockTrendForPeriod(Map<String, String> shareData);
+  float stockTrendForPeriod(PriceSeries series, LocalDate startDate, LocalDate endDate)
+          throws IllegalArgumentException;
 
   /**
-   * Calculates the moving average of that particular stock based on the last X days provided.
+   * Calculates the moving average of the closing prices of the last X trading days ending on the
+   * given date.
    *
-   * @param shareData data of the share for which the trend is to be viewed for.
+   * @param series price history of the share.
+   * @param date   date on which the moving average is to be calculated.
+   * @param days   number of trading days in the average.
    * @return X day moving average of the stock.
+   * @throws IllegalArgumentException if the date or enough history isn't available.
    */
-  float xDayMovingAverage(List<Map<String, String>> shareData);
+  float xDayMovingAverage(PriceSeries series, LocalDate date, int days)
+          throws IllegalArgumentException;
 
   /**
    * Calculates the crossover of that particular stock over the given period of time, stating that
    * if that stock has a 'BUY' or 'SELL' opportunity.
    *
-   * @param shareData data of the share for which the trend is to be viewed for.
+   * @param series    price history of the share.
+   * @param startDate start date of the period.
+   * @param endDate   end date of the period.
    * @return that array of positive and negative crossover dates.
    * @throws IllegalArgumentException if any value is wrongly entered.
    */
-  Map<String, List<String>> crossOvers(List<Map<String, String>> shareData)
-          throws IllegalArgumentException;
+  Map<String, List<String>> crossOvers(PriceSeries series, LocalDate startDate,
+                                       LocalDate endDate) throws IllegalArgumentException;
 
   /**
    * Calculates the moving crossover of that particular stock over the given period of time,
    * stating that if that stock has a 'BUY' or 'SELL' opportunity.
    *
-   * @param shareData data of the share for which the trend is to be viewed for.
+   * @param series    price history of the share.
+   * @param startDate start date of the period.
+   * @param endDate   end date of the period.
+   * @param xDay      number of days of the shorter moving average.
+   * @param yDay      number of days of the longer moving average.
    * @return that array of positive and negative moving crossover dates.
+   * @throws IllegalArgumentException if any value is wrongly entered.
    */
-  Map<String, List<String>> movingCrossovers(List<Map<String, String>> shareData);
+  Map<String, List<String>> movingCrossovers(PriceSeries series, LocalDate startDate,
+                                             LocalDate endDate, int xDay, int yDay)
+          throws IllegalArgumentException;
 
   /**
    * The method calculates the values of a particular stock for a given time range
    * inorder to plot it. It also calculates the scale and
-   * type of period that needs to be plotted on the y-axis (day, year, month).
+   * type of period that needs to be plotted on the y-axis (day, year, month). A month or year
+   * is plotted with the close of its last trading day, read from the rolled up bars of the
+   * series.
    *
    * @param startDate The start date from where the stock values need to be calculated.
    * @param endDate   The end date upto which the stock values need to be calculated.
-   * @param values    map of date and its respective values on that date for the stock.
+   * @param series    price history of the share.
    * @return A pair of hashmap of date and its respective values to be displayed.
-   * @throws ParseException If the dates passed isn't parsed properly.
    */
   AbstractMap.SimpleEntry<Map<LocalDate,
           String>, Integer> getPerformanceOfStock(LocalDate startDate,
                                                   LocalDate endDate,
-                                                  List<Map<String, String>> values)
-          throws ParseException;
+                                                  PriceSeries series);
 }
@@ -18,201 +18,105 @@ import static model.FlexiblePortfolioModelImpl.getMapIntegerSimpleEntry;
  */
 public class ShareStatisticsImpl implements ShareStatistics {
   @Override
-  public float stockTrendForDay(Map<String, String> shareData) {
-    return (Float.parseFloat(shareData.get("close")) - Float.parseFloat(shareData.get("open")));
+  public float stockTrendForDay(PriceSeries series, LocalDate date)
+          throws IllegalArgumentException {
+    int index = indexOfTradingDay(series, date);
+    return series.getClose(index) - series.getOpen(index);
   }
 
   @Override
-  public float stockTrendForPeriod(Map<String, String> shareData) {
-    return (Float.parseFloat(shareData.get("closePriceEndDate"))
-            - Float.parseFloat(shareData.get("closePriceStartDate")));
+  public float stockTrendForPeriod(PriceSeries series, LocalDate startDate, LocalDate endDate)
+          throws IllegalArgumentException {
+    return series.getClose(indexOfTradingDay(series, endDate))
+            - series.getClose(indexOfTradingDay(series, startDate));
   }
 
   @Override
-  public float xDayMovingAverage(List<Map<String, String>> shareData) {
-    Map<String, List<String>> averageData = filterXDayData(shareData);
-    float average = 0.0f;
-    for (String closingPrice : averageData.get("close")) {
-      average += Float.parseFloat(closingPrice);
-    }
-    return (average / averageData.get("close").size());
-  }
-
-  private Map<String, List<String>> filterXDayData(List<Map<String, String>> companyMap) {
-    Map<String, List<String>> stockData = new HashMap<>();
-    List<String> closingValue = new ArrayList<>();
-    String date = companyMap.get(companyMap.size() - 1).get("date");
-    int day = Integer.parseInt(companyMap.get(companyMap.size() - 1).get("day"));
-    int dateIndex = -1;
-    dateIndex = getStartDate(companyMap, date, dateIndex);
-    for (int i = dateIndex; i < dateIndex + day; i++) {
-      closingValue.add(companyMap.get(i).get("close"));
-    }
-    stockData.put("close", closingValue);
-    return stockData;
-  }
-
-  private Map<String, List<String>> filterCrossoverData(List<Map<String,
-          String>> companyMap) throws IllegalArgumentException {
-    Map<String, String> stockData = new HashMap<>();
-    Map<String, List<String>> crossOverData = new HashMap<>();
-    String startDate = companyMap.get(companyMap.size() - 1).get("startDate");
-    String endDate = companyMap.get(companyMap.size() - 1).get("endDate");
-    int startDateIndex = -1;
-    int endDateIndex = -1;
-    startDateIndex = getStartDate(companyMap, startDate, startDateIndex);
-    endDateIndex = getStartDate(companyMap, endDate, endDateIndex);
-    checkValidDate(startDateIndex, endDateIndex);
-
-    for (int i = endDateIndex; i <= startDateIndex; i++) {
-      List<String> pricesData = new ArrayList<>();
-      companyMap.remove(companyMap.size() - 1);
-      stockData.put("date", companyMap.get(i).get("timestamp"));
-      stockData.put("day", "30");
-      companyMap.add(stockData);
-      String thirtyDayMovingAverage = String.valueOf(xDayMovingAverage(companyMap));
-      String currentDate = companyMap.get(i).get("timestamp");
-      String previousClosingPrice = companyMap.get(i + 1).get("close");
-      String currentClosingPrice = companyMap.get(i).get("close");
-      pricesData.add(thirtyDayMovingAverage);
-      pricesData.add(previousClosingPrice);
-      pricesData.add(currentClosingPrice);
-      crossOverData.put(currentDate, pricesData);
-    }
-    return crossOverData;
+  public float xDayMovingAverage(PriceSeries series, LocalDate date, int days)
+          throws IllegalArgumentException {
+    return movingAverage(series, indexOfTradingDay(series, date), days);
   }
 
   @Override
-  public Map<String, List<String>> crossOvers(List<Map<String,
-          String>> shareData) throws IllegalArgumentException {
-    Map<String, List<String>> averageData = filterCrossoverData(shareData);
-    Map<String, List<String>> crossoverData = new HashMap<>();
+  public Map<String, List<String>> crossOvers(PriceSeries series, LocalDate startDate,
+                                              LocalDate endDate)
+          throws IllegalArgumentException {
+    int startIndex = indexOfTradingDay(series, startDate);
+    int endIndex = indexOfTradingDay(series, endDate);
     List<String> positives = new ArrayList<>();
     List<String> negatives = new ArrayList<>();
-    for (String date : averageData.keySet()) {
-      String crossover = calculateCrossover(averageData.get(date));
-      if (crossover.equals("POSITIVE")) {
-        positives.add(date);
-      } else if (crossover.equals("NEGATIVE")) {
-        negatives.add(date);
+    for (int i = Math.max(startIndex, 1); i <= endIndex; i++) {
+      float thirtyDayMovingAverage = movingAverage(series, i, 30);
+      float previousClosingPrice = series.getClose(i - 1);
+      float currentClosingPrice = series.getClose(i);
+      if (previousClosingPrice < thirtyDayMovingAverage &&
+              thirtyDayMovingAverage < currentClosingPrice) {
+        positives.add(series.getDate(i).toString());
+      } else if (previousClosingPrice > thirtyDayMovingAverage &&
+              thirtyDayMovingAverage > currentClosingPrice) {
+        negatives.add(series.getDate(i).toString());
       }
-      crossoverData.put("POSITIVES", positives);
-      crossoverData.put("NEGATIVES", negatives);
     }
-    if (crossoverData.isEmpty()) {
-      throw new IllegalStateException("No crossover data found for the given time period");
-    }
-    return crossoverData;
-  }
-
-  private String calculateCrossover(List<String> crossoverPrices) {
-    float thirtyDayMovingAverage = Float.parseFloat(crossoverPrices.get(0));
-    float previousClosingPrice = Float.parseFloat(crossoverPrices.get(1));
-    float currentClosingPrice = Float.parseFloat(crossoverPrices.get(2));
-    if (previousClosingPrice < thirtyDayMovingAverage &&
-            thirtyDayMovingAverage < currentClosingPrice) {
-      return "POSITIVE";
-    } else if (previousClosingPrice > thirtyDayMovingAverage &&
-            thirtyDayMovingAverage > currentClosingPrice) {
-      return "NEGATIVE";
-    }
-    return "";
-  }
-
-  private String calculateMovingCrossover(List<String> movingCrossoverPrices) {
-    float xDayMovingAverageCurrentDate = Float.parseFloat(movingCrossoverPrices.get(0));
-    float xDayMovingAveragePreviousDate = Float.parseFloat(movingCrossoverPrices.get(1));
-    float yDayMovingAverageCurrentDate = Float.parseFloat(movingCrossoverPrices.get(2));
-    float yDayMovingAveragePreviousDate = Float.parseFloat(movingCrossoverPrices.get(3));
-
-    if (xDayMovingAverageCurrentDate > yDayMovingAverageCurrentDate &&
-            xDayMovingAveragePreviousDate < yDayMovingAveragePreviousDate) {
-      return "POSITIVE";
-    } else if (xDayMovingAverageCurrentDate < yDayMovingAverageCurrentDate &&
-            xDayMovingAveragePreviousDate > yDayMovingAveragePreviousDate) {
-      return "NEGATIVE";
-    }
-    return "";
+    return crossoverResult(positives, negatives);
   }
 
   @Override
-  public Map<String, List<String>> movingCrossovers(List<Map<String, String>> shareData) {
-    Map<String, List<String>> averageData = filterMovingCrossoverData(shareData);
-    Map<String, List<String>> crossoverData = new HashMap<>();
+  public Map<String, List<String>> movingCrossovers(PriceSeries series, LocalDate startDate,
+                                                    LocalDate endDate, int xDay, int yDay)
+          throws IllegalArgumentException {
+    int startIndex = indexOfTradingDay(series, startDate);
+    int endIndex = indexOfTradingDay(series, endDate);
     List<String> positives = new ArrayList<>();
     List<String> negatives = new ArrayList<>();
-    for (String date : averageData.keySet()) {
-      String crossover = calculateMovingCrossover(averageData.get(date));
-      if (crossover.equals("POSITIVE")) {
-        positives.add(date);
-      } else if (crossover.equals("NEGATIVE")) {
-        negatives.add(date);
+    for (int i = Math.max(startIndex, 1); i <= endIndex; i++) {
+      float xDayMovingAverageCurrentDate = movingAverage(series, i, xDay);
+      float xDayMovingAveragePreviousDate = movingAverage(series, i - 1, xDay);
+      float yDayMovingAverageCurrentDate = movingAverage(series, i, yDay);
+      float yDayMovingAveragePreviousDate = movingAverage(series, i - 1, yDay);
+      if (xDayMovingAverageCurrentDate > yDayMovingAverageCurrentDate &&
+              xDayMovingAveragePreviousDate < yDayMovingAveragePreviousDate) {
+        positives.add(series.getDate(i).toString());
+      } else if (xDayMovingAverageCurrentDate < yDayMovingAverageCurrentDate &&
+              xDayMovingAveragePreviousDate > yDayMovingAveragePreviousDate) {
+        negatives.add(series.getDate(i).toString());
       }
-      crossoverData.put("POSITIVES", positives);
-      crossoverData.put("NEGATIVES", negatives);
-    }
-    if (crossoverData.isEmpty()) {
-      throw new IllegalStateException("No crossover data found for the given time period");
     }
-    return crossoverData;
-  }
-
-  private static int getIndexOfDate(List<Map<String, String>> values, String date) {
-    for (int i = 0; i < values.size(); i++) {
-      Map<String, String> dates = values.get(i);
-      if (dates.get("timestamp").equals(date)) {
-        return i;
-      }
-    }
-    return -1;
+    return crossoverResult(positives, negatives);
   }
 
   @Override
   public AbstractMap.SimpleEntry<Map<LocalDate, String>,
           Integer> getPerformanceOfStock(LocalDate startDate, LocalDate endDate,
-                                         List<Map<String, String>> values) {
+                                         PriceSeries series) {
     String performancePeriod = checkPerformancePeriod(startDate, endDate).getKey();
     LocalDate currentDate = startDate;
     int steps = checkPerformancePeriod(startDate, endDate).getValue().intValue();
     Map<LocalDate, Float> map = new TreeMap<>();
     if (performancePeriod.equals("DAY")) {
       while (currentDate.isBefore(endDate)) {
-        int idx = getIndexOfDate(values, currentDate.toString());
+        int idx = series.indexOf(currentDate);
         if (idx != -1) {
-          map.put(currentDate, Float.parseFloat(values.get(idx).get(
-                  "close")));
+          map.put(currentDate, series.getClose(idx));
         }
         currentDate = currentDate.plusDays(steps);
       }
-    } else if (performancePeriod.equals("MONTH")) {
-      currentDate = startDate.withDayOfMonth(currentDate.lengthOfMonth());
-      addUpdatedDateValues(startDate, endDate, values, currentDate, map, steps, performancePeriod);
     } else {
-      currentDate = LocalDate.of(startDate.getYear(), 12, 31);
-      addUpdatedDateValues(startDate, endDate, values, currentDate, map, steps, performancePeriod);
-    }
-    return formatValues(map, performancePeriod);
-  }
-
-  private static void addUpdatedDateValues(LocalDate startDate, LocalDate endDate,
-                                           List<Map<String, String>> values,
-                                           LocalDate currentDate, Map<LocalDate,
-          Float> map, int steps, String period) {
-    while (currentDate.isBefore(endDate)) {
-      int idx = getIndexOfDate(values, currentDate.toString());
-      if (idx == -1) {
-        while (idx == -1) {
-          if (currentDate.isBefore(startDate)) {
-            throw new IllegalArgumentException("Please provide a working day as a start date !");
-          }
-          currentDate = currentDate.minusDays(1);
-          idx = getIndexOfDate(values, currentDate.toString());
+      PriceRollup.Period period = performancePeriod.equals("MONTH") ? PriceRollup.Period.MONTH
+              : PriceRollup.Period.YEAR;
+      PriceRollup bars = series.rollup(period);
+      LocalDate periodStart = period.startOf(startDate);
+      while (period.next(periodStart).minusDays(1).isBefore(endDate)) {
+        int bar = bars.indexOnOrBefore(periodStart);
+        if (bar == -1 || bars.getLastDate(bar).isBefore(startDate.minusDays(1))) {
+          throw new IllegalArgumentException("Please provide a working day as a start date !");
+        }
+        map.put(bars.getLastDate(bar), bars.getClose(bar));
+        for (int step = 0; step < steps; step++) {
+          periodStart = period.next(periodStart);
         }
       }
-      map.put(currentDate, Float.parseFloat(values.get(idx).get("close")));
-      currentDate = period.equals("YEAR") ? currentDate.plusYears(steps) :
-              currentDate.plusMonths(steps);
     }
+    return formatValues(map, performancePeriod);
   }
 
   private AbstractMap.SimpleEntry<Map<LocalDate, String>,
@@ -220,70 +124,36 @@ public class ShareStatisticsImpl implements ShareStatistics {
     return getMapIntegerSimpleEntry(period, values);
   }
 
-
-  private Map<String, List<String>> filterMovingCrossoverData(List<Map<String,
-          String>> companyMap) {
-    Map<String, List<String>> movingCrossovers = new HashMap<>();
-    String startDate = companyMap.get(companyMap.size() - 1).get("startDate");
-    String endDate = companyMap.get(companyMap.size() - 1).get("endDate");
-    String xDay = companyMap.get(companyMap.size() - 1).get("xday");
-    String yDay = companyMap.get(companyMap.size() - 1).get("yday");
-    int startDateIndex = -1;
-    int endDateIndex = -1;
-    startDateIndex = getStartDate(companyMap, startDate, startDateIndex);
-    endDateIndex = getStartDate(companyMap, endDate, endDateIndex);
-    checkValidDate(startDateIndex, endDateIndex);
-    for (int i = endDateIndex; i <= startDateIndex; i++) {
-      Map<String, String> stockData = new HashMap<>();
-      List<String> pricesData = new ArrayList<>();
-      companyMap.remove(companyMap.size() - 1);
-      String currentDate = companyMap.get(i).get("timestamp");
-
-      //X day - Current Date
-      generateDayMap(companyMap, stockData, i, xDay, pricesData);
-
-      //X day - Previous Date
-      companyMap.remove(companyMap.size() - 1);
-      generateDayMap(companyMap, stockData, i + 1, xDay, pricesData);
-
-      //Y day - Current Date
-      companyMap.remove(companyMap.size() - 1);
-      generateDayMap(companyMap, stockData, i, yDay, pricesData);
-
-      //Y day - Previous Date
-      companyMap.remove(companyMap.size() - 1);
-      generateDayMap(companyMap, stockData, i + 1, yDay, pricesData);
-      movingCrossovers.put(currentDate, pricesData);
-    }
-    return movingCrossovers;
-  }
-
-  private void generateDayMap(List<Map<String, String>> companyMap,
-                              Map<String, String> stockData, int i,
-                              String day, List<String> pricesData) {
-    stockData.put("date", companyMap.get(i).get("timestamp"));
-    stockData.put("day", day);
-    companyMap.add(stockData);
-    String xDayMovingAverageCurrentDate = String.valueOf(xDayMovingAverage(companyMap));
-    pricesData.add(xDayMovingAverageCurrentDate);
-  }
-
-  private static void checkValidDate(int startDateIndex, int endDateIndex) {
-    if (startDateIndex == -1 || endDateIndex == -1) {
+  private static int indexOfTradingDay(PriceSeries series, LocalDate date)
+          throws IllegalArgumentException {
+    int index = series.indexOf(date);
+    if (index == -1) {
       throw new IllegalArgumentException("No data found for the specified date");
     }
+    return index;
   }
 
-  private static int getStartDate(List<Map<String, String>> companyMap,
-                                  String startDate, int startDateIndex) {
-    for (int i = 0; i <= companyMap.size(); i++) {
-      Map<String, String> startDates = companyMap.get(i);
-      if (startDates.get("timestamp").equals(startDate)) {
-        startDateIndex = i;
-        break;
-      }
+  private static float movingAverage(PriceSeries series, int index, int days)
+          throws IllegalArgumentException {
+    if (days <= 0) {
+      throw new IllegalArgumentException("Please enter a valid day.");
     }
-    return startDateIndex;
+    if (index - days + 1 < 0) {
+      throw new IllegalArgumentException("Not enough data to calculate the " + days
+              + "-day moving average on " + series.getDate(index));
+    }
+    float average = 0.0f;
+    for (int i = index - days + 1; i <= index; i++) {
+      average += series.getClose(i);
+    }
+    return average / days;
   }
 
+  private static Map<String, List<String>> crossoverResult(List<String> positives,
+                                                           List<String> negatives) {
+    Map<String, List<String>> crossoverData = new HashMap<>();
+    crossoverData.put("POSITIVES", positives);
+    crossoverData.put("NEGATIVES", negatives);
+    return crossoverData;
+  }
 }
@@ -28,6 +28,7 @@ import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 
 import controller.Features;
+import model.PriceSeries;
 
 /**
  * This is the Management Graphical User Interface View that extends the JFrame and implements
@@ -270,7 +271,7 @@ public class ManagementGUIViewImpl extends JFrame implements ManagementGUIView {
             features.formatDates(startEndDayPanel.endingYearComboBox.getSelectedItem().toString(),
                     startEndDayPanel.endingMonthComboBox.getSelectedItem().toString(),
                     startEndDayPanel.endingDayComboBox.getSelectedItem().toString());
-    List<Map<String, String>> shareData = features.getShareData(companyName,
+    PriceSeries shareData = features.getShareData(companyName,
             companyNamePanel.labelError);
     if (Float.parseFloat(percentageLabel.getText()) +
             Float.parseFloat(givenPercentangePanel.textField.getText()) > 100) {
@@ -286,7 +287,7 @@ public class ManagementGUIViewImpl extends JFrame implements ManagementGUIView {
   }
 
   private void performDollarCostStrategy(Features features, LocalDate currentDate,
-                                         String companyName, List<Map<String, String>> shareData,
+                                         String companyName, PriceSeries shareData,
                                          TextFieldPanel companyNamePanel,
                                          TextFieldPanel givenPercentangePanel,
                                          float amount, List<Map<String, String>> list,
@@ -313,7 +314,7 @@ public class ManagementGUIViewImpl extends JFrame implements ManagementGUIView {
   }
 
   private LocalDate getCurrentDate(Features features, LocalDate currentDate, String companyName,
-                                   List<Map<String, String>> shareData,
+                                   PriceSeries shareData,
                                    TextFieldPanel companyNamePanel,
                                    TextFieldPanel givenPercentangePanel,
                                    float amount, List<Map<String, String>> list,
@@ -0,0 +1,77 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import controller.BackgroundRefresher;
+import controller.Prefetcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the BackgroundRefresher class. The class tests that every held ticker
+ * is refreshed once, that the failures are kept as metrics and that a refresh runs in the
+ * background on start.
+ */
+public class BackgroundRefresherTest {
+
+  @Test
+  public void testRefreshesEveryTickerOnce() throws Exception {
+    List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+    try (BackgroundRefresher refresher = new BackgroundRefresher(
+        () -> Arrays.asList("aapl", "GOOG", "AAPL", "MSFT"), (ticker, closed) -> {
+          loaded.add(ticker + ":" + closed);
+          if (ticker.equals("MSFT")) {
+            throw new IOException("Stock data for MSFT is unavailable");
+          }
+        }, 2)) {
+      Map<String, Prefetcher.Result> results = refresher.refresh(true);
+      assertEquals(Arrays.asList("AAPL", "GOOG", "MSFT"), new ArrayList<>(results.keySet()));
+      assertEquals(3, loaded.size());
+      assertTrue(loaded.contains("GOOG:true"));
+      assertEquals(1, refresher.getRuns());
+      assertEquals(2, refresher.getRefreshed());
+      assertEquals(1, refresher.getFailed());
+      assertEquals(3, refresher.getCompleted());
+      assertEquals(3, refresher.getTotal());
+      assertEquals("Stock data for MSFT is unavailable",
+              refresher.getLastFailures().get("MSFT"));
+      assertFalse(refresher.isRunning());
+    }
+  }
+
+  @Test
+  public void testRefreshesOnStartInTheBackground() throws Exception {
+    List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+    try (BackgroundRefresher refresher = new BackgroundRefresher(
+        () -> Collections.singletonList("VZ"), (ticker, closed) -> loaded.add(ticker), 1)) {
+      refresher.schedule(true, null);
+      for (int i = 0; i < 100 && refresher.getRuns() == 0; i++) {
+        Thread.sleep(50);
+      }
+      assertEquals(1, refresher.getRuns());
+      assertEquals(Collections.singletonList("VZ"), loaded);
+    }
+  }
+
+  @Test
+  public void testSourceFailureIsKept() throws Exception {
+    try (BackgroundRefresher refresher = new BackgroundRefresher(() -> {
+      throw new IOException("File not found.");
+    }, (ticker, closed) -> { }, 1)) {
+      refresher.schedule(true, null);
+      for (int i = 0; i < 100 && refresher.getRuns() == 0; i++) {
+        Thread.sleep(50);
+      }
+      assertEquals(1, refresher.getRuns());
+      assertEquals("File not found.", refresher.getLastError());
+      assertEquals(0, refresher.getRefreshed());
+    }
+  }
+}
@@ -0,0 +1,177 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import controller.BulkIngestor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the BulkIngestor class. The class tests that a dump is ingested from a
+ * directory and from an archive, that rows which aren't valid are rejected, that the files of a
+ * ticker are merged, newest last, and that the days already stored aren't written again.
+ */
+public class BulkIngestorTest {
+
+  private static final String HEADER = "timestamp,open,high,low,close,volume\n";
+
+  private Path directory;
+  private File dump;
+  private File data;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("ingest");
+    dump = directory.resolve("dump").toFile();
+    data = directory.resolve("data").toFile();
+    assertTrue(dump.mkdirs());
+  }
+
+  @After
+  public void tearDown() throws IOException, InterruptedException {
+    // the manifest of the store is rewritten when the watcher reports the removed price files.
+    for (int attempt = 0; Files.exists(directory); attempt++) {
+      try (Stream<Path> paths = Files.walk(directory)) {
+        for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+          Files.deleteIfExists(path);
+        }
+      } catch (DirectoryNotEmptyException | NoSuchFileException | UncheckedIOException e) {
+        if (attempt == 20) {
+          throw e;
+        }
+        Thread.sleep(100);
+      }
+    }
+  }
+
+  private void write(String name, String content) throws IOException {
+    Files.write(new File(dump, name).toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private List<String> manifest() throws IOException {
+    return Files.readAllLines(new File(data, "manifest.csv").toPath()).stream()
+            .map(line -> line.substring(0, line.indexOf(',')) + line.substring(
+                    line.indexOf(',', line.indexOf(',', line.indexOf(',') + 1) + 1)))
+            .sorted().collect(Collectors.toList());
+  }
+
+  @Test
+  public void testIngestsDirectory() throws IOException {
+    write("daily_GOOG.csv", HEADER
+            + "2024-03-22,150.24,152.55,150.09,151.77,19226309\n"
+            + "2024-03-21,150.32,151.30,148.01,148.74,19843896\n"
+            + "2024-03-20,148.79,149.76,147.66,149.68,17729961\n");
+    write("IBM_2024-03-25.csv", HEADER
+            + "2024-03-22,192.0,193.98,191.31,191.66,3962831\n"
+            + "2024-03-21,193.0,193.37,190.01,191.9,6013963\n"
+            + "2024-03-20,-1.0,193.3,190.05,190.1,1\n");
+    write("VZ.csv", "{\"Error Message\": \"Invalid API call.\"}");
+    assertTrue(new File(dump, "nested").mkdirs());
+    write("nested/IBM.csv", HEADER
+            + "2024-03-22,192.0,193.98,191.31,191.66,3962831\n"
+            + "2024-03-25,190.26,190.82,188.75,190.09,3718318\n");
+    write("notes.txt", "not a csv");
+
+    BulkIngestor.Report report = new BulkIngestor(data, false, 2, 2).ingest(dump);
+    assertEquals(3, report.getTickers());
+    assertEquals(2, report.getWritten());
+    assertEquals(4, report.getFiles());
+    assertEquals(8, report.getRows());
+    assertEquals(1, report.getRejectedRows());
+    assertEquals(1, report.getDuplicateRows());
+    assertEquals(6, report.getWrittenRows());
+    assertEquals("Stock data for VZ is not valid.", report.getFailures().get("VZ"));
+    assertTrue(report.getRowsPerSecond() > 0);
+    assertEquals(List.of("GOOG,2024-03-20,2024-03-22,3", "IBM,2024-03-21,2024-03-25,3"),
+            manifest());
+  }
+
+  @Test
+  public void testSkipsStoredDaysAndMergesNewOnes() throws IOException {
+    write("GOOG.csv", HEADER
+            + "2024-03-21,150.32,151.30,148.01,148.74,19843896\n"
+            + "2024-03-22,150.24,152.55,150.09,151.77,19226309\n");
+    BulkIngestor ingestor = new BulkIngestor(data, false, 1, 10);
+    assertEquals(1, ingestor.ingest(dump).getWritten());
+
+    BulkIngestor.Report again = ingestor.ingest(dump);
+    assertEquals(0, again.getWritten());
+    assertEquals(1, again.getUnchanged());
+    assertEquals(2, again.getDuplicateRows());
+
+    write("GOOG.csv", HEADER
+            + "2024-03-19,148.98,149.62,147.01,147.68,17748400\n"
+            + "2024-03-21,150.32,151.30,148.01,148.74,19843896\n");
+    BulkIngestor.Report merged = ingestor.ingest(dump);
+    assertEquals(1, merged.getWritten());
+    assertEquals(1, merged.getDuplicateRows());
+    assertEquals(3, merged.getWrittenRows());
+    assertEquals(List.of("GOOG,2024-03-19,2024-03-22,3"), manifest());
+  }
+
+  private float close(String ticker, int index) throws IOException {
+    ByteBuffer prices = ByteBuffer.wrap(Files.readAllBytes(new File(data, ticker + ".prices")
+            .toPath()));
+    return prices.getFloat(16 + index * 28 + 16);
+  }
+
+  @Test
+  public void testMergesNewestFileLast() throws IOException {
+    write("GOOG.csv", HEADER
+            + "2024-03-21,150.32,151.30,148.01,148.74,19843896\n"
+            + "2024-03-22,150.24,152.55,150.09,151.77,19226309\n");
+    write("daily_GOOG.csv", HEADER
+            + "2024-03-22,150.24,152.55,150.09,150.50,19226309\n"
+            + "2024-03-25,150.95,151.56,148.92,151.15,15114728\n");
+    File newer = new File(dump, "GOOG.csv");
+    File older = new File(dump, "daily_GOOG.csv");
+    assertTrue(newer.setLastModified(1711400000000L));
+    assertTrue(older.setLastModified(1711300000000L));
+
+    BulkIngestor ingestor = new BulkIngestor(data, false, 1, 1);
+    BulkIngestor.Report report = ingestor.ingest(dump);
+    assertEquals(1, report.getWritten());
+    assertEquals(3, report.getWrittenRows());
+    assertEquals(151.77f, close("GOOG", 1), 0);
+
+    assertTrue(older.setLastModified(1711400000000L));
+    assertEquals(1, ingestor.ingest(dump).getWritten());
+    assertEquals(150.50f, close("GOOG", 1), 0);
+  }
+
+  @Test
+  public void testIngestsArchive() throws IOException {
+    File archive = directory.resolve("dump.zip").toFile();
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+      for (String ticker : new String[]{"AAPL", "MSFT"}) {
+        zip.putNextEntry(new ZipEntry("daily/daily_" + ticker + ".csv"));
+        zip.write((HEADER + "2024-03-22,171.76,173.05,170.06,172.28,71106600\n")
+                .getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+      }
+    }
+    BulkIngestor.Report report = new BulkIngestor(data, true, 2, 1).ingest(archive);
+    assertEquals(2, report.getWritten());
+    assertEquals(2, report.getRows());
+    assertEquals(List.of("AAPL,2024-03-22,2024-03-22,1", "MSFT,2024-03-22,2024-03-22,1"),
+            manifest());
+  }
+}
@@ -0,0 +1,71 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import controller.CompanySearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the CompanySearch class.
+ */
+public class CompanySearchTest {
+
+  private CompanySearch search;
+
+  @Before
+  public void setUp() {
+    search = new CompanySearch(
+            Arrays.asList("GOOG", "GOOGL", "AAPL", "ALPN", "MSFT", "MS"),
+            Arrays.asList("Alphabet Inc - Class C", "Alphabet Inc - Class A", "Apple Inc",
+                    "Alpine Immune Sciences Inc", "Microsoft Corporation", "Morgan Stanley"));
+  }
+
+  @Test
+  public void testNameRanksMatchingCompaniesFirst() {
+    List<CompanySearch.Match> matches = search.search("alphabet", 10);
+    assertEquals("GOOG", matches.get(0).getTicker());
+    assertEquals("GOOGL", matches.get(1).getTicker());
+    assertTrue(matches.get(1).getScore() > matches.get(2).getScore());
+  }
+
+  @Test
+  public void testMisspelledName() {
+    assertEquals("AAPL", search.search("aple", 10).get(0).getTicker());
+    assertEquals("MSFT", search.search("microsfot", 10).get(0).getTicker());
+  }
+
+  @Test
+  public void testTickerMatch() {
+    List<CompanySearch.Match> matches = search.search("ms", 10);
+    assertEquals("MS", matches.get(0).getTicker());
+    assertEquals("Morgan Stanley", matches.get(0).getName());
+    assertEquals("MSFT", search.search("msft", 10).get(0).getTicker());
+  }
+
+  @Test
+  public void testLimit() {
+    assertEquals(1, search.search("inc", 1).size());
+    assertTrue(search.search("   ", 10).isEmpty());
+    assertTrue(search.search("zzzz", 10).isEmpty());
+  }
+
+  @Test
+  public void testResolve() {
+    assertEquals("GOOG", search.resolve("Alphabet").getTicker());
+    assertEquals("AAPL", search.resolve("apple").getTicker());
+    assertEquals("MS", search.resolve("MS").getTicker());
+    assertNull(search.resolve("microsfot"));
+    assertNull(search.resolve("zzzz"));
+    assertNull(search.resolve("Alpinx Xyz Holdings"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidLimit() {
+    search.search("apple", 0);
+  }
+}
@@ -0,0 +1,103 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import controller.Configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * The JUnit test class for the Configuration class.
+ */
+public class ConfigurationTest {
+
+  private Path directory;
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("config");
+    file = directory.resolve("config.properties");
+    write("PORTFOLIOS_PATH = portfolios\nSTOCK_DATA_PATH = data\nAPI_CALLS_PER_MINUTE = 75\n"
+            + "PREFETCH_THREADS = many");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+    Files.deleteIfExists(directory);
+  }
+
+  private void write(String text) throws IOException {
+    Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testLoad() throws IOException {
+    Configuration config = Configuration.load(file);
+    assertEquals("portfolios", config.getPortfoliosPath());
+    assertEquals("data", config.getStockDataPath());
+    assertEquals("data", config.get("STOCK_DATA_PATH"));
+    assertEquals(75, config.getApiCallsPerMinute());
+    assertEquals(25, config.getApiCallsPerDay());
+    assertEquals(4, config.getPrefetchThreads());
+    assertEquals("https://www.alphavantage.co/query", config.getApiBaseUrl());
+    assertNull(config.getApiKey());
+  }
+
+  @Test
+  public void testSnapshotIsImmutable() {
+    Map<String, String> values = new HashMap<>();
+    values.put("API_KEY", "demo");
+    Configuration config = new Configuration(values);
+    values.put("API_KEY", "changed");
+    assertEquals("demo", config.getApiKey());
+    assertEquals("demo", config.asMap().get("API_KEY"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testMapIsUnmodifiable() throws IOException {
+    Configuration.load(file).asMap().put("API_KEY", "demo");
+  }
+
+  @Test
+  public void testWatchReloadsChangedFile() throws Exception {
+    BlockingQueue<Configuration> reloaded = new LinkedBlockingQueue<>();
+    Configuration.Watcher watcher = Configuration.watch(file, reloaded::add);
+    try {
+      write("PORTFOLIOS_PATH = other\nAPI_KEY = demo");
+      Configuration config = reloaded.poll(20, TimeUnit.SECONDS);
+      while (config != null && !"demo".equals(config.getApiKey())) {
+        config = reloaded.poll(20, TimeUnit.SECONDS);
+      }
+      assertEquals("other", config.getPortfoliosPath());
+      assertEquals("demo", config.getApiKey());
+    } finally {
+      watcher.close();
+    }
+  }
+
+  @Test
+  public void testClosedWatchStopsReloading() throws Exception {
+    BlockingQueue<Configuration> reloaded = new LinkedBlockingQueue<>();
+    Configuration.Watcher watcher = Configuration.watch(file, reloaded::add);
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      assertFalse("config-watcher".equals(thread.getName()));
+    }
+    watcher.close();
+    write("API_KEY = closed");
+    assertNull(reloaded.poll(1, TimeUnit.SECONDS));
+  }
+}
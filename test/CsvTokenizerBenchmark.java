@@ -0,0 +1,107 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import controller.CsvTokenizer;
+
+/**
+ * Compares reading a price history with {@code String.split} against reading it with the
+ * CsvTokenizer. Both read the same csv, by default the GOOG fixture of the stock data
+ * directory, into the same primitive columns, and the time and the bytes allocated per row are
+ * printed after a warm-up. Run it from the project directory with
+ * {@code java CsvTokenizerBenchmark [csv] [iterations]}.
+ */
+public class CsvTokenizerBenchmark {
+
+  private static final int MAX_ROWS = 1 << 16;
+
+  private static final int[] days = new int[MAX_ROWS];
+  private static final float[] prices = new float[MAX_ROWS * 4];
+  private static final long[] volumes = new long[MAX_ROWS];
+
+  private static int readWithSplit(Path csv) throws IOException {
+    int rows = 0;
+    try (BufferedReader reader = new BufferedReader(new FileReader(csv.toFile()))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] row = line.split(",");
+        if (row.length < 6 || row[0].equals("timestamp")) {
+          continue;
+        }
+        days[rows] = (int) LocalDate.parse(row[0]).toEpochDay();
+        for (int i = 0; i < 4; i++) {
+          prices[rows * 4 + i] = Float.parseFloat(row[i + 1]);
+        }
+        volumes[rows++] = Long.parseLong(row[5].trim());
+      }
+    }
+    return rows;
+  }
+
+  private static int readWithTokenizer(ByteBuffer data, CsvTokenizer tokenizer) {
+    int rows = 0;
+    tokenizer.reset(data);
+    while (tokenizer.nextRow()) {
+      if (tokenizer.columns() < 6 || !tokenizer.nextIsDigit()) {
+        continue;
+      }
+      days[rows] = tokenizer.nextEpochDay();
+      for (int i = 0; i < 4; i++) {
+        prices[rows * 4 + i] = tokenizer.nextFloat();
+      }
+      volumes[rows++] = tokenizer.nextLong();
+    }
+    return rows;
+  }
+
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static void report(String name, long nanos, long bytes, long rows) {
+    System.out.printf("%-10s %8.1f ns/row %8.1f bytes/row%n", name, (double) nanos / rows,
+            (double) bytes / rows);
+  }
+
+  /**
+   * Runs the comparison.
+   *
+   * @param args path of the csv and number of iterations.
+   * @throws IOException if the csv can't be read.
+   */
+  public static void main(String[] args) throws IOException {
+    Path csv = Paths.get(args.length > 0 ? args[0] : "res/data/GOOG_2024-10-08.csv");
+    int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    ByteBuffer data;
+    try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+      data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    CsvTokenizer tokenizer = new CsvTokenizer(data);
+    for (int i = 0; i < iterations; i++) {
+      readWithSplit(csv);
+      readWithTokenizer(data, tokenizer);
+    }
+    long rows = 0;
+    long bytes = allocatedBytes();
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      rows += readWithSplit(csv);
+    }
+    report("split", System.nanoTime() - start, allocatedBytes() - bytes, rows);
+    rows = 0;
+    bytes = allocatedBytes();
+    start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      rows += readWithTokenizer(data, tokenizer);
+    }
+    report("tokenizer", System.nanoTime() - start, allocatedBytes() - bytes, rows);
+  }
+}
@@ -0,0 +1,129 @@
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Random;
+
+import controller.CsvTokenizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the CsvTokenizer class.
+ */
+public class CsvTokenizerTest {
+
+  private static CsvTokenizer tokenizerOf(String text) {
+    return new CsvTokenizer(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testRows() {
+    CsvTokenizer tokenizer = tokenizerOf("timestamp,open,high,low,close,volume\r\n"
+            + "2024-10-08,165.4300,166.1000,164.3100,165.7000,11723885\r\n\r\n"
+            + "2024-02-29,1.5,2,0.25,-3.75,0");
+    assertTrue(tokenizer.nextRow());
+    assertEquals(6, tokenizer.columns());
+    assertFalse(tokenizer.nextIsDigit());
+    assertEquals("timestamp", tokenizer.nextString());
+    assertTrue(tokenizer.nextRow());
+    assertTrue(tokenizer.nextIsDigit());
+    assertEquals(LocalDate.of(2024, 10, 8).toEpochDay(), tokenizer.nextEpochDay());
+    assertEquals(165.43f, tokenizer.nextFloat(), 0);
+    tokenizer.skip();
+    assertEquals(164.31f, tokenizer.nextFloat(), 0);
+    assertEquals(165.7f, tokenizer.nextFloat(), 0);
+    assertEquals(11723885L, tokenizer.nextLong());
+    assertTrue(tokenizer.nextRow());
+    assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), tokenizer.nextEpochDay());
+    assertEquals(1.5f, tokenizer.nextFloat(), 0);
+    assertEquals(2f, tokenizer.nextFloat(), 0);
+    assertEquals(0.25f, tokenizer.nextFloat(), 0);
+    assertEquals(-3.75f, tokenizer.nextFloat(), 0);
+    assertEquals(0L, tokenizer.nextLong());
+    assertFalse(tokenizer.nextRow());
+  }
+
+  @Test
+  public void testUnreadFieldsAreSkipped() {
+    CsvTokenizer tokenizer = tokenizerOf("GOOG,Alphabet Inc\nAAPL,Apple Inc\n");
+    assertTrue(tokenizer.nextRow());
+    assertEquals("GOOG", tokenizer.nextString());
+    assertTrue(tokenizer.nextRow());
+    assertEquals("AAPL", tokenizer.nextString());
+    assertEquals("Apple Inc", tokenizer.nextString());
+    assertFalse(tokenizer.nextRow());
+  }
+
+  @Test
+  public void testEpochDaysMatchLocalDate() {
+    StringBuilder text = new StringBuilder();
+    LocalDate start = LocalDate.of(1899, 12, 25);
+    for (int i = 0; i < 80000; i += 7) {
+      text.append(start.plusDays(i)).append('\n');
+    }
+    CsvTokenizer tokenizer = tokenizerOf(text.toString());
+    for (int i = 0; i < 80000; i += 7) {
+      assertTrue(tokenizer.nextRow());
+      assertEquals(start.plusDays(i).toEpochDay(), tokenizer.nextEpochDay());
+    }
+  }
+
+  @Test
+  public void testFloatsMatchParseFloat() {
+    Random random = new Random(7);
+    StringBuilder text = new StringBuilder();
+    String[] values = new String[20000];
+    for (int i = 0; i < values.length; i++) {
+      int decimals = random.nextInt(7);
+      StringBuilder value = new StringBuilder().append(random.nextInt(100000));
+      if (decimals > 0) {
+        value.append('.');
+        for (int j = 0; j < decimals; j++) {
+          value.append(random.nextInt(10));
+        }
+      }
+      values[i] = value.toString();
+      text.append(values[i]).append(i % 2 == 0 ? "," : "\n");
+    }
+    text.append("1e3,NaN,16777217,0.1000000000000000055511151231257827\n");
+    CsvTokenizer tokenizer = tokenizerOf(text.toString());
+    for (int i = 0; i < values.length; i++) {
+      if (i % 2 == 0) {
+        assertTrue(tokenizer.nextRow());
+      }
+      assertEquals(values[i], Float.parseFloat(values[i]), tokenizer.nextFloat(), 0);
+    }
+    assertTrue(tokenizer.nextRow());
+    assertEquals(1000f, tokenizer.nextFloat(), 0);
+    assertTrue(Float.isNaN(tokenizer.nextFloat()));
+    assertEquals(Float.parseFloat("16777217"), tokenizer.nextFloat(), 0);
+    assertEquals(0.1f, tokenizer.nextFloat(), 0);
+  }
+
+  @Test(expected = DateTimeException.class)
+  public void testInvalidDate() {
+    CsvTokenizer tokenizer = tokenizerOf("2023-02-29,1\n");
+    tokenizer.nextRow();
+    tokenizer.nextEpochDay();
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testInvalidNumber() {
+    CsvTokenizer tokenizer = tokenizerOf("2023-02-28,1.2.3\n");
+    tokenizer.nextRow();
+    tokenizer.skip();
+    tokenizer.nextFloat();
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testInvalidVolume() {
+    CsvTokenizer tokenizer = tokenizerOf("12x\n");
+    tokenizer.nextRow();
+    tokenizer.nextLong();
+  }
+}
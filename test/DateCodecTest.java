@@ -0,0 +1,60 @@
+import org.junit.Test;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+import model.DateCodec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The JUnit test class for the DateCodec class.
+ */
+public class DateCodecTest {
+
+  @Test
+  public void testMatchesLocalDate() {
+    LocalDate start = LocalDate.of(1600, 1, 1);
+    for (int i = 0; i < 200000; i += 3) {
+      LocalDate date = start.plusDays(i);
+      assertEquals(date.toEpochDay(), DateCodec.toEpochDay(date.toString()));
+      assertEquals(date.toString(), DateCodec.format((int) date.toEpochDay()));
+      assertEquals(date, DateCodec.parse(date.toString()));
+    }
+  }
+
+  @Test
+  public void testShortMonthAndDay() {
+    assertEquals(LocalDate.of(2024, 1, 5), DateCodec.parse("2024-1-5"));
+    assertEquals(LocalDate.of(2024, 1, 15), DateCodec.parse("2024-1-15"));
+    assertEquals(LocalDate.of(2024, 11, 5), DateCodec.parse("2024-11-5"));
+  }
+
+  @Test
+  public void testEpochDayOfFields() {
+    assertEquals(0, DateCodec.toEpochDay(1970, 1, 1));
+    assertEquals(LocalDate.of(2000, 2, 29).toEpochDay(), DateCodec.toEpochDay(2000, 2, 29));
+  }
+
+  @Test
+  public void testInvalidDates() {
+    String[] invalid = {"", "2024", "2024-02-30", "2023-02-29", "1900-02-29", "2024-13-01",
+        "2024-00-10", "2024-01-00", "2024-04-31", "24-01-05", "2024/01/05", "2024-01-05x",
+        " 2024-01-05", "2024-011-5", "2024--15", "ajdk279", "20a4-01-05", "2024-1a-05"};
+    for (String date : invalid) {
+      try {
+        DateCodec.toEpochDay(date);
+        fail(date + " should be invalid");
+      } catch (DateTimeException e) {
+        assertTrue(e.getMessage().contains(date));
+      }
+    }
+  }
+
+  @Test(expected = DateTimeException.class)
+  public void testInvalidFields() {
+    DateCodec.toEpochDay(2023, 2, 29);
+  }
+}
@@ -0,0 +1,76 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import controller.DirectoryWatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the DirectoryWatcher class. The class tests that a burst of writes is
+ * reported once with the changed files and that only existing directories are watched.
+ */
+public class DirectoryWatcherTest {
+
+  private Path directory;
+  private DirectoryWatcher watcher;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("watched");
+    watcher = new DirectoryWatcher(300);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    watcher.close();
+    for (String name : new String[]{"a.csv", "b.csv"}) {
+      Files.deleteIfExists(directory.resolve(name));
+    }
+    Files.deleteIfExists(directory);
+  }
+
+  @Test
+  public void testBurstIsReportedOnce() throws Exception {
+    List<Path> directories = Collections.synchronizedList(new ArrayList<>());
+    List<Set<Path>> reports = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch reported = new CountDownLatch(1);
+    assertTrue(watcher.register(directory, (changed, files) -> {
+      directories.add(changed);
+      reports.add(files);
+      reported.countDown();
+    }));
+    for (int i = 0; i < 20; i++) {
+      Files.write(directory.resolve(i % 2 == 0 ? "a.csv" : "b.csv"),
+              ("row " + i + "\n").getBytes());
+    }
+    assertTrue(reported.await(15, TimeUnit.SECONDS));
+    Thread.sleep(1000);
+    assertEquals(1, reports.size());
+    assertEquals(directory.toAbsolutePath().normalize(), directories.get(0));
+    assertTrue(reports.get(0) == null
+            || reports.get(0).equals(Set.of(Paths.get("a.csv"), Paths.get("b.csv"))));
+  }
+
+  @Test
+  public void testMissingDirectoryIsNotWatched() {
+    Path missing = directory.resolve("missing");
+    assertFalse(watcher.register(missing, (changed, files) -> { }));
+    assertFalse(watcher.isWatched(missing));
+    assertTrue(watcher.register(directory, (changed, files) -> { }));
+    assertTrue(watcher.isWatched(directory));
+  }
+}
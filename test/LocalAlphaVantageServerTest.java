@@ -0,0 +1,118 @@
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+
+import controller.APIImpl;
+import controller.LocalAlphaVantageServer;
+import controller.RateLimiter;
+import model.PriceSeries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The JUnit test class for the LocalAlphaVantageServer class. The responses are read with the
+ * APIImpl class pointed to the local server.
+ */
+public class LocalAlphaVantageServerTest {
+
+  private LocalAlphaVantageServer server;
+
+  private APIImpl start(LocalAlphaVantageServer.Builder builder) throws IOException {
+    server = builder.build();
+    server.start();
+    return new APIImpl(server.getBaseUrl(), "demo", new RateLimiter(0, 0), 2, 1);
+  }
+
+  @After
+  public void tearDown() {
+    if (server != null) {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testSyntheticDataIsReproducible() throws Exception {
+    PriceSeries first = start(LocalAlphaVantageServer.builder().seed(7))
+            .getRecentStockDetails("GOOG");
+    server.stop();
+    PriceSeries second = start(LocalAlphaVantageServer.builder().seed(7))
+            .getRecentStockDetails("GOOG");
+    assertEquals(100, first.size());
+    assertEquals(first.getDate(99), second.getDate(99));
+    assertEquals(first.getClose(0), second.getClose(0), 0.0001);
+    assertEquals(first.getVolume(50), second.getVolume(50));
+  }
+
+  @Test
+  public void testSyntheticDataEndsOnEndDate() throws Exception {
+    APIImpl api = start(LocalAlphaVantageServer.builder().seed(7)
+            .endDate(LocalDate.of(2024, 3, 24)));
+    PriceSeries first = api.getRecentStockDetails("GOOG");
+    PriceSeries second = api.getRecentStockDetails("GOOG");
+    assertEquals("2024-03-22", first.getDate(first.size() - 1).toString());
+    assertEquals(first.getDate(0), second.getDate(0));
+    assertEquals(first.getClose(99), second.getClose(99), 0);
+    assertEquals(2, server.getRequests());
+  }
+
+  @Test
+  public void testFixtureReplay() throws Exception {
+    File fixtures = Files.createTempDirectory("fixtures").toFile();
+    try (FileWriter fileWriter = new FileWriter(new File(fixtures, "GOOG_2024-03-25.csv"))) {
+      fileWriter.write("2024-03-25,150.95,151.5,150.1,151.15,15114728\n"
+              + "2024-03-22,150.24,152.55,150.09,151.77,19226309\n");
+    }
+    PriceSeries series = start(LocalAlphaVantageServer.builder().fixtures(fixtures))
+            .getRecentStockDetails("GOOG");
+    assertEquals(2, series.size());
+    assertEquals(151.77f, series.getClose(0), 0.001);
+    assertEquals("2024-03-25", series.getDate(1).toString());
+  }
+
+  @Test
+  public void testErrorResponse() throws Exception {
+    PriceSeries series = start(LocalAlphaVantageServer.builder().errorRate(1))
+            .getRecentStockDetails("GOOG");
+    assertTrue(series.isEmpty());
+    assertEquals(1, server.getErrors());
+  }
+
+  @Test
+  public void testThrottledRequestIsRetried() throws Exception {
+    APIImpl api = start(LocalAlphaVantageServer.builder().throttleRate(1));
+    try {
+      api.getRecentStockDetails("GOOG");
+      fail("a request that is always throttled should fail");
+    } catch (IOException e) {
+      assertEquals("The stock API is busy, please try again later.", e.getMessage());
+    }
+    assertEquals(3, server.getRequests());
+    assertEquals(3, server.getThrottled());
+  }
+
+  @Test
+  public void testDailyLimitIsReported() throws Exception {
+    start(LocalAlphaVantageServer.builder().seed(7));
+    APIImpl api = new APIImpl(server.getBaseUrl(), "demo", new RateLimiter(0, 1), 2, 1);
+    api.getRecentStockDetails("GOOG");
+    try {
+      api.getRecentStockDetails("MSFT");
+      fail("the second request should be over the daily limit");
+    } catch (IOException e) {
+      assertEquals("The daily limit of the stock API has been reached.", e.getMessage());
+    }
+    assertEquals(1, server.getRequests());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRates() throws IOException {
+    LocalAlphaVantageServer.builder().errorRate(0.6).throttleRate(0.6).build();
+  }
+}
@@ -5,6 +5,7 @@ import java.util.Map;
 
 import model.EmptyPortfolioException;
 import model.ManagementModel;
+import model.PriceSeries;
 
 /**
  * The class implements a mock model of the ManagementModel interface. The class is useful for
@@ -47,32 +48,33 @@ public class ManagementMockModel implements ManagementModel {
   }
 
   @Override
-  public float stockAnalysisDay(Map<String, String> shareData) {
+  public float stockAnalysisDay(PriceSeries series, LocalDate date) {
     messageLog.append("\nReached stock analysis today\n");
     return 0;
   }
 
   @Override
-  public float stockAnalysisPeriod(Map<String, String> shareData) {
+  public float stockAnalysisPeriod(PriceSeries series, LocalDate startDate, LocalDate endDate) {
     messageLog.append("\nReached stock analysis period\n");
     return 0;
   }
 
   @Override
-  public float xDayMovingAverage(List<Map<String, String>> shareData) {
+  public float xDayMovingAverage(PriceSeries series, LocalDate date, int days) {
     messageLog.append("\nReached x day moving average\n");
     return 0;
   }
 
   @Override
-  public Map<String, List<String>> crossOvers(List<Map<String, String>> shareData)
-          throws IllegalArgumentException {
+  public Map<String, List<String>> crossOvers(PriceSeries series, LocalDate startDate,
+                                              LocalDate endDate) {
     messageLog.append("\nReached crossover\n");
     return null;
   }
 
   @Override
-  public Map<String, List<String>> movingCrossovers(List<Map<String, String>> shareData) {
+  public Map<String, List<String>> movingCrossovers(PriceSeries series, LocalDate startDate,
+                                                    LocalDate endDate, int xDay, int yDay) {
     messageLog.append("\nReached moving crossover\n");
     return null;
   }
@@ -105,8 +107,7 @@ public class ManagementMockModel implements ManagementModel {
   @Override
   public AbstractMap.SimpleEntry<Map<LocalDate,
           String>, Integer> getPerformanceOfStock(LocalDate startDate,
-                                                  LocalDate endDate, List<Map<String,
-          String>> values) {
+                                                  LocalDate endDate, PriceSeries series) {
     messageLog.append("\nReached performance of stock\n").append(startDate)
             .append("\n").append(endDate);
     return null;
@@ -4,6 +4,7 @@ import org.junit.Test;
 import java.text.ParseException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -11,6 +12,7 @@ import java.util.Map;
 
 import model.ManagementModel;
 import model.ManagementModelImpl;
+import model.PriceSeries;
 
 import static org.junit.Assert.assertEquals;
 
@@ -352,177 +354,86 @@ public class ManagementModelImplTest {
             model.totalValueOfFlexiblePortfolio(Collections.singletonList(stock)));
   }
 
+  private static PriceSeries series(float... closes) {
+    PriceSeries.Builder builder = PriceSeries.builder("GOOG");
+    int day = (int) LocalDate.parse("2024-01-01").toEpochDay();
+    for (int i = 0; i < closes.length; i++) {
+      builder.add(day + i, closes[i], closes[i], closes[i], closes[i], 3142600);
+    }
+    return builder.build();
+  }
+
+  private static PriceSeries crossingSeries() {
+    float[] closes = new float[32];
+    Arrays.fill(closes, 100);
+    closes[30] = 90;
+    closes[31] = 110;
+    return series(closes);
+  }
+
   @Test
   public void testGainOnADay() {
-    Map<String, String> stock = new HashMap<>();
-    stock.put("close", "151.1500");
-    stock.put("open", "150.9500");
+    PriceSeries stock = PriceSeries.builder("GOOG")
+            .add((int) LocalDate.parse("2024-03-25").toEpochDay(), 150.95f, 151.5f, 150.1f,
+                    151.15f, 15114728)
+            .build();
 
-    assertEquals(0.1999969, model.stockAnalysisDay(stock), 0.001);
+    assertEquals(0.1999969, model.stockAnalysisDay(stock, LocalDate.parse("2024-03-25")),
+            0.001);
   }
 
   @Test
   public void testGainOverPeriod() {
-    Map<String, String> stock = new HashMap<>();
-    stock.put("closePriceStartDate", "149.6800");
-    stock.put("closePriceEndDate", "151.1500");
+    PriceSeries stock = series(149.68f, 150.5f, 151.15f);
 
-    assertEquals(1.4700, model.stockAnalysisPeriod(stock), 0.001);
+    assertEquals(1.4700, model.stockAnalysisPeriod(stock, LocalDate.parse("2024-01-01"),
+            LocalDate.parse("2024-01-03")), 0.001);
   }
 
   @Test
   public void testLoseOnADay() {
-    Map<String, String> stock = new HashMap<>();
-    stock.put("open", "151.1500");
-    stock.put("close", "150.9500");
+    PriceSeries stock = PriceSeries.builder("GOOG")
+            .add((int) LocalDate.parse("2024-03-25").toEpochDay(), 151.15f, 151.5f, 150.1f,
+                    150.95f, 15114728)
+            .build();
 
-    assertEquals(-0.1999969, model.stockAnalysisDay(stock), 0.001);
+    assertEquals(-0.1999969, model.stockAnalysisDay(stock, LocalDate.parse("2024-03-25")),
+            0.001);
   }
 
   @Test
   public void testLoseOverPeriod() {
-    Map<String, String> stock = new HashMap<>();
-    stock.put("closePriceEndDate", "149.6800");
-    stock.put("closePriceStartDate", "151.1500");
+    PriceSeries stock = series(151.15f, 150.5f, 149.68f);
 
-    assertEquals(-1.4700, model.stockAnalysisPeriod(stock), 0.001);
+    assertEquals(-1.4700, model.stockAnalysisPeriod(stock, LocalDate.parse("2024-01-01"),
+            LocalDate.parse("2024-01-03")), 0.001);
   }
 
   @Test
   public void testXDayMovingAverage() {
-    List<Map<String, String>> dataList = new ArrayList<>();
-    Map<String, String> data01 = new HashMap<>();
-    data01.put("volume", "3142600");
-    data01.put("ticker", "GOOG");
-    data01.put("close", "554.9000");
-    data01.put("open", "542.6000");
-    data01.put("timestamp", "2024-03-19");
-    dataList.add(data01);
-
-    Map<String, String> data0 = new HashMap<>();
-    data0.put("volume", "3142600");
-    data0.put("ticker", "GOOG");
-    data0.put("close", "554.9000");
-    data0.put("open", "542.6000");
-    data0.put("timestamp", "2024-03-20");
-    dataList.add(data0);
-
-    Map<String, String> data1 = new HashMap<>();
-    data1.put("volume", "3142600");
-    data1.put("ticker", "GOOG");
-    data1.put("close", "554.9000");
-    data1.put("open", "542.6000");
-    data1.put("timestamp", "2024-03-21");
-    dataList.add(data1);
-
-    Map<String, String> data2 = new HashMap<>();
-    data2.put("volume", "4389600");
-    data2.put("ticker", "GOOG");
-    data2.put("close", "538.1500");
-    data2.put("open", "540.7400");
-    data2.put("timestamp", "2024-03-25");
-    dataList.add(data2);
-
-    Map<String, String> additionalData = new HashMap<>();
-    additionalData.put("date", "2024-03-25");
-    additionalData.put("day", "2");
-    dataList.add(additionalData);
-    assertEquals(151.45, model.xDayMovingAverage(dataList), 0.001);
+    PriceSeries stock = series(554.9f, 554.9f, 554.9f, 538.15f);
 
+    assertEquals(546.525, model.xDayMovingAverage(stock, LocalDate.parse("2024-01-04"), 2),
+            0.001);
   }
 
   @Test
   public void testCrossover() {
-    List<Map<String, String>> dataList = new ArrayList<>();
-    Map<String, String> data01 = new HashMap<>();
-    data01.put("volume", "3142600");
-    data01.put("ticker", "GOOG");
-    data01.put("close", "554.9000");
-    data01.put("open", "542.6000");
-    data01.put("timestamp", "2024-03-19");
-    dataList.add(data01);
-
-    Map<String, String> data0 = new HashMap<>();
-    data0.put("volume", "3142600");
-    data0.put("ticker", "GOOG");
-    data0.put("close", "554.9000");
-    data0.put("open", "542.6000");
-    data0.put("timestamp", "2024-03-20");
-    dataList.add(data0);
-
-    Map<String, String> data1 = new HashMap<>();
-    data1.put("volume", "3142600");
-    data1.put("ticker", "GOOG");
-    data1.put("close", "554.9000");
-    data1.put("open", "542.6000");
-    data1.put("timestamp", "2024-03-21");
-    dataList.add(data1);
+    Map<String, List<String>> crossovers = model.crossOvers(crossingSeries(),
+            LocalDate.parse("2024-01-30"), LocalDate.parse("2024-02-01"));
 
-    Map<String, String> data2 = new HashMap<>();
-    data2.put("volume", "4389600");
-    data2.put("ticker", "GOOG");
-    data2.put("close", "538.1500");
-    data2.put("open", "540.7400");
-    data2.put("timestamp", "2024-03-25");
-    dataList.add(data2);
-
-    Map<String, String> additionalData = new HashMap<>();
-    additionalData.put("startDate", "2024-03-22");
-    additionalData.put("endDate", "2024-03-25");
-    additionalData.put("day", "30");
-    dataList.add(additionalData);
-
-    assertEquals("[2024-03-22]",
-            model.crossOvers(dataList).get("POSITIVES").toString(), 0.001);
-    assertEquals("[2024-03-21]",
-            model.crossOvers(dataList).get("NEGATIVES").toString(), 0.001);
+    assertEquals("[2024-02-01]", crossovers.get("POSITIVES").toString());
+    assertEquals("[2024-01-31]", crossovers.get("NEGATIVES").toString());
   }
 
   @Test
   public void testMovingCrossover() {
-    List<Map<String, String>> dataList = new ArrayList<>();
-    Map<String, String> data01 = new HashMap<>();
-    data01.put("volume", "3142600");
-    data01.put("ticker", "GOOG");
-    data01.put("close", "554.9000");
-    data01.put("open", "542.6000");
-    data01.put("timestamp", "2024-03-19");
-    dataList.add(data01);
-
-    Map<String, String> data0 = new HashMap<>();
-    data0.put("volume", "3142600");
-    data0.put("ticker", "GOOG");
-    data0.put("close", "554.9000");
-    data0.put("open", "542.6000");
-    data0.put("timestamp", "2024-03-20");
-    dataList.add(data0);
-
-    Map<String, String> data1 = new HashMap<>();
-    data1.put("volume", "3142600");
-    data1.put("ticker", "GOOG");
-    data1.put("close", "554.9000");
-    data1.put("open", "542.6000");
-    data1.put("timestamp", "2024-03-21");
-    dataList.add(data1);
+    PriceSeries stock = series(100, 100, 100, 104, 90, 80, 120, 140);
+    Map<String, List<String>> crossovers = model.movingCrossovers(stock,
+            LocalDate.parse("2024-01-05"), LocalDate.parse("2024-01-08"), 2, 4);
 
-    Map<String, String> data2 = new HashMap<>();
-    data2.put("volume", "4389600");
-    data2.put("ticker", "GOOG");
-    data2.put("close", "538.1500");
-    data2.put("open", "540.7400");
-    data2.put("timestamp", "2024-03-25");
-    dataList.add(data2);
-
-    Map<String, String> additionalData = new HashMap<>();
-    additionalData.put("startDate", "2024-03-22");
-    additionalData.put("endDate", "2024-03-25");
-    additionalData.put("xday", "30");
-    additionalData.put("yday", "100");
-    dataList.add(additionalData);
-    assertEquals("[2024-03-22]",
-            model.crossOvers(dataList).get("POSITIVES").toString(), 0.001);
-    assertEquals("[2024-03-21]",
-            model.crossOvers(dataList).get("NEGATIVES").toString(), 0.001);
+    assertEquals("[2024-01-07]", crossovers.get("POSITIVES").toString());
+    assertEquals("[2024-01-05]", crossovers.get("NEGATIVES").toString());
   }
 
   @Test
@@ -0,0 +1,162 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import controller.PortfolioCatalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the PortfolioCatalog class. The class tests that the catalog lists
+ * and finds the saved portfolios, that it reads only the changed files on a new start and that
+ * portfolios and journals changed outside the application are picked up by its watcher.
+ */
+public class PortfolioCatalogTest {
+
+  private static final String ROW = "GOOG,2024-01-10,138.6,140.36,18974308,3.0,421.08,BUY";
+
+  private Path root;
+  private File flexible;
+  private File inflexible;
+  private File strategies;
+  private PortfolioCatalog catalog;
+
+  @Before
+  public void setUp() throws IOException {
+    root = Files.createTempDirectory("portfolios");
+    flexible = root.resolve("flexible").toFile();
+    inflexible = root.resolve("inflexible").toFile();
+    strategies = root.resolve("strategy").toFile();
+    write(new File(flexible, "Heet.csv"), ROW, ROW, ROW);
+    write(new File(new File(flexible, "journal"), "Heet.journal"), "#base=3", "1,a", "2,b");
+    write(new File(flexible, "mehul.csv"), ROW);
+    write(new File(inflexible, "retirement.csv"), ROW, ROW);
+    write(new File(strategies, "heet_strategy.csv"), "s");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    if (catalog != null) {
+      catalog.close();
+    }
+    try (Stream<Path> paths = Files.walk(root)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  private static void write(File file, String... lines) throws IOException {
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+  }
+
+  private PortfolioCatalog open() {
+    catalog = PortfolioCatalog.of(root.toFile(), flexible, inflexible, strategies);
+    return catalog;
+  }
+
+  private static boolean await(PortfolioCatalog catalog, String name, boolean present)
+          throws InterruptedException {
+    for (int i = 0; i < 300; i++) {
+      if (catalog.names(PortfolioCatalog.Kind.FLEXIBLE).contains(name + ".csv") == present) {
+        return true;
+      }
+      Thread.sleep(50);
+    }
+    return false;
+  }
+
+  @Test
+  public void testListsAndFinds() {
+    PortfolioCatalog catalog = open();
+    assertEquals(Arrays.asList("Heet.csv", "mehul.csv"),
+            catalog.names(PortfolioCatalog.Kind.FLEXIBLE));
+    assertEquals(Arrays.asList("retirement.csv"),
+            catalog.names(PortfolioCatalog.Kind.INFLEXIBLE));
+    PortfolioCatalog.Entry entry = catalog.get(PortfolioCatalog.Kind.FLEXIBLE, "HEET");
+    assertEquals("Heet", entry.getName());
+    assertEquals(5, entry.getRows());
+    assertEquals(2, catalog.get(PortfolioCatalog.Kind.INFLEXIBLE, "retirement").getRows());
+    assertNull(catalog.get(PortfolioCatalog.Kind.INFLEXIBLE, "heet"));
+    assertEquals(new File(strategies, "heet_strategy.csv").getAbsoluteFile(),
+            catalog.strategyOf("Heet"));
+    assertNull(catalog.strategyOf("mehul"));
+  }
+
+  @Test
+  public void testReadsOnlyChangedFilesOnStart() throws IOException {
+    open().close();
+    File persisted = root.resolve(PortfolioCatalog.FILE_NAME).toFile();
+    List<String> lines = Files.readAllLines(persisted.toPath());
+    assertEquals(4, lines.size());
+    Files.write(persisted.toPath(), Arrays.asList(lines.stream()
+            .map(line -> line.startsWith("INFLEXIBLE,") || line.contains("mehul.csv")
+                    ? line.substring(0, line.lastIndexOf(',')) + ",42" : line)
+            .toArray(String[]::new)));
+    File mehul = new File(flexible, "mehul.csv");
+    long modified = mehul.lastModified();
+    write(mehul, ROW, ROW);
+    mehul.setLastModified(modified - 5000);
+
+    PortfolioCatalog catalog = open();
+    assertEquals(42, catalog.get(PortfolioCatalog.Kind.INFLEXIBLE, "retirement").getRows());
+    assertEquals(2, catalog.get(PortfolioCatalog.Kind.FLEXIBLE, "mehul").getRows());
+  }
+
+  @Test
+  public void testUpdateOnSave() throws IOException {
+    PortfolioCatalog catalog = open();
+    File saved = new File(inflexible, "college.csv");
+    write(saved, ROW);
+    catalog.update(PortfolioCatalog.Kind.INFLEXIBLE, saved, 1);
+    assertEquals(Arrays.asList("college.csv", "retirement.csv"),
+            catalog.names(PortfolioCatalog.Kind.INFLEXIBLE));
+    catalog.close();
+    assertTrue(Files.readAllLines(root.resolve(PortfolioCatalog.FILE_NAME))
+            .contains("INFLEXIBLE,college.csv," + saved.length() + "," + saved.lastModified()
+                    + ",1"));
+  }
+
+  @Test
+  public void testLooksUpUnreportedFile() throws IOException {
+    PortfolioCatalog catalog = open();
+    write(new File(flexible, "copied.csv"), ROW);
+    assertEquals(1, catalog.get(PortfolioCatalog.Kind.FLEXIBLE, "copied").getRows());
+  }
+
+  @Test
+  public void testWatcherPicksUpChanges() throws Exception {
+    PortfolioCatalog catalog = open();
+    write(new File(flexible, "added.csv"), ROW);
+    assertTrue(await(catalog, "added", true));
+    Files.delete(flexible.toPath().resolve("mehul.csv"));
+    assertTrue(await(catalog, "mehul", false));
+    assertNull(catalog.get(PortfolioCatalog.Kind.FLEXIBLE, "mehul"));
+  }
+
+  @Test
+  public void testWatcherPicksUpJournalAppends() throws Exception {
+    PortfolioCatalog catalog = open();
+    Files.write(flexible.toPath().resolve("journal").resolve("Heet.journal"),
+            Arrays.asList("3,c", "4,d"), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    for (int i = 0; i < 300
+            && catalog.get(PortfolioCatalog.Kind.FLEXIBLE, "Heet").getRows() != 7; i++) {
+      Thread.sleep(50);
+    }
+    assertEquals(7, catalog.get(PortfolioCatalog.Kind.FLEXIBLE, "Heet").getRows());
+  }
+}
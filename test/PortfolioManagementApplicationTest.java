@@ -251,12 +251,29 @@ public class PortfolioManagementApplicationTest {
             "1. View all stocks.2. Add a particular stock.3. " +
             "Get the total value of portfolio.4. Get the total composition of portfolio." +
             "5. Save the portfolio.6. Back to main menu." +
-            "Choose an option: Search ticker name from A-Z :  " +
+            "Choose an option: Search company name or ticker :  " +
             "-----------------------------------------" +
             "STOCKS\tCOMPANY NAME" +
+            "ALPN\tAlpine Immune Sciences Inc" +
+            "ALPP\tAlpine 4 Holdings Inc - Class A" +
             "ALPS\tAlpine Summit Energy Partners Inc" +
-            "ALPP\tAlpine 4 Holdings Inc - Class " +
-            "AALPN\tAlpine Immune Sciences Inc" +
+            "RUFF\tALPHA DOG ETF " +
+            "TKNO\tAlpha Teknova Inc" +
+            "APT\tAlpha Pro Tech Ltd" +
+            "REIT\tALPS Active REIT ETF" +
+            "GOOG\tAlphabet Inc - Class C" +
+            "GOOGL\tAlphabet Inc - Class A" +
+            "ACES\tALPS Clean Energy ETF" +
+            "ATEC\tAlphatec Holdings Inc" +
+            "DRTS\tAlpha Tau Medical Ltd" +
+            "ALSA\tAlpha Star Acquisition Corp" +
+            "ATGL\tAlpha Technology Group Ltd" +
+            "ATMC\tAlphaTime Acquisition Corp" +
+            "ATMCR\tAlphaTime Acquisition Corp" +
+            "ATMV\tAlphaVest Acquisition Corp" +
+            "ATMVR\tAlphaVest Acquisition Corp" +
+            "ALSAR\tAlpha Star Acquisition Corp" +
+            "RDOG\tALPS REIT Dividend Dogs ETF" +
             "-----------------------------------------" +
             "1. View all stocks.2. Add a particular stock." +
             "3. Get the total value of portfolio.4. " +
@@ -0,0 +1,107 @@
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.FlexiblePortfolioModelImpl;
+import model.PortfolioSnapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the PortfolioSnapshot class. The class tests that a portfolio loaded
+ * from its snapshot has the same shares and transactions as the portfolio loaded from its csv
+ * file.
+ */
+public class PortfolioSnapshotTest {
+
+  private static Map<String, String> price(String ticker, String date, String close) {
+    Map<String, String> data = new HashMap<>();
+    data.put("ticker", ticker);
+    data.put("timestamp", date);
+    data.put("open", close);
+    data.put("close", close);
+    data.put("volume", "15114728");
+    return data;
+  }
+
+  private static FlexiblePortfolioModelImpl portfolio() throws ParseException {
+    List<String> transactions = new ArrayList<>();
+    transactions.add("VZ,2020-10-15,58.11,58.16,13645772,20.0,1163.2,BUY");
+    transactions.add("GOOG,2020-10-15,1547.15,1559.13,1540817,10.0,15591.3,BUY");
+    FlexiblePortfolioModelImpl portfolio = new FlexiblePortfolioModelImpl("p1", transactions);
+    portfolio.add(5, price("GOOG", "2020-10-15", "1559.13"));
+    portfolio.add(3, price("MSFT", "2021-02-01", "239.65"));
+    portfolio.sell(20, "VZ", LocalDate.of(2020, 11, 2));
+    return portfolio;
+  }
+
+  @Test
+  public void testRoundTrip() throws ParseException {
+    FlexiblePortfolioModelImpl portfolio = portfolio();
+    PortfolioSnapshot snapshot = (PortfolioSnapshot) portfolio.getTransactionHistory();
+    PortfolioSnapshot decoded = PortfolioSnapshot.decode(snapshot.encode());
+    assertEquals(portfolio.getTransactionHistory(), decoded);
+
+    FlexiblePortfolioModelImpl loaded = new FlexiblePortfolioModelImpl("p1", decoded);
+    FlexiblePortfolioModelImpl replayed = new FlexiblePortfolioModelImpl("p1",
+            new ArrayList<>(decoded));
+    assertEquals(replayed.totalComposition().toString(), loaded.totalComposition().toString());
+    assertEquals(replayed.getTotalInvestment(LocalDate.of(2021, 3, 1)),
+            loaded.getTotalInvestment(LocalDate.of(2021, 3, 1)), 0);
+  }
+
+  @Test
+  public void testSnapshotMatchesCsvForRepeatBuys() throws ParseException {
+    FlexiblePortfolioModelImpl portfolio = portfolio();
+    portfolio.add(2, price("MSFT", "2021-02-01", "239.65"));
+    portfolio.sell(1, "MSFT", LocalDate.of(2021, 2, 3));
+    PortfolioSnapshot decoded = PortfolioSnapshot.decode(
+            ((PortfolioSnapshot) portfolio.getTransactionHistory()).encode());
+    List<String> csv = new ArrayList<>(decoded);
+
+    FlexiblePortfolioModelImpl loaded = new FlexiblePortfolioModelImpl("p1", decoded);
+    FlexiblePortfolioModelImpl replayed = new FlexiblePortfolioModelImpl("p1", csv);
+    assertEquals(replayed.totalComposition().toString(), loaded.totalComposition().toString());
+    assertTrue(loaded.totalComposition().toString().contains("GOOG,2020-10-15,1547.15,1559.13,"
+            + "1540817,15.0,31182.6"));
+    assertEquals(PortfolioSnapshot.replay(csv).encode(),
+            ((PortfolioSnapshot) loaded.getTransactionHistory()).encode());
+
+    loaded.add(4, price("GOOG", "2020-10-15", "1559.13"));
+    replayed = new FlexiblePortfolioModelImpl("p1",
+            new ArrayList<>(loaded.getTransactionHistory()));
+    FlexiblePortfolioModelImpl reloaded = new FlexiblePortfolioModelImpl("p1",
+            PortfolioSnapshot.decode(
+                    ((PortfolioSnapshot) loaded.getTransactionHistory()).encode()));
+    assertEquals(replayed.totalComposition().toString(), reloaded.totalComposition().toString());
+    assertEquals(replayed.getTotalInvestment(LocalDate.of(2021, 3, 1)),
+            reloaded.getTotalInvestment(LocalDate.of(2021, 3, 1)), 0);
+  }
+
+  @Test
+  public void testLoadedPortfolioIsIndependent() throws ParseException {
+    PortfolioSnapshot decoded = PortfolioSnapshot.decode(
+            ((PortfolioSnapshot) portfolio().getTransactionHistory()).encode());
+    FlexiblePortfolioModelImpl first = new FlexiblePortfolioModelImpl("p1", decoded);
+    first.add(7, price("MSFT", "2021-02-01", "239.65"));
+    FlexiblePortfolioModelImpl second = new FlexiblePortfolioModelImpl("p1", decoded);
+    assertEquals(5, decoded.size());
+    assertEquals(6, first.getTransactionHistory().size());
+    assertTrue(second.totalComposition().toString().contains("MSFT,2021-02-01,239.65,239.65,"
+            + "15114728,3.0,"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDamagedSnapshot() throws ParseException {
+    ByteBuffer buffer = ((PortfolioSnapshot) portfolio().getTransactionHistory()).encode();
+    buffer.put(buffer.limit() - 3, (byte) 'X');
+    PortfolioSnapshot.decode(buffer);
+  }
+}
@@ -0,0 +1,130 @@
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller.APIImpl;
+import controller.Prefetcher;
+import controller.RateLimiter;
+import model.PriceSeries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the Prefetcher and the RateLimiter classes. The tickers are fetched
+ * from a stub of the Alpha Vantage API running on the local machine.
+ */
+public class PrefetcherTest {
+
+  private HttpServer server;
+  private AtomicInteger requests;
+  private APIImpl api;
+
+  @Before
+  public void setUp() throws IOException {
+    requests = new AtomicInteger();
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/query", exchange -> {
+      requests.incrementAndGet();
+      String query = exchange.getRequestURI().getQuery();
+      String body = query.contains("symbol=GOOG")
+              ? "timestamp,open,high,low,close,volume\n"
+              + "2024-03-22,150.24,152.55,150.09,151.77,19226309\n"
+              + "2024-03-21,150.32,151.30,148.01,148.74,19843896\n"
+              : "{\"Error Message\": \"Invalid API call.\"}";
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(200, bytes.length);
+      try (OutputStream outputStream = exchange.getResponseBody()) {
+        outputStream.write(bytes);
+      }
+    });
+    server.start();
+    api = new APIImpl("http://127.0.0.1:" + server.getAddress().getPort() + "/query", "demo",
+            new RateLimiter(0, 0));
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  private void load(String ticker) throws Exception {
+    PriceSeries series = api.getRecentStockDetails(ticker);
+    if (series.isEmpty()) {
+      throw new IOException("Stock data for " + ticker + " is unavailable");
+    }
+  }
+
+  @Test
+  public void testPrefetchReportsEveryTicker() throws InterruptedException {
+    List<String> progress = new ArrayList<>();
+    Map<String, Prefetcher.Result> results = new Prefetcher(2).prefetch(
+            List.of("GOOG", "XXXX"), this::load,
+            (result, completed, total) -> progress.add(completed + "/" + total));
+    assertTrue(results.get("GOOG").isSuccess());
+    assertFalse(results.get("XXXX").isSuccess());
+    assertEquals("Stock data for XXXX is unavailable", results.get("XXXX").getError());
+    assertEquals("[1/2, 2/2]", progress.toString());
+  }
+
+  @Test
+  public void testPrefetchLoadsTickerOnce() throws InterruptedException {
+    Map<String, Prefetcher.Result> results = new Prefetcher(4).prefetch(
+            List.of("GOOG", "goog", "GOOG"), this::load, null);
+    assertEquals(1, results.size());
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  public void testRateLimiterPerMinute() {
+    RateLimiter limiter = new RateLimiter(2, 0);
+    assertTrue(limiter.tryAcquire());
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+  }
+
+  @Test
+  public void testRateLimiterPerDay() throws InterruptedException {
+    RateLimiter limiter = new RateLimiter(0, 1);
+    assertTrue(limiter.acquire());
+    assertFalse(limiter.acquire());
+  }
+
+  @Test
+  public void testInterruptedAcquireKeepsDailyToken() throws InterruptedException {
+    RateLimiter limiter = new RateLimiter(1, 3);
+    assertTrue(limiter.acquire());
+    assertEquals(2, limiter.remainingToday());
+    AtomicInteger interrupted = new AtomicInteger();
+    Thread waiting = new Thread(() -> {
+      try {
+        limiter.acquire();
+      } catch (InterruptedException e) {
+        interrupted.incrementAndGet();
+      }
+    });
+    waiting.start();
+    Thread.sleep(200);
+    waiting.interrupt();
+    waiting.join();
+    assertEquals(1, interrupted.get());
+    assertEquals(2, limiter.remainingToday());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParallelism() {
+    new Prefetcher(0);
+  }
+}
@@ -0,0 +1,101 @@
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import model.PriceArena;
+import model.PriceSeries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the PriceArena class. The class tests that the series put into the
+ * arena are read back by id and row, that a ticker that is put again keeps its id and that the
+ * series are spread over several chunks.
+ */
+public class PriceArenaTest {
+
+  private static int day(String date) {
+    return (int) LocalDate.parse(date).toEpochDay();
+  }
+
+  private static PriceSeries series(String ticker, int rows, float base) {
+    PriceSeries.Builder builder = PriceSeries.builder(ticker);
+    for (int i = 0; i < rows; i++) {
+      builder.add(day("2024-01-01") + i * 2, base + i, base + i + 1, base + i - 1,
+              base + i + 0.5f, 1000L * i + 5_000_000_000L);
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void testReadsBackEveryColumn() {
+    PriceArena arena = new PriceArena();
+    PriceSeries goog = PriceSeries.builder("GOOG")
+            .add(day("2024-03-21"), 150.32f, 151.30f, 148.01f, 148.74f, 19843896)
+            .add(day("2024-03-22"), 150.24f, 152.55f, 150.09f, 151.77f, 19226309)
+            .add(day("2024-03-25"), 150.95f, 151.5f, 150.1f, 151.15f, 15114728)
+            .build();
+    assertEquals(0, arena.put(series("MSFT", 10, 300)));
+    int id = arena.put(goog);
+    assertEquals(1, id);
+    assertEquals(id, arena.id("goog"));
+    assertEquals(-1, arena.id("VZ"));
+    assertEquals("GOOG", arena.ticker(id));
+    assertEquals(2, arena.size());
+    assertEquals(3, arena.rows(id));
+    assertEquals(day("2024-03-22"), arena.getEpochDay(id, 1));
+    assertEquals(150.24f, arena.getOpen(id, 1), 0);
+    assertEquals(152.55f, arena.getHigh(id, 1), 0);
+    assertEquals(150.09f, arena.getLow(id, 1), 0);
+    assertEquals(151.77f, arena.getClose(id, 1), 0);
+    assertEquals(19226309, arena.getVolume(id, 1));
+    assertEquals(5_000_009_000L, arena.getVolume(0, 9));
+  }
+
+  @Test
+  public void testIndexOnOrBefore() {
+    PriceArena arena = new PriceArena();
+    int id = arena.put(series("IBM", 5, 100));
+    assertEquals(-1, arena.indexOnOrBefore(id, day("2023-12-31")));
+    assertEquals(0, arena.indexOnOrBefore(id, day("2024-01-01")));
+    assertEquals(0, arena.indexOnOrBefore(id, day("2024-01-02")));
+    assertEquals(4, arena.indexOnOrBefore(id, day("2024-06-01")));
+    assertEquals(102.5f, arena.getCloseOnOrBefore(id, day("2024-01-06")), 0);
+    assertTrue(Float.isNaN(arena.getCloseOnOrBefore(id, day("2023-01-01"))));
+  }
+
+  @Test
+  public void testPutAgainKeepsId() {
+    PriceArena arena = new PriceArena();
+    int id = arena.put(series("AAPL", 4, 10));
+    arena.put(series("VZ", 4, 20));
+    assertEquals(id, arena.put(series("aapl", 6, 50)));
+    assertEquals(6, arena.rows(id));
+    assertEquals(55.5f, arena.getClose(id, 5), 0);
+    assertEquals(4 * 28, arena.getWastedBytes());
+    assertEquals(10 * 28, arena.getUsedBytes());
+  }
+
+  @Test
+  public void testSpreadsOverChunks() {
+    PriceArena arena = new PriceArena(1024);
+    for (int i = 0; i < 50; i++) {
+      arena.put(series("T" + i, 20, i));
+    }
+    int large = arena.put(series("LARGE", 100, 7));
+    assertTrue(arena.getAllocatedBytes() >= 50 * 20 * 28 + 100 * 28);
+    for (int i = 0; i < 50; i++) {
+      assertEquals(i + 19.5f, arena.getClose(arena.id("T" + i), 19), 0);
+    }
+    assertEquals(106.5f, arena.getClose(large, 99), 0);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testRowOutOfRange() {
+    PriceArena arena = new PriceArena();
+    arena.put(series("A", 3, 1));
+    int id = arena.put(series("B", 3, 1));
+    arena.getClose(id - 1, 3);
+  }
+}
@@ -0,0 +1,104 @@
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Random;
+
+import controller.PriceBlocks;
+import model.PriceSeries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the PriceBlocks class. The class tests that a series is decoded
+ * exactly as it was encoded, as a whole and by a range of dates.
+ */
+public class PriceBlocksTest {
+
+  private static final LocalDate FETCHED = LocalDate.of(2024, 10, 8);
+
+  private static PriceSeries tradingDays(int rows, long seed) {
+    Random random = new Random(seed);
+    PriceSeries.Builder builder = PriceSeries.builder("GOOG");
+    LocalDate date = LocalDate.of(2014, 3, 27);
+    float close = 55.99f;
+    for (int i = 0; i < rows; i++) {
+      float open = Math.round((close + random.nextGaussian()) * 100) / 100f;
+      close = Math.round((open + random.nextGaussian()) * 10000) / 10000f;
+      builder.add((int) date.toEpochDay(), open, Math.max(open, close) + 0.5f,
+              Math.min(open, close) - 0.25f, close, random.nextInt(50_000_000));
+      do {
+        date = date.plusDays(random.nextInt(20) == 0 ? 2 : 1);
+      }
+      while (date.getDayOfWeek() == DayOfWeek.SATURDAY
+              || date.getDayOfWeek() == DayOfWeek.SUNDAY);
+    }
+    return builder.build();
+  }
+
+  private static void assertSameRows(PriceSeries expected, int offset, PriceSeries actual) {
+    for (int i = 0; i < actual.size(); i++) {
+      assertEquals(expected.getEpochDay(offset + i), actual.getEpochDay(i));
+      assertEquals(Float.floatToRawIntBits(expected.getOpen(offset + i)),
+              Float.floatToRawIntBits(actual.getOpen(i)));
+      assertEquals(Float.floatToRawIntBits(expected.getHigh(offset + i)),
+              Float.floatToRawIntBits(actual.getHigh(i)));
+      assertEquals(Float.floatToRawIntBits(expected.getLow(offset + i)),
+              Float.floatToRawIntBits(actual.getLow(i)));
+      assertEquals(Float.floatToRawIntBits(expected.getClose(offset + i)),
+              Float.floatToRawIntBits(actual.getClose(i)));
+      assertEquals(expected.getVolume(offset + i), actual.getVolume(i));
+    }
+  }
+
+  @Test
+  public void testRoundTrip() {
+    PriceSeries series = tradingDays(2652, 7);
+    ByteBuffer file = PriceBlocks.encode(series, FETCHED);
+    PriceSeries decoded = PriceBlocks.decode(file, "goog");
+    assertEquals("GOOG", decoded.getTicker());
+    assertEquals(series.size(), decoded.size());
+    assertSameRows(series, 0, decoded);
+    assertTrue(file.limit() < series.size() * 28 * 3 / 4);
+  }
+
+  @Test
+  public void testRoundTripOfUnusualValues() {
+    PriceSeries series = PriceSeries.builder("XYZ")
+            .add(0, 0f, Float.MAX_VALUE, Float.MIN_VALUE, -1.5f, 0)
+            .add(1, -0f, 1e-20f, 3.4e30f, 0.1f, Long.MAX_VALUE)
+            .add(4000, 0.1f, 0.1f, 0.1f, 0.1f, -1)
+            .add(4001, 0.1f, 0.1f, 0.1f, 0.1f, 1)
+            .build();
+    PriceSeries decoded = PriceBlocks.decode(PriceBlocks.encode(series, FETCHED), "XYZ");
+    assertEquals(series.size(), decoded.size());
+    assertSameRows(series, 0, decoded);
+  }
+
+  @Test
+  public void testRange() {
+    PriceSeries series = tradingDays(1000, 11);
+    ByteBuffer file = PriceBlocks.encode(series, FETCHED);
+    int from = series.getEpochDay(250);
+    int to = series.getEpochDay(700);
+    PriceSeries range = PriceBlocks.decode(file, "GOOG", from, to);
+    assertEquals(451, range.size());
+    assertSameRows(series, 250, range);
+
+    range = PriceBlocks.decode(file, "GOOG", series.getEpochDay(999),
+            series.getEpochDay(999) + 100);
+    assertEquals(1, range.size());
+    assertSameRows(series, 999, range);
+
+    assertEquals(0, PriceBlocks.decode(file, "GOOG", series.getEpochDay(999) + 1,
+            Integer.MAX_VALUE).size());
+    assertEquals(0, PriceBlocks.decode(file, "GOOG", 0, series.getEpochDay(0) - 1).size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNotEncoded() {
+    PriceBlocks.decode(ByteBuffer.allocate(64), "GOOG");
+  }
+}
@@ -0,0 +1,125 @@
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import model.PriceRollup;
+import model.PriceSeries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the PriceRollup class. The class tests the bars of every period
+ * against the daily rows and that appending to a series gives the same bars as rolling up the
+ * appended series again.
+ */
+public class PriceRollupTest {
+
+  private static int day(String date) {
+    return (int) LocalDate.parse(date).toEpochDay();
+  }
+
+  private static PriceSeries randomSeries(int rows, long seed) {
+    Random random = new Random(seed);
+    PriceSeries.Builder builder = PriceSeries.builder("GOOG");
+    LocalDate date = LocalDate.of(2019, 12, 30);
+    for (int i = 0; i < rows; i++) {
+      float open = 100 + random.nextInt(1000) / 100f;
+      float close = 100 + random.nextInt(1000) / 100f;
+      builder.add((int) date.toEpochDay(), open, Math.max(open, close) + random.nextInt(100)
+              / 100f, Math.min(open, close) - random.nextInt(100) / 100f, close,
+              random.nextInt(1000));
+      date = date.plusDays(1 + random.nextInt(4));
+    }
+    return builder.build();
+  }
+
+  private static void assertSameBars(PriceRollup expected, PriceRollup actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getStartDate(i), actual.getStartDate(i));
+      assertEquals(expected.getLastDate(i), actual.getLastDate(i));
+      assertEquals(expected.getOpen(i), actual.getOpen(i), 0);
+      assertEquals(expected.getHigh(i), actual.getHigh(i), 0);
+      assertEquals(expected.getLow(i), actual.getLow(i), 0);
+      assertEquals(expected.getClose(i), actual.getClose(i), 0);
+      assertEquals(expected.getVolume(i), actual.getVolume(i));
+    }
+  }
+
+  @Test
+  public void testMonthlyBars() {
+    PriceSeries series = PriceSeries.builder("GOOG")
+            .add(day("2024-01-30"), 10, 12, 9, 11, 100)
+            .add(day("2024-01-31"), 11, 15, 10, 14, 200)
+            .add(day("2024-02-01"), 14, 14, 8, 9, 300)
+            .add(day("2024-04-02"), 20, 21, 19, 20, 400)
+            .build();
+    PriceRollup bars = series.rollup(PriceRollup.Period.MONTH);
+    assertEquals(3, bars.size());
+    assertEquals(LocalDate.parse("2024-01-01"), bars.getStartDate(0));
+    assertEquals(LocalDate.parse("2024-01-31"), bars.getLastDate(0));
+    assertEquals(10, bars.getOpen(0), 0);
+    assertEquals(15, bars.getHigh(0), 0);
+    assertEquals(9, bars.getLow(0), 0);
+    assertEquals(14, bars.getClose(0), 0);
+    assertEquals(300, bars.getVolume(0));
+    assertEquals(LocalDate.parse("2024-04-01"), bars.getStartDate(2));
+    assertEquals(1, bars.indexOnOrBefore(LocalDate.parse("2024-03-01")));
+    assertEquals(-1, bars.indexOnOrBefore(LocalDate.parse("2023-12-31")));
+    assertTrue(bars == series.rollup(PriceRollup.Period.MONTH));
+  }
+
+  @Test
+  public void testPeriodBoundaries() {
+    PriceSeries series = PriceSeries.builder("GOOG")
+            .add(day("2023-12-29"), 1, 1, 1, 1, 1)
+            .add(day("2024-01-01"), 2, 2, 2, 2, 1)
+            .add(day("2024-03-31"), 3, 3, 3, 3, 1)
+            .add(day("2024-04-01"), 4, 4, 4, 4, 1)
+            .build();
+    PriceRollup weeks = series.rollup(PriceRollup.Period.WEEK);
+    assertEquals(LocalDate.parse("2023-12-25"), weeks.getStartDate(0));
+    assertEquals(LocalDate.parse("2024-01-01"), weeks.getStartDate(1));
+    assertEquals(LocalDate.parse("2024-03-25"), weeks.getStartDate(2));
+    assertEquals(4, weeks.size());
+    PriceRollup quarters = series.rollup(PriceRollup.Period.QUARTER);
+    assertEquals(3, quarters.size());
+    assertEquals(LocalDate.parse("2024-01-01"), quarters.getStartDate(1));
+    assertEquals(3, quarters.getClose(1), 0);
+    assertEquals(2, quarters.getVolume(1));
+    PriceRollup years = series.rollup(PriceRollup.Period.YEAR);
+    assertEquals(2, years.size());
+    assertEquals(2, years.getOpen(1), 0);
+    assertEquals(4, years.getClose(1), 0);
+  }
+
+  @Test
+  public void testAppendUpdatesBars() {
+    PriceSeries full = randomSeries(900, 3);
+    PriceSeries.Builder head = PriceSeries.builder("GOOG");
+    for (int i = 0; i < 800; i++) {
+      head.add(full.getEpochDay(i), full.getOpen(i), full.getHigh(i), full.getLow(i),
+              full.getClose(i) + 1, full.getVolume(i));
+    }
+    PriceSeries.Builder tail = PriceSeries.builder("GOOG");
+    for (int i = 799; i < 900; i++) {
+      tail.add(full.getEpochDay(i), full.getOpen(i), full.getHigh(i), full.getLow(i),
+              full.getClose(i), full.getVolume(i));
+    }
+    PriceSeries stored = head.build();
+    for (PriceRollup.Period period : PriceRollup.Period.values()) {
+      stored.rollup(period);
+    }
+    PriceSeries appended = stored.append(tail.build());
+    assertEquals(900, appended.size());
+    assertEquals(full.getClose(799), appended.getClose(799), 0);
+    assertEquals(stored.getClose(798), appended.getClose(798), 0);
+    for (PriceRollup.Period period : PriceRollup.Period.values()) {
+      assertSameBars(PriceRollup.of(appended, period), appended.rollup(period));
+    }
+    assertTrue(stored == stored.append(PriceSeries.builder("GOOG")
+            .add(full.getEpochDay(0), 1, 1, 1, 1, 1).build()));
+  }
+}
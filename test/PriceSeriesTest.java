@@ -0,0 +1,92 @@
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import model.PriceSeries;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The JUnit test class for the PriceSeries class. The class tests the building of the series and
+ * reading the rows back from it.
+ */
+public class PriceSeriesTest {
+
+  private static int day(String date) {
+    return (int) LocalDate.parse(date).toEpochDay();
+  }
+
+  @Test
+  public void testBuildLatestFirst() {
+    PriceSeries series = PriceSeries.builder("GOOG")
+            .add(day("2024-03-25"), 150.95f, 151.5f, 150.1f, 151.15f, 15114728)
+            .add(day("2024-03-22"), 150.24f, 152.55f, 150.09f, 151.77f, 19226309)
+            .add(day("2024-03-21"), 150.32f, 151.30f, 148.01f, 148.74f, 19843896)
+            .build();
+    assertEquals(3, series.size());
+    assertEquals(LocalDate.parse("2024-03-21"), series.getDate(0));
+    assertEquals(LocalDate.parse("2024-03-25"), series.getDate(2));
+    assertEquals(151.77f, series.getClose(1), 0.001);
+    assertEquals(19843896, series.getVolume(0));
+  }
+
+  @Test
+  public void testBuildRemovesDuplicateDays() {
+    PriceSeries series = PriceSeries.builder("GOOG")
+            .add(day("2024-03-21"), 150.32f, 151.30f, 148.01f, 148.74f, 19843896)
+            .add(day("2024-03-22"), 150.24f, 152.55f, 150.09f, 151.77f, 19226309)
+            .add(day("2024-03-22"), 150.24f, 152.55f, 150.09f, 152.00f, 19226309)
+            .build();
+    assertEquals(2, series.size());
+    assertEquals(152.00f, series.getClose(1), 0.001);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testBuildUnorderedDays() {
+    PriceSeries.builder("GOOG")
+            .add(day("2024-03-21"), 150.32f, 151.30f, 148.01f, 148.74f, 19843896)
+            .add(day("2024-03-25"), 150.95f, 151.5f, 150.1f, 151.15f, 15114728)
+            .add(day("2024-03-22"), 150.24f, 152.55f, 150.09f, 151.77f, 19226309)
+            .build();
+  }
+
+  @Test
+  public void testToMaps() {
+    PriceSeries series = PriceSeries.builder("GOOG")
+            .add(day("2024-03-21"), 150.32f, 151.30f, 148.01f, 148.74f, 19843896)
+            .add(day("2024-03-22"), 150.24f, 152.55f, 150.09f, 151.77f, 19226309)
+            .build();
+    List<Map<String, String>> maps = series.toMaps();
+    assertEquals("2024-03-22", maps.get(0).get("timestamp"));
+    assertEquals("GOOG", maps.get(1).get("ticker"));
+    assertEquals("148.74", maps.get(1).get("close"));
+    assertEquals("19843896", maps.get(1).get("volume"));
+  }
+
+  @Test
+  public void testIndexOf() {
+    PriceSeries series = PriceSeries.builder("GOOG")
+            .add(day("2024-03-21"), 150.32f, 151.30f, 148.01f, 148.74f, 19843896)
+            .add(day("2024-03-22"), 150.24f, 152.55f, 150.09f, 151.77f, 19226309)
+            .build();
+    assertEquals(1, series.indexOf(LocalDate.parse("2024-03-22")));
+    assertEquals(-1, series.indexOf(LocalDate.parse("2024-03-23")));
+  }
+
+  @Test
+  public void testIndexOnOrBeforeAndAfter() {
+    PriceSeries series = PriceSeries.builder("GOOG")
+            .add(day("2024-03-22"), 150.24f, 152.55f, 150.09f, 151.77f, 19226309)
+            .add(day("2024-03-25"), 150.95f, 151.5f, 150.1f, 151.15f, 15114728)
+            .build();
+    assertEquals(0, series.indexOnOrBefore(LocalDate.parse("2024-03-24")));
+    assertEquals(1, series.indexOnOrBefore(LocalDate.parse("2024-03-25")));
+    assertEquals(1, series.indexOnOrBefore(LocalDate.parse("2024-04-01")));
+    assertEquals(-1, series.indexOnOrBefore(LocalDate.parse("2024-03-21")));
+    assertEquals(1, series.indexOnOrAfter(LocalDate.parse("2024-03-23")));
+    assertEquals(0, series.indexOnOrAfter(LocalDate.parse("2024-03-01")));
+    assertEquals(-1, series.indexOnOrAfter(LocalDate.parse("2024-03-26")));
+  }
+}
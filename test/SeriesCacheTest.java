@@ -0,0 +1,152 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller.SeriesCache;
+import model.PriceRollup;
+import model.PriceSeries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the SeriesCache class.
+ */
+public class SeriesCacheTest {
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private final SeriesCache.Loader loader = ticker -> {
+    loads.incrementAndGet();
+    PriceSeries.Builder builder = PriceSeries.builder(ticker);
+    for (int day = 0; day < 100; day++) {
+      builder.add(19000 + day, 10, 11, 9, 10, 100);
+    }
+    return builder.build();
+  };
+
+  private long seriesBytes() throws Exception {
+    return loader.load("GOOG").estimatedHeapBytes();
+  }
+
+  @Test
+  public void testHitAfterMiss() throws Exception {
+    SeriesCache cache = new SeriesCache(1 << 20);
+    PriceSeries first = cache.get("GOOG", loader);
+    assertTrue(first == cache.get("goog", loader));
+    assertEquals(1, loads.get());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(0.5, cache.getHitRate(), 0.0001);
+    assertEquals(first.estimatedHeapBytes(), cache.getBytes());
+    assertTrue(cache.getLoadNanos() > 0);
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() throws Exception {
+    SeriesCache cache = new SeriesCache(2 * seriesBytes());
+    cache.get("GOOG", loader);
+    cache.get("AAPL", loader);
+    cache.get("GOOG", loader);
+    cache.get("MSFT", loader);
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictions());
+    loads.set(0);
+    cache.get("GOOG", loader);
+    cache.get("MSFT", loader);
+    assertEquals(0, loads.get());
+    cache.get("AAPL", loader);
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void testSeriesLargerThanBudgetIsNotCached() throws Exception {
+    SeriesCache cache = new SeriesCache(seriesBytes() - 1);
+    cache.get("GOOG", loader);
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getBytes());
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    SeriesCache cache = new SeriesCache(1 << 20);
+    cache.get("GOOG", loader);
+    cache.invalidate("goog");
+    assertEquals(0, cache.getBytes());
+    cache.get("GOOG", loader);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testUpdate() throws Exception {
+    SeriesCache cache = new SeriesCache(1 << 20);
+    cache.update("GOOG", cached -> cached.append(cached));
+    assertEquals(0, cache.size());
+    cache.get("GOOG", loader);
+    cache.update("goog", cached -> cached.append(PriceSeries.builder("GOOG")
+            .add(19099, 10, 12, 9, 11, 200).add(19100, 11, 11, 10, 10, 50).build()));
+    PriceSeries updated = cache.get("GOOG", loader);
+    assertEquals(1, loads.get());
+    assertEquals(101, updated.size());
+    assertEquals(11, updated.getClose(99), 0);
+    assertEquals(updated.estimatedHeapBytes(), cache.getBytes());
+  }
+
+  @Test
+  public void testInvalidatedWhileLoadingIsNotCached() throws Exception {
+    SeriesCache cache = new SeriesCache(1 << 20);
+    cache.get("GOOG", ticker -> {
+      cache.invalidate(ticker);
+      return loader.load(ticker);
+    });
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testOtherTickerInvalidatedWhileLoadingIsCached() throws Exception {
+    SeriesCache cache = new SeriesCache(1 << 20);
+    cache.get("GOOG", ticker -> {
+      cache.invalidate("AAPL");
+      cache.update("MSFT", cached -> cached);
+      return loader.load(ticker);
+    });
+    assertEquals(1, cache.size());
+    cache.get("AAPL", ticker -> {
+      cache.clear();
+      return loader.load(ticker);
+    });
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testRollupsCountTowardsBudget() throws Exception {
+    SeriesCache cache = new SeriesCache(2 * seriesBytes());
+    PriceSeries goog = cache.get("GOOG", loader);
+    long before = goog.estimatedHeapBytes();
+    goog.rollup(PriceRollup.Period.WEEK);
+    goog.rollup(PriceRollup.Period.MONTH);
+    assertTrue(goog.estimatedHeapBytes() > before);
+    cache.get("GOOG", loader);
+    assertEquals(goog.estimatedHeapBytes(), cache.getBytes());
+
+    cache.get("AAPL", loader);
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getEvictions());
+    assertEquals(seriesBytes(), cache.getBytes());
+    cache.invalidate("AAPL");
+    assertEquals(0, cache.getBytes());
+  }
+
+  @Test(expected = IOException.class)
+  public void testFailedLoadIsNotCached() throws Exception {
+    SeriesCache cache = new SeriesCache(1 << 20);
+    try {
+      cache.get("XXXX", ticker -> {
+        throw new IOException("Stock data for XXXX is unavailable");
+      });
+    } finally {
+      assertEquals(0, cache.size());
+    }
+  }
+}
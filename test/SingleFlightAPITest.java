@@ -0,0 +1,103 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller.API;
+import controller.SingleFlightAPI;
+import model.PriceSeries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the SingleFlightAPI class. A mock API that waits until it is released
+ * is used so that the requests overlap.
+ */
+public class SingleFlightAPITest {
+
+  private final CountDownLatch entered = new CountDownLatch(1);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final AtomicInteger calls = new AtomicInteger();
+
+  private final API mockAPI = new API() {
+    @Override
+    public PriceSeries getStockDetails(String ticker) throws IOException {
+      calls.incrementAndGet();
+      entered.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new IOException("interrupted");
+      }
+      if (ticker.equals("XXXX")) {
+        throw new IOException("Stock data for XXXX is unavailable");
+      }
+      return PriceSeries.builder(ticker).add(19804, 150.24f, 152.55f, 150.09f, 151.77f, 1)
+              .build();
+    }
+
+    @Override
+    public PriceSeries getRecentStockDetails(String ticker) throws IOException {
+      return getStockDetails(ticker);
+    }
+  };
+
+  private void waitForCoalesced(SingleFlightAPI api, long count) throws InterruptedException {
+    for (int i = 0; i < 500 && api.getCoalesced() < count; i++) {
+      Thread.sleep(10);
+    }
+  }
+
+  private static String messageOf(Future<PriceSeries> future) throws Exception {
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      return null;
+    } catch (ExecutionException e) {
+      return e.getCause().getMessage();
+    }
+  }
+
+  @Test
+  public void testConcurrentRequestsShareFetch() throws Exception {
+    SingleFlightAPI api = new SingleFlightAPI(mockAPI);
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    Future<PriceSeries> first = executor.submit(() -> api.getStockDetails("GOOG"));
+    assertTrue(entered.await(5, TimeUnit.SECONDS));
+    Future<PriceSeries> second = executor.submit(() -> api.getStockDetails("GOOG"));
+    Future<PriceSeries> third = executor.submit(() -> api.getStockDetails("goog"));
+    waitForCoalesced(api, 2);
+    release.countDown();
+    PriceSeries series = first.get(5, TimeUnit.SECONDS);
+    assertTrue(series == second.get(5, TimeUnit.SECONDS));
+    assertTrue(series == third.get(5, TimeUnit.SECONDS));
+    assertEquals(1, calls.get());
+    assertEquals(3, api.getRequests());
+    assertEquals(2, api.getCoalesced());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testFailureSharedAndNotCached() throws Exception {
+    SingleFlightAPI api = new SingleFlightAPI(mockAPI);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    Future<PriceSeries> first = executor.submit(() -> api.getStockDetails("XXXX"));
+    assertTrue(entered.await(5, TimeUnit.SECONDS));
+    Future<PriceSeries> second = executor.submit(() -> api.getStockDetails("XXXX"));
+    waitForCoalesced(api, 1);
+    release.countDown();
+    assertEquals("Stock data for XXXX is unavailable", messageOf(first));
+    assertEquals("Stock data for XXXX is unavailable", messageOf(second));
+    assertEquals("Stock data for XXXX is unavailable",
+            messageOf(executor.submit(() -> api.getStockDetails("XXXX"))));
+    assertEquals(2, calls.get());
+    assertEquals(1, api.getCoalesced());
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,234 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import controller.TransactionJournal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the TransactionJournal class. The class tests that saving appends
+ * only the new transactions, that loading replays them and that a torn record is dropped.
+ */
+public class TransactionJournalTest {
+
+  private Path directory;
+  private File checkpoint;
+  private File journalFile;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("journal");
+    checkpoint = directory.resolve("heet.csv").toFile();
+    journalFile = directory.resolve("journal").resolve("heet.journal").toFile();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    File snapshot = new File(journalFile.getParentFile(), "heet.snapshot");
+    for (File file : new File[]{journalFile, snapshot, journalFile.getParentFile(),
+        checkpoint}) {
+      Files.deleteIfExists(file.toPath());
+    }
+    Files.deleteIfExists(directory);
+  }
+
+  private static String transaction(int i) {
+    return "GOOG,2024-01-" + (10 + i % 20) + ",138.6,140.36,18974308," + i + ".0,3228.28,"
+            + (i % 3 == 0 ? "SELL" : "BUY");
+  }
+
+  private static List<String> transactions(int count) {
+    List<String> transactions = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      transactions.add(transaction(i));
+    }
+    return transactions;
+  }
+
+  private TransactionJournal journal() {
+    return new TransactionJournal(checkpoint, journalFile);
+  }
+
+  @Test
+  public void testSaveAppendsNewTransactions() throws IOException {
+    TransactionJournal journal = journal();
+    journal.save(transactions(3));
+    assertEquals(transactions(3), Files.readAllLines(checkpoint.toPath()));
+    journal.save(transactions(5));
+    journal.save(transactions(6));
+    assertEquals(transactions(3), Files.readAllLines(checkpoint.toPath()));
+    assertEquals(3, journal.getJournalRecords());
+    assertEquals(2, journal.getCommits());
+
+    TransactionJournal reopened = journal();
+    assertEquals(transactions(6), reopened.load());
+    assertEquals(3, reopened.getJournalRecords());
+  }
+
+  @Test
+  public void testLegacyCheckpointWithoutJournal() throws IOException {
+    TransactionJournal.export(transactions(4), checkpoint);
+    TransactionJournal journal = journal();
+    assertEquals(transactions(4), journal.load());
+    journal.save(transactions(5));
+    assertEquals(transactions(4), Files.readAllLines(checkpoint.toPath()));
+    assertEquals(transactions(5), journal().load());
+  }
+
+  @Test
+  public void testTornRecordIsDropped() throws IOException {
+    journal().save(transactions(2));
+    TransactionJournal journal = journal();
+    journal.save(transactions(4));
+    Files.write(journalFile.toPath(), "0badc0de,GOOG,2024-01-10\n12345678,GOOG,20"
+            .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    TransactionJournal reopened = journal();
+    assertEquals(transactions(4), reopened.load());
+    reopened.save(transactions(5));
+    assertEquals(transactions(5), journal().load());
+  }
+
+  @Test
+  public void testCommitsSurviveCorruptHeader() throws IOException {
+    journal().save(transactions(2));
+    Files.write(journalFile.toPath(), "#bas\n".getBytes(StandardCharsets.UTF_8));
+    TransactionJournal journal = journal();
+    assertEquals(transactions(2), journal.load());
+    journal.save(transactions(3));
+    journal.save(transactions(4));
+    assertEquals(transactions(4), journal().load());
+    assertEquals(transactions(4), journal().load());
+  }
+
+  @Test
+  public void testCommitsSurviveStaleBase() throws IOException {
+    journal().save(transactions(2));
+    Files.write(journalFile.toPath(), "#base=7\n".getBytes(StandardCharsets.UTF_8));
+    TransactionJournal journal = journal();
+    assertEquals(transactions(2), journal.load());
+    journal.save(transactions(3));
+    assertEquals(transactions(3), journal().load());
+    assertEquals(transactions(3), journal().load());
+  }
+
+  @Test
+  public void testLoadDoesNotWrite() throws IOException {
+    TransactionJournal.export(transactions(4), checkpoint);
+    assertEquals(transactions(4), journal().load());
+    assertFalse(journalFile.exists());
+
+    journal().save(transactions(5));
+    byte[] torn = (new String(Files.readAllBytes(journalFile.toPath()),
+            StandardCharsets.UTF_8) + "12345678,GOOG,20").getBytes(StandardCharsets.UTF_8);
+    Files.write(journalFile.toPath(), torn);
+    assertEquals(transactions(5), journal().load());
+    assertArrayEquals(torn, Files.readAllBytes(journalFile.toPath()));
+  }
+
+  @Test
+  public void testRewriteWhenHistoryChanges() throws IOException {
+    TransactionJournal journal = journal();
+    journal.save(transactions(4));
+    journal.save(transactions(6));
+    List<String> changed = transactions(3);
+    changed.add(transaction(99));
+    journal.save(changed);
+    assertEquals(changed, Files.readAllLines(checkpoint.toPath()));
+    assertEquals(0, journal.getJournalRecords());
+    assertEquals(changed, journal().load());
+  }
+
+  @Test
+  public void testCompactsLargeJournal() throws IOException {
+    TransactionJournal journal = journal();
+    journal.save(transactions(1));
+    for (int count = 2; count <= 300; count++) {
+      journal.save(transactions(count));
+    }
+    assertTrue(journal.getJournalRecords() < 256);
+    assertEquals(2, journal.getCompactions());
+    assertTrue(Files.readAllLines(checkpoint.toPath()).size() > 1);
+    assertEquals(transactions(300), journal().load());
+  }
+
+  @Test
+  public void testConcurrentSaves() throws Exception {
+    TransactionJournal journal = journal();
+    journal.save(transactions(1));
+    List<String> history = Collections.synchronizedList(new ArrayList<>(transactions(1)));
+    List<Thread> threads = new ArrayList<>();
+    List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+    for (int t = 0; t < 8; t++) {
+      Thread thread = new Thread(() -> {
+        try {
+          for (int i = 0; i < 25; i++) {
+            List<String> snapshot;
+            synchronized (history) {
+              history.add(transaction(history.size()));
+              snapshot = new ArrayList<>(history);
+            }
+            journal.save(snapshot);
+          }
+        } catch (Exception e) {
+          errors.add(e);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(errors.isEmpty());
+    assertEquals(transactions(201), journal().load());
+  }
+
+  @Test
+  public void testSnapshotIsReadUntilTheFilesChange() throws IOException {
+    TransactionJournal journal = journal();
+    ByteBuffer body = ByteBuffer.wrap(new byte[]{1, 2, 3});
+    journal.save(transactions(4));
+    journal.writeSnapshot(body, 3);
+    assertNull(journal.readSnapshot());
+    journal.writeSnapshot(body, 4);
+    assertEquals(body, journal().readSnapshot());
+
+    journal.save(transactions(5));
+    assertNull(journal.readSnapshot());
+    journal.writeSnapshot(body, 5);
+    assertEquals(body, journal.readSnapshot());
+
+    TransactionJournal.export(transactions(5), checkpoint);
+    assertNull(journal.readSnapshot());
+  }
+
+  @Test
+  public void testReloadsJournalWrittenByAnotherInstance() throws Exception {
+    TransactionJournal journal = journal();
+    journal.save(transactions(3));
+    journal.save(transactions(4));
+    List<String> other = transactions(4);
+    other.add("MSFT,2024-02-01,239.65,240.1,15114728,3.0,720.3,BUY");
+    journal().save(other);
+    Thread.sleep(2000);
+
+    journal.save(transactions(5));
+    assertEquals(transactions(5), journal().load());
+  }
+}
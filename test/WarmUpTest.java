@@ -0,0 +1,27 @@
+import org.junit.Test;
+
+import controller.WarmUp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The JUnit test class for the WarmUp class. The class tests that the warm-up of the application
+ * is started once and doesn't run when it isn't configured.
+ */
+public class WarmUpTest {
+
+  @Test
+  public void testStartsOnceAndOnlyWhenConfigured() throws InterruptedException {
+    WarmUp warmUp = WarmUp.start();
+    assertSame(warmUp, WarmUp.start());
+    assertSame(warmUp, WarmUp.current());
+    assertTrue(warmUp.await(0));
+    assertFalse(warmUp.isRunning());
+    assertEquals(0, warmUp.getPortfolios());
+    assertEquals(-1, warmUp.getWarmUpMillis());
+    assertEquals(-1, warmUp.getListingMillis());
+  }
+}